@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the routing cost of {@link PathMappings} with that of evaluating every {@link PathMapping}
+ * one by one, as the number of the registered mappings grows. The thread-local cache is disabled so that
+ * every lookup is a cache miss, which is also what happens when a request has a query string.
+ */
+@State(Scope.Benchmark)
+public class PathMappingsBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    private int numMappings;
+
+    private final List<PathMapping> mappingList = new ArrayList<>();
+    private PathMappings<Integer> mappings;
+    private String[] paths;
+    private int pathIdx;
+
+    @Setup
+    public void setUp() {
+        mappings = new PathMappings<>(0);
+        for (int i = 0; i < numMappings; i++) {
+            final PathMapping mapping;
+            switch (i % 3) {
+                case 0:
+                    mapping = PathMapping.of("/exact/" + i);
+                    break;
+                case 1:
+                    mapping = PathMapping.of("prefix:/prefix/" + i);
+                    break;
+                default:
+                    mapping = PathMapping.of("/params/" + i + "/{a}/{b}");
+            }
+            mappingList.add(mapping);
+            mappings.add(mapping, i);
+        }
+
+        // Add a glob mapping which matches nothing but the fallback.
+        final PathMapping glob = PathMapping.ofGlob("/**/*.glob");
+        mappingList.add(glob);
+        mappings.add(glob, numMappings);
+        mappings.freeze();
+
+        // Look up the last mappings of each type, which is the worst case for a linear scan.
+        paths = new String[] {
+                "/exact/" + last(0),
+                "/prefix/" + last(1) + "/foo/bar",
+                "/params/" + last(2) + "/foo/bar",
+                "/foo/bar.glob",
+                "/not/found"
+        };
+    }
+
+    private int last(int type) {
+        for (int i = numMappings - 1; i >= 0; i--) {
+            if (i % 3 == type) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private String nextPath() {
+        final String path = paths[pathIdx];
+        pathIdx = (pathIdx + 1) % paths.length;
+        return path;
+    }
+
+    @Benchmark
+    public PathMapped<Integer> routingTree() {
+        return mappings.apply(nextPath(), null);
+    }
+
+    @Benchmark
+    public PathMappingResult linearScan() {
+        final String path = nextPath();
+        for (PathMapping m : mappingList) {
+            final PathMappingResult result = m.apply(path, null);
+            if (result.isPresent()) {
+                return result;
+            }
+        }
+        return PathMappingResult.empty();
+    }
+}
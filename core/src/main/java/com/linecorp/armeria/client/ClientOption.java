@@ -19,6 +19,7 @@ import static java.util.Objects.requireNonNull;
 
 import java.util.function.Function;
 
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
 import com.linecorp.armeria.common.SessionProtocol;
 import com.linecorp.armeria.common.http.HttpHeaders;
 import com.linecorp.armeria.common.util.AbstractOption;
@@ -68,6 +69,15 @@ public final class ClientOption<T> extends AbstractOption<T> {
      */
     public static final ClientOption<ClientDecoration> DECORATION = valueOf("DECORATION");
 
+    /**
+     * The number of connections to establish in advance to each {@link Endpoint} on each event loop, so that
+     * the first requests do not pay the cost of the connection handshakes. If the client connects to
+     * an {@link EndpointGroup}, the connections to the {@link Endpoint}s added to the group later are also
+     * established as soon as they are added. {@code 0} disables it, which is the default.
+     */
+    public static final ClientOption<Integer> PREWARMED_CONNECTIONS_PER_ENDPOINT =
+            valueOf("PREWARMED_CONNECTIONS_PER_ENDPOINT");
+
     /**
      * Returns the {@link ClientOption} of the specified name.
      */
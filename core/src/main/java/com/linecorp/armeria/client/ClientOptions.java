@@ -21,6 +21,7 @@ import static com.linecorp.armeria.client.ClientOption.DEFAULT_MAX_RESPONSE_LENG
 import static com.linecorp.armeria.client.ClientOption.DEFAULT_RESPONSE_TIMEOUT_MILLIS;
 import static com.linecorp.armeria.client.ClientOption.DEFAULT_WRITE_TIMEOUT_MILLIS;
 import static com.linecorp.armeria.client.ClientOption.HTTP_HEADERS;
+import static com.linecorp.armeria.client.ClientOption.PREWARMED_CONNECTIONS_PER_ENDPOINT;
 import static java.util.Objects.requireNonNull;
 
 import java.time.Duration;
@@ -152,10 +153,21 @@ public final class ClientOptions extends AbstractOptions {
             ClientOptionValue<T> castOptionValue =
                     (ClientOptionValue<T>) castOption.newValue(filterHttpHeaders((HttpHeaders) value));
             optionValue = castOptionValue;
+        } else if (option == PREWARMED_CONNECTIONS_PER_ENDPOINT) {
+            validatePrewarmedConnectionsPerEndpoint((Integer) value);
         }
         return optionValue;
     }
 
+    private static int validatePrewarmedConnectionsPerEndpoint(int prewarmedConnectionsPerEndpoint) {
+        if (prewarmedConnectionsPerEndpoint < 0) {
+            throw new IllegalArgumentException(
+                    "prewarmedConnectionsPerEndpoint: " + prewarmedConnectionsPerEndpoint +
+                    " (expected: >= 0)");
+        }
+        return prewarmedConnectionsPerEndpoint;
+    }
+
     private static HttpHeaders filterHttpHeaders(HttpHeaders headers) {
         requireNonNull(headers, "headers");
         for (AsciiString name : BLACKLISTED_HEADER_NAMES) {
@@ -247,4 +259,13 @@ public final class ClientOptions extends AbstractOptions {
     public HttpHeaders httpHeaders() {
         return getOrElse(HTTP_HEADERS, HttpHeaders.EMPTY_HEADERS);
     }
+
+    /**
+     * Returns the number of connections to establish in advance to each {@link Endpoint} on each event loop.
+     *
+     * @see ClientOption#PREWARMED_CONNECTIONS_PER_ENDPOINT
+     */
+    public int prewarmedConnectionsPerEndpoint() {
+        return getOrElse(PREWARMED_CONNECTIONS_PER_ENDPOINT, 0);
+    }
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client;
+
+import static java.util.Objects.requireNonNull;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+import com.codahale.metrics.MetricRegistry;
+
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.resolver.dns.DefaultDnsServerAddressStreamProvider;
+import io.netty.resolver.dns.DnsServerAddressStreamProvider;
+
+/**
+ * Builds an {@link AddressResolverGroup} which resolves the host names of the client connections with
+ * the DNS and caches the results in a cache shared by all event loops. A cached entry which has been used
+ * is refreshed asynchronously shortly before it expires, so that the requests rarely wait for a DNS query.
+ *
+ * <p>Example:
+ * <pre>{@code
+ * ClientFactory factory = new AllInOneClientFactory(SessionOptions.of(
+ *         SessionOption.ADDRESS_RESOLVER_GROUP.newValue(
+ *                 new DnsResolverGroupBuilder().ttl(1, 600)
+ *                                              .negativeTtl(10)
+ *                                              .build())));
+ * }</pre>
+ *
+ * <p>A host name in the hosts file is resolved without a DNS query and is not cached. A host name which
+ * is not found in the DNS, or whose queries failed, is resolved by the fallback resolver of Netty, which
+ * also tries the search domains, and is cached for the maximum TTL.
+ *
+ * @see SessionOption#ADDRESS_RESOLVER_GROUP
+ */
+public final class DnsResolverGroupBuilder {
+
+    private static final Duration DEFAULT_QUERY_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration DEFAULT_REFRESH_BEFORE_EXPIRY = Duration.ofSeconds(1);
+
+    private DnsServerAddressStreamProvider serverAddressStreamProvider =
+            DefaultDnsServerAddressStreamProvider.INSTANCE;
+    private Duration queryTimeout = DEFAULT_QUERY_TIMEOUT;
+    private int minTtl = 1;
+    private int maxTtl = 3600;
+    private int negativeTtl;
+    private Duration refreshBeforeExpiry = DEFAULT_REFRESH_BEFORE_EXPIRY;
+    private MetricRegistry metricRegistry;
+    private String metricNamePrefix;
+
+    /**
+     * Sets the {@link DnsServerAddressStreamProvider} which provides the addresses of the DNS servers to
+     * send queries to. The DNS servers of the system are used by default.
+     */
+    public DnsResolverGroupBuilder serverAddressStreamProvider(
+            DnsServerAddressStreamProvider serverAddressStreamProvider) {
+        this.serverAddressStreamProvider =
+                requireNonNull(serverAddressStreamProvider, "serverAddressStreamProvider");
+        return this;
+    }
+
+    /**
+     * Sets the timeout of a DNS query. 5 seconds by default.
+     */
+    public DnsResolverGroupBuilder queryTimeout(Duration queryTimeout) {
+        requireNonNull(queryTimeout, "queryTimeout");
+        if (queryTimeout.isNegative() || queryTimeout.isZero()) {
+            throw new IllegalArgumentException("queryTimeout: " + queryTimeout + " (expected: > 0)");
+        }
+        this.queryTimeout = queryTimeout;
+        return this;
+    }
+
+    /**
+     * Sets the minimum and maximum TTL of the cached DNS records, in seconds. The TTL of a record is
+     * clamped into this range. The default is {@code [1, 3600]}.
+     */
+    public DnsResolverGroupBuilder ttl(int minTtl, int maxTtl) {
+        if (minTtl <= 0 || minTtl > maxTtl) {
+            throw new IllegalArgumentException(
+                    "minTtl: " + minTtl + ", maxTtl: " + maxTtl + " (expected: 0 < minTtl <= maxTtl)");
+        }
+        this.minTtl = minTtl;
+        this.maxTtl = maxTtl;
+        return this;
+    }
+
+    /**
+     * Sets the TTL of the cached resolution failures, in seconds. {@code 0} disables the caching of
+     * failures, which is the default.
+     */
+    public DnsResolverGroupBuilder negativeTtl(int negativeTtl) {
+        if (negativeTtl < 0) {
+            throw new IllegalArgumentException("negativeTtl: " + negativeTtl + " (expected: >= 0)");
+        }
+        this.negativeTtl = negativeTtl;
+        return this;
+    }
+
+    /**
+     * Sets how long before the expiry a cached entry which has been used is refreshed. A cached entry whose
+     * TTL is not longer than this is not refreshed but simply expires. 1 second by default.
+     */
+    public DnsResolverGroupBuilder refreshBeforeExpiry(Duration refreshBeforeExpiry) {
+        requireNonNull(refreshBeforeExpiry, "refreshBeforeExpiry");
+        if (refreshBeforeExpiry.isNegative()) {
+            throw new IllegalArgumentException(
+                    "refreshBeforeExpiry: " + refreshBeforeExpiry + " (expected: >= 0)");
+        }
+        this.refreshBeforeExpiry = refreshBeforeExpiry;
+        return this;
+    }
+
+    /**
+     * Collects the DNS resolution metrics into the specified {@link MetricRegistry}. The following metrics
+     * are collected:
+     * <ul>
+     *   <li>{@code <prefix>.resolutionTime} - how long the DNS resolutions took, including the refreshes</li>
+     *   <li>{@code <prefix>.failures} - the number of failed DNS resolutions</li>
+     *   <li>{@code <prefix>.cacheHits} - the number of the resolutions served from the cache</li>
+     *   <li>{@code <prefix>.cacheMisses} - the number of the resolutions which waited for a DNS query</li>
+     * </ul>
+     */
+    public DnsResolverGroupBuilder metricRegistry(MetricRegistry metricRegistry, String metricNamePrefix) {
+        this.metricRegistry = requireNonNull(metricRegistry, "metricRegistry");
+        this.metricNamePrefix = requireNonNull(metricNamePrefix, "metricNamePrefix");
+        return this;
+    }
+
+    /**
+     * Returns a newly-created {@link AddressResolverGroup} based on the properties of this builder.
+     */
+    public AddressResolverGroup<InetSocketAddress> build() {
+        return new RefreshingAddressResolverGroup(
+                serverAddressStreamProvider, queryTimeout.toMillis(), minTtl, maxTtl, negativeTtl,
+                refreshBeforeExpiry.toMillis(), metricRegistry, metricNamePrefix);
+    }
+}
@@ -21,6 +21,7 @@ import static java.util.Objects.requireNonNull;
 import com.google.common.net.HostAndPort;
 
 import com.linecorp.armeria.client.endpoint.EndpointGroupRegistry;
+import com.linecorp.armeria.client.endpoint.EndpointSelector;
 
 /**
  * A remote endpoint that refers to a single host or a group of multiple hosts.
@@ -129,6 +130,21 @@ public final class Endpoint {
         }
     }
 
+    /**
+     * Resolves this endpoint into a host endpoint for the specified request. Unlike {@link #resolve()},
+     * this method lets the {@link EndpointSelector} of the group track the request.
+     *
+     * @return the {@link Endpoint} resolved by {@link EndpointGroupRegistry}.
+     *         {@code this} if this endpoint is already a host endpoint.
+     */
+    public Endpoint resolve(ClientRequestContext ctx) {
+        if (isGroup()) {
+            return EndpointGroupRegistry.selectNode(ctx, groupName);
+        } else {
+            return this;
+        }
+    }
+
     /**
      * Returns the group name of this endpoint.
      *
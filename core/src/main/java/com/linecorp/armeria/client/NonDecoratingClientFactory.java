@@ -143,7 +143,7 @@ public abstract class NonDecoratingClientFactory extends AbstractClientFactory {
         throw unsupportedEventLoopType(eventLoopGroup);
     }
 
-    private static Class<? extends DatagramChannel> datagramChannelType(EventLoopGroup eventLoopGroup) {
+    static Class<? extends DatagramChannel> datagramChannelType(EventLoopGroup eventLoopGroup) {
         if (eventLoopGroup instanceof NioEventLoopGroup) {
             return NioDatagramChannel.class;
         }
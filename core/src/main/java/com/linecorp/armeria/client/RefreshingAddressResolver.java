@@ -0,0 +1,347 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linecorp.armeria.client.RefreshingAddressResolverGroup.CacheEntry;
+import com.linecorp.armeria.common.util.CompletionActions;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.AddressedEnvelope;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.dns.DefaultDnsQuestion;
+import io.netty.handler.codec.dns.DnsRawRecord;
+import io.netty.handler.codec.dns.DnsRecord;
+import io.netty.handler.codec.dns.DnsRecordType;
+import io.netty.handler.codec.dns.DnsResponse;
+import io.netty.handler.codec.dns.DnsSection;
+import io.netty.resolver.HostsFileEntriesResolver;
+import io.netty.resolver.InetNameResolver;
+import io.netty.resolver.ResolvedAddressTypes;
+import io.netty.resolver.dns.DnsNameResolver;
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+
+/**
+ * Resolves a host name with the hosts file and then the cache shared via
+ * {@link RefreshingAddressResolverGroup}. A cache miss sends {@code A} and then {@code AAAA} queries, and
+ * falls back to {@link DnsNameResolver#resolveAll(String)}, which also looks up the search domains, when
+ * neither query returns an address.
+ */
+final class RefreshingAddressResolver extends InetNameResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshingAddressResolver.class);
+
+    private final EventLoop eventLoop;
+    private final DnsNameResolver dnsResolver;
+    private final RefreshingAddressResolverGroup group;
+
+    /**
+     * The pending refreshes and expiries scheduled by this resolver, which are cancelled when it's closed.
+     */
+    private final Set<ScheduledFuture<?>> scheduledFutures = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    RefreshingAddressResolver(EventLoop eventLoop, DnsNameResolver dnsResolver,
+                              RefreshingAddressResolverGroup group) {
+        super(eventLoop);
+        this.eventLoop = eventLoop;
+        this.dnsResolver = dnsResolver;
+        this.group = group;
+    }
+
+    @Override
+    protected void doResolve(String inetHost, Promise<InetAddress> promise) throws Exception {
+        resolve0(inetHost).handle((addresses, cause) -> {
+            if (cause != null) {
+                promise.tryFailure(cause);
+            } else {
+                promise.trySuccess(addresses.get(0));
+            }
+            return null;
+        });
+    }
+
+    @Override
+    protected void doResolveAll(String inetHost, Promise<List<InetAddress>> promise) throws Exception {
+        resolve0(inetHost).handle((addresses, cause) -> {
+            if (cause != null) {
+                promise.tryFailure(cause);
+            } else {
+                promise.trySuccess(addresses);
+            }
+            return null;
+        });
+    }
+
+    private CompletableFuture<List<InetAddress>> resolve0(String hostname) throws Exception {
+        final byte[] ipAddress = NetUtil.createByteArrayFromIpAddressString(hostname);
+        if (ipAddress != null) {
+            return CompletableFuture.completedFuture(
+                    Collections.singletonList(InetAddress.getByAddress(hostname, ipAddress)));
+        }
+
+        // The hosts file overrides DNS, as it does for the system resolver.
+        final InetAddress hostsFileAddress =
+                HostsFileEntriesResolver.DEFAULT.address(hostname, ResolvedAddressTypes.IPV4_PREFERRED);
+        if (hostsFileAddress != null) {
+            return CompletableFuture.completedFuture(Collections.singletonList(hostsFileAddress));
+        }
+
+        final CacheEntry cached = group.cache.get(hostname);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                group.recordCacheHit();
+                cached.accessed = true;
+                return toFuture(cached);
+            }
+            group.cache.remove(hostname, cached);
+        }
+
+        group.recordCacheMiss();
+
+        // Let the concurrent resolutions of the same host name wait for the same lookup.
+        final CompletableFuture<CacheEntry> newLookup = new CompletableFuture<>();
+        final CompletableFuture<CacheEntry> oldLookup = group.pendingLookups.putIfAbsent(hostname, newLookup);
+        if (oldLookup != null) {
+            return oldLookup.thenCompose(RefreshingAddressResolver::toFuture);
+        }
+
+        lookup(hostname).whenComplete((entry, unused) -> {
+            group.pendingLookups.remove(hostname, newLookup);
+            newLookup.complete(entry);
+        });
+        return newLookup.thenCompose(RefreshingAddressResolver::toFuture);
+    }
+
+    private static CompletableFuture<List<InetAddress>> toFuture(CacheEntry entry) {
+        if (entry.cause != null) {
+            final CompletableFuture<List<InetAddress>> future = new CompletableFuture<>();
+            future.completeExceptionally(entry.cause);
+            return future;
+        }
+        return CompletableFuture.completedFuture(entry.addresses);
+    }
+
+    /**
+     * Sends the DNS queries for the specified host name and caches the result. The returned future is never
+     * completed exceptionally; a failure is represented as a {@link CacheEntry} with a cause.
+     */
+    private CompletableFuture<CacheEntry> lookup(String hostname) {
+        final long startNanos = System.nanoTime();
+        return orElse(query(hostname), () -> fallback(hostname))
+                .handle((entry, cause) -> {
+                    group.recordResolution(System.nanoTime() - startNanos, cause == null);
+                    if (cause != null) {
+                        entry = new CacheEntry(unwrap(cause), group.negativeTtlNanos());
+                    }
+                    cache(hostname, entry);
+                    return entry;
+                });
+    }
+
+    /**
+     * Sends an {@code A} query and then an {@code AAAA} query if the {@code A} query did not return an address.
+     *
+     * @return the future which is completed with {@code null} if neither response has an address, or
+     *         exceptionally if the {@code AAAA} query failed
+     */
+    private CompletableFuture<CacheEntry> query(String hostname) {
+        return orElse(query(hostname, DnsRecordType.A), () -> query(hostname, DnsRecordType.AAAA));
+    }
+
+    /**
+     * Returns the result of the specified future if it's an entry, or the result of the future supplied by
+     * the specified {@link Supplier} if the specified future is completed with {@code null} or exceptionally.
+     */
+    private static CompletableFuture<CacheEntry> orElse(CompletableFuture<CacheEntry> future,
+                                                        Supplier<CompletableFuture<CacheEntry>> next) {
+        return future.handle((entry, cause) -> entry)
+                     .thenCompose(entry -> entry != null ? CompletableFuture.completedFuture(entry)
+                                                         : next.get());
+    }
+
+    /**
+     * Sends a DNS query of the specified type.
+     *
+     * @return the future which is completed with {@code null} if the response has no matching records
+     */
+    private CompletableFuture<CacheEntry> query(String hostname, DnsRecordType type) {
+        final CompletableFuture<CacheEntry> future = new CompletableFuture<>();
+        dnsResolver.query(new DefaultDnsQuestion(hostname, type)).addListener(
+                (Future<AddressedEnvelope<DnsResponse, InetSocketAddress>> f) -> {
+                    if (!f.isSuccess()) {
+                        future.completeExceptionally(f.cause());
+                        return;
+                    }
+
+                    final AddressedEnvelope<DnsResponse, InetSocketAddress> envelope = f.getNow();
+                    try {
+                        future.complete(decode(hostname, envelope.content(), type));
+                    } catch (Throwable cause) {
+                        future.completeExceptionally(cause);
+                    } finally {
+                        envelope.release();
+                    }
+                });
+        return future;
+    }
+
+    private CacheEntry decode(String hostname, DnsResponse response, DnsRecordType type) throws Exception {
+        List<InetAddress> addresses = null;
+        long ttl = Long.MAX_VALUE;
+
+        // Accept all records of the requested type, including the ones for the CNAMEs of the host name.
+        final int count = response.count(DnsSection.ANSWER);
+        for (int i = 0; i < count; i++) {
+            final DnsRecord record = response.recordAt(DnsSection.ANSWER, i);
+            if (record.type() != type || !(record instanceof DnsRawRecord)) {
+                continue;
+            }
+
+            final ByteBuf content = ((DnsRawRecord) record).content();
+            final int length = content.readableBytes();
+            if (length != 4 && length != 16) {
+                continue;
+            }
+
+            final byte[] address = new byte[length];
+            content.getBytes(content.readerIndex(), address);
+            if (addresses == null) {
+                addresses = new ArrayList<>(count);
+            }
+            addresses.add(InetAddress.getByAddress(hostname, address));
+            ttl = Math.min(ttl, record.timeToLive());
+        }
+
+        if (addresses == null) {
+            return null;
+        }
+        return new CacheEntry(Collections.unmodifiableList(addresses), group.positiveTtlNanos(ttl));
+    }
+
+    /**
+     * Resolves the specified host name with {@link DnsNameResolver}, which looks up the hosts file and
+     * the search domains as well. The result is cached for the maximum TTL because its TTL is unknown.
+     */
+    private CompletableFuture<CacheEntry> fallback(String hostname) {
+        final CompletableFuture<CacheEntry> future = new CompletableFuture<>();
+        dnsResolver.resolveAll(hostname).addListener((Future<List<InetAddress>> f) -> {
+            if (f.isSuccess()) {
+                future.complete(new CacheEntry(Collections.unmodifiableList(new ArrayList<>(f.getNow())),
+                                               group.maxTtlNanos()));
+            } else {
+                future.completeExceptionally(f.cause());
+            }
+        });
+        return future;
+    }
+
+    private void cache(String hostname, CacheEntry entry) {
+        if (entry.ttlNanos <= 0) {
+            return;
+        }
+
+        group.cache.put(hostname, entry);
+
+        final long refreshDelayNanos = entry.ttlNanos - group.refreshBeforeExpiryNanos();
+        if (entry.cause == null && refreshDelayNanos > 0) {
+            schedule(() -> refreshOrExpire(hostname, entry), refreshDelayNanos);
+        } else {
+            scheduleExpiry(hostname, entry);
+        }
+    }
+
+    /**
+     * Refreshes the specified entry if it has been used, or lets it expire otherwise. The entry is served
+     * from the cache until it expires, even if the refresh fails.
+     */
+    private void refreshOrExpire(String hostname, CacheEntry entry) {
+        if (group.cache.get(hostname) != entry) {
+            // Replaced or removed already.
+            return;
+        }
+
+        if (!entry.accessed) {
+            scheduleExpiry(hostname, entry);
+            return;
+        }
+
+        final long startNanos = System.nanoTime();
+        query(hostname).handle((newEntry, cause) -> {
+            group.recordResolution(System.nanoTime() - startNanos, newEntry != null);
+            if (newEntry != null) {
+                cache(hostname, newEntry);
+            } else {
+                if (cause != null) {
+                    logger.debug("Failed to refresh the DNS cache entry: {}", hostname, cause);
+                }
+                scheduleExpiry(hostname, entry);
+            }
+            return null;
+        }).exceptionally(CompletionActions::log);
+    }
+
+    private void scheduleExpiry(String hostname, CacheEntry entry) {
+        schedule(() -> group.cache.remove(hostname, entry), Math.max(0, entry.remainingNanos()));
+    }
+
+    private void schedule(Runnable task, long delayNanos) {
+        if (closed) {
+            return;
+        }
+
+        final ScheduledFuture<?> future = eventLoop.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+        scheduledFutures.add(future);
+        future.addListener((FutureListener<Object>) unused -> scheduledFutures.remove(future));
+        if (closed) {
+            // Closed while scheduling.
+            future.cancel(false);
+        }
+    }
+
+    private static Throwable unwrap(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            return cause.getCause();
+        }
+        return cause;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        scheduledFutures.forEach(future -> future.cancel(false));
+        dnsResolver.close();
+    }
+}
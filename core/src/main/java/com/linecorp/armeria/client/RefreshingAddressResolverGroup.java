@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import io.netty.channel.EventLoop;
+import io.netty.resolver.AddressResolver;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.resolver.dns.DnsNameResolver;
+import io.netty.resolver.dns.DnsNameResolverBuilder;
+import io.netty.resolver.dns.DnsServerAddressStreamProvider;
+import io.netty.util.concurrent.EventExecutor;
+
+/**
+ * An {@link AddressResolverGroup} whose {@link AddressResolver}s share the same DNS cache.
+ *
+ * @see DnsResolverGroupBuilder
+ */
+final class RefreshingAddressResolverGroup extends AddressResolverGroup<InetSocketAddress> {
+
+    private final DnsServerAddressStreamProvider serverAddressStreamProvider;
+    private final long queryTimeoutMillis;
+    private final long minTtlNanos;
+    private final long maxTtlNanos;
+    private final long negativeTtlNanos;
+    private final long refreshBeforeExpiryNanos;
+
+    final ConcurrentMap<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    final ConcurrentMap<String, CompletableFuture<CacheEntry>> pendingLookups = new ConcurrentHashMap<>();
+
+    @Nullable
+    private final Timer resolutionTime;
+    @Nullable
+    private final Meter failures;
+    @Nullable
+    private final Meter cacheHits;
+    @Nullable
+    private final Meter cacheMisses;
+
+    RefreshingAddressResolverGroup(DnsServerAddressStreamProvider serverAddressStreamProvider,
+                                   long queryTimeoutMillis, int minTtl, int maxTtl, int negativeTtl,
+                                   long refreshBeforeExpiryMillis,
+                                   @Nullable MetricRegistry metricRegistry,
+                                   @Nullable String metricNamePrefix) {
+
+        this.serverAddressStreamProvider = serverAddressStreamProvider;
+        this.queryTimeoutMillis = queryTimeoutMillis;
+        minTtlNanos = TimeUnit.SECONDS.toNanos(minTtl);
+        maxTtlNanos = TimeUnit.SECONDS.toNanos(maxTtl);
+        negativeTtlNanos = TimeUnit.SECONDS.toNanos(negativeTtl);
+        refreshBeforeExpiryNanos = TimeUnit.MILLISECONDS.toNanos(refreshBeforeExpiryMillis);
+
+        if (metricRegistry != null) {
+            resolutionTime = metricRegistry.timer(MetricRegistry.name(metricNamePrefix, "resolutionTime"));
+            failures = metricRegistry.meter(MetricRegistry.name(metricNamePrefix, "failures"));
+            cacheHits = metricRegistry.meter(MetricRegistry.name(metricNamePrefix, "cacheHits"));
+            cacheMisses = metricRegistry.meter(MetricRegistry.name(metricNamePrefix, "cacheMisses"));
+        } else {
+            resolutionTime = null;
+            failures = null;
+            cacheHits = null;
+            cacheMisses = null;
+        }
+    }
+
+    @Override
+    protected AddressResolver<InetSocketAddress> newResolver(EventExecutor executor) throws Exception {
+        if (!(executor instanceof EventLoop)) {
+            throw new IllegalStateException("unsupported executor type: " + executor.getClass().getName() +
+                                            " (expected: " + EventLoop.class.getName() + ')');
+        }
+
+        final EventLoop eventLoop = (EventLoop) executor;
+        final DnsNameResolver dnsResolver =
+                new DnsNameResolverBuilder(eventLoop)
+                        .channelType(NonDecoratingClientFactory.datagramChannelType(eventLoop.parent()))
+                        .nameServerProvider(serverAddressStreamProvider)
+                        .queryTimeoutMillis(queryTimeoutMillis)
+                        .build();
+
+        return new RefreshingAddressResolver(eventLoop, dnsResolver, this).asAddressResolver();
+    }
+
+    /**
+     * Returns the TTL of the specified successfully resolved DNS records, clamped into the configured range.
+     */
+    long positiveTtlNanos(long recordTtlSeconds) {
+        final long ttlNanos = TimeUnit.SECONDS.toNanos(recordTtlSeconds);
+        return Math.max(minTtlNanos, Math.min(maxTtlNanos, ttlNanos));
+    }
+
+    long maxTtlNanos() {
+        return maxTtlNanos;
+    }
+
+    long negativeTtlNanos() {
+        return negativeTtlNanos;
+    }
+
+    long refreshBeforeExpiryNanos() {
+        return refreshBeforeExpiryNanos;
+    }
+
+    void recordResolution(long elapsedNanos, boolean success) {
+        if (resolutionTime != null) {
+            resolutionTime.update(elapsedNanos, TimeUnit.NANOSECONDS);
+            if (!success) {
+                failures.mark();
+            }
+        }
+    }
+
+    void recordCacheHit() {
+        if (cacheHits != null) {
+            cacheHits.mark();
+        }
+    }
+
+    void recordCacheMiss() {
+        if (cacheMisses != null) {
+            cacheMisses.mark();
+        }
+    }
+
+    /**
+     * The result of a DNS resolution, either successful or not, shared by all event loops.
+     */
+    static final class CacheEntry {
+        @Nullable
+        final List<InetAddress> addresses;
+        @Nullable
+        final Throwable cause;
+        final long ttlNanos;
+        final long expiryNanos;
+
+        /**
+         * Whether this entry has been served from the cache. Only the entries which have been used are
+         * refreshed before they expire.
+         */
+        volatile boolean accessed;
+
+        CacheEntry(List<InetAddress> addresses, long ttlNanos) {
+            this(addresses, null, ttlNanos);
+        }
+
+        CacheEntry(Throwable cause, long ttlNanos) {
+            this(null, cause, ttlNanos);
+        }
+
+        private CacheEntry(@Nullable List<InetAddress> addresses, @Nullable Throwable cause, long ttlNanos) {
+            this.addresses = addresses;
+            this.cause = cause;
+            this.ttlNanos = ttlNanos;
+            expiryNanos = System.nanoTime() + ttlNanos;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiryNanos >= 0;
+        }
+
+        long remainingNanos() {
+            return expiryNanos - System.nanoTime();
+        }
+    }
+}
@@ -25,6 +25,7 @@ import javax.net.ssl.TrustManagerFactory;
 
 import com.linecorp.armeria.client.pool.KeyedChannelPoolHandler;
 import com.linecorp.armeria.client.pool.PoolKey;
+import com.linecorp.armeria.common.SessionProtocol;
 import com.linecorp.armeria.common.util.AbstractOption;
 
 import io.netty.channel.EventLoop;
@@ -82,6 +83,28 @@ public final class SessionOption<T> extends AbstractOption<T> {
     public static final SessionOption<Function<KeyedChannelPoolHandler<PoolKey>,
                 KeyedChannelPoolHandler<PoolKey>>> POOL_HANDLER_DECORATOR = valueOf("POOL_HANDLER_DECORATOR");
 
+    /**
+     * The maximum number of connections to the same {@link PoolKey}, i.e. the same remote address and
+     * {@link SessionProtocol}, per event loop. When the limit is reached, an acquisition of a connection waits
+     * until a connection is released back to the pool or closed. Unlimited by default.
+     */
+    public static final SessionOption<Integer> POOL_MAX_CONNECTIONS_PER_KEY =
+            valueOf("POOL_MAX_CONNECTIONS_PER_KEY");
+
+    /**
+     * The maximum number of acquisitions of a connection which can wait for the same {@link PoolKey} when
+     * {@link #POOL_MAX_CONNECTIONS_PER_KEY} is reached. An acquisition fails immediately when this limit is
+     * reached. Unlimited by default.
+     */
+    public static final SessionOption<Integer> POOL_MAX_PENDING_ACQUIRES = valueOf("POOL_MAX_PENDING_ACQUIRES");
+
+    /**
+     * The maximum amount of time an acquisition of a connection can wait when
+     * {@link #POOL_MAX_CONNECTIONS_PER_KEY} is reached. {@link Duration#ZERO} disables the timeout, which is
+     * the default.
+     */
+    public static final SessionOption<Duration> POOL_ACQUIRE_TIMEOUT = valueOf("POOL_ACQUIRE_TIMEOUT");
+
     /**
      * Whether to send an HTTP/2 preface string instead of an HTTP/1 upgrade request to negotiate the protocol
      * version of a cleartext HTTP connection.
@@ -94,6 +117,49 @@ public final class SessionOption<T> extends AbstractOption<T> {
      */
     public static final SessionOption<Boolean> USE_HTTP1_PIPELINING = valueOf("USE_HTTP1_PIPELINING");
 
+    /**
+     * The initial flow-control window size of an HTTP/2 connection. It must not be less than {@code 65535},
+     * which is the default.
+     */
+    public static final SessionOption<Integer> HTTP2_INITIAL_CONNECTION_WINDOW_SIZE =
+            valueOf("HTTP2_INITIAL_CONNECTION_WINDOW_SIZE");
+
+    /**
+     * The initial flow-control window size of an HTTP/2 stream, which is sent to a server as
+     * {@code SETTINGS_INITIAL_WINDOW_SIZE}. The default is {@code 65535}.
+     */
+    public static final SessionOption<Integer> HTTP2_INITIAL_STREAM_WINDOW_SIZE =
+            valueOf("HTTP2_INITIAL_STREAM_WINDOW_SIZE");
+
+    /**
+     * The maximum size of an HTTP/2 frame that can be received, which is sent to a server as
+     * {@code SETTINGS_MAX_FRAME_SIZE}. The default is {@code 16384}.
+     */
+    public static final SessionOption<Integer> HTTP2_MAX_FRAME_SIZE = valueOf("HTTP2_MAX_FRAME_SIZE");
+
+    /**
+     * The size of the HPACK header table used for decoding HTTP/2 headers, which is sent to a server as
+     * {@code SETTINGS_HEADER_TABLE_SIZE}. The default is {@code 4096}.
+     */
+    public static final SessionOption<Long> HTTP2_HEADER_TABLE_SIZE = valueOf("HTTP2_HEADER_TABLE_SIZE");
+
+    /**
+     * Whether to grow the HTTP/2 flow-control windows automatically to the bandwidth-delay product of
+     * a connection, which is measured with {@code PING} frames. This option is disabled by default.
+     */
+    public static final SessionOption<Boolean> HTTP2_ADAPTIVE_FLOW_CONTROL =
+            valueOf("HTTP2_ADAPTIVE_FLOW_CONTROL");
+
+    /**
+     * The maximum number of concurrent requests to send over an HTTP/2 connection. When all connections to
+     * an endpoint have this many requests in progress, or as many as the server allows with
+     * {@code SETTINGS_MAX_CONCURRENT_STREAMS}, another connection is opened, and a new request is sent over
+     * the least loaded connection. Unset by default, which means all concurrent requests to an endpoint
+     * share a connection regardless of its load.
+     */
+    public static final SessionOption<Integer> HTTP2_MAX_STREAMS_PER_CONNECTION =
+            valueOf("HTTP2_MAX_STREAMS_PER_CONNECTION");
+
     /**
      * Returns the {@link SessionOption} of the specified name.
      */
@@ -18,11 +18,24 @@ package com.linecorp.armeria.client;
 import static com.linecorp.armeria.client.SessionOption.ADDRESS_RESOLVER_GROUP;
 import static com.linecorp.armeria.client.SessionOption.CONNECT_TIMEOUT;
 import static com.linecorp.armeria.client.SessionOption.EVENT_LOOP_GROUP;
+import static com.linecorp.armeria.client.SessionOption.HTTP2_ADAPTIVE_FLOW_CONTROL;
+import static com.linecorp.armeria.client.SessionOption.HTTP2_HEADER_TABLE_SIZE;
+import static com.linecorp.armeria.client.SessionOption.HTTP2_INITIAL_CONNECTION_WINDOW_SIZE;
+import static com.linecorp.armeria.client.SessionOption.HTTP2_INITIAL_STREAM_WINDOW_SIZE;
+import static com.linecorp.armeria.client.SessionOption.HTTP2_MAX_FRAME_SIZE;
+import static com.linecorp.armeria.client.SessionOption.HTTP2_MAX_STREAMS_PER_CONNECTION;
 import static com.linecorp.armeria.client.SessionOption.IDLE_TIMEOUT;
+import static com.linecorp.armeria.client.SessionOption.POOL_ACQUIRE_TIMEOUT;
 import static com.linecorp.armeria.client.SessionOption.POOL_HANDLER_DECORATOR;
+import static com.linecorp.armeria.client.SessionOption.POOL_MAX_CONNECTIONS_PER_KEY;
+import static com.linecorp.armeria.client.SessionOption.POOL_MAX_PENDING_ACQUIRES;
 import static com.linecorp.armeria.client.SessionOption.TRUST_MANAGER_FACTORY;
 import static com.linecorp.armeria.client.SessionOption.USE_HTTP1_PIPELINING;
 import static com.linecorp.armeria.client.SessionOption.USE_HTTP2_PREFACE;
+import static com.linecorp.armeria.internal.http.Http2SettingsUtil.validateHttp2HeaderTableSize;
+import static com.linecorp.armeria.internal.http.Http2SettingsUtil.validateHttp2InitialConnectionWindowSize;
+import static com.linecorp.armeria.internal.http.Http2SettingsUtil.validateHttp2InitialStreamWindowSize;
+import static com.linecorp.armeria.internal.http.Http2SettingsUtil.validateHttp2MaxFrameSize;
 import static java.util.Objects.requireNonNull;
 
 import java.net.InetSocketAddress;
@@ -41,6 +54,7 @@ import com.linecorp.armeria.client.pool.PoolKey;
 import com.linecorp.armeria.common.util.AbstractOptions;
 
 import io.netty.channel.EventLoopGroup;
+import io.netty.handler.codec.http2.Http2CodecUtil;
 import io.netty.resolver.AddressResolverGroup;
 
 /**
@@ -56,6 +70,11 @@ public final class SessionOptions extends AbstractOptions {
             "true".equals(System.getProperty("com.linecorp.armeria.defaultUseHttp2Preface", "false"));
     private static final Boolean DEFAULT_USE_HTTP1_PIPELINING =
             "true".equals(System.getProperty("com.linecorp.armeria.defaultUseHttp1Pipelining", "true"));
+    private static final Integer DEFAULT_HTTP2_INITIAL_CONNECTION_WINDOW_SIZE =
+            Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+    private static final Integer DEFAULT_HTTP2_INITIAL_STREAM_WINDOW_SIZE = Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+    private static final Integer DEFAULT_HTTP2_MAX_FRAME_SIZE = Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE;
+    private static final Long DEFAULT_HTTP2_HEADER_TABLE_SIZE = Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
 
     static {
         logger.info("defaultUseHttp2Preface: {}", DEFAULT_USE_HTTP2_PREFACE);
@@ -135,6 +154,22 @@ public final class SessionOptions extends AbstractOptions {
             validateConnectionTimeout((Duration) value);
         } else if (option == IDLE_TIMEOUT) {
             validateIdleTimeout((Duration) value);
+        } else if (option == POOL_MAX_CONNECTIONS_PER_KEY) {
+            validatePoolMaxConnectionsPerKey((Integer) value);
+        } else if (option == POOL_MAX_PENDING_ACQUIRES) {
+            validatePoolMaxPendingAcquires((Integer) value);
+        } else if (option == POOL_ACQUIRE_TIMEOUT) {
+            validatePoolAcquireTimeout((Duration) value);
+        } else if (option == HTTP2_INITIAL_CONNECTION_WINDOW_SIZE) {
+            validateHttp2InitialConnectionWindowSize((Integer) value);
+        } else if (option == HTTP2_INITIAL_STREAM_WINDOW_SIZE) {
+            validateHttp2InitialStreamWindowSize((Integer) value);
+        } else if (option == HTTP2_MAX_FRAME_SIZE) {
+            validateHttp2MaxFrameSize((Integer) value);
+        } else if (option == HTTP2_HEADER_TABLE_SIZE) {
+            validateHttp2HeaderTableSize((Long) value);
+        } else if (option == HTTP2_MAX_STREAMS_PER_CONNECTION) {
+            validateHttp2MaxStreamsPerConnection((Integer) value);
         }
 
         return optionValue;
@@ -158,6 +193,39 @@ public final class SessionOptions extends AbstractOptions {
         return idleTimeout;
     }
 
+    private static int validatePoolMaxConnectionsPerKey(int poolMaxConnectionsPerKey) {
+        if (poolMaxConnectionsPerKey <= 0) {
+            throw new IllegalArgumentException(
+                    "poolMaxConnectionsPerKey: " + poolMaxConnectionsPerKey + " (expected: > 0)");
+        }
+        return poolMaxConnectionsPerKey;
+    }
+
+    private static int validatePoolMaxPendingAcquires(int poolMaxPendingAcquires) {
+        if (poolMaxPendingAcquires < 0) {
+            throw new IllegalArgumentException(
+                    "poolMaxPendingAcquires: " + poolMaxPendingAcquires + " (expected: >= 0)");
+        }
+        return poolMaxPendingAcquires;
+    }
+
+    private static Duration validatePoolAcquireTimeout(Duration poolAcquireTimeout) {
+        requireNonNull(poolAcquireTimeout, "poolAcquireTimeout");
+        if (poolAcquireTimeout.isNegative()) {
+            throw new IllegalArgumentException(
+                    "poolAcquireTimeout: " + poolAcquireTimeout + " (expected: >= 0)");
+        }
+        return poolAcquireTimeout;
+    }
+
+    private static int validateHttp2MaxStreamsPerConnection(int http2MaxStreamsPerConnection) {
+        if (http2MaxStreamsPerConnection <= 0) {
+            throw new IllegalArgumentException(
+                    "http2MaxStreamsPerConnection: " + http2MaxStreamsPerConnection + " (expected: > 0)");
+        }
+        return http2MaxStreamsPerConnection;
+    }
+
     private SessionOptions(SessionOptionValue<?>... options) {
         super(SessionOptions::validateValue, options);
     }
@@ -265,6 +333,37 @@ public final class SessionOptions extends AbstractOptions {
         return getOrElse(POOL_HANDLER_DECORATOR, Function.identity());
     }
 
+    /**
+     * Returns the value of the {@link SessionOption#POOL_MAX_CONNECTIONS_PER_KEY} option, or
+     * {@link Integer#MAX_VALUE} if the option is not set.
+     */
+    public int poolMaxConnectionsPerKey() {
+        return getOrElse(POOL_MAX_CONNECTIONS_PER_KEY, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the value of the {@link SessionOption#POOL_MAX_PENDING_ACQUIRES} option, or
+     * {@link Integer#MAX_VALUE} if the option is not set.
+     */
+    public int poolMaxPendingAcquires() {
+        return getOrElse(POOL_MAX_PENDING_ACQUIRES, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the value of the {@link SessionOption#POOL_ACQUIRE_TIMEOUT} option, or {@link Duration#ZERO}
+     * if the option is not set.
+     */
+    public Duration poolAcquireTimeout() {
+        return getOrElse(POOL_ACQUIRE_TIMEOUT, Duration.ZERO);
+    }
+
+    /**
+     * Returns the {@link SessionOption#POOL_ACQUIRE_TIMEOUT} value as milliseconds.
+     */
+    public long poolAcquireTimeoutMillis() {
+        return poolAcquireTimeout().toMillis();
+    }
+
     /**
      * Returns whether {@link SessionOption#USE_HTTP2_PREFACE} is enabled or not.
      */
@@ -278,4 +377,47 @@ public final class SessionOptions extends AbstractOptions {
     public boolean useHttp1Pipelining() {
         return getOrElse(USE_HTTP1_PIPELINING, DEFAULT_USE_HTTP1_PIPELINING);
     }
+
+    /**
+     * Returns the {@link SessionOption#HTTP2_INITIAL_CONNECTION_WINDOW_SIZE} value.
+     */
+    public int http2InitialConnectionWindowSize() {
+        return getOrElse(HTTP2_INITIAL_CONNECTION_WINDOW_SIZE, DEFAULT_HTTP2_INITIAL_CONNECTION_WINDOW_SIZE);
+    }
+
+    /**
+     * Returns the {@link SessionOption#HTTP2_INITIAL_STREAM_WINDOW_SIZE} value.
+     */
+    public int http2InitialStreamWindowSize() {
+        return getOrElse(HTTP2_INITIAL_STREAM_WINDOW_SIZE, DEFAULT_HTTP2_INITIAL_STREAM_WINDOW_SIZE);
+    }
+
+    /**
+     * Returns the {@link SessionOption#HTTP2_MAX_FRAME_SIZE} value.
+     */
+    public int http2MaxFrameSize() {
+        return getOrElse(HTTP2_MAX_FRAME_SIZE, DEFAULT_HTTP2_MAX_FRAME_SIZE);
+    }
+
+    /**
+     * Returns the {@link SessionOption#HTTP2_HEADER_TABLE_SIZE} value.
+     */
+    public long http2HeaderTableSize() {
+        return getOrElse(HTTP2_HEADER_TABLE_SIZE, DEFAULT_HTTP2_HEADER_TABLE_SIZE);
+    }
+
+    /**
+     * Returns whether {@link SessionOption#HTTP2_ADAPTIVE_FLOW_CONTROL} is enabled or not.
+     */
+    public boolean http2AdaptiveFlowControl() {
+        return getOrElse(HTTP2_ADAPTIVE_FLOW_CONTROL, false);
+    }
+
+    /**
+     * Returns the value of the {@link SessionOption#HTTP2_MAX_STREAMS_PER_CONNECTION} option, or
+     * {@code 0} if the option is not set.
+     */
+    public int http2MaxStreamsPerConnection() {
+        return getOrElse(HTTP2_MAX_STREAMS_PER_CONNECTION, 0);
+    }
 }
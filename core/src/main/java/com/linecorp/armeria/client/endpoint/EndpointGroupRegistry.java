@@ -24,6 +24,7 @@ import java.util.regex.Pattern;
 
 import com.google.common.base.Ascii;
 
+import com.linecorp.armeria.client.ClientRequestContext;
 import com.linecorp.armeria.client.Endpoint;
 
 /**
@@ -106,13 +107,27 @@ public final class EndpointGroupRegistry {
      * case-insensitive {@code groupName}.
      */
     public static Endpoint selectNode(String groupName) {
+        return nodeSelector(groupName).select();
+    }
+
+    /**
+     * Selects an {@link Endpoint} for the specified request from the {@link EndpointGroup} associated with
+     * the specified case-insensitive {@code groupName}.
+     *
+     * @see EndpointSelector#select(ClientRequestContext)
+     */
+    public static Endpoint selectNode(ClientRequestContext ctx, String groupName) {
+        requireNonNull(ctx, "ctx");
+        return nodeSelector(groupName).select(ctx);
+    }
+
+    private static EndpointSelector nodeSelector(String groupName) {
         groupName = normalizeGroupName(groupName);
         EndpointSelector endpointSelector = getNodeSelector(groupName);
         if (endpointSelector == null) {
             throw new EndpointGroupException("non-existent EndpointGroup: " + groupName);
         }
-
-        return endpointSelector.select();
+        return endpointSelector;
     }
 
     private static String normalizeGroupName(String groupName) {
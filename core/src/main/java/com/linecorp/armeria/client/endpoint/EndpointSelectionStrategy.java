@@ -16,6 +16,8 @@
 
 package com.linecorp.armeria.client.endpoint;
 
+import java.time.Duration;
+
 import com.linecorp.armeria.client.Endpoint;
 
 /**
@@ -34,6 +36,35 @@ public interface EndpointSelectionStrategy {
      */
     EndpointSelectionStrategy WEIGHTED_ROUND_ROBIN = new WeightedRoundRobinStrategy();
 
+    /**
+     * Least-outstanding-requests strategy which prefers the {@link Endpoint} with the fewer requests in
+     * flight, so that the requests do not queue up behind a temporarily slow {@link Endpoint}.
+     * An {@link Endpoint} is chosen from two {@link Endpoint}s sampled at random.
+     */
+    EndpointSelectionStrategy LEAST_OUTSTANDING_REQUESTS = new LeastOutstandingRequestsStrategy();
+
+    /**
+     * Peak-EWMA strategy which prefers the {@link Endpoint} with the lower product of the moving average of
+     * its response latency and the number of its requests in flight, so that each {@link Endpoint} gets
+     * the traffic proportional to its actual capacity rather than its {@link Endpoint#weight()}.
+     * An {@link Endpoint} is chosen from two {@link Endpoint}s sampled at random. The moving average decays
+     * over 10 seconds.
+     *
+     * @see #peakEwma(Duration)
+     */
+    EndpointSelectionStrategy PEAK_EWMA = new PeakEwmaStrategy(PeakEwmaStrategy.DEFAULT_DECAY_WINDOW);
+
+    /**
+     * Returns a new Peak-EWMA strategy whose moving average of response latency decays over
+     * the specified {@code decayWindow}. A shorter window reacts to the latency changes faster but is
+     * more sensitive to outliers.
+     *
+     * @see #PEAK_EWMA
+     */
+    static EndpointSelectionStrategy peakEwma(Duration decayWindow) {
+        return new PeakEwmaStrategy(decayWindow);
+    }
+
     /**
      * Creates a new {@link EndpointSelector} that selects an {@link Endpoint} from the specified
      * {@link EndpointGroup}.
@@ -16,6 +16,7 @@
 
 package com.linecorp.armeria.client.endpoint;
 
+import com.linecorp.armeria.client.ClientRequestContext;
 import com.linecorp.armeria.client.Endpoint;
 
 /**
@@ -38,4 +39,15 @@ public interface EndpointSelector {
      * @return the {@link Endpoint} selected by this {@link EndpointSelector}'s selection strategy
      */
     Endpoint select();
+
+    /**
+     * Selects an {@link Endpoint} from the {@link EndpointGroup} for the specified request. A selector which
+     * needs to track the requests sent to each {@link Endpoint} may override this method and observe
+     * the {@link ClientRequestContext#log()}. The default implementation calls {@link #select()}.
+     *
+     * @return the {@link Endpoint} selected by this {@link EndpointSelector}'s selection strategy
+     */
+    default Endpoint select(ClientRequestContext ctx) {
+        return select();
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.endpoint;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.ImmutableSet;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.common.logging.RequestLogAvailability;
+
+final class LeastOutstandingRequestsStrategy implements EndpointSelectionStrategy {
+
+    @Override
+    public EndpointSelector newSelector(EndpointGroup endpointGroup) {
+        return new LeastOutstandingRequestsSelector(endpointGroup);
+    }
+
+    /**
+     * A select strategy which prefers the {@link Endpoint} with the fewer outstanding requests.
+     *
+     * <p>Instead of scanning all {@link Endpoint}s, it picks the less loaded one of two {@link Endpoint}s
+     * sampled at random. A request is outstanding from its selection until its response ends.
+     *
+     * @see PowerOfTwoChoices
+     */
+    static final class LeastOutstandingRequestsSelector implements EndpointSelector {
+        private final EndpointGroup endpointGroup;
+        private final ConcurrentMap<Endpoint, AtomicInteger> outstandingRequests = new ConcurrentHashMap<>();
+
+        LeastOutstandingRequestsSelector(EndpointGroup endpointGroup) {
+            this.endpointGroup = requireNonNull(endpointGroup, "endpointGroup");
+            // Forget the removed endpoints. The requests in flight keep their counters until they end.
+            endpointGroup.addListener(
+                    endpoints -> outstandingRequests.keySet().retainAll(ImmutableSet.copyOf(endpoints)));
+        }
+
+        @Override
+        public EndpointGroup group() {
+            return endpointGroup;
+        }
+
+        @Override
+        public EndpointSelectionStrategy strategy() {
+            return LEAST_OUTSTANDING_REQUESTS;
+        }
+
+        @Override
+        public Endpoint select() {
+            return select0();
+        }
+
+        @Override
+        public Endpoint select(ClientRequestContext ctx) {
+            final Endpoint endpoint = select0();
+            final AtomicInteger counter = counter(endpoint);
+            counter.incrementAndGet();
+            ctx.log().addListener(log -> counter.decrementAndGet(), RequestLogAvailability.RESPONSE_END);
+            return endpoint;
+        }
+
+        private Endpoint select0() {
+            return PowerOfTwoChoices.select(endpointGroup, this::outstandingRequests);
+        }
+
+        int outstandingRequests(Endpoint endpoint) {
+            final AtomicInteger counter = outstandingRequests.get(endpoint);
+            return counter != null ? counter.get() : 0;
+        }
+
+        private AtomicInteger counter(Endpoint endpoint) {
+            final AtomicInteger counter = outstandingRequests.get(endpoint);
+            if (counter != null) {
+                return counter;
+            }
+            return outstandingRequests.computeIfAbsent(endpoint, unused -> new AtomicInteger());
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.endpoint;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import com.google.common.collect.ImmutableSet;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.common.logging.RequestLogAvailability;
+import com.linecorp.armeria.common.stream.CancelledSubscriptionException;
+
+import io.netty.channel.EventLoop;
+
+final class PeakEwmaStrategy implements EndpointSelectionStrategy {
+
+    static final Duration DEFAULT_DECAY_WINDOW = Duration.ofSeconds(10);
+
+    private final long decayWindowNanos;
+
+    PeakEwmaStrategy(Duration decayWindow) {
+        requireNonNull(decayWindow, "decayWindow");
+        if (decayWindow.isNegative() || decayWindow.isZero()) {
+            throw new IllegalArgumentException("decayWindow: " + decayWindow + " (expected: > 0)");
+        }
+        decayWindowNanos = decayWindow.toNanos();
+    }
+
+    @Override
+    public EndpointSelector newSelector(EndpointGroup endpointGroup) {
+        return new PeakEwmaSelector(this, endpointGroup);
+    }
+
+    /**
+     * A select strategy which prefers the {@link Endpoint} with the lower cost, which is the moving average
+     * of its response latency multiplied by the number of its outstanding requests plus one.
+     *
+     * <p>The moving average jumps to a latency higher than itself immediately and decays towards the lower
+     * latencies exponentially over time, so that an {@link Endpoint} which became slow stops getting
+     * traffic at once and gets it back gradually as it recovers. The moving average also decays towards
+     * zero while no latency is observed, so that an {@link Endpoint} which stopped getting traffic is
+     * tried again after a few decay windows.
+     *
+     * <p>The statistics are kept per {@link EventLoop} to avoid the contention between the event loops.
+     * Each moving average is updated only by its {@link EventLoop} and read by anyone without a lock.
+     *
+     * @see PowerOfTwoChoices
+     */
+    static final class PeakEwmaSelector implements EndpointSelector {
+
+        /**
+         * The cost of an {@link Endpoint} with outstanding requests but no latency sample yet, which is high
+         * enough not to send more requests to it until it responds.
+         */
+        private static final double PENALTY = Long.MAX_VALUE >> 16;
+
+        private final PeakEwmaStrategy strategy;
+        private final EndpointGroup endpointGroup;
+        private final ConcurrentMap<EventLoop, ConcurrentMap<Endpoint, EndpointStats>> statsPerEventLoop =
+                new ConcurrentHashMap<>();
+
+        PeakEwmaSelector(PeakEwmaStrategy strategy, EndpointGroup endpointGroup) {
+            this.strategy = strategy;
+            this.endpointGroup = requireNonNull(endpointGroup, "endpointGroup");
+            // Forget the removed endpoints. The requests in flight keep their stats until they end.
+            endpointGroup.addListener(endpoints -> {
+                final ImmutableSet<Endpoint> endpointSet = ImmutableSet.copyOf(endpoints);
+                statsPerEventLoop.values().forEach(stats -> stats.keySet().retainAll(endpointSet));
+            });
+        }
+
+        @Override
+        public EndpointGroup group() {
+            return endpointGroup;
+        }
+
+        @Override
+        public EndpointSelectionStrategy strategy() {
+            return strategy;
+        }
+
+        /**
+         * Selects one of two {@link Endpoint}s sampled at random, because there are no statistics without
+         * a {@link ClientRequestContext}.
+         */
+        @Override
+        public Endpoint select() {
+            return PowerOfTwoChoices.select(endpointGroup, endpoint -> 0);
+        }
+
+        @Override
+        public Endpoint select(ClientRequestContext ctx) {
+            final EventLoop eventLoop = ctx.eventLoop();
+            final ConcurrentMap<Endpoint, EndpointStats> statsMap = statsMap(eventLoop);
+            final long nowNanos = System.nanoTime();
+            final Endpoint endpoint = PowerOfTwoChoices.select(endpointGroup,
+                                                               e -> cost(statsMap.get(e), nowNanos));
+            final EndpointStats stats = statsMap.computeIfAbsent(
+                    endpoint, unused -> new EndpointStats(strategy.decayWindowNanos));
+
+            final long startTimeNanos = System.nanoTime();
+            stats.start();
+            ctx.log().addListener(log -> {
+                stats.end();
+                final Throwable cause = log.responseCause();
+                if (cause instanceof CancelledSubscriptionException || cause instanceof CancellationException) {
+                    // Cancelled by the client; the latency says nothing about the endpoint.
+                    return;
+                }
+
+                final long endTimeNanos = System.nanoTime();
+                final long latencyNanos = endTimeNanos - startTimeNanos;
+                final boolean failed = cause != null;
+                if (eventLoop.inEventLoop()) {
+                    stats.observe(latencyNanos, endTimeNanos, failed);
+                } else {
+                    eventLoop.execute(() -> stats.observe(latencyNanos, endTimeNanos, failed));
+                }
+            }, RequestLogAvailability.RESPONSE_END);
+            return endpoint;
+        }
+
+        private ConcurrentMap<Endpoint, EndpointStats> statsMap(EventLoop eventLoop) {
+            final ConcurrentMap<Endpoint, EndpointStats> statsMap = statsPerEventLoop.get(eventLoop);
+            if (statsMap != null) {
+                return statsMap;
+            }
+            return statsPerEventLoop.computeIfAbsent(eventLoop, unused -> new ConcurrentHashMap<>());
+        }
+
+        /**
+         * Returns the cost of the {@link Endpoint} with the specified {@link EndpointStats} at the specified
+         * time, with the moving average decayed by the time elapsed since its last sample.
+         */
+        static double cost(EndpointStats stats, long nowNanos) {
+            if (stats == null) {
+                return 0;
+            }
+
+            final int outstandingRequests = stats.outstandingRequests;
+            final double ewmaNanos = stats.ewmaNanos;
+            if (ewmaNanos == 0 && outstandingRequests != 0) {
+                return PENALTY + outstandingRequests;
+            }
+            return stats.decayedEwmaNanos(ewmaNanos, nowNanos) * (outstandingRequests + 1);
+        }
+
+        double cost(EventLoop eventLoop, Endpoint endpoint) {
+            final ConcurrentMap<Endpoint, EndpointStats> statsMap = statsPerEventLoop.get(eventLoop);
+            return cost(statsMap != null ? statsMap.get(endpoint) : null, System.nanoTime());
+        }
+    }
+
+    /**
+     * The statistics of an {@link Endpoint} observed by an {@link EventLoop}.
+     */
+    static final class EndpointStats {
+
+        private static final int FAILURE_PENALTY_FACTOR = 2;
+
+        private static final AtomicIntegerFieldUpdater<EndpointStats> outstandingRequestsUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(EndpointStats.class, "outstandingRequests");
+
+        private final long decayWindowNanos;
+
+        // Updated by any thread atomically.
+        private volatile int outstandingRequests;
+
+        // Updated only by the event loop, and read by any thread.
+        private volatile double ewmaNanos;
+        private volatile long lastObservedTimeNanos;
+
+        EndpointStats(long decayWindowNanos) {
+            this.decayWindowNanos = decayWindowNanos;
+        }
+
+        void start() {
+            outstandingRequestsUpdater.incrementAndGet(this);
+        }
+
+        void end() {
+            outstandingRequestsUpdater.decrementAndGet(this);
+        }
+
+        /**
+         * Updates the moving average with the specified latency observed at the specified time. A failed
+         * request counts as at least {@value #FAILURE_PENALTY_FACTOR} times as slow as the current moving
+         * average, up to the decay window, so that an endpoint which fails fast does not attract
+         * the traffic, and keeps getting slower while it fails.
+         */
+        void observe(long latencyNanos, long timeNanos, boolean failed) {
+            if (!failed) {
+                observe(latencyNanos, timeNanos);
+                return;
+            }
+
+            final double penaltyNanos = decayedEwmaNanos(ewmaNanos, timeNanos) * FAILURE_PENALTY_FACTOR;
+            observe(Math.max(latencyNanos, (long) Math.min(decayWindowNanos, penaltyNanos)), timeNanos);
+        }
+
+        void observe(long latencyNanos, long timeNanos) {
+            final double oldEwmaNanos = ewmaNanos;
+            if (latencyNanos > oldEwmaNanos) {
+                // Jump to the peak.
+                ewmaNanos = latencyNanos;
+            } else {
+                // Decay towards the new sample; the longer since the last sample, the faster.
+                final double weight = weight(timeNanos);
+                ewmaNanos = oldEwmaNanos * weight + latencyNanos * (1 - weight);
+            }
+            lastObservedTimeNanos = timeNanos;
+        }
+
+        /**
+         * Returns the specified moving average decayed towards zero by the time elapsed since the last
+         * sample, as if a zero latency was observed at the specified time.
+         */
+        double decayedEwmaNanos(double ewmaNanos, long nowNanos) {
+            return ewmaNanos * weight(nowNanos);
+        }
+
+        /**
+         * Returns the weight of the moving average at the specified time, which is {@code 1} at the time of
+         * the last sample and {@code 1/e} a decay window later.
+         */
+        private double weight(long timeNanos) {
+            final long elapsedNanos = Math.max(0, timeNanos - lastObservedTimeNanos);
+            return Math.exp(-(double) elapsedNanos / decayWindowNanos);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.endpoint;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToDoubleFunction;
+
+import com.linecorp.armeria.client.Endpoint;
+
+/**
+ * Samples two distinct {@link Endpoint}s at random and picks the one with the lower cost, so that
+ * a selection takes constant time and the concurrent clients do not herd onto the same {@link Endpoint}.
+ */
+final class PowerOfTwoChoices {
+
+    static Endpoint select(EndpointGroup endpointGroup, ToDoubleFunction<Endpoint> cost) {
+        final List<Endpoint> endpoints = endpointGroup.endpoints();
+        final int size = endpoints.size();
+        if (size == 0) {
+            throw new EndpointGroupException(endpointGroup + " is empty");
+        }
+        if (size == 1) {
+            return endpoints.get(0);
+        }
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int i = random.nextInt(size);
+        int j = random.nextInt(size - 1);
+        if (j >= i) {
+            j++;
+        }
+
+        final Endpoint a = endpoints.get(i);
+        final Endpoint b = endpoints.get(j);
+        return cost.applyAsDouble(a) <= cost.applyAsDouble(b) ? a : b;
+    }
+
+    private PowerOfTwoChoices() {}
+}
@@ -16,23 +16,25 @@
 
 package com.linecorp.armeria.client.http;
 
-import org.reactivestreams.Subscriber;
+import com.google.common.base.MoreObjects;
 
-import com.linecorp.armeria.common.http.DefaultHttpResponse;
 import com.linecorp.armeria.common.http.HttpData;
 import com.linecorp.armeria.common.http.HttpObject;
+import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.common.http.HttpResponseWriter;
+import com.linecorp.armeria.common.stream.EventLoopStreamMessage;
 import com.linecorp.armeria.internal.InboundTrafficController;
 
 import io.netty.channel.EventLoop;
 
-final class DecodedHttpResponse extends DefaultHttpResponse {
+final class DecodedHttpResponse extends EventLoopStreamMessage<HttpObject>
+        implements HttpResponse, HttpResponseWriter {
 
-    private final EventLoop eventLoop;
     private InboundTrafficController inboundTrafficController;
     private long writtenBytes;
 
     DecodedHttpResponse(EventLoop eventLoop) {
-        this.eventLoop = eventLoop;
+        super(eventLoop);
     }
 
     void init(InboundTrafficController inboundTrafficController) {
@@ -43,11 +45,6 @@ final class DecodedHttpResponse extends DefaultHttpResponse {
         return writtenBytes;
     }
 
-    @Override
-    public void subscribe(Subscriber<? super HttpObject> subscriber) {
-        subscribe(subscriber, eventLoop);
-    }
-
     @Override
     public boolean write(HttpObject obj) {
         final boolean published = super.write(obj);
@@ -66,4 +63,9 @@ final class DecodedHttpResponse extends DefaultHttpResponse {
             inboundTrafficController.dec(length);
         }
     }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).toString();
+    }
 }
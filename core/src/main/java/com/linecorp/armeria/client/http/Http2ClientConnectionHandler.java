@@ -29,9 +29,10 @@ final class Http2ClientConnectionHandler extends AbstractHttp2ConnectionHandler
 
     Http2ClientConnectionHandler(
             Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder,
-            Http2Settings initialSettings, Http2ResponseDecoder responseDecoder) {
+            Http2Settings initialSettings, int initialConnectionWindowSize,
+            Http2ResponseDecoder responseDecoder) {
 
-        super(decoder, encoder, initialSettings);
+        super(decoder, encoder, initialSettings, initialConnectionWindowSize);
         this.responseDecoder = responseDecoder;
         connection().addListener(responseDecoder);
         decoder().frameListener(responseDecoder);
@@ -46,10 +46,12 @@ final class Http2ResponseDecoder extends HttpResponseDecoder implements Http2Con
     private static final Logger logger = LoggerFactory.getLogger(Http2ResponseDecoder.class);
 
     private final Http2Connection conn;
+    private final Channel channel;
 
     Http2ResponseDecoder(Http2Connection conn, Channel channel) {
         super(channel);
         this.conn = conn;
+        this.channel = channel;
     }
 
     @Override
@@ -71,7 +73,10 @@ final class Http2ResponseDecoder extends HttpResponseDecoder implements Http2Con
     public void onGoAwaySent(int lastStreamId, long errorCode, ByteBuf debugData) {}
 
     @Override
-    public void onGoAwayReceived(int lastStreamId, long errorCode, ByteBuf debugData) {}
+    public void onGoAwayReceived(int lastStreamId, long errorCode, ByteBuf debugData) {
+        // The server will not accept a new stream, so do not send a new request on this connection.
+        HttpSession.get(channel).deactivate();
+    }
 
     @Override
     public void onSettingsRead(ChannelHandlerContext ctx, Http2Settings settings) {
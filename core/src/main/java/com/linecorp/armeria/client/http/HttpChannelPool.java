@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.http;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.linecorp.armeria.client.SessionOption;
+import com.linecorp.armeria.client.SessionOptions;
+import com.linecorp.armeria.client.pool.DefaultKeyedChannelPool;
+import com.linecorp.armeria.client.pool.KeyedChannelPoolHandler;
+import com.linecorp.armeria.client.pool.PoolKey;
+import com.linecorp.armeria.common.SessionProtocol;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+
+/**
+ * A {@link DefaultKeyedChannelPool} which acquires the least loaded HTTP/2 connection among the ones which
+ * have less requests in progress than the limit, so that another connection is opened when all connections
+ * are busy. While a new HTTP/2 connection is being established, the requests which would fit into it wait
+ * for it instead of opening yet another connection. The requests for an HTTP/1 connection never wait,
+ * because it serves only one request at a time.
+ *
+ * @see SessionOption#HTTP2_MAX_STREAMS_PER_CONNECTION
+ */
+final class HttpChannelPool extends DefaultKeyedChannelPool<PoolKey> {
+
+    private final EventLoop eventLoop;
+    private final int maxStreamsPerConnection;
+
+    /**
+     * The connection being established for each key, accessed only from the event loop.
+     */
+    private final Map<PoolKey, PendingConnection> pendingConnections = new HashMap<>();
+
+    /**
+     * The listeners which resume the pending acquisitions of each key when a stream finishes, accessed only
+     * from the event loop.
+     */
+    private final Map<PoolKey, Runnable> responseRemovedListeners = new HashMap<>();
+
+    HttpChannelPool(EventLoop eventLoop, Function<PoolKey, Future<Channel>> channelFactory,
+                    ChannelHealthChecker healthCheck, KeyedChannelPoolHandler<PoolKey> channelPoolHandler,
+                    SessionOptions options) {
+        super(eventLoop, channelFactory, healthCheck, channelPoolHandler, true,
+              options.poolMaxConnectionsPerKey(), options.poolMaxPendingAcquires(),
+              options.poolAcquireTimeoutMillis());
+        this.eventLoop = eventLoop;
+        maxStreamsPerConnection = options.http2MaxStreamsPerConnection();
+    }
+
+    @Override
+    public Future<Channel> acquire(PoolKey key, Promise<Channel> promise) {
+        requireNonNull(key, "key");
+        requireNonNull(promise, "promise");
+
+        if (eventLoop.inEventLoop()) {
+            acquire0(key, promise);
+        } else {
+            eventLoop.execute(() -> acquire0(key, promise));
+        }
+        return promise;
+    }
+
+    private void acquire0(PoolKey key, Promise<Channel> promise) {
+        if (!key.sessionProtocol().isMultiplex() || selectChannel(key, pooledChannels(key)) != null) {
+            super.acquire(key, promise);
+            return;
+        }
+
+        // A new connection has to be opened. Wait for the connection being established if it has room.
+        final PendingConnection pending = pendingConnections.get(key);
+        if (pending != null && pending.waiters.size() + 1 < maxStreamsPerConnection) {
+            pending.waiters.add(promise);
+            return;
+        }
+
+        final PendingConnection newPending = new PendingConnection();
+        pendingConnections.put(key, newPending);
+        super.acquire(key, promise).addListener((Future<Channel> future) -> {
+            pendingConnections.remove(key, newPending);
+            if (newPending.waiters.isEmpty()) {
+                return;
+            }
+
+            if (future.isSuccess()) {
+                final SessionProtocol protocol = HttpSession.get(future.getNow()).protocol();
+                if (protocol != null && protocol.isMultiplex()) {
+                    // Acquire again later, after the new connection is released back to the pool.
+                    eventLoop.execute(() -> newPending.waiters.forEach(p -> acquire0(key, p)));
+                } else {
+                    // Fell back to HTTP/1, which cannot serve the waiters, so let them connect at once.
+                    newPending.waiters.forEach(p -> super.acquire(key, p));
+                }
+            } else {
+                newPending.waiters.forEach(p -> p.tryFailure(future.cause()));
+            }
+        });
+    }
+
+    @Override
+    protected Channel selectChannel(PoolKey key, Collection<Channel> channels) {
+        Channel leastLoaded = null;
+        int leastLoad = Integer.MAX_VALUE;
+        for (Channel ch : channels) {
+            final HttpSession session = HttpSession.get(ch);
+            final SessionProtocol protocol = session.protocol();
+            if (protocol == null || !protocol.isMultiplex() || !session.isActive()) {
+                // An idle HTTP/1 connection, or an inactive connection which will be closed by
+                // the health check.
+                return ch;
+            }
+
+            final int load = session.unfinishedResponses();
+            final int maxLoad = Math.min(maxStreamsPerConnection, session.maxUnfinishedResponses());
+            if (load < maxLoad && load < leastLoad) {
+                leastLoaded = ch;
+                leastLoad = load;
+            }
+        }
+        return leastLoaded;
+    }
+
+    /**
+     * Adds the specified {@link Channel} to this pool. An HTTP/2 connection stays in this pool while its
+     * requests are in progress, so it notifies this pool when a request finishes and its stream is freed.
+     */
+    @Override
+    protected boolean offerChannel(PoolKey key, Channel channel) {
+        final HttpSession session = HttpSession.get(channel);
+        final SessionProtocol protocol = session.protocol();
+        if (protocol != null && protocol.isMultiplex()) {
+            session.setResponseRemovedListener(responseRemovedListeners.computeIfAbsent(
+                    key, k -> () -> notifyChannelAvailable(k)));
+        }
+        return super.offerChannel(key, channel);
+    }
+
+    private static final class PendingConnection {
+        final List<Promise<Channel>> waiters = new ArrayList<>();
+    }
+}
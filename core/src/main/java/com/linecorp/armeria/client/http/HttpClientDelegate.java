@@ -31,6 +31,7 @@ import com.linecorp.armeria.client.Client;
 import com.linecorp.armeria.client.ClientRequestContext;
 import com.linecorp.armeria.client.Endpoint;
 import com.linecorp.armeria.client.SessionOptions;
+import com.linecorp.armeria.client.endpoint.EndpointSelector;
 import com.linecorp.armeria.client.pool.DefaultKeyedChannelPool;
 import com.linecorp.armeria.client.pool.KeyedChannelPool;
 import com.linecorp.armeria.client.pool.KeyedChannelPoolHandler;
@@ -42,12 +43,16 @@ import com.linecorp.armeria.common.http.HttpHeaderNames;
 import com.linecorp.armeria.common.http.HttpHeaders;
 import com.linecorp.armeria.common.http.HttpRequest;
 import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogBuilder;
+import com.linecorp.armeria.common.logging.RequestLogListener;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.EventLoop;
 import io.netty.channel.pool.ChannelHealthChecker;
 import io.netty.util.AsciiString;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.FutureListener;
 
@@ -71,16 +76,17 @@ final class HttpClientDelegate implements Client<HttpRequest, HttpResponse> {
 
     @Override
     public HttpResponse execute(ClientRequestContext ctx, HttpRequest req) throws Exception {
-        final Endpoint endpoint = ctx.endpoint().resolve().withDefaultPort(ctx.sessionProtocol().defaultPort());
+        final Endpoint endpoint = ctx.endpoint().resolve(ctx)
+                                     .withDefaultPort(ctx.sessionProtocol().defaultPort());
         autoFillHeaders(ctx, endpoint, req);
         if (!sanitizePath(req)) {
             req.abort();
-            return HttpResponse.ofFailure(new IllegalArgumentException("invalid path: " + req.path()));
+            final IllegalArgumentException cause = new IllegalArgumentException("invalid path: " + req.path());
+            endLog(ctx, cause);
+            return HttpResponse.ofFailure(cause);
         }
 
-        final PoolKey poolKey = new PoolKey(
-                InetSocketAddress.createUnresolved(endpoint.host(), endpoint.port()),
-                ctx.sessionProtocol());
+        final PoolKey poolKey = poolKey(endpoint, ctx.sessionProtocol());
 
         final EventLoop eventLoop = ctx.eventLoop();
         final Future<Channel> channelFuture = pool(eventLoop).acquire(poolKey);
@@ -91,7 +97,7 @@ final class HttpClientDelegate implements Client<HttpRequest, HttpResponse> {
                 Channel ch = channelFuture.getNow();
                 invoke0(ch, ctx, req, res, poolKey);
             } else {
-                res.close(channelFuture.cause());
+                closeEarly(ctx, req, res, channelFuture.cause());
             }
         } else {
             channelFuture.addListener((Future<Channel> future) -> {
@@ -99,7 +105,7 @@ final class HttpClientDelegate implements Client<HttpRequest, HttpResponse> {
                     Channel ch = future.getNow();
                     invoke0(ch, ctx, req, res, poolKey);
                 } else {
-                    res.close(channelFuture.cause());
+                    closeEarly(ctx, req, res, channelFuture.cause());
                 }
             });
         }
@@ -107,6 +113,37 @@ final class HttpClientDelegate implements Client<HttpRequest, HttpResponse> {
         return res;
     }
 
+    private static PoolKey poolKey(Endpoint endpoint, SessionProtocol sessionProtocol) {
+        return new PoolKey(InetSocketAddress.createUnresolved(endpoint.host(), endpoint.port()),
+                           sessionProtocol);
+    }
+
+    /**
+     * Establishes the specified number of connections to the specified host {@link Endpoint} on each event
+     * loop and returns them to the pool, so that the subsequent requests do not have to wait for
+     * the connection handshakes.
+     */
+    void prewarm(Endpoint endpoint, SessionProtocol sessionProtocol, int numConnections) {
+        final PoolKey poolKey = poolKey(endpoint.withDefaultPort(sessionProtocol.defaultPort()),
+                                        sessionProtocol);
+        for (EventExecutor e : factory.eventLoopGroup()) {
+            final EventLoop eventLoop = (EventLoop) e;
+            final KeyedChannelPool<PoolKey> pool = pool(eventLoop);
+            eventLoop.execute(() -> {
+                // Acquire all connections before releasing any of them, so that new connections are opened.
+                for (int i = 0; i < numConnections; i++) {
+                    pool.acquire(poolKey).addListener((Future<Channel> future) -> {
+                        if (future.isSuccess()) {
+                            release(pool, poolKey, future.getNow());
+                        } else {
+                            logger.warn("Failed to pre-warm a connection: {}", poolKey, future.cause());
+                        }
+                    });
+                }
+            });
+        }
+    }
+
     private static void autoFillHeaders(ClientRequestContext ctx, Endpoint endpoint, HttpRequest req) {
         requireNonNull(req, "req");
         final HttpHeaders headers = req.headers();
@@ -186,9 +223,18 @@ final class HttpClientDelegate implements Client<HttpRequest, HttpResponse> {
             final KeyedChannelPoolHandler<PoolKey> handler =
                     options.poolHandlerDecorator().apply(NOOP_POOL_HANDLER);
 
-            final KeyedChannelPool<PoolKey> newPool = new DefaultKeyedChannelPool<>(
-                    eventLoop, channelFactory, POOL_HEALTH_CHECKER, handler, true);
+            final KeyedChannelPool<PoolKey> newPool;
+            if (options.http2MaxStreamsPerConnection() > 0) {
+                newPool = new HttpChannelPool(eventLoop, channelFactory, POOL_HEALTH_CHECKER, handler, options);
+            } else {
+                newPool = new DefaultKeyedChannelPool<>(
+                        eventLoop, channelFactory, POOL_HEALTH_CHECKER, handler, true,
+                        options.poolMaxConnectionsPerKey(), options.poolMaxPendingAcquires(),
+                        options.poolAcquireTimeoutMillis());
+            }
 
+            // Do not capture 'this' so that a discarded client can be garbage-collected.
+            final ConcurrentMap<EventLoop, KeyedChannelPool<PoolKey>> map = this.map;
             eventLoop.terminationFuture().addListener((FutureListener<Object>) f -> {
                 map.remove(eventLoop);
                 newPool.close();
@@ -209,7 +255,7 @@ final class HttpClientDelegate implements Client<HttpRequest, HttpResponse> {
             if (sessionProtocol == null) {
                 needsRelease = false;
                 try {
-                    res.close(ClosedSessionException.get());
+                    closeEarly(ctx, req, res, ClosedSessionException.get());
                 } finally {
                     channel.close();
                 }
@@ -237,6 +283,26 @@ final class HttpClientDelegate implements Client<HttpRequest, HttpResponse> {
         }
     }
 
+    /**
+     * Fails the specified request which could not be sent at all.
+     */
+    private static void closeEarly(ClientRequestContext ctx, HttpRequest req, DecodedHttpResponse res,
+                                   Throwable cause) {
+        req.abort();
+        res.close(cause);
+        endLog(ctx, cause);
+    }
+
+    /**
+     * Ends the {@link RequestLog} of the specified request which could not be sent at all, so that
+     * the {@link RequestLogListener}s such as the ones of an {@link EndpointSelector} are notified.
+     */
+    private static void endLog(ClientRequestContext ctx, Throwable cause) {
+        final RequestLogBuilder logBuilder = ctx.logBuilder();
+        logBuilder.endRequest(cause);
+        logBuilder.endResponse(cause);
+    }
+
     private static void release(KeyedChannelPool<PoolKey> pool, PoolKey poolKey, Channel channel) {
         try {
             pool.release(poolKey, channel);
@@ -21,6 +21,7 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import java.net.URI;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.linecorp.armeria.client.Client;
 import com.linecorp.armeria.client.ClientBuilderParams;
@@ -48,6 +49,12 @@ public class HttpClientFactory extends NonDecoratingClientFactory {
                                 .map(p -> Scheme.of(SerializationFormat.NONE, p))
                                 .collect(toImmutableSet());
 
+    /**
+     * The {@link HttpConnectionPrewarmer}s of the clients created by this factory, which are stopped when
+     * this factory is closed.
+     */
+    final Set<HttpConnectionPrewarmer> prewarmers = ConcurrentHashMap.newKeySet();
+
     /**
      * Creates a new instance with the default {@link SessionOptions}.
      */
@@ -96,8 +103,16 @@ public class HttpClientFactory extends NonDecoratingClientFactory {
 
         validateClientType(clientType);
 
+        final Endpoint endpoint = newEndpoint(uri);
+        final HttpClientDelegate httpClientDelegate = new HttpClientDelegate(this);
+        final int prewarmedConnectionsPerEndpoint = options.prewarmedConnectionsPerEndpoint();
+        if (prewarmedConnectionsPerEndpoint > 0) {
+            HttpConnectionPrewarmer.start(this, httpClientDelegate, endpoint, scheme.sessionProtocol(),
+                                          prewarmedConnectionsPerEndpoint);
+        }
+
         final Client<HttpRequest, HttpResponse> delegate = options.decoration().decorate(
-                HttpRequest.class, HttpResponse.class, new HttpClientDelegate(this));
+                HttpRequest.class, HttpResponse.class, httpClientDelegate);
 
         if (clientType == Client.class) {
             @SuppressWarnings("unchecked")
@@ -105,8 +120,6 @@ public class HttpClientFactory extends NonDecoratingClientFactory {
             return castClient;
         }
 
-        final Endpoint endpoint = newEndpoint(uri);
-
         if (clientType == HttpClient.class) {
             final HttpClient client = newHttpClient(uri, scheme, endpoint, options, delegate);
 
@@ -123,6 +136,12 @@ public class HttpClientFactory extends NonDecoratingClientFactory {
         return Optional.empty();
     }
 
+    @Override
+    public void close() {
+        prewarmers.forEach(HttpConnectionPrewarmer::stop);
+        super.close();
+    }
+
     private DefaultHttpClient newHttpClient(URI uri, Scheme scheme, Endpoint endpoint, ClientOptions options,
                                             Client<HttpRequest, HttpResponse> delegate) {
         return new DefaultHttpClient(
@@ -49,6 +49,7 @@ import com.linecorp.armeria.common.util.NativeLibraries;
 import com.linecorp.armeria.internal.FlushConsolidationHandler;
 import com.linecorp.armeria.internal.ReadSuppressingHandler;
 import com.linecorp.armeria.internal.TrafficLoggingHandler;
+import com.linecorp.armeria.internal.http.AdaptiveHttp2FlowControlListener;
 import com.linecorp.armeria.internal.http.Http1ClientCodec;
 import com.linecorp.armeria.internal.http.Http2GoAwayListener;
 
@@ -568,7 +569,7 @@ class HttpClientPipelineConfigurator extends ChannelDuplexHandler {
     private Http2ClientConnectionHandler newHttp2ConnectionHandler(Channel ch) {
         final boolean validateHeaders = false;
         final Http2Connection conn = new DefaultHttp2Connection(false);
-        conn.addListener(new Http2GoAwayListener(ch));
+        conn.addListener(new Http2GoAwayListener(conn, ch));
 
         Http2FrameReader reader = new DefaultHttp2FrameReader(validateHeaders);
         Http2FrameWriter writer = new DefaultHttp2FrameWriter();
@@ -578,15 +579,26 @@ class HttpClientPipelineConfigurator extends ChannelDuplexHandler {
 
         final Http2ResponseDecoder listener = new Http2ResponseDecoder(conn, ch);
 
-        final Http2ClientConnectionHandler handler =
-                new Http2ClientConnectionHandler(decoder, encoder, new Http2Settings(), listener);
+        final Http2ClientConnectionHandler handler = new Http2ClientConnectionHandler(
+                decoder, encoder, http2Settings(), options.http2InitialConnectionWindowSize(), listener);
 
         // Setup post build options
+        if (options.http2AdaptiveFlowControl()) {
+            handler.decoder().frameListener(new AdaptiveHttp2FlowControlListener(
+                    listener, handler.encoder(), handler.decoder().flowController()));
+        }
         handler.gracefulShutdownTimeoutMillis(options.idleTimeoutMillis());
 
         return handler;
     }
 
+    private Http2Settings http2Settings() {
+        // SETTINGS_MAX_CONCURRENT_STREAMS is left unset because it limits only the streams pushed by a server.
+        return new Http2Settings().initialWindowSize(options.http2InitialStreamWindowSize())
+                                  .maxFrameSize(options.http2MaxFrameSize())
+                                  .headerTableSize(options.http2HeaderTableSize());
+    }
+
     private static Http1ClientCodec newHttp1Codec() {
         return new Http1ClientCodec() {
             @Override
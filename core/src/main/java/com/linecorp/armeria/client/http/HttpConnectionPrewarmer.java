@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.http;
+
+import java.lang.ref.WeakReference;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linecorp.armeria.client.ClientOption;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.client.endpoint.EndpointGroupRegistry;
+import com.linecorp.armeria.common.SessionProtocol;
+
+/**
+ * Establishes the connections to the {@link Endpoint}s of an {@link EndpointGroup} in advance, whenever
+ * new {@link Endpoint}s are added to the group.
+ *
+ * <p>A client cannot be closed, so a pre-warmer refers to its client only weakly and stops listening to
+ * the group once the client is garbage-collected. All pre-warmers of an {@link HttpClientFactory} are
+ * stopped when the factory is closed.
+ *
+ * @see ClientOption#PREWARMED_CONNECTIONS_PER_ENDPOINT
+ */
+final class HttpConnectionPrewarmer implements Consumer<List<Endpoint>> {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpConnectionPrewarmer.class);
+
+    /**
+     * Pre-warms the connections to the specified {@link Endpoint}. If the {@link Endpoint} is a group,
+     * the connections to the {@link Endpoint}s added to the group later are pre-warmed as well.
+     */
+    static void start(HttpClientFactory factory, HttpClientDelegate delegate, Endpoint endpoint,
+                      SessionProtocol sessionProtocol, int numConnections) {
+        if (!endpoint.isGroup()) {
+            delegate.prewarm(endpoint, sessionProtocol, numConnections);
+            return;
+        }
+
+        final EndpointGroup group = EndpointGroupRegistry.get(endpoint.groupName());
+        if (group == null) {
+            logger.warn("Not pre-warming the connections to a non-existent EndpointGroup: {}",
+                        endpoint.groupName());
+            return;
+        }
+
+        // Clean up after the clients discarded since the last change of their groups.
+        factory.prewarmers.forEach(HttpConnectionPrewarmer::stopIfDiscarded);
+
+        final HttpConnectionPrewarmer prewarmer =
+                new HttpConnectionPrewarmer(factory, group, delegate, sessionProtocol, numConnections);
+        factory.prewarmers.add(prewarmer);
+        group.addListener(prewarmer);
+        prewarmer.accept(group.endpoints());
+    }
+
+    private final HttpClientFactory factory;
+    private final EndpointGroup group;
+    private final WeakReference<HttpClientDelegate> delegateRef;
+    private final SessionProtocol sessionProtocol;
+    private final int numConnections;
+
+    /**
+     * The {@link Endpoint}s whose connections have been pre-warmed. An {@link Endpoint} is removed when it's
+     * removed from the group, so that its connections are pre-warmed again when it comes back.
+     */
+    private final Set<Endpoint> prewarmedEndpoints = new HashSet<>();
+
+    private HttpConnectionPrewarmer(HttpClientFactory factory, EndpointGroup group,
+                                    HttpClientDelegate delegate, SessionProtocol sessionProtocol,
+                                    int numConnections) {
+        this.factory = factory;
+        this.group = group;
+        delegateRef = new WeakReference<>(delegate);
+        this.sessionProtocol = sessionProtocol;
+        this.numConnections = numConnections;
+    }
+
+    @Override
+    public void accept(List<Endpoint> endpoints) {
+        final HttpClientDelegate delegate = delegateRef.get();
+        if (delegate == null) {
+            stop();
+            return;
+        }
+
+        final Set<Endpoint> newEndpoints = new HashSet<>();
+        synchronized (prewarmedEndpoints) {
+            prewarmedEndpoints.retainAll(endpoints);
+            for (Endpoint e : endpoints) {
+                if (prewarmedEndpoints.add(e)) {
+                    newEndpoints.add(e);
+                }
+            }
+        }
+
+        newEndpoints.forEach(e -> delegate.prewarm(e, sessionProtocol, numConnections));
+    }
+
+    private void stopIfDiscarded() {
+        if (delegateRef.get() == null) {
+            stop();
+        }
+    }
+
+    /**
+     * Stops listening to the {@link EndpointGroup}.
+     */
+    void stop() {
+        group.removeListener(this);
+        factory.prewarmers.remove(this);
+    }
+}
@@ -20,6 +20,8 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
+import javax.annotation.Nullable;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,6 +51,8 @@ abstract class HttpResponseDecoder {
     private final IntObjectMap<HttpResponseWrapper> responses = new IntObjectHashMap<>();
     private final InboundTrafficController inboundTrafficController;
     private boolean disconnectWhenFinished;
+    @Nullable
+    private Runnable responseRemovedListener;
 
     HttpResponseDecoder(Channel channel) {
         inboundTrafficController = new InboundTrafficController(channel);
@@ -81,13 +85,25 @@ abstract class HttpResponseDecoder {
     }
 
     final HttpResponseWrapper removeResponse(int id) {
-        return responses.remove(id);
+        final HttpResponseWrapper res = responses.remove(id);
+        if (res != null && responseRemovedListener != null) {
+            responseRemovedListener.run();
+        }
+        return res;
+    }
+
+    final void setResponseRemovedListener(Runnable responseRemovedListener) {
+        this.responseRemovedListener = responseRemovedListener;
     }
 
     final boolean hasUnfinishedResponses() {
         return !responses.isEmpty();
     }
 
+    final int unfinishedResponses() {
+        return responses.size();
+    }
+
     final void failUnfinishedResponses(Throwable cause) {
         try {
             for (HttpResponseWrapper res : responses.values()) {
@@ -52,6 +52,16 @@ interface HttpSession {
             return false;
         }
 
+        @Override
+        public int unfinishedResponses() {
+            return 0;
+        }
+
+        @Override
+        public int maxUnfinishedResponses() {
+            return 0;
+        }
+
         @Override
         public boolean invoke(ClientRequestContext ctx, HttpRequest req, DecodedHttpResponse res) {
             res.close(ClosedSessionException.get());
@@ -65,6 +75,9 @@ interface HttpSession {
 
         @Override
         public void deactivate() {}
+
+        @Override
+        public void setResponseRemovedListener(Runnable listener) {}
     };
 
     static HttpSession get(Channel ch) {
@@ -90,9 +103,23 @@ interface HttpSession {
 
     boolean hasUnfinishedResponses();
 
+    int unfinishedResponses();
+
+    /**
+     * Returns the maximum number of the requests which can be in progress concurrently in this session,
+     * e.g. {@code SETTINGS_MAX_CONCURRENT_STREAMS} of the server for HTTP/2.
+     */
+    int maxUnfinishedResponses();
+
     boolean invoke(ClientRequestContext ctx, HttpRequest req, DecodedHttpResponse res);
 
     void retryWithH1C();
 
     void deactivate();
+
+    /**
+     * Sets the {@link Runnable} which is invoked whenever a request in progress finishes, so that
+     * the requests waiting for a multiplexed connection can be sent on this session.
+     */
+    void setResponseRemovedListener(Runnable listener);
 }
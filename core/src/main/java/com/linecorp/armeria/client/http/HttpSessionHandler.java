@@ -44,6 +44,7 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.socket.ChannelInputShutdownReadComplete;
+import io.netty.handler.codec.http2.Http2Connection;
 import io.netty.handler.codec.http2.Http2ConnectionHandler;
 import io.netty.handler.codec.http2.Http2ConnectionPrefaceWrittenEvent;
 import io.netty.handler.codec.http2.Http2Settings;
@@ -78,6 +79,11 @@ final class HttpSessionHandler extends ChannelDuplexHandler implements HttpSessi
     private HttpResponseDecoder responseDecoder;
     private HttpObjectEncoder requestEncoder;
 
+    /**
+     * The HTTP/2 connection, or {@code null} if the negotiated protocol is HTTP/1.
+     */
+    private Http2Connection http2Connection;
+
     /**
      * The number of requests sent. Disconnects when it reaches at {@link #MAX_NUM_REQUESTS_SENT}.
      */
@@ -113,6 +119,22 @@ final class HttpSessionHandler extends ChannelDuplexHandler implements HttpSessi
         return responseDecoder.hasUnfinishedResponses();
     }
 
+    @Override
+    public int unfinishedResponses() {
+        return responseDecoder.unfinishedResponses();
+    }
+
+    @Override
+    public int maxUnfinishedResponses() {
+        final Http2Connection http2Connection = this.http2Connection;
+        if (http2Connection == null) {
+            return Integer.MAX_VALUE;
+        }
+
+        // The number of the streams the server allows us to open.
+        return http2Connection.local().maxActiveStreams();
+    }
+
     @Override
     public boolean isActive() {
         return active;
@@ -158,6 +180,14 @@ final class HttpSessionHandler extends ChannelDuplexHandler implements HttpSessi
         active = false;
     }
 
+    @Override
+    public void setResponseRemovedListener(Runnable listener) {
+        final HttpResponseDecoder responseDecoder = this.responseDecoder;
+        if (responseDecoder != null) {
+            responseDecoder.setResponseRemovedListener(listener);
+        }
+    }
+
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
         active = ctx.channel().isActive();
@@ -204,6 +234,7 @@ final class HttpSessionHandler extends ChannelDuplexHandler implements HttpSessi
             } else if (protocol == H2 || protocol == H2C) {
                 final Http2ConnectionHandler handler = ctx.pipeline().get(Http2ConnectionHandler.class);
                 requestEncoder = new Http2ObjectEncoder(handler.encoder());
+                http2Connection = handler.connection();
                 responseDecoder = ctx.pipeline().get(Http2ClientConnectionHandler.class).responseDecoder();
             } else {
                 throw new Error(); // Should never reach here.
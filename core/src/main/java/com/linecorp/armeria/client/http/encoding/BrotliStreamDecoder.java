@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.client.http.encoding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.aayushatharva.brotli4j.decoder.DecoderJNI;
+
+import com.linecorp.armeria.common.http.HttpData;
+
+import io.netty.handler.codec.compression.DecompressionException;
+
+/**
+ * A {@link StreamDecoder} that decodes the 'br' encoding incrementally using the native decoder of
+ * Brotli4j.
+ */
+class BrotliStreamDecoder implements StreamDecoder {
+
+    private static final int INPUT_BUFFER_SIZE = 8192;
+
+    private final DecoderJNI.Wrapper decoder;
+    private boolean destroyed;
+
+    BrotliStreamDecoder() {
+        try {
+            decoder = new DecoderJNI.Wrapper(INPUT_BUFFER_SIZE);
+        } catch (IOException e) {
+            throw new DecompressionException("failed to create a Brotli decoder", e);
+        }
+    }
+
+    @Override
+    public HttpData decode(HttpData obj) {
+        if (destroyed) {
+            return HttpData.EMPTY_DATA;
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] array = obj.array();
+        int offset = obj.offset();
+        int remaining = obj.length();
+        for (;;) {
+            switch (decoder.getStatus()) {
+                case DONE:
+                    // Ignore the data after the end of the stream.
+                    pull(out);
+                    return HttpData.of(out.toByteArray());
+                case OK:
+                    decoder.push(0);
+                    break;
+                case NEEDS_MORE_INPUT:
+                    pull(out);
+                    if (remaining == 0) {
+                        return HttpData.of(out.toByteArray());
+                    }
+                    final ByteBuffer input = decoder.getInputBuffer();
+                    input.clear();
+                    final int length = Math.min(input.remaining(), remaining);
+                    input.put(array, offset, length);
+                    offset += length;
+                    remaining -= length;
+                    decoder.push(length);
+                    break;
+                case NEEDS_MORE_OUTPUT:
+                    pull(out);
+                    break;
+                default:
+                    throw new DecompressionException("Brotli stream corrupted");
+            }
+        }
+    }
+
+    @Override
+    public HttpData finish() {
+        if (!destroyed) {
+            destroyed = true;
+            decoder.destroy();
+        }
+        return HttpData.EMPTY_DATA;
+    }
+
+    private void pull(ByteArrayOutputStream out) {
+        while (decoder.hasOutput()) {
+            final ByteBuffer output = decoder.pull();
+            final byte[] bytes = new byte[output.remaining()];
+            output.get(bytes);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.client.http.encoding;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+
+/**
+ * A {@link StreamDecoderFactory} which supports the 'br' encoding. This factory requires
+ * <a href="https://github.com/hyperxpro/Brotli4j">Brotli4j</a> and its native library for the current
+ * platform in the class path.
+ */
+public class BrotliStreamDecoderFactory implements StreamDecoderFactory {
+
+    /**
+     * Creates a new instance.
+     *
+     * @throws UnsatisfiedLinkError if the native library of Brotli4j is not available
+     */
+    public BrotliStreamDecoderFactory() {
+        Brotli4jLoader.ensureAvailability();
+    }
+
+    @Override
+    public String encodingHeaderValue() {
+        return "br";
+    }
+
+    @Override
+    public StreamDecoder newDecoder() {
+        return new BrotliStreamDecoder();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.client.http.encoding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import com.linecorp.armeria.common.http.HttpData;
+
+import io.netty.handler.codec.compression.DecompressionException;
+
+/**
+ * A {@link StreamDecoder} that decodes the 'zstd' encoding incrementally using zstd-jni.
+ * The {@link ZstdInputStream} is in continuous mode, so that it yields what can be decoded from
+ * the data received so far instead of failing on a partial frame.
+ */
+class ZstdStreamDecoder implements StreamDecoder {
+
+    private final PendingInputStream input = new PendingInputStream();
+    private final ZstdInputStream decoder;
+    private final byte[] buf = new byte[8192];
+    private boolean closed;
+
+    ZstdStreamDecoder() {
+        try {
+            decoder = new ZstdInputStream(input);
+            decoder.setContinuous(true);
+        } catch (IOException e) {
+            throw new DecompressionException("failed to create a Zstandard decoder", e);
+        }
+    }
+
+    @Override
+    public HttpData decode(HttpData obj) {
+        if (closed) {
+            return HttpData.EMPTY_DATA;
+        }
+
+        input.set(obj.array(), obj.offset(), obj.length());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            for (;;) {
+                final int readBytes = decoder.read(buf);
+                if (readBytes <= 0) {
+                    break;
+                }
+                out.write(buf, 0, readBytes);
+            }
+        } catch (IOException e) {
+            throw new DecompressionException("Zstandard stream corrupted", e);
+        }
+        return HttpData.of(out.toByteArray());
+    }
+
+    @Override
+    public HttpData finish() {
+        if (!closed) {
+            closed = true;
+            try {
+                decoder.close();
+            } catch (IOException ignored) {
+                // Should never reach here.
+            }
+        }
+        return HttpData.EMPTY_DATA;
+    }
+
+    /**
+     * An {@link InputStream} that yields the data of the last {@link HttpData} and then signals
+     * the end of the stream until the next {@link HttpData} is set.
+     */
+    private static final class PendingInputStream extends InputStream {
+
+        private byte[] array;
+        private int offset;
+        private int end;
+
+        void set(byte[] array, int offset, int length) {
+            this.array = array;
+            this.offset = offset;
+            end = offset + length;
+        }
+
+        @Override
+        public int read() {
+            return offset < end ? array[offset++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (offset >= end) {
+                return -1;
+            }
+            final int readBytes = Math.min(len, end - offset);
+            System.arraycopy(array, offset, b, off, readBytes);
+            offset += readBytes;
+            return readBytes;
+        }
+
+        @Override
+        public int available() {
+            return end - offset;
+        }
+    }
+}
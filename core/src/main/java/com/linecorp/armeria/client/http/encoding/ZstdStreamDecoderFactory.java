@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.client.http.encoding;
+
+import com.github.luben.zstd.util.Native;
+
+/**
+ * A {@link StreamDecoderFactory} which supports the 'zstd' encoding. This factory requires
+ * <a href="https://github.com/luben/zstd-jni">zstd-jni</a> in the class path.
+ */
+public class ZstdStreamDecoderFactory implements StreamDecoderFactory {
+
+    /**
+     * Creates a new instance.
+     *
+     * @throws UnsatisfiedLinkError if the native library of zstd-jni is not available
+     */
+    public ZstdStreamDecoderFactory() {
+        Native.load();
+    }
+
+    @Override
+    public String encodingHeaderValue() {
+        return "zstd";
+    }
+
+    @Override
+    public StreamDecoder newDecoder() {
+        return new ZstdStreamDecoder();
+    }
+}
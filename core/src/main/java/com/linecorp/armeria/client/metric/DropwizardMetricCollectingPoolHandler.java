@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.metric;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import com.linecorp.armeria.client.SessionOption;
+import com.linecorp.armeria.client.pool.DecoratingKeyedChannelPoolHandler;
+import com.linecorp.armeria.client.pool.KeyedChannelPoolHandler;
+import com.linecorp.armeria.client.pool.PoolKey;
+
+import io.netty.channel.Channel;
+
+/**
+ * Decorates a {@link KeyedChannelPoolHandler} to collect the connection pool metrics into Dropwizard
+ * {@link MetricRegistry}. The following metrics are collected for each {@link PoolKey}:
+ * <ul>
+ *   <li>{@code connections} - the number of open connections</li>
+ *   <li>{@code acquiredConnections} - the number of connections acquired from the pool</li>
+ *   <li>{@code pendingAcquires} - the number of acquisitions waiting for a connection because the pool is
+ *       full</li>
+ *   <li>{@code acquireWaitTime} - how long the acquisitions waited for a connection because the pool was
+ *       full</li>
+ * </ul>
+ *
+ * <p>Example:
+ * <pre>{@code
+ * MetricRegistry metricRegistry = new MetricRegistry();
+ * ClientFactory factory = new AllInOneClientFactory(SessionOptions.of(
+ *         SessionOption.POOL_HANDLER_DECORATOR.newValue(
+ *                 DropwizardMetricCollectingPoolHandler.newDecorator(
+ *                         metricRegistry, MetricRegistry.name("clients", "pool")))));
+ * }
+ * </pre>
+ *
+ * @see SessionOption#POOL_MAX_CONNECTIONS_PER_KEY
+ */
+public final class DropwizardMetricCollectingPoolHandler extends DecoratingKeyedChannelPoolHandler<PoolKey> {
+
+    /**
+     * Returns a {@link KeyedChannelPoolHandler} decorator that tracks the connection pool stats using
+     * the Dropwizard metrics library.
+     *
+     * @param metricRegistry the {@link MetricRegistry} to store metrics into.
+     * @param metricNamePrefix the prefix of the names of the metrics created by the returned decorator.
+     */
+    public static Function<KeyedChannelPoolHandler<PoolKey>, KeyedChannelPoolHandler<PoolKey>> newDecorator(
+            MetricRegistry metricRegistry, String metricNamePrefix) {
+
+        requireNonNull(metricRegistry, "metricRegistry");
+        requireNonNull(metricNamePrefix, "metricNamePrefix");
+
+        return handler -> new DropwizardMetricCollectingPoolHandler(handler, metricRegistry, metricNamePrefix);
+    }
+
+    private final MetricRegistry metricRegistry;
+    private final String metricNamePrefix;
+    private final Map<PoolKey, PoolMetrics> poolMetrics = new ConcurrentHashMap<>();
+
+    DropwizardMetricCollectingPoolHandler(KeyedChannelPoolHandler<PoolKey> delegate,
+                                          MetricRegistry metricRegistry, String metricNamePrefix) {
+        super(delegate);
+        this.metricRegistry = metricRegistry;
+        this.metricNamePrefix = metricNamePrefix;
+    }
+
+    @Override
+    public void channelCreated(PoolKey key, Channel ch) throws Exception {
+        // A new connection is handed to the acquirer without channelAcquired().
+        final PoolMetrics metrics = metrics(key);
+        metrics.connections.inc();
+        metrics.acquiredConnections.inc();
+        super.channelCreated(key, ch);
+    }
+
+    @Override
+    public void channelClosed(PoolKey key, Channel ch) throws Exception {
+        metrics(key).connections.dec();
+        super.channelClosed(key, ch);
+    }
+
+    @Override
+    public void channelAcquired(PoolKey key, Channel ch) throws Exception {
+        metrics(key).acquiredConnections.inc();
+        super.channelAcquired(key, ch);
+    }
+
+    @Override
+    public void channelReleased(PoolKey key, Channel ch) throws Exception {
+        metrics(key).acquiredConnections.dec();
+        super.channelReleased(key, ch);
+    }
+
+    @Override
+    public void acquirePending(PoolKey key) throws Exception {
+        metrics(key).pendingAcquires.inc();
+        super.acquirePending(key);
+    }
+
+    @Override
+    public void acquireWaited(PoolKey key, long waitTimeNanos) throws Exception {
+        final PoolMetrics metrics = metrics(key);
+        metrics.pendingAcquires.dec();
+        metrics.acquireWaitTime.update(waitTimeNanos, TimeUnit.NANOSECONDS);
+        super.acquireWaited(key, waitTimeNanos);
+    }
+
+    private PoolMetrics metrics(PoolKey key) {
+        final PoolMetrics metrics = poolMetrics.get(key);
+        if (metrics != null) {
+            return metrics;
+        }
+
+        return poolMetrics.computeIfAbsent(key, k -> {
+            final String prefix = MetricRegistry.name(
+                    metricNamePrefix, k.sessionProtocol().uriText(),
+                    k.remoteAddress().getHostString() + ':' + k.remoteAddress().getPort());
+            return new PoolMetrics(metricRegistry, prefix);
+        });
+    }
+
+    private static final class PoolMetrics {
+        final Counter connections;
+        final Counter acquiredConnections;
+        final Counter pendingAcquires;
+        final Timer acquireWaitTime;
+
+        PoolMetrics(MetricRegistry metricRegistry, String prefix) {
+            connections = metricRegistry.counter(MetricRegistry.name(prefix, "connections"));
+            acquiredConnections = metricRegistry.counter(MetricRegistry.name(prefix, "acquiredConnections"));
+            pendingAcquires = metricRegistry.counter(MetricRegistry.name(prefix, "pendingAcquires"));
+            acquireWaitTime = metricRegistry.timer(MetricRegistry.name(prefix, "acquireWaitTime"));
+        }
+    }
+}
@@ -63,4 +63,14 @@ public class DecoratingKeyedChannelPoolHandler<K> implements KeyedChannelPoolHan
     public void channelClosed(K key, Channel ch) throws Exception {
         delegate().channelClosed(key, ch);
     }
+
+    @Override
+    public void acquirePending(K key) throws Exception {
+        delegate().acquirePending(key);
+    }
+
+    @Override
+    public void acquireWaited(K key, long waitTimeNanos) throws Exception {
+        delegate().acquireWaited(key, waitTimeNanos);
+    }
 }
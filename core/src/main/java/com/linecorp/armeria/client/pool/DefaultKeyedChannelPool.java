@@ -17,12 +17,20 @@ package com.linecorp.armeria.client.pool;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 
+import javax.annotation.Nullable;
+
 import com.linecorp.armeria.common.util.Exceptions;
 
 import io.netty.channel.Channel;
@@ -31,9 +39,12 @@ import io.netty.channel.pool.ChannelHealthChecker;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.FutureListener;
 import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
 
 /**
- * Default {@link KeyedChannelPool} implementation.
+ * Default {@link KeyedChannelPool} implementation. The number of {@link Channel}s per key is unlimited by
+ * default. When the limit is specified, the acquisitions of a {@link Channel} beyond the limit wait until
+ * a {@link Channel} is released or closed, and they are served in the order of arrival.
  *
  * @param <K> the key type
  */
@@ -46,14 +57,33 @@ public class DefaultKeyedChannelPool<K> implements KeyedChannelPool<K> {
             Exceptions.clearTrace(new IllegalStateException(
                     "Channel is unhealthy; not offering it back to pool"));
 
+    private static final IllegalStateException TOO_MANY_PENDING_ACQUIRES_EXCEPTION =
+            Exceptions.clearTrace(new IllegalStateException("Too many outstanding acquire operations"));
+
+    private static final IllegalStateException CLOSED_EXCEPTION =
+            Exceptions.clearTrace(new IllegalStateException("ChannelPool closed"));
+
+    private static final TimeoutException ACQUIRE_TIMEOUT_EXCEPTION =
+            Exceptions.clearTrace(new TimeoutException(
+                    "Acquire operation took longer than the configured maximum time"));
+
     private final EventLoop eventLoop;
     private final Function<K, Future<Channel>> channelFactory;
     private final ChannelHealthChecker healthCheck;
     private final KeyedChannelPoolHandler<K> channelPoolHandler;
     private final boolean releaseHealthCheck;
+    private final int maxConnectionsPerKey;
+    private final int maxPendingAcquires;
+    private final long acquireTimeoutMillis;
 
     private final Map<K, Deque<Channel>> pool;
 
+    /**
+     * The number of {@link Channel}s and the pending acquisitions of each key, accessed only from the event
+     * loop. Used only when the number of {@link Channel}s per key is limited.
+     */
+    private final Map<K, KeyState> keyStates = new HashMap<>();
+
     /**
      * Creates a new instance.
      */
@@ -78,12 +108,46 @@ public class DefaultKeyedChannelPool<K> implements KeyedChannelPool<K> {
                                    ChannelHealthChecker healthCheck,
                                    KeyedChannelPoolHandler<K> channelPoolHandler,
                                    boolean releaseHealthCheck) {
+        this(eventLoop, channelFactory, healthCheck, channelPoolHandler, releaseHealthCheck,
+             Integer.MAX_VALUE, Integer.MAX_VALUE, 0);
+    }
+
+    /**
+     * Creates a new instance which limits the number of {@link Channel}s per key.
+     *
+     * @param maxConnectionsPerKey the maximum number of {@link Channel}s per key
+     * @param maxPendingAcquires the maximum number of acquisitions per key which wait for a {@link Channel}
+     *                           when {@code maxConnectionsPerKey} is reached
+     * @param acquireTimeoutMillis the maximum amount of time an acquisition waits for a {@link Channel}
+     *                             when {@code maxConnectionsPerKey} is reached. {@code 0} disables it.
+     */
+    public DefaultKeyedChannelPool(EventLoop eventLoop, Function<K, Future<Channel>> channelFactory,
+                                   ChannelHealthChecker healthCheck,
+                                   KeyedChannelPoolHandler<K> channelPoolHandler,
+                                   boolean releaseHealthCheck, int maxConnectionsPerKey,
+                                   int maxPendingAcquires, long acquireTimeoutMillis) {
+        if (maxConnectionsPerKey <= 0) {
+            throw new IllegalArgumentException(
+                    "maxConnectionsPerKey: " + maxConnectionsPerKey + " (expected: > 0)");
+        }
+        if (maxPendingAcquires < 0) {
+            throw new IllegalArgumentException(
+                    "maxPendingAcquires: " + maxPendingAcquires + " (expected: >= 0)");
+        }
+        if (acquireTimeoutMillis < 0) {
+            throw new IllegalArgumentException(
+                    "acquireTimeoutMillis: " + acquireTimeoutMillis + " (expected: >= 0)");
+        }
+
         this.eventLoop = requireNonNull(eventLoop, "eventLoop");
         this.channelFactory = requireNonNull(channelFactory, "channelFactory");
         this.healthCheck = requireNonNull(healthCheck, "healthCheck");
         this.channelPoolHandler = new SafeKeyedChannelPoolHandler<>(requireNonNull(channelPoolHandler,
                                                                                    "channelPoolHandler"));
         this.releaseHealthCheck = releaseHealthCheck;
+        this.maxConnectionsPerKey = maxConnectionsPerKey;
+        this.maxPendingAcquires = maxPendingAcquires;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
 
         pool = new ConcurrentHashMap<>();
     }
@@ -108,27 +172,174 @@ public class DefaultKeyedChannelPool<K> implements KeyedChannelPool<K> {
     }
 
     private Future<Channel> acquireHealthyFromPoolOrNew(final K key, final Promise<Channel> promise) {
-        final Deque<Channel> queue = pool.get(key);
-        final Channel ch = queue == null ? null : queue.poll();
+        if (isBounded()) {
+            acquireOrWait(key, promise);
+            return promise;
+        }
 
+        final Channel ch = pollChannel(key);
         if (ch == null) {
-            Future<Channel> f = channelFactory.apply(key);
-            if (f.isDone()) {
-                notifyConnect(key, f, promise);
-            } else {
-                f.addListener((Future<Channel> future) -> notifyConnect(key, future, promise));
-            }
-            return promise;
+            connect(key, promise);
+        } else {
+            acquireHealthy(key, ch, promise);
+        }
+
+        return promise;
+    }
+
+    private void connect(K key, Promise<Channel> promise) {
+        Future<Channel> f = channelFactory.apply(key);
+        if (f.isDone()) {
+            notifyConnect(key, f, promise);
+        } else {
+            f.addListener((Future<Channel> future) -> notifyConnect(key, future, promise));
         }
+    }
 
+    private void acquireHealthy(K key, Channel ch, Promise<Channel> promise) {
         EventLoop loop = ch.eventLoop();
         if (loop.inEventLoop()) {
             doHealthCheck(key, ch, promise);
         } else {
             loop.execute(() -> doHealthCheck(key, ch, promise));
         }
+    }
 
-        return promise;
+    private boolean isBounded() {
+        return maxConnectionsPerKey != Integer.MAX_VALUE;
+    }
+
+    private void acquireOrWait(K key, Promise<Channel> promise) {
+        assert eventLoop.inEventLoop();
+
+        final KeyState state = keyStates.computeIfAbsent(key, unused -> new KeyState());
+        if (state.pendingAcquires.isEmpty() && state.numResumingAcquires == 0) {
+            final Channel ch = pollChannel(key);
+            if (ch != null) {
+                acquireHealthy(key, ch, promise);
+                return;
+            }
+            if (state.numConnections < maxConnectionsPerKey) {
+                state.numConnections++;
+                connect(key, promise);
+                return;
+            }
+        }
+
+        // Wait behind the other pending acquisitions to serve them in order.
+        if (state.pendingAcquires.size() >= maxPendingAcquires) {
+            promise.tryFailure(TOO_MANY_PENDING_ACQUIRES_EXCEPTION);
+            return;
+        }
+
+        final PendingAcquire pendingAcquire = new PendingAcquire(promise);
+        state.pendingAcquires.add(pendingAcquire);
+        channelPoolHandler.acquirePending(key);
+        if (acquireTimeoutMillis > 0) {
+            pendingAcquire.timeoutFuture = eventLoop.schedule(() -> {
+                if (state.pendingAcquires.remove(pendingAcquire)) {
+                    completePendingAcquire(key, pendingAcquire);
+                    promise.tryFailure(ACQUIRE_TIMEOUT_EXCEPTION);
+                }
+            }, acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Lets the first pending acquisition of the specified {@code key} acquire a {@link Channel}, because
+     * a {@link Channel} has been released or closed. The acquisition is resumed later rather than
+     * immediately, so that a chain of releases and acquisitions does not grow the stack.
+     */
+    private void resumeFirstPendingAcquire(K key) {
+        final KeyState state = keyStates.get(key);
+        if (state == null) {
+            return;
+        }
+
+        for (;;) {
+            final PendingAcquire pendingAcquire = state.pendingAcquires.poll();
+            if (pendingAcquire == null) {
+                return;
+            }
+            if (pendingAcquire.promise.isDone()) {
+                // Cancelled by the caller.
+                completePendingAcquire(key, pendingAcquire);
+                continue;
+            }
+
+            state.numResumingAcquires++;
+            eventLoop.execute(() -> resumePendingAcquire(key, state, pendingAcquire));
+            return;
+        }
+    }
+
+    /**
+     * Lets a pending acquisition of the specified {@code key} acquire a {@link Channel}, because a pooled
+     * {@link Channel} can serve one more acquisition, e.g. a request on a multiplexed {@link Channel} has
+     * finished. A subclass which keeps the multiplexed {@link Channel}s in this pool while they are in use
+     * has to call this method; otherwise the pending acquisitions wait until a {@link Channel} is released
+     * or closed.
+     */
+    protected final void notifyChannelAvailable(K key) {
+        if (!isBounded()) {
+            return;
+        }
+
+        if (eventLoop.inEventLoop()) {
+            resumeFirstPendingAcquire(key);
+        } else {
+            eventLoop.execute(() -> resumeFirstPendingAcquire(key));
+        }
+    }
+
+    private void resumePendingAcquire(K key, KeyState state, PendingAcquire pendingAcquire) {
+        state.numResumingAcquires--;
+
+        final Promise<Channel> promise = pendingAcquire.promise;
+        final ScheduledFuture<?> timeoutFuture = pendingAcquire.timeoutFuture;
+        if (timeoutFuture != null && timeoutFuture.isDone()) {
+            // Timed out while being resumed.
+            completePendingAcquire(key, pendingAcquire);
+            promise.tryFailure(ACQUIRE_TIMEOUT_EXCEPTION);
+            return;
+        }
+
+        final Channel ch = pollChannel(key);
+        if (ch != null) {
+            completePendingAcquire(key, pendingAcquire);
+            acquireHealthy(key, ch, promise);
+        } else if (state.numConnections < maxConnectionsPerKey) {
+            completePendingAcquire(key, pendingAcquire);
+            state.numConnections++;
+            connect(key, promise);
+        } else {
+            // Someone else took the Channel. Wait again without losing the place in the queue.
+            state.pendingAcquires.addFirst(pendingAcquire);
+        }
+    }
+
+    private void completePendingAcquire(K key, PendingAcquire pendingAcquire) {
+        final ScheduledFuture<?> timeoutFuture = pendingAcquire.timeoutFuture;
+        if (timeoutFuture != null) {
+            timeoutFuture.cancel(false);
+        }
+        channelPoolHandler.acquireWaited(key, System.nanoTime() - pendingAcquire.startTimeNanos);
+    }
+
+    private void onConnectionClosed(K key) {
+        assert eventLoop.inEventLoop();
+
+        final KeyState state = keyStates.get(key);
+        if (state == null) {
+            return;
+        }
+
+        state.numConnections--;
+        if (state.numConnections == 0 && state.pendingAcquires.isEmpty() && state.numResumingAcquires == 0) {
+            keyStates.remove(key);
+        } else {
+            resumeFirstPendingAcquire(key);
+        }
     }
 
     private void notifyConnect(K key, Future<Channel> future, Promise<Channel> promise) {
@@ -139,9 +350,18 @@ public class DefaultKeyedChannelPool<K> implements KeyedChannelPool<K> {
                 Channel channel = future.getNow();
                 channel.attr(KeyedChannelPoolUtil.POOL).set(this);
                 channelPoolHandler.channelCreated(key, channel);
-                channel.closeFuture().addListener(f -> channelPoolHandler.channelClosed(key, channel));
+                channel.closeFuture().addListener(f -> {
+                    channelPoolHandler.channelClosed(key, channel);
+                    removeClosedChannel(key, channel);
+                    if (isBounded()) {
+                        onConnectionClosed(key);
+                    }
+                });
                 promise.setSuccess(channel);
             } else {
+                if (isBounded()) {
+                    onConnectionClosed(key);
+                }
                 promise.setFailure(future.cause());
             }
         } catch (Exception e) {
@@ -259,6 +479,9 @@ public class DefaultKeyedChannelPool<K> implements KeyedChannelPool<K> {
         if (offerChannel(key, channel)) {
             channelPoolHandler.channelReleased(key, channel);
             promise.setSuccess(null);
+            if (isBounded()) {
+                resumeFirstPendingAcquire(key);
+            }
         } else {
             closeAndFail(channel, FULL_EXCEPTION, promise);
         }
@@ -271,18 +494,55 @@ public class DefaultKeyedChannelPool<K> implements KeyedChannelPool<K> {
      */
     protected Channel pollChannel(K key) {
         final Deque<Channel> queue = pool.get(key);
-        final Channel ch;
         if (queue == null) {
-            ch = null;
-        } else {
-            ch = queue.poll();
-            if (queue.isEmpty()) {
-                pool.remove(key);
-            }
+            return null;
+        }
+
+        final Channel ch = selectChannel(key, queue);
+        if (ch == null || !queue.remove(ch)) {
+            return null;
+        }
+
+        if (queue.isEmpty()) {
+            pool.remove(key);
         }
         return ch;
     }
 
+    /**
+     * Removes the specified closed {@link Channel} from this pool, so that an idle {@link Channel} closed by
+     * the remote peer or by the idle timeout does not stay in the pool until it's polled.
+     */
+    private void removeClosedChannel(K key, Channel channel) {
+        final Deque<Channel> queue = pool.get(key);
+        if (queue != null && queue.remove(channel) && queue.isEmpty()) {
+            pool.remove(key, queue);
+        }
+    }
+
+    /**
+     * Returns the read-only view of the {@link Channel}s pooled for the specified {@code key}, in the order
+     * they were added to this pool.
+     */
+    protected Collection<Channel> pooledChannels(K key) {
+        final Deque<Channel> queue = pool.get(key);
+        return queue != null ? Collections.unmodifiableCollection(queue) : Collections.emptyList();
+    }
+
+    /**
+     * Selects the {@link Channel} to acquire among the pooled {@link Channel}s that match the specified
+     * {@code key}. The default implementation selects the {@link Channel} pooled first. Override this method
+     * to use a different strategy, e.g. selecting the least loaded one among the multiplexed
+     * {@link Channel}s.
+     *
+     * @param channels the pooled {@link Channel}s, in the order they were added to this pool
+     * @return the {@link Channel} to remove from this pool, or {@code null} to create a new {@link Channel}
+     */
+    @Nullable
+    protected Channel selectChannel(K key, Collection<Channel> channels) {
+        return channels.isEmpty() ? null : channels.iterator().next();
+    }
+
     /**
      * Adds a {@link Channel} to this pool.
      *
@@ -294,9 +554,18 @@ public class DefaultKeyedChannelPool<K> implements KeyedChannelPool<K> {
 
     @Override
     public void close() {
+        if (isBounded()) {
+            if (eventLoop.inEventLoop() || eventLoop.isShutdown()) {
+                failPendingAcquires();
+            } else {
+                eventLoop.execute(this::failPendingAcquires);
+            }
+        }
+
         pool.forEach((k, v) -> {
             for (;;) {
-                Channel channel = pollChannel(k);
+                // Do not use pollChannel() which may not select all channels.
+                Channel channel = v.poll();
                 if (channel == null) {
                     break;
                 }
@@ -307,4 +576,33 @@ public class DefaultKeyedChannelPool<K> implements KeyedChannelPool<K> {
             }
         });
     }
+
+    private void failPendingAcquires() {
+        keyStates.forEach((key, state) -> {
+            for (;;) {
+                final PendingAcquire pendingAcquire = state.pendingAcquires.poll();
+                if (pendingAcquire == null) {
+                    break;
+                }
+                completePendingAcquire(key, pendingAcquire);
+                pendingAcquire.promise.tryFailure(CLOSED_EXCEPTION);
+            }
+        });
+    }
+
+    private static final class KeyState {
+        int numConnections;
+        int numResumingAcquires;
+        final Deque<PendingAcquire> pendingAcquires = new ArrayDeque<>();
+    }
+
+    private static final class PendingAcquire {
+        final Promise<Channel> promise;
+        final long startTimeNanos = System.nanoTime();
+        ScheduledFuture<?> timeoutFuture;
+
+        PendingAcquire(Promise<Channel> promise) {
+            this.promise = promise;
+        }
+    }
 }
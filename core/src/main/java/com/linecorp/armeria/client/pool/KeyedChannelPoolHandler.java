@@ -43,4 +43,19 @@ public interface KeyedChannelPoolHandler<K> {
      * Invoked when the specified {@code channel} has been closed and removed from the pool.
      */
     void channelClosed(K key, Channel ch) throws Exception;
+
+    /**
+     * Invoked when an acquisition of a {@link Channel} for the specified {@code key} has started to wait
+     * because the pool has reached its maximum number of {@link Channel}s for the {@code key}.
+     */
+    default void acquirePending(K key) throws Exception {}
+
+    /**
+     * Invoked when an acquisition of a {@link Channel} for the specified {@code key}, which was notified via
+     * {@link #acquirePending(Object)}, has stopped waiting, either because a {@link Channel} became available
+     * or because it timed out or was cancelled.
+     *
+     * @param waitTimeNanos the amount of time the acquisition waited, in nanoseconds
+     */
+    default void acquireWaited(K key, long waitTimeNanos) throws Exception {}
 }
@@ -37,4 +37,10 @@ public class KeyedChannelPoolHandlerAdapter<K> implements KeyedChannelPoolHandle
 
     @Override
     public void channelClosed(K key, Channel ch) throws Exception {}
+
+    @Override
+    public void acquirePending(K key) throws Exception {}
+
+    @Override
+    public void acquireWaited(K key, long waitTimeNanos) throws Exception {}
 }
@@ -72,4 +72,22 @@ class SafeKeyedChannelPoolHandler<K> implements KeyedChannelPoolHandler<K> {
             logFailure("channelClosed", e);
         }
     }
+
+    @Override
+    public void acquirePending(K key) {
+        try {
+            handler.acquirePending(key);
+        } catch (Exception e) {
+            logFailure("acquirePending", e);
+        }
+    }
+
+    @Override
+    public void acquireWaited(K key, long waitTimeNanos) {
+        try {
+            handler.acquireWaited(key, waitTimeNanos);
+        } catch (Exception e) {
+            logFailure("acquireWaited", e);
+        }
+    }
 }
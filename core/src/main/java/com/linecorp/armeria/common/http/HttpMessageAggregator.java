@@ -21,20 +21,36 @@ import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 
+import javax.annotation.Nullable;
+
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 
 import com.linecorp.armeria.internal.http.ByteBufHttpData;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+
 abstract class HttpMessageAggregator implements Subscriber<HttpObject>, BiConsumer<Void, Throwable> {
 
     private final CompletableFuture<AggregatedHttpMessage> future;
+    @Nullable
+    private final ByteBufAllocator alloc;
     private final List<HttpData> contentList = new ArrayList<>();
     private int contentLength;
     private Subscription subscription;
 
-    protected HttpMessageAggregator(CompletableFuture<AggregatedHttpMessage> future) {
+    /**
+     * Creates a new instance.
+     *
+     * @param alloc the {@link ByteBufAllocator} which allocates the content of the aggregated message
+     *              from pooled buffers, or {@code null} to aggregate the content into a heap array
+     */
+    protected HttpMessageAggregator(CompletableFuture<AggregatedHttpMessage> future,
+                                    @Nullable ByteBufAllocator alloc) {
         this.future = future;
+        this.alloc = alloc;
     }
 
     @Override
@@ -105,6 +121,8 @@ abstract class HttpMessageAggregator implements Subscriber<HttpObject>, BiConsum
         final HttpData content;
         if (contentLength == 0) {
             content = HttpData.EMPTY_DATA;
+        } else if (alloc != null) {
+            content = new ByteBufHttpData(mergePooled(alloc), true);
         } else {
             final byte[] merged = new byte[contentLength];
             for (int i = 0, offset = 0; i < contentList.size(); i++) {
@@ -112,20 +130,75 @@ abstract class HttpMessageAggregator implements Subscriber<HttpObject>, BiConsum
                 final int dataLength = data.length();
                 System.arraycopy(data.array(), data.offset(), merged, offset, dataLength);
                 offset += dataLength;
+                release(data);
             }
             content = HttpData.of(merged);
         }
+        contentList.clear();
 
         final AggregatedHttpMessage aggregated = onSuccess(content);
-        future.complete(aggregated);
+        if (!future.complete(aggregated)) {
+            release(content);
+        }
+    }
+
+    /**
+     * Merges the content into a single {@link ByteBuf} without copying when all chunks are pooled,
+     * or into a new pooled {@link ByteBuf} otherwise. The ownership of the pooled chunks is transferred
+     * to the returned {@link ByteBuf}.
+     */
+    private ByteBuf mergePooled(ByteBufAllocator alloc) {
+        final int numChunks = contentList.size();
+        boolean allPooled = true;
+        for (int i = 0; i < numChunks; i++) {
+            if (!(contentList.get(i) instanceof ByteBufHttpData)) {
+                allPooled = false;
+                break;
+            }
+        }
+
+        if (allPooled) {
+            if (numChunks == 1) {
+                return ((ByteBufHttpData) contentList.set(0, null)).buf();
+            }
+
+            // Do not let the CompositeByteBuf consolidate its components, which is a full copy.
+            final CompositeByteBuf merged = alloc.compositeBuffer(numChunks);
+            for (int i = 0; i < numChunks; i++) {
+                merged.addComponent(true, ((ByteBufHttpData) contentList.set(i, null)).buf());
+            }
+            return merged;
+        }
+
+        final ByteBuf merged = alloc.buffer(contentLength);
+        for (int i = 0; i < numChunks; i++) {
+            final HttpData data = contentList.set(i, null);
+            if (data instanceof ByteBufHttpData) {
+                final ByteBuf buf = ((ByteBufHttpData) data).buf();
+                merged.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+                buf.release();
+            } else {
+                merged.writeBytes(data.array(), data.offset(), data.length());
+            }
+        }
+        return merged;
     }
 
     private void fail(Throwable cause) {
+        for (HttpData data : contentList) {
+            release(data);
+        }
         contentList.clear();
         onFailure();
         future.completeExceptionally(cause);
     }
 
+    private static void release(@Nullable HttpData data) {
+        if (data instanceof ByteBufHttpData) {
+            ((ByteBufHttpData) data).buf().release();
+        }
+    }
+
     protected abstract AggregatedHttpMessage onSuccess(HttpData content);
 
     protected abstract void onFailure();
@@ -16,6 +16,8 @@
 
 package com.linecorp.armeria.common.http;
 
+import static java.util.Objects.requireNonNull;
+
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 
@@ -25,6 +27,10 @@ import org.reactivestreams.Subscriber;
 import com.linecorp.armeria.common.Request;
 import com.linecorp.armeria.common.stream.StreamMessage;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.ReferenceCountUtil;
+
 /**
  * A streamed HTTP/2 {@link Request}.
  *
@@ -134,7 +140,7 @@ public interface HttpRequest extends Request, StreamMessage<HttpObject> {
      */
     default CompletableFuture<AggregatedHttpMessage> aggregate() {
         final CompletableFuture<AggregatedHttpMessage> future = new CompletableFuture<>();
-        final HttpRequestAggregator aggregator = new HttpRequestAggregator(this, future);
+        final HttpRequestAggregator aggregator = new HttpRequestAggregator(this, future, null);
         closeFuture().whenComplete(aggregator);
         subscribe(aggregator);
         return future;
@@ -146,9 +152,49 @@ public interface HttpRequest extends Request, StreamMessage<HttpObject> {
      */
     default CompletableFuture<AggregatedHttpMessage> aggregate(Executor executor) {
         final CompletableFuture<AggregatedHttpMessage> future = new CompletableFuture<>();
-        final HttpRequestAggregator aggregator = new HttpRequestAggregator(this, future);
+        final HttpRequestAggregator aggregator = new HttpRequestAggregator(this, future, null);
         closeFuture().whenCompleteAsync(aggregator, executor);
         subscribe(aggregator, executor);
         return future;
     }
+
+    /**
+     * Aggregates this request into pooled {@link ByteBuf}s allocated by the specified
+     * {@link ByteBufAllocator}. The returned {@link CompletableFuture} will be notified when the content and
+     * the trailing headers of the request is received fully. Unlike {@link #aggregate()}, the content is not
+     * copied into a new heap array when it consists of pooled buffers.
+     *
+     * <p>The content of the {@link AggregatedHttpMessage} may be a pooled object, which must be released by
+     * the caller using {@link ReferenceCountUtil#safeRelease(Object)} once it is not used anymore.
+     * Releasing the content of a non-pooled {@link AggregatedHttpMessage} is a no-op.
+     */
+    default CompletableFuture<AggregatedHttpMessage> aggregateWithPooledObjects(ByteBufAllocator alloc) {
+        requireNonNull(alloc, "alloc");
+        final CompletableFuture<AggregatedHttpMessage> future = new CompletableFuture<>();
+        final HttpRequestAggregator aggregator = new HttpRequestAggregator(this, future, alloc);
+        closeFuture().whenComplete(aggregator);
+        subscribe(aggregator, true);
+        return future;
+    }
+
+    /**
+     * Aggregates this request into pooled {@link ByteBuf}s allocated by the specified
+     * {@link ByteBufAllocator}. The returned {@link CompletableFuture} will be notified when the content and
+     * the trailing headers of the request is received fully. Unlike {@link #aggregate(Executor)}, the content
+     * is not copied into a new heap array when it consists of pooled buffers.
+     *
+     * <p>The content of the {@link AggregatedHttpMessage} may be a pooled object, which must be released by
+     * the caller using {@link ReferenceCountUtil#safeRelease(Object)} once it is not used anymore.
+     * Releasing the content of a non-pooled {@link AggregatedHttpMessage} is a no-op.
+     */
+    default CompletableFuture<AggregatedHttpMessage> aggregateWithPooledObjects(
+            Executor executor, ByteBufAllocator alloc) {
+        requireNonNull(executor, "executor");
+        requireNonNull(alloc, "alloc");
+        final CompletableFuture<AggregatedHttpMessage> future = new CompletableFuture<>();
+        final HttpRequestAggregator aggregator = new HttpRequestAggregator(this, future, alloc);
+        closeFuture().whenCompleteAsync(aggregator, executor);
+        subscribe(aggregator, executor, true);
+        return future;
+    }
 }
@@ -23,14 +23,18 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
+import javax.annotation.Nullable;
+
+import io.netty.buffer.ByteBufAllocator;
+
 final class HttpResponseAggregator extends HttpMessageAggregator {
 
     private List<HttpHeaders> informationals;
     private HttpHeaders headers;
     private HttpHeaders trailingHeaders;
 
-    HttpResponseAggregator(CompletableFuture<AggregatedHttpMessage> future) {
-        super(future);
+    HttpResponseAggregator(CompletableFuture<AggregatedHttpMessage> future, @Nullable ByteBufAllocator alloc) {
+        super(future, alloc);
         trailingHeaders = HttpHeaders.EMPTY_HEADERS;
     }
 
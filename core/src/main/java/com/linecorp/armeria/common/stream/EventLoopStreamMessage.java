@@ -0,0 +1,524 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.common.stream;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.http.HttpData;
+import com.linecorp.armeria.common.util.Exceptions;
+import com.linecorp.armeria.internal.http.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.concurrent.EventExecutor;
+
+/**
+ * A {@link StreamMessage} whose state is confined to a single {@link EventExecutor}. Unlike
+ * {@link DefaultStreamMessage}, the elements are buffered in a plain array-backed ring and the demand is
+ * tracked without any atomic operations, because they are only accessed from the {@link EventExecutor}.
+ * A call from other threads is handed off to the {@link EventExecutor} via its task queue, so this class
+ * is still safe to use from any thread, but it performs best when the elements are written from the
+ * {@link EventExecutor} and the {@link Subscriber} is notified by the same {@link EventExecutor}, e.g.
+ * a message decoded from a {@link io.netty.channel.Channel}.
+ *
+ * <p>Note that the {@link Subscriber} subscribed without an {@link Executor} is notified by the
+ * {@link EventExecutor} rather than the thread which wrote the elements.
+ *
+ * @param <T> the type of element signaled
+ */
+public class EventLoopStreamMessage<T> implements StreamMessage<T>, StreamWriter<T> {
+
+    private enum State {
+        /**
+         * The initial state. Will enter {@link #CLOSED} or {@link #CLEANUP}.
+         */
+        OPEN,
+        /**
+         * {@link #close()} or {@link #close(Throwable)} has been called.
+         */
+        CLOSED,
+        /**
+         * Anything in the queue must be cleaned up because there's no chance of consumption by subscriber.
+         */
+        CLEANUP
+    }
+
+    private static final CloseEvent SUCCESSFUL_CLOSE = new CloseEvent(null);
+    private static final CloseEvent CANCELLED_CLOSE = new CloseEvent(
+            Exceptions.clearTrace(CancelledSubscriptionException.get()));
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<EventLoopStreamMessage, SubscriptionImpl>
+            subscriptionUpdater = AtomicReferenceFieldUpdater.newUpdater(
+                    EventLoopStreamMessage.class, SubscriptionImpl.class, "subscription");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<EventLoopStreamMessage, State> stateUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(EventLoopStreamMessage.class, State.class, "state");
+
+    private final EventExecutor eventLoop;
+    private final CompletableFuture<Void> closeFuture = new CompletableFuture<>();
+
+    // Accessed only from the event loop.
+    private final ArrayDeque<Object> queue = new ArrayDeque<>();
+    private long demand;
+    private boolean subscribed;
+    private boolean notifying;
+
+    @SuppressWarnings("unused")
+    private volatile SubscriptionImpl subscription; // set only via subscriptionUpdater
+
+    @SuppressWarnings("FieldMayBeFinal")
+    private volatile State state = State.OPEN;
+
+    private volatile boolean wroteAny;
+
+    /**
+     * Creates a new instance whose state is confined to the specified {@link EventExecutor}.
+     */
+    public EventLoopStreamMessage(EventExecutor eventLoop) {
+        this.eventLoop = requireNonNull(eventLoop, "eventLoop");
+    }
+
+    /**
+     * Returns the {@link EventExecutor} which this stream is confined to.
+     */
+    protected final EventExecutor eventLoop() {
+        return eventLoop;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return state == State.OPEN;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return !isOpen() && !wroteAny;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        requireNonNull(subscriber, "subscriber");
+        subscribe(subscriber, false);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber, boolean withPooledObjects) {
+        requireNonNull(subscriber, "subscriber");
+        subscribe0(new SubscriptionImpl(this, subscriber, eventLoop, withPooledObjects));
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber, Executor executor) {
+        requireNonNull(subscriber, "subscriber");
+        requireNonNull(executor, "executor");
+        subscribe(subscriber, executor, false);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber, Executor executor, boolean withPooledObjects) {
+        requireNonNull(subscriber, "subscriber");
+        requireNonNull(executor, "executor");
+        subscribe0(new SubscriptionImpl(this, subscriber, executor, withPooledObjects));
+    }
+
+    private void subscribe0(SubscriptionImpl subscription) {
+        if (!subscriptionUpdater.compareAndSet(this, null, subscription)) {
+            throw new IllegalStateException(
+                    "subscribed by other subscriber already: " + this.subscription.subscriber());
+        }
+
+        // Always notify asynchronously as DefaultStreamMessage does, so that a caller which subscribes from
+        // the event loop is not called back before subscribe() returns.
+        eventLoop.execute(() -> subscribe1(subscription));
+    }
+
+    private void subscribe1(SubscriptionImpl subscription) {
+        subscription.invoke(() -> subscription.subscriber().onSubscribe(subscription));
+        subscribed = true;
+        notifySubscriber();
+    }
+
+    @Override
+    public void abort() {
+        final SubscriptionImpl currentSubscription = subscription;
+        if (currentSubscription != null) {
+            currentSubscription.cancel();
+            return;
+        }
+
+        final SubscriptionImpl newSubscription = new SubscriptionImpl(
+                this, AbortingSubscriber.INSTANCE, eventLoop, false);
+        if (subscriptionUpdater.compareAndSet(this, null, newSubscription)) {
+            if (eventLoop.inEventLoop()) {
+                subscribe1(newSubscription);
+            } else {
+                eventLoop.execute(() -> subscribe1(newSubscription));
+            }
+        } else {
+            subscription.cancel();
+        }
+    }
+
+    @Override
+    public boolean write(T obj) {
+        requireNonNull(obj, "obj");
+        if (!isOpen()) {
+            return false;
+        }
+
+        if (!wroteAny) {
+            wroteAny = true;
+        }
+        pushObject(obj);
+        return true;
+    }
+
+    @Override
+    public boolean write(Supplier<? extends T> supplier) {
+        return write(supplier.get());
+    }
+
+    @Override
+    public CompletableFuture<Void> onDemand(Runnable task) {
+        requireNonNull(task, "task");
+
+        final AwaitDemandFuture f = new AwaitDemandFuture();
+        if (!isOpen()) {
+            f.completeExceptionally(ClosedPublisherException.get());
+        } else {
+            pushObject(f);
+        }
+
+        return f.thenRun(task);
+    }
+
+    private void pushObject(Object obj) {
+        if (eventLoop.inEventLoop()) {
+            pushObject0(obj);
+        } else {
+            eventLoop.execute(() -> pushObject0(obj));
+        }
+    }
+
+    private void pushObject0(Object obj) {
+        queue.add(obj);
+        notifySubscriber();
+    }
+
+    private void request(long n) {
+        final long oldDemand = demand;
+        if (oldDemand >= Long.MAX_VALUE - n) {
+            demand = Long.MAX_VALUE;
+        } else {
+            demand = oldDemand + n;
+        }
+
+        if (oldDemand == 0) {
+            notifySubscriber();
+        }
+    }
+
+    private void notifySubscriber() {
+        final SubscriptionImpl subscription = this.subscription;
+        if (subscription == null || !subscribed || notifying || queue.isEmpty()) {
+            // If notifying, the loop below will pick up the new element or the new demand.
+            return;
+        }
+
+        notifying = true;
+        try {
+            notifySubscriber(subscription);
+        } finally {
+            notifying = false;
+        }
+    }
+
+    private void notifySubscriber(SubscriptionImpl subscription) {
+        for (;;) {
+            if (state == State.CLEANUP) {
+                cleanup();
+                return;
+            }
+
+            final Object o = queue.peek();
+            if (o == null) {
+                break;
+            }
+
+            if (o instanceof CloseEvent) {
+                queue.poll();
+                notifySubscriberWithCloseEvent(subscription, (CloseEvent) o);
+                break;
+            }
+
+            if (demand == 0) {
+                // Not enough demand.
+                break;
+            }
+
+            if (o instanceof AwaitDemandFuture) {
+                queue.poll();
+                ((AwaitDemandFuture) o).complete(null);
+                continue;
+            }
+
+            queue.poll();
+            if (demand != Long.MAX_VALUE) {
+                demand--;
+            }
+            notifySubscriber(subscription, o);
+        }
+    }
+
+    private void notifySubscriber(SubscriptionImpl subscription, Object o) {
+        @SuppressWarnings("unchecked")
+        final T obj = (T) o;
+        onRemoval(obj);
+
+        final Subscriber<Object> subscriber = subscription.subscriber();
+        if (!subscription.withPooledObjects() && obj instanceof ByteBufHttpData) {
+            final ByteBuf buf = ((ByteBufHttpData) obj).buf();
+            final HttpData data;
+            try {
+                data = HttpData.of(ByteBufUtil.getBytes(buf));
+            } finally {
+                buf.release();
+            }
+            subscription.invoke(() -> subscriber.onNext(data));
+        } else {
+            subscription.invoke(() -> subscriber.onNext(obj));
+        }
+    }
+
+    private void notifySubscriberWithCloseEvent(SubscriptionImpl subscription, CloseEvent o) {
+        setState(State.CLEANUP);
+        try {
+            final Subscriber<Object> subscriber = subscription.subscriber();
+            final Throwable cause = o.cause();
+            if (cause == null) {
+                subscription.invoke(() -> {
+                    try {
+                        subscriber.onComplete();
+                    } finally {
+                        closeFuture.complete(null);
+                    }
+                });
+            } else {
+                subscription.invoke(() -> {
+                    try {
+                        if (!o.isCancelled()) {
+                            subscriber.onError(cause);
+                        }
+                    } finally {
+                        closeFuture.completeExceptionally(cause);
+                    }
+                });
+            }
+        } finally {
+            cleanup();
+        }
+    }
+
+    /**
+     * Invoked by the {@link EventExecutor} after an element is removed from the queue and before
+     * {@link Subscriber#onNext(Object)} is invoked.
+     *
+     * @param obj the removed element
+     */
+    protected void onRemoval(T obj) {}
+
+    @Override
+    public CompletableFuture<Void> closeFuture() {
+        return closeFuture;
+    }
+
+    @Override
+    public void close() {
+        if (setState(State.CLOSED)) {
+            pushObject(SUCCESSFUL_CLOSE);
+        }
+    }
+
+    @Override
+    public void close(Throwable cause) {
+        requireNonNull(cause, "cause");
+        if (cause instanceof CancelledSubscriptionException) {
+            throw new IllegalArgumentException("cause: " + cause + " (must use Subscription.cancel())");
+        }
+
+        if (setState(State.CLOSED)) {
+            pushObject(new CloseEvent(cause));
+        }
+    }
+
+    private boolean setState(State state) {
+        assert state != State.OPEN : "state: " + state;
+        return stateUpdater.compareAndSet(this, State.OPEN, state);
+    }
+
+    private void cleanup() {
+        final Throwable cause = ClosedPublisherException.get();
+        for (;;) {
+            final Object e = queue.poll();
+            if (e == null) {
+                break;
+            }
+
+            try {
+                if (e instanceof CloseEvent) {
+                    final Throwable closeCause = ((CloseEvent) e).cause();
+                    if (closeCause != null) {
+                        closeFuture.completeExceptionally(closeCause);
+                    } else {
+                        closeFuture.complete(null);
+                    }
+                    continue;
+                }
+
+                if (e instanceof CompletableFuture) {
+                    ((CompletableFuture<?>) e).completeExceptionally(cause);
+                    continue;
+                }
+
+                @SuppressWarnings("unchecked")
+                T obj = (T) e;
+                onRemoval(obj);
+            } finally {
+                if (e instanceof ByteBufHttpData) {
+                    ((ByteBufHttpData) e).buf().release();
+                }
+            }
+        }
+    }
+
+    private static final class SubscriptionImpl implements Subscription {
+
+        private final EventLoopStreamMessage<?> publisher;
+        private final Subscriber<Object> subscriber;
+        private final Executor executor;
+        private final boolean withPooledObjects;
+
+        @SuppressWarnings("unchecked")
+        SubscriptionImpl(EventLoopStreamMessage<?> publisher, Subscriber<?> subscriber, Executor executor,
+                         boolean withPooledObjects) {
+            this.publisher = publisher;
+            this.subscriber = (Subscriber<Object>) subscriber;
+            this.executor = executor;
+            this.withPooledObjects = withPooledObjects;
+        }
+
+        Subscriber<Object> subscriber() {
+            return subscriber;
+        }
+
+        boolean withPooledObjects() {
+            return withPooledObjects;
+        }
+
+        /**
+         * Invokes the specified {@link Subscriber} callback directly if the {@link Subscriber} is notified by
+         * the event loop, or hands it off to the {@link Executor} of the {@link Subscriber} otherwise.
+         */
+        void invoke(Runnable task) {
+            if (executor == publisher.eventLoop) {
+                task.run();
+            } else {
+                executor.execute(task);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                throw new IllegalArgumentException("n: " + n + " (expected: > 0)");
+            }
+
+            final EventExecutor eventLoop = publisher.eventLoop;
+            if (eventLoop.inEventLoop()) {
+                publisher.request(n);
+            } else {
+                eventLoop.execute(() -> publisher.request(n));
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (publisher.setState(State.CLEANUP)) {
+                final CloseEvent closeEvent =
+                        Exceptions.isVerbose() ? new CloseEvent(CancelledSubscriptionException.get())
+                                               : CANCELLED_CLOSE;
+
+                publisher.pushObject(closeEvent);
+            } else {
+                // Ensure the closeFuture is notified if not notified yet.
+                final EventExecutor eventLoop = publisher.eventLoop;
+                if (eventLoop.inEventLoop()) {
+                    publisher.notifySubscriber();
+                } else {
+                    eventLoop.execute(publisher::notifySubscriber);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(Subscription.class)
+                              .add("publisher", publisher)
+                              .add("executor", executor).toString();
+        }
+    }
+
+    private static final class AwaitDemandFuture extends CompletableFuture<Void> {}
+
+    private static final class CloseEvent {
+        private final Throwable cause;
+
+        CloseEvent(Throwable cause) {
+            this.cause = cause;
+        }
+
+        boolean isCancelled() {
+            return cause instanceof CancelledSubscriptionException;
+        }
+
+        Throwable cause() {
+            return cause;
+        }
+
+        @Override
+        public String toString() {
+            if (cause == null) {
+                return "CloseEvent";
+            } else {
+                return "CloseEvent(" + cause + ')';
+            }
+        }
+    }
+}
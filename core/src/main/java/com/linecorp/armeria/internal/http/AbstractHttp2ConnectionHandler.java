@@ -16,6 +16,7 @@
 
 package com.linecorp.armeria.internal.http;
 
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
 import static io.netty.handler.codec.http2.Http2Error.INTERNAL_ERROR;
 
 import com.google.common.base.MoreObjects;
@@ -28,7 +29,9 @@ import io.netty.handler.codec.http2.Http2ConnectionEncoder;
 import io.netty.handler.codec.http2.Http2ConnectionHandler;
 import io.netty.handler.codec.http2.Http2Exception;
 import io.netty.handler.codec.http2.Http2Exception.ClosedStreamCreationException;
+import io.netty.handler.codec.http2.Http2LocalFlowController;
 import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2Stream;
 import io.netty.handler.codec.http2.Http2Stream.State;
 import io.netty.handler.codec.http2.Http2StreamVisitor;
 
@@ -48,6 +51,8 @@ public abstract class AbstractHttp2ConnectionHandler extends Http2ConnectionHand
         return true;
     };
 
+    private final int initialConnectionWindowSize;
+    private boolean connectionWindowUpdated;
     private boolean closing;
     private boolean handlingConnectionError;
 
@@ -56,7 +61,52 @@ public abstract class AbstractHttp2ConnectionHandler extends Http2ConnectionHand
      */
     protected AbstractHttp2ConnectionHandler(
             Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder, Http2Settings initialSettings) {
+        this(decoder, encoder, initialSettings, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param initialConnectionWindowSize the initial flow-control window size of the connection, which
+     *                                    is advertised with a {@code WINDOW_UPDATE} frame right after
+     *                                    the connection preface if greater than the default
+     */
+    protected AbstractHttp2ConnectionHandler(
+            Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder, Http2Settings initialSettings,
+            int initialConnectionWindowSize) {
         super(decoder, encoder, initialSettings);
+        this.initialConnectionWindowSize = initialConnectionWindowSize;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        super.handlerAdded(ctx);
+        updateConnectionWindowIfNeeded(ctx);
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        super.channelActive(ctx);
+        updateConnectionWindowIfNeeded(ctx);
+    }
+
+    /**
+     * Grows the flow-control window of the connection up to {@code initialConnectionWindowSize}, which can
+     * be done only after the connection preface has been sent.
+     */
+    private void updateConnectionWindowIfNeeded(ChannelHandlerContext ctx) throws Exception {
+        if (connectionWindowUpdated || !prefaceSent()) {
+            return;
+        }
+        connectionWindowUpdated = true;
+
+        final Http2Stream connectionStream = connection().connectionStream();
+        final Http2LocalFlowController flowController = decoder().flowController();
+        final int delta = initialConnectionWindowSize - flowController.windowSize(connectionStream);
+        if (delta > 0) {
+            flowController.incrementWindowSize(connectionStream, delta);
+            ctx.flush();
+        }
     }
 
     /**
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.internal.http;
+
+import static java.util.Objects.requireNonNull;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http2.Http2ConnectionEncoder;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2FrameListener;
+import io.netty.handler.codec.http2.Http2FrameListenerDecorator;
+import io.netty.handler.codec.http2.Http2LocalFlowController;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2Stream;
+
+/**
+ * An {@link Http2FrameListener} decorator that grows the flow-control windows of a connection and its
+ * streams to the bandwidth-delay product (BDP) of the connection.
+ *
+ * <p>When a {@code DATA} frame is received, a {@code PING} frame is sent and the number of the bytes
+ * received until its acknowledgement is counted. The count approximates the BDP of the connection. If it
+ * reaches most of the current window, the transfer was limited by the window rather than by the network,
+ * so both the connection window and the initial stream window are doubled up to the count, as long as
+ * the measured bandwidth keeps growing.
+ */
+public final class AdaptiveHttp2FlowControlListener extends Http2FrameListenerDecorator {
+
+    /**
+     * The payload of the {@code PING} frames sent by this listener, which distinguishes them from the
+     * {@code PING} frames sent by others.
+     */
+    private static final long PING_PAYLOAD = 0x41524d4252445031L; // "ARMBRDP1"
+
+    /**
+     * The ratio of a sample to the current window, at or above which the window is considered to be
+     * the bottleneck.
+     */
+    private static final double WINDOW_LIMITED_RATIO = 2.0 / 3;
+
+    /**
+     * The maximum window size that can be set by this listener.
+     */
+    private static final int MAX_WINDOW_SIZE = 16 * 1024 * 1024;
+
+    private final Http2ConnectionEncoder encoder;
+    private final Http2LocalFlowController flowController;
+    private final Http2Stream connectionStream;
+
+    private int windowSize;
+    private boolean pingPending;
+    private long pingSentNanos;
+    private long sampleBytes;
+    private double maxBandwidth;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param delegate the {@link Http2FrameListener} to decorate
+     * @param encoder the {@link Http2ConnectionEncoder} to write {@code PING} and {@code SETTINGS} frames with
+     * @param flowController the {@link Http2LocalFlowController} of the connection
+     */
+    public AdaptiveHttp2FlowControlListener(Http2FrameListener delegate, Http2ConnectionEncoder encoder,
+                                            Http2LocalFlowController flowController) {
+        super(delegate);
+        this.encoder = requireNonNull(encoder, "encoder");
+        this.flowController = requireNonNull(flowController, "flowController");
+        connectionStream = encoder.connection().connectionStream();
+        windowSize = flowController.initialWindowSize();
+    }
+
+    @Override
+    public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding,
+                          boolean endOfStream) throws Http2Exception {
+        final int length = data.readableBytes() + padding;
+        if (!pingPending && windowSize < MAX_WINDOW_SIZE) {
+            pingPending = true;
+            pingSentNanos = System.nanoTime();
+            sampleBytes = 0;
+            encoder.writePing(ctx, false, ctx.alloc().buffer(8).writeLong(PING_PAYLOAD), ctx.newPromise());
+            ctx.flush();
+        }
+        sampleBytes += length;
+
+        return super.onDataRead(ctx, streamId, data, padding, endOfStream);
+    }
+
+    @Override
+    public void onPingAckRead(ChannelHandlerContext ctx, ByteBuf data) throws Http2Exception {
+        if (!pingPending || data.readableBytes() != 8 || data.getLong(data.readerIndex()) != PING_PAYLOAD) {
+            super.onPingAckRead(ctx, data);
+            return;
+        }
+
+        pingPending = false;
+        // The initial window size of the flow controller is updated when the peer acknowledges our settings.
+        windowSize = Math.max(windowSize, flowController.initialWindowSize());
+
+        final long rttNanos = Math.max(1, System.nanoTime() - pingSentNanos);
+        final double bandwidth = (double) sampleBytes / rttNanos;
+        if (sampleBytes < windowSize * WINDOW_LIMITED_RATIO || bandwidth <= maxBandwidth) {
+            return;
+        }
+
+        maxBandwidth = bandwidth;
+        final int newWindowSize = (int) Math.min(MAX_WINDOW_SIZE, sampleBytes * 2);
+        if (newWindowSize <= windowSize) {
+            return;
+        }
+
+        final int connectionWindowSize = flowController.windowSize(connectionStream);
+        if (newWindowSize > connectionWindowSize) {
+            flowController.incrementWindowSize(connectionStream, newWindowSize - connectionWindowSize);
+        }
+
+        // The new initial window is applied to the existing streams as well when the peer acknowledges it.
+        encoder.writeSettings(ctx, new Http2Settings().initialWindowSize(newWindowSize), ctx.newPromise());
+        ctx.flush();
+        windowSize = newWindowSize;
+    }
+}
@@ -25,12 +25,13 @@ import com.linecorp.armeria.common.http.HttpData;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.util.ReferenceCounted;
 
 /**
  * A {@link HttpData} that is backed by a {@link ByteBuf} for optimizing certain internal use cases. Not for
- * general use.
+ * general use. The {@link ReferenceCounted} operations are delegated to the {@link ByteBuf}.
  */
-public class ByteBufHttpData extends AbstractHttpData {
+public class ByteBufHttpData extends AbstractHttpData implements ReferenceCounted {
 
     private final ByteBuf buf;
     private final boolean endOfStream;
@@ -74,6 +75,45 @@ public class ByteBufHttpData extends AbstractHttpData {
         return length;
     }
 
+    @Override
+    public int refCnt() {
+        return buf.refCnt();
+    }
+
+    @Override
+    public ByteBufHttpData retain() {
+        buf.retain();
+        return this;
+    }
+
+    @Override
+    public ByteBufHttpData retain(int increment) {
+        buf.retain(increment);
+        return this;
+    }
+
+    @Override
+    public ByteBufHttpData touch() {
+        buf.touch();
+        return this;
+    }
+
+    @Override
+    public ByteBufHttpData touch(Object hint) {
+        buf.touch(hint);
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return buf.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return buf.release(decrement);
+    }
+
     @Override
     public String toString(Charset charset) {
         return buf.toString(charset);
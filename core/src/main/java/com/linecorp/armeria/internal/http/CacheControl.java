@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.internal.http;
+
+import com.linecorp.armeria.common.http.HttpHeaderNames;
+import com.linecorp.armeria.common.http.HttpHeaders;
+
+/**
+ * The directives of a {@code "cache-control"} header which matter to the caching decorators.
+ */
+public final class CacheControl {
+
+    private static final CacheControl EMPTY = new CacheControl();
+
+    /**
+     * Parses the {@code "cache-control"} header of the specified {@link HttpHeaders}. The unknown directives
+     * are ignored.
+     */
+    public static CacheControl parse(HttpHeaders headers) {
+        final String value = headers.get(HttpHeaderNames.CACHE_CONTROL);
+        if (value == null) {
+            return EMPTY;
+        }
+
+        final CacheControl cacheControl = new CacheControl();
+        for (String directive : value.split(",")) {
+            directive = directive.trim();
+            final int equalsPos = directive.indexOf('=');
+            final String name = equalsPos < 0 ? directive : directive.substring(0, equalsPos).trim();
+            if ("no-store".equalsIgnoreCase(name)) {
+                cacheControl.noStore = true;
+            } else if ("no-cache".equalsIgnoreCase(name)) {
+                cacheControl.noCache = true;
+            } else if ("private".equalsIgnoreCase(name)) {
+                cacheControl.isPrivate = true;
+            } else if ("public".equalsIgnoreCase(name)) {
+                cacheControl.isPublic = true;
+            } else if ("max-age".equalsIgnoreCase(name)) {
+                cacheControl.maxAgeSeconds = parseSeconds(directive, equalsPos);
+            } else if ("s-maxage".equalsIgnoreCase(name)) {
+                cacheControl.sharedMaxAgeSeconds = parseSeconds(directive, equalsPos);
+            }
+        }
+        return cacheControl;
+    }
+
+    private static long parseSeconds(String directive, int equalsPos) {
+        if (equalsPos < 0) {
+            // Treat a malformed directive as if the response has expired already.
+            return 0;
+        }
+        String value = directive.substring(equalsPos + 1).trim();
+        if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Math.max(0, Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private boolean noStore;
+    private boolean noCache;
+    private boolean isPrivate;
+    private boolean isPublic;
+    private long maxAgeSeconds = -1;
+    private long sharedMaxAgeSeconds = -1;
+
+    private CacheControl() {}
+
+    /**
+     * Returns whether the {@code no-store} directive is present.
+     */
+    public boolean noStore() {
+        return noStore;
+    }
+
+    /**
+     * Returns whether the {@code no-cache} directive is present.
+     */
+    public boolean noCache() {
+        return noCache;
+    }
+
+    /**
+     * Returns whether the {@code private} directive is present.
+     */
+    public boolean isPrivate() {
+        return isPrivate;
+    }
+
+    /**
+     * Returns whether the {@code public} directive is present.
+     */
+    public boolean isPublic() {
+        return isPublic;
+    }
+
+    /**
+     * Returns the value of the {@code max-age} directive, or {@code -1} if absent.
+     */
+    public long maxAgeSeconds() {
+        return maxAgeSeconds;
+    }
+
+    /**
+     * Returns the value of the {@code s-maxage} directive, or {@code -1} if absent.
+     */
+    public long sharedMaxAgeSeconds() {
+        return sharedMaxAgeSeconds;
+    }
+}
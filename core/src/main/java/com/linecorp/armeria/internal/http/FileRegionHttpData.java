@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.internal.http;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.http.AbstractHttpData;
+import com.linecorp.armeria.common.http.HttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.FileRegion;
+
+/**
+ * A {@link HttpData} that refers to a region of a {@link File}. {@link Http1ObjectEncoder} writes it as
+ * a {@link FileRegion} on a cleartext connection so that the content is transferred without being copied
+ * into the JVM heap. On other connections, the region is read into a {@link ByteBuf}. Not for general use.
+ */
+public final class FileRegionHttpData extends AbstractHttpData {
+
+    private final File file;
+    private final long position;
+    private final int length;
+    private final boolean endOfStream;
+    private byte[] array;
+
+    /**
+     * Creates a new instance that refers to the region of the specified {@code file}.
+     */
+    public FileRegionHttpData(File file, long position, int length, boolean endOfStream) {
+        this.file = requireNonNull(file, "file");
+        if (position < 0) {
+            throw new IllegalArgumentException("position: " + position + " (expected: >= 0)");
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("length: " + length + " (expected: >= 0)");
+        }
+        this.position = position;
+        this.length = length;
+        this.endOfStream = endOfStream;
+    }
+
+    /**
+     * Returns the {@link File} this data refers to.
+     */
+    public File file() {
+        return file;
+    }
+
+    /**
+     * Returns the position of the region in the {@link File}.
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Creates a new {@link FileRegion} for the region this data refers to. The file is opened lazily when
+     * the returned {@link FileRegion} is transferred.
+     */
+    public FileRegion newFileRegion() {
+        return new DefaultFileRegion(file, position, length);
+    }
+
+    /**
+     * Reads the region this data refers to into a new {@link ByteBuf} allocated by the specified
+     * {@link ByteBufAllocator}.
+     */
+    public ByteBuf readBuf(ByteBufAllocator alloc) throws IOException {
+        final ByteBuf buf = alloc.directBuffer(length, length);
+        boolean success = false;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long pos = position;
+            while (buf.isWritable()) {
+                final int readBytes = buf.writeBytes(ch, pos, buf.writableBytes());
+                if (readBytes < 0) {
+                    throw new EOFException("unexpected end of file: " + file +
+                                           " (expected: " + (position + length) + " bytes)");
+                }
+                pos += readBytes;
+            }
+            success = true;
+            return buf;
+        } finally {
+            if (!success) {
+                buf.release();
+            }
+        }
+    }
+
+    @Override
+    public boolean isEndOfStream() {
+        return endOfStream;
+    }
+
+    @Override
+    public byte[] array() {
+        byte[] array = this.array;
+        if (array == null) {
+            final ByteBuf buf;
+            try {
+                buf = readBuf(ByteBufAllocator.DEFAULT);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            try {
+                this.array = array = new byte[length];
+                buf.readBytes(array);
+            } finally {
+                buf.release();
+            }
+        }
+        return array;
+    }
+
+    @Override
+    public int offset() {
+        return 0;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    protected byte getByte(int index) {
+        return array()[index];
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("file", file)
+                          .add("position", position)
+                          .add("length", length).toString();
+    }
+}
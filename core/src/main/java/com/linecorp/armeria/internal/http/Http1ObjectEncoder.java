@@ -35,6 +35,7 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultHttpRequest;
@@ -99,11 +100,24 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
      */
     private final IntObjectMap<PendingWrites> pendingWritesMap = new IntObjectHashMap<>();
 
+    /**
+     * Whether the connection is kept alive after the responses written from now on.
+     */
+    private boolean keepAlive = true;
+
     public Http1ObjectEncoder(boolean server, boolean isTls) {
         this.server = server;
         this.isTls = isTls;
     }
 
+    /**
+     * Makes the responses whose headers are written from now on have a {@code "connection: close"} header,
+     * so that the client does not send a request anymore. This method is meaningful only for a server.
+     */
+    public void disableKeepAlive() {
+        keepAlive = false;
+    }
+
     @Override
     protected ChannelFuture doWriteHeaders(ChannelHandlerContext ctx, int id, int streamId,
                                            HttpHeaders headers, boolean endStream) {
@@ -144,6 +158,9 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
 
         // Non-informational status headers.
+        if (!keepAlive) {
+            HttpUtil.setKeepAlive((HttpResponse) converted, false);
+        }
         return writeNonInformationalHeaders(ctx, id, converted, endStream);
     }
 
@@ -300,6 +317,16 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
 
         try {
+            if (data instanceof FileRegionHttpData) {
+                if (!isTls) {
+                    // Cleartext connection; transfer the file region without copying it into the heap.
+                    return doWriteFileRegion(ctx, id, (FileRegionHttpData) data, endStream);
+                }
+
+                // TLS; read the file region into a pooled buffer so that it is encrypted by SslHandler.
+                data = new ByteBufHttpData(((FileRegionHttpData) data).readBuf(ctx.alloc()), endStream);
+            }
+
             if (isTls && length > MAX_TLS_DATA_LENGTH) {
                 // TLS and data.length() > MAX_TLS_DATA_LENGTH
                 return doWriteSplitData(ctx, id, data, endStream);
@@ -321,6 +348,18 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
     }
 
+    private ChannelFuture doWriteFileRegion(
+            ChannelHandlerContext ctx, int id, FileRegionHttpData data, boolean endStream) {
+
+        ChannelFuture future = write(ctx, id, data.newFileRegion(), false);
+        if (endStream) {
+            future = write(ctx, id, LastHttpContent.EMPTY_LAST_CONTENT, true);
+        }
+
+        ctx.flush();
+        return future;
+    }
+
     private ChannelFuture doWriteSplitData(
             ChannelHandlerContext ctx, int id, HttpData data, boolean endStream) {
 
@@ -360,7 +399,9 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
     }
 
-    private ChannelFuture write(ChannelHandlerContext ctx, int id, HttpObject obj, boolean endStream) {
+    private ChannelFuture write(ChannelHandlerContext ctx, int id, Object obj, boolean endStream) {
+        assert obj instanceof HttpObject || obj instanceof FileRegion : obj;
+
         if (id < currentId) {
             // Attempted to write something on a finished request/response; discard.
             // e.g. the request already timed out.
@@ -398,7 +439,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
             return future;
         } else {
             final ChannelPromise promise = ctx.newPromise();
-            final Entry<HttpObject, ChannelPromise> entry = new SimpleImmutableEntry<>(obj, promise);
+            final Entry<Object, ChannelPromise> entry = new SimpleImmutableEntry<>(obj, promise);
             final PendingWrites pendingWrites;
             if (currentPendingWrites == null) {
                 pendingWrites = new PendingWrites();
@@ -420,7 +461,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
 
     private static void flushPendingWrites(ChannelHandlerContext ctx, PendingWrites pendingWrites) {
         for (;;) {
-            final Entry<HttpObject, ChannelPromise> e = pendingWrites.poll();
+            final Entry<Object, ChannelPromise> e = pendingWrites.poll();
             if (e == null) {
                 break;
             }
@@ -438,7 +479,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         for (int i = minClosedId; i <= maxIdWithPendingWrites; i++) {
             final PendingWrites pendingWrites = this.pendingWritesMap.remove(i);
             for (;;) {
-                final Entry<HttpObject, ChannelPromise> e = pendingWrites.poll();
+                final Entry<Object, ChannelPromise> e = pendingWrites.poll();
                 if (e == null) {
                     break;
                 }
@@ -461,9 +502,9 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
 
         final ClosedSessionException cause = ClosedSessionException.get();
-        for (Queue<Entry<HttpObject, ChannelPromise>> queue : pendingWritesMap.values()) {
+        for (Queue<Entry<Object, ChannelPromise>> queue : pendingWritesMap.values()) {
             for (;;) {
-                final Entry<HttpObject, ChannelPromise> e = queue.poll();
+                final Entry<Object, ChannelPromise> e = queue.poll();
                 if (e == null) {
                     break;
                 }
@@ -475,7 +516,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         pendingWritesMap.clear();
     }
 
-    private static final class PendingWrites extends ArrayDeque<Entry<HttpObject, ChannelPromise>> {
+    private static final class PendingWrites extends ArrayDeque<Entry<Object, ChannelPromise>> {
 
         private static final long serialVersionUID = 4241891747461017445L;
 
@@ -486,7 +527,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
 
         @Override
-        public boolean add(Entry<HttpObject, ChannelPromise> httpObjectChannelPromiseEntry) {
+        public boolean add(Entry<Object, ChannelPromise> httpObjectChannelPromiseEntry) {
             return isEndOfStream() ? false : super.add(httpObjectChannelPromiseEntry);
         }
 
@@ -23,6 +23,7 @@ import org.slf4j.LoggerFactory;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
+import io.netty.handler.codec.http2.Http2Connection;
 import io.netty.handler.codec.http2.Http2ConnectionAdapter;
 import io.netty.handler.codec.http2.Http2Error;
 import io.netty.handler.codec.http2.Http2Stream;
@@ -34,10 +35,13 @@ public class Http2GoAwayListener extends Http2ConnectionAdapter {
 
     private static final Logger logger = LoggerFactory.getLogger(Http2GoAwayListener.class);
 
+    private final Http2Connection conn;
     private final Channel ch;
     private boolean goAwaySent;
+    private boolean closeWhenNoActiveStreams;
 
-    public Http2GoAwayListener(Channel ch) {
+    public Http2GoAwayListener(Http2Connection conn, Channel ch) {
+        this.conn = conn;
         this.ch = ch;
     }
 
@@ -55,6 +59,19 @@ public class Http2GoAwayListener extends Http2ConnectionAdapter {
         // This will make sure that the connection is always closed after receiving GOAWAY,
         // because otherwise we have to wait until the peer who sent GOAWAY to us closes the connection.
         if (!goAwaySent) {
+            if (errorCode == Http2Error.NO_ERROR.code() && conn.numActiveStreams() != 0) {
+                // The peer is going away gracefully; let the active streams finish first.
+                closeWhenNoActiveStreams = true;
+            } else {
+                ch.close();
+            }
+        }
+    }
+
+    @Override
+    public void onStreamClosed(Http2Stream stream) {
+        if (closeWhenNoActiveStreams && conn.numActiveStreams() == 0) {
+            closeWhenNoActiveStreams = false;
             ch.close();
         }
     }
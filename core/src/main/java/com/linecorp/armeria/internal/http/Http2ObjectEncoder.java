@@ -22,6 +22,7 @@ import com.linecorp.armeria.common.http.HttpData;
 import com.linecorp.armeria.common.http.HttpHeaders;
 import com.linecorp.armeria.common.stream.ClosedPublisherException;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http2.Http2ConnectionEncoder;
@@ -58,7 +59,14 @@ public final class Http2ObjectEncoder extends HttpObjectEncoder {
             return future;
         }
 
-        return encoder.writeData(ctx, streamId, toByteBuf(ctx, data), 0, endStream, ctx.newPromise());
+        final ByteBuf buf;
+        try {
+            buf = toByteBuf(ctx, data);
+        } catch (Throwable t) {
+            return ctx.newFailedFuture(t);
+        }
+
+        return encoder.writeData(ctx, streamId, buf, 0, endStream, ctx.newPromise());
     }
 
     @Override
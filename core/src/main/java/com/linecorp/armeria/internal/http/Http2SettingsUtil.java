@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.internal.http;
+
+import io.netty.handler.codec.http2.Http2CodecUtil;
+
+/**
+ * Validates the HTTP/2 settings which can be configured for both a server and a client.
+ */
+public final class Http2SettingsUtil {
+
+    /**
+     * Validates the initial flow-control window size of an HTTP/2 connection, which cannot be smaller than
+     * the default of the protocol because it can only be grown with a {@code WINDOW_UPDATE} frame.
+     */
+    public static int validateHttp2InitialConnectionWindowSize(int http2InitialConnectionWindowSize) {
+        if (http2InitialConnectionWindowSize < Http2CodecUtil.DEFAULT_WINDOW_SIZE) {
+            throw new IllegalArgumentException(
+                    "http2InitialConnectionWindowSize: " + http2InitialConnectionWindowSize +
+                    " (expected: >= " + Http2CodecUtil.DEFAULT_WINDOW_SIZE + ')');
+        }
+        return http2InitialConnectionWindowSize;
+    }
+
+    /**
+     * Validates the initial flow-control window size of an HTTP/2 stream.
+     */
+    public static int validateHttp2InitialStreamWindowSize(int http2InitialStreamWindowSize) {
+        if (http2InitialStreamWindowSize <= 0) {
+            throw new IllegalArgumentException(
+                    "http2InitialStreamWindowSize: " + http2InitialStreamWindowSize + " (expected: > 0)");
+        }
+        return http2InitialStreamWindowSize;
+    }
+
+    /**
+     * Validates the maximum size of an HTTP/2 frame.
+     */
+    public static int validateHttp2MaxFrameSize(int http2MaxFrameSize) {
+        if (http2MaxFrameSize < Http2CodecUtil.MAX_FRAME_SIZE_LOWER_BOUND ||
+            http2MaxFrameSize > Http2CodecUtil.MAX_FRAME_SIZE_UPPER_BOUND) {
+            throw new IllegalArgumentException(
+                    "http2MaxFrameSize: " + http2MaxFrameSize +
+                    " (expected: >= " + Http2CodecUtil.MAX_FRAME_SIZE_LOWER_BOUND +
+                    " and <= " + Http2CodecUtil.MAX_FRAME_SIZE_UPPER_BOUND + ')');
+        }
+        return http2MaxFrameSize;
+    }
+
+    /**
+     * Validates the size of the HPACK header table.
+     */
+    public static long validateHttp2HeaderTableSize(long http2HeaderTableSize) {
+        if (http2HeaderTableSize < 0 || http2HeaderTableSize > Http2CodecUtil.MAX_HEADER_TABLE_SIZE) {
+            throw new IllegalArgumentException(
+                    "http2HeaderTableSize: " + http2HeaderTableSize +
+                    " (expected: >= 0 and <= " + Http2CodecUtil.MAX_HEADER_TABLE_SIZE + ')');
+        }
+        return http2HeaderTableSize;
+    }
+
+    private Http2SettingsUtil() {}
+}
@@ -16,6 +16,9 @@
 
 package com.linecorp.armeria.internal.http;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 import com.linecorp.armeria.common.ClosedSessionException;
 import com.linecorp.armeria.common.http.HttpData;
 import com.linecorp.armeria.common.http.HttpHeaders;
@@ -109,6 +112,13 @@ public abstract class HttpObjectEncoder {
         if (data instanceof ByteBufHttpData) {
             return ((ByteBufHttpData) data).buf();
         }
+        if (data instanceof FileRegionHttpData) {
+            try {
+                return ((FileRegionHttpData) data).readBuf(ctx.alloc());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
         final ByteBuf buf = ctx.alloc().directBuffer(data.length(), data.length());
         buf.writeBytes(data.array(), data.offset(), data.length());
         return buf;
@@ -19,23 +19,35 @@ package com.linecorp.armeria.server;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static java.util.Objects.requireNonNull;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import javax.annotation.Nullable;
 
+import org.reactivestreams.Publisher;
+
 import com.google.common.collect.ImmutableList;
 
 import com.linecorp.armeria.common.RequestContext;
 import com.linecorp.armeria.common.http.AggregatedHttpMessage;
+import com.linecorp.armeria.common.http.HttpData;
+import com.linecorp.armeria.common.http.HttpObject;
 import com.linecorp.armeria.common.http.HttpRequest;
 import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.common.stream.FilteredStreamMessage;
+import com.linecorp.armeria.common.stream.StreamMessage;
 import com.linecorp.armeria.common.util.Exceptions;
 import com.linecorp.armeria.common.util.SafeCloseable;
 import com.linecorp.armeria.internal.Types;
@@ -44,23 +56,46 @@ import com.linecorp.armeria.server.http.dynamic.ResponseConverter;
 
 /**
  * Invokes an individual method of an annotated service. An annotated service method whose return type is not
- * {@link CompletionStage} or {@link HttpResponse} will be run in the blocking task executor.
+ * {@link CompletionStage}, {@link HttpResponse} or {@link Publisher} will be run in the blocking task executor.
+ *
+ * <p>A parameter of {@code Publisher<HttpData>} or {@code StreamMessage<HttpData>} receives the content of
+ * the request as it arrives, without aggregating it. A {@link Publisher} returned by a method is streamed to
+ * the client, requesting the next {@link HttpObject} only when the previous one has been written.
+ *
+ * <p>The method is invoked via a {@link MethodHandle} which is resolved when the service is registered,
+ * and the value of each parameter is resolved by a {@link ParameterResolver} specialized for its type,
+ * so that no reflection is involved in handling a request.
  */
 final class AnnotatedHttpServiceMethod implements BiFunction<ServiceRequestContext, HttpRequest, Object> {
 
-    private final Object object;
+    /**
+     * The maximum number of parameters of the methods which are invoked without creating an array of
+     * the parameter values.
+     */
+    private static final int MAX_SPECIALIZED_ARITY = 4;
+
     private final Method method;
     private final List<Parameter> parameters;
+    private final ParameterResolver[] resolvers;
+    /**
+     * The {@link MethodHandle} of the {@link #method}, whose parameter and return types are {@link Object}.
+     * Its arity is the same as the {@link #method} if not greater than {@link #MAX_SPECIALIZED_ARITY}.
+     * Otherwise, it takes an {@code Object[]}.
+     */
+    private final MethodHandle methodHandle;
     private final boolean isAsynchronous;
     private final boolean aggregationRequired;
 
     AnnotatedHttpServiceMethod(Object object, Method method) {
-        this.object = requireNonNull(object, "object");
+        requireNonNull(object, "object");
         this.method = requireNonNull(method, "method");
         parameters = parameters(method);
+        resolvers = parameters.stream().map(Parameter::resolver).toArray(ParameterResolver[]::new);
+        methodHandle = methodHandle(object, method);
         final Class<?> returnType = method.getReturnType();
         isAsynchronous = HttpResponse.class.isAssignableFrom(returnType) ||
-                         CompletionStage.class.isAssignableFrom(returnType);
+                         CompletionStage.class.isAssignableFrom(returnType) ||
+                         Publisher.class.isAssignableFrom(returnType);
         aggregationRequired = parameters.stream().anyMatch(
                 entry -> entry.getType().isAssignableFrom(AggregatedHttpMessage.class));
     }
@@ -73,13 +108,15 @@ final class AnnotatedHttpServiceMethod implements BiFunction<ServiceRequestConte
         final ImmutableList.Builder<Parameter> entries = ImmutableList.builder();
         for (java.lang.reflect.Parameter p : method.getParameters()) {
             final String name;
+            final boolean isContentStream = isContentStream(p);
 
             PathParam pathParam = p.getAnnotation(PathParam.class);
             if (pathParam != null) {
                 name = p.getAnnotation(PathParam.class).value();
             } else if (p.getType().isAssignableFrom(ServiceRequestContext.class)) {
                 name = null;
-            } else if (p.getType().isAssignableFrom(HttpRequest.class) ||
+            } else if (isContentStream ||
+                       p.getType().isAssignableFrom(HttpRequest.class) ||
                        p.getType().isAssignableFrom(AggregatedHttpMessage.class)) {
                 if (hasRequestMessage) {
                     throw new IllegalArgumentException("Only one request message variable is allowed.");
@@ -90,11 +127,54 @@ final class AnnotatedHttpServiceMethod implements BiFunction<ServiceRequestConte
                 throw new IllegalArgumentException("Unsupported object type: " + p.getType());
             }
 
-            entries.add(new Parameter(p.getType(), name));
+            entries.add(new Parameter(p.getType(), name, isContentStream));
         }
         return entries.build();
     }
 
+    /**
+     * Returns whether the specified parameter is a {@code Publisher<HttpData>} or
+     * a {@code StreamMessage<HttpData>}, which receives the content of the request.
+     */
+    private static boolean isContentStream(java.lang.reflect.Parameter p) {
+        final Class<?> type = p.getType();
+        if (type != Publisher.class && type != StreamMessage.class) {
+            return false;
+        }
+
+        final Type parameterizedType = p.getParameterizedType();
+        if (!(parameterizedType instanceof ParameterizedType)) {
+            return false;
+        }
+
+        final Type[] typeArgs = ((ParameterizedType) parameterizedType).getActualTypeArguments();
+        return typeArgs.length == 1 && typeArgs[0] == HttpData.class;
+    }
+
+    /**
+     * Returns the {@link MethodHandle} which invokes the specified {@link Method} of the specified
+     * {@code object}, with all parameter and return types adapted to {@link Object}.
+     */
+    private static MethodHandle methodHandle(Object object, Method method) {
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access the method: " + method, e);
+        }
+
+        if (!Modifier.isStatic(method.getModifiers())) {
+            handle = handle.bindTo(object);
+        }
+
+        final int arity = method.getParameterCount();
+        handle = handle.asType(MethodType.genericMethodType(arity));
+        if (arity > MAX_SPECIALIZED_ARITY) {
+            handle = handle.asSpreader(Object[].class, arity);
+        }
+        return handle;
+    }
+
     /**
      * Returns the set of parameter names which have an annotation of {@link PathParam}.
      */
@@ -129,41 +209,36 @@ final class AnnotatedHttpServiceMethod implements BiFunction<ServiceRequestConte
 
     private Object invoke(ServiceRequestContext ctx, HttpRequest req, @Nullable AggregatedHttpMessage message) {
         try (SafeCloseable ignored = RequestContext.push(ctx, false)) {
-            return method.invoke(object, parameterValues(ctx, req, message));
-        } catch (Exception e) {
-            if (e instanceof InvocationTargetException) {
-                final Throwable cause = e.getCause();
-                if (cause != null) {
-                    return Exceptions.throwUnsafely(cause);
-                }
+            final ParameterResolver[] resolvers = this.resolvers;
+            switch (resolvers.length) {
+                case 0:
+                    return (Object) methodHandle.invokeExact();
+                case 1:
+                    return (Object) methodHandle.invokeExact(resolvers[0].resolve(ctx, req, message));
+                case 2:
+                    return (Object) methodHandle.invokeExact(resolvers[0].resolve(ctx, req, message),
+                                                             resolvers[1].resolve(ctx, req, message));
+                case 3:
+                    return (Object) methodHandle.invokeExact(resolvers[0].resolve(ctx, req, message),
+                                                             resolvers[1].resolve(ctx, req, message),
+                                                             resolvers[2].resolve(ctx, req, message));
+                case 4:
+                    return (Object) methodHandle.invokeExact(resolvers[0].resolve(ctx, req, message),
+                                                             resolvers[1].resolve(ctx, req, message),
+                                                             resolvers[2].resolve(ctx, req, message),
+                                                             resolvers[3].resolve(ctx, req, message));
+                default:
+                    final Object[] values = new Object[resolvers.length];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = resolvers[i].resolve(ctx, req, message);
+                    }
+                    return (Object) methodHandle.invokeExact(values);
             }
-            return Exceptions.throwUnsafely(e);
+        } catch (Throwable cause) {
+            return Exceptions.throwUnsafely(cause);
         }
     }
 
-    /**
-     * Returns array of parameters for method invocation.
-     */
-    private Object[] parameterValues(ServiceRequestContext ctx, HttpRequest req,
-                                     @Nullable AggregatedHttpMessage message) {
-        Object[] parameters = new Object[this.parameters.size()];
-        for (int i = 0; i < this.parameters.size(); ++i) {
-            Parameter entry = this.parameters.get(i);
-            if (entry.isPathParam()) {
-                String value = ctx.pathParam(entry.getName());
-                assert value != null;
-                parameters[i] = convertParameter(value, entry.getType());
-            } else if (entry.getType().isAssignableFrom(ServiceRequestContext.class)) {
-                parameters[i] = ctx;
-            } else if (entry.getType().isAssignableFrom(HttpRequest.class)) {
-                parameters[i] = req;
-            } else if (entry.getType().isAssignableFrom(AggregatedHttpMessage.class)) {
-                parameters[i] = message;
-            }
-        }
-        return parameters;
-    }
-
     BiFunction<ServiceRequestContext, HttpRequest, Object> withConverter(ResponseConverter converter) {
         return (ctx, req) ->
                 executeSyncOrAsync(ctx, req).thenApply(obj -> convertResponse(obj, converter));
@@ -183,35 +258,28 @@ final class AnnotatedHttpServiceMethod implements BiFunction<ServiceRequestConte
     }
 
     /**
-     * Converts the given {@code str} to {@code T} type object. e.g., "42" -> 42.
+     * Returns the {@link Function} which converts a {@link String} into the specified type.
+     * e.g., "42" -> 42.
      *
-     * @throws IllegalArgumentException if {@code str} can't be deserialized to {@code T} type object.
+     * @throws IllegalArgumentException if a {@link String} can't be converted into the specified type
      */
-    @SuppressWarnings("unchecked")
-    private static <T> T convertParameter(String str, Class<T> clazz) {
-        try {
-            if (clazz == Byte.TYPE) {
-                return (T) Byte.valueOf(str);
-            } else if (clazz == Short.TYPE) {
-                return (T) Short.valueOf(str);
-            } else if (clazz == Boolean.TYPE) {
-                return (T) Boolean.valueOf(str);
-            } else if (clazz == Integer.TYPE) {
-                return (T) Integer.valueOf(str);
-            } else if (clazz == Long.TYPE) {
-                return (T) Long.valueOf(str);
-            } else if (clazz == Float.TYPE) {
-                return (T) Float.valueOf(str);
-            } else if (clazz == Double.TYPE) {
-                return (T) Double.valueOf(str);
-            } else if (clazz == String.class) {
-                return (T) str;
-            }
-        } catch (NumberFormatException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new IllegalArgumentException(
-                    "Can't convert " + str + " to type " + clazz.getSimpleName(), e);
+    private static Function<String, Object> stringConverter(Class<?> clazz) {
+        if (clazz == Byte.TYPE) {
+            return Byte::valueOf;
+        } else if (clazz == Short.TYPE) {
+            return Short::valueOf;
+        } else if (clazz == Boolean.TYPE) {
+            return Boolean::valueOf;
+        } else if (clazz == Integer.TYPE) {
+            return Integer::valueOf;
+        } else if (clazz == Long.TYPE) {
+            return Long::valueOf;
+        } else if (clazz == Float.TYPE) {
+            return Float::valueOf;
+        } else if (clazz == Double.TYPE) {
+            return Double::valueOf;
+        } else if (clazz == String.class) {
+            return str -> str;
         }
 
         throw new IllegalArgumentException(
@@ -228,6 +296,8 @@ final class AnnotatedHttpServiceMethod implements BiFunction<ServiceRequestConte
             return (HttpResponse) object;
         } else if (object instanceof AggregatedHttpMessage) {
             return ((AggregatedHttpMessage) object).toHttpResponse();
+        } else if (object instanceof Publisher) {
+            return PublisherResponseSubscriber.streamingResponse((Publisher<?>) object);
         } else {
             ResponseConverter converter = findResponseConverter(object.getClass(), converters);
             try {
@@ -248,6 +318,8 @@ final class AnnotatedHttpServiceMethod implements BiFunction<ServiceRequestConte
             return (HttpResponse) object;
         } else if (object instanceof AggregatedHttpMessage) {
             return ((AggregatedHttpMessage) object).toHttpResponse();
+        } else if (object instanceof Publisher) {
+            return PublisherResponseSubscriber.streamingResponse((Publisher<?>) object);
         } else {
             try {
                 return converter.convert(object);
@@ -294,16 +366,49 @@ final class AnnotatedHttpServiceMethod implements BiFunction<ServiceRequestConte
         throw new IllegalArgumentException("Converter not available for " + type.getSimpleName());
     }
 
+    /**
+     * Resolves the value of a parameter of an annotated service method.
+     */
+    @FunctionalInterface
+    private interface ParameterResolver {
+        Object resolve(ServiceRequestContext ctx, HttpRequest req, @Nullable AggregatedHttpMessage message);
+    }
+
     /**
      * Parameter entry, which will be used to invoke the {@link AnnotatedHttpService}.
      */
     private static final class Parameter {
         private final Class<?> type;
         private final String name;
+        private final ParameterResolver resolver;
 
-        Parameter(Class<?> type, @Nullable String name) {
+        Parameter(Class<?> type, @Nullable String name, boolean isContentStream) {
             this.type = type;
             this.name = name;
+            resolver = resolver(type, name, isContentStream);
+        }
+
+        private static ParameterResolver resolver(Class<?> type, @Nullable String name,
+                                                  boolean isContentStream) {
+            if (name != null) {
+                final Function<String, Object> converter = stringConverter(type);
+                return (ctx, req, message) -> {
+                    final String value = ctx.pathParam(name);
+                    assert value != null;
+                    return converter.apply(value);
+                };
+            }
+            if (type.isAssignableFrom(ServiceRequestContext.class)) {
+                return (ctx, req, message) -> ctx;
+            }
+            if (isContentStream) {
+                return (ctx, req, message) -> new HttpRequestContent(req);
+            }
+            if (type.isAssignableFrom(HttpRequest.class)) {
+                return (ctx, req, message) -> req;
+            }
+            assert type.isAssignableFrom(AggregatedHttpMessage.class);
+            return (ctx, req, message) -> message;
         }
 
         Class<?> getType() {
@@ -318,5 +423,25 @@ final class AnnotatedHttpServiceMethod implements BiFunction<ServiceRequestConte
         boolean isPathParam() {
             return name != null;
         }
+
+        ParameterResolver resolver() {
+            return resolver;
+        }
+    }
+
+    /**
+     * The content of an {@link HttpRequest}. The trailing headers are replaced with
+     * {@link HttpData#EMPTY_DATA} because a {@link FilteredStreamMessage} cannot drop an object.
+     */
+    private static final class HttpRequestContent extends FilteredStreamMessage<HttpObject, HttpData> {
+
+        HttpRequestContent(HttpRequest req) {
+            super(req);
+        }
+
+        @Override
+        protected HttpData filter(HttpObject obj) {
+            return obj instanceof HttpData ? (HttpData) obj : HttpData.EMPTY_DATA;
+        }
     }
 }
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.annotation.Nullable;
+
+/**
+ * A routing tree compiled from the {@link PathMapping}s registered to {@link PathMappings}.
+ *
+ * <p>{@link ExactPathMapping}s, {@link PrefixPathMapping}s, {@link CatchAllPathMapping} and
+ * {@link DefaultPathMapping}s are indexed by their path segments, so that only the mappings whose
+ * structure matches the requested path are evaluated. Other mappings, such as {@link GlobPathMapping} and
+ * {@link RegexPathMapping}, are evaluated one by one only when they were registered before the best match
+ * found in the tree. Therefore, the result is always identical to that of evaluating all mappings in the
+ * order of registration.
+ *
+ * @param <T> the type of the mapped value
+ */
+final class PathMappingRouter<T> {
+
+    private final List<Entry<PathMapping, T>> patterns;
+    private final Node root = new Node();
+    private final int[] fallbacks;
+
+    PathMappingRouter(List<Entry<PathMapping, T>> patterns) {
+        this.patterns = patterns;
+
+        final List<Integer> fallbacks = new ArrayList<>();
+        final int size = patterns.size();
+        for (int i = 0; i < size; i++) {
+            final PathMapping mapping = patterns.get(i).getKey();
+            if (mapping instanceof ExactPathMapping) {
+                final String exactPath = mapping.exactPath().get();
+                addTerminal(segments(exactPath, false), i);
+            } else if (mapping instanceof PrefixPathMapping || mapping instanceof CatchAllPathMapping) {
+                final String prefix = mapping.prefix().get();
+                addPrefix(segments(prefix.substring(0, prefix.length() - 1), false), i);
+            } else if (mapping instanceof DefaultPathMapping) {
+                addTerminal(segments(((DefaultPathMapping) mapping).skeleton(), true), i);
+            } else {
+                fallbacks.add(i);
+            }
+        }
+
+        this.fallbacks = fallbacks.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Splits the specified path into its segments. The segments of {@code "/"} and {@code ""} are
+     * {@code [""]} and {@code []} respectively.
+     *
+     * @param skeleton whether the specified path is the skeleton of a {@link DefaultPathMapping}. If
+     *                 {@code true}, the path parameter segments are returned as {@code null} and
+     *                 the trailing slash is ignored just like {@link DefaultPathMapping} does.
+     */
+    private static String[] segments(String path, boolean skeleton) {
+        if (path.isEmpty()) {
+            return new String[0];
+        }
+
+        assert path.charAt(0) == '/';
+        final List<String> segments = new ArrayList<>();
+        int start = 1;
+        for (;;) {
+            final int end = path.indexOf('/', start);
+            if (end < 0) {
+                segments.add(path.substring(start));
+                break;
+            }
+            segments.add(path.substring(start, end));
+            start = end + 1;
+        }
+
+        if (skeleton) {
+            // DefaultPathMapping ignores the trailing empty segments.
+            while (!segments.isEmpty() && segments.get(segments.size() - 1).isEmpty()) {
+                segments.remove(segments.size() - 1);
+            }
+            segments.replaceAll(s -> "{}".equals(s) ? null : s);
+        }
+
+        return segments.toArray(new String[segments.size()]);
+    }
+
+    private void addTerminal(String[] segments, int index) {
+        final Node node = node(segments, index);
+        node.terminals = append(node.terminals, index);
+    }
+
+    private void addPrefix(String[] segments, int index) {
+        final Node node = node(segments, index);
+        if (node.prefix < 0) {
+            // The first prefix mapping always wins over the later ones with the same prefix.
+            node.prefix = index;
+        }
+    }
+
+    private Node node(String[] segments, int index) {
+        Node node = root;
+        node.updateMinIndex(index);
+        for (String s : segments) {
+            node = node.child(s);
+            node.updateMinIndex(index);
+        }
+        return node;
+    }
+
+    private static int[] append(int[] array, int value) {
+        final int[] newArray = new int[array.length + 1];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        newArray[array.length] = value;
+        return newArray;
+    }
+
+    /**
+     * Finds the first {@link PathMapping} that matches the specified absolute {@code path}.
+     */
+    PathMapped<T> apply(String path, @Nullable String query) {
+        assert !path.isEmpty() && path.charAt(0) == '/';
+
+        final Match match = new Match();
+        find(root, path, 1, query, match);
+
+        for (int index : fallbacks) {
+            if (index >= match.index) {
+                break;
+            }
+            if (tryMatch(index, path, query, match)) {
+                break;
+            }
+        }
+
+        if (match.result == null) {
+            return PathMapped.empty();
+        }
+
+        return PathMapped.of(patterns.get(match.index).getKey(), match.result,
+                             patterns.get(match.index).getValue());
+    }
+
+    /**
+     * Visits the specified {@link Node} recursively.
+     *
+     * @param start the index of the first character of the next segment,
+     *              or {@code -1} if all segments have been consumed
+     */
+    private void find(Node node, String path, int start, @Nullable String query, Match match) {
+        if (node.minIndex >= match.index) {
+            // Nothing in this subtree can win over the current match.
+            return;
+        }
+
+        if (start < 0) {
+            for (int index : node.terminals) {
+                if (index >= match.index || tryMatch(index, path, query, match)) {
+                    break;
+                }
+            }
+            return;
+        }
+
+        if (node.prefix >= 0 && node.prefix < match.index) {
+            tryMatch(node.prefix, path, query, match);
+        }
+
+        final int end = path.indexOf('/', start);
+        final String segment;
+        final int nextStart;
+        if (end < 0) {
+            segment = path.substring(start);
+            nextStart = -1;
+        } else {
+            segment = path.substring(start, end);
+            nextStart = end + 1;
+        }
+
+        final Node child = node.children != null ? node.children.get(segment) : null;
+        if (child != null) {
+            find(child, path, nextStart, query, match);
+        }
+
+        if (node.paramChild != null && !segment.isEmpty()) {
+            find(node.paramChild, path, nextStart, query, match);
+        }
+    }
+
+    private boolean tryMatch(int index, String path, @Nullable String query, Match match) {
+        final PathMappingResult result = patterns.get(index).getKey().apply(path, query);
+        if (!result.isPresent()) {
+            return false;
+        }
+
+        match.index = index;
+        match.result = result;
+        return true;
+    }
+
+    private static final class Node {
+        @Nullable
+        Map<String, Node> children;
+        @Nullable
+        Node paramChild;
+        int[] terminals = new int[0];
+        int prefix = -1;
+        int minIndex = Integer.MAX_VALUE;
+
+        Node child(@Nullable String segment) {
+            if (segment == null) {
+                if (paramChild == null) {
+                    paramChild = new Node();
+                }
+                return paramChild;
+            }
+
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            return children.computeIfAbsent(segment, unused -> new Node());
+        }
+
+        void updateMinIndex(int index) {
+            if (index < minIndex) {
+                minIndex = index;
+            }
+        }
+    }
+
+    private static final class Match {
+        int index = Integer.MAX_VALUE;
+        @Nullable
+        PathMappingResult result;
+    }
+}
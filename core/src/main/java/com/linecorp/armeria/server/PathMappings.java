@@ -40,6 +40,8 @@ public class PathMappings<T> implements BiFunction<String, String, PathMapped<T>
 
     private final ThreadLocal<Map<String, PathMapped<T>>> threadLocalCache;
     private final List<Entry<PathMapping, T>> patterns = new ArrayList<>();
+    @Nullable
+    private volatile PathMappingRouter<T> router;
     private boolean frozen;
 
     /**
@@ -84,10 +86,14 @@ public class PathMappings<T> implements BiFunction<String, String, PathMapped<T>
     }
 
     /**
-     * Prevents adding a new mapping via {@link #add(PathMapping, Object)}.
+     * Prevents adding a new mapping via {@link #add(PathMapping, Object)} and compiles the added mappings
+     * into a routing tree.
      */
     public PathMappings<T> freeze() {
         frozen = true;
+        if (router == null) {
+            router = new PathMappingRouter<>(patterns);
+        }
         return this;
     }
 
@@ -99,7 +105,10 @@ public class PathMappings<T> implements BiFunction<String, String, PathMapped<T>
      */
     @Override
     public PathMapped<T> apply(String path, @Nullable String query) {
-        freeze();
+        PathMappingRouter<T> router = this.router;
+        if (router == null) {
+            router = freeze().router;
+        }
 
         // Look up the cache if the cache is available and query string does not exist.
         final Map<String, PathMapped<T>> cache =
@@ -113,16 +122,12 @@ public class PathMappings<T> implements BiFunction<String, String, PathMapped<T>
         }
 
         // Cache miss or disabled cache
-        PathMapped<T> result = PathMapped.empty();
-        final int size = patterns.size();
-        for (int i = 0; i < size; i++) {
-            final Entry<PathMapping, T> e = patterns.get(i);
-            final PathMapping mapping = e.getKey();
-            final PathMappingResult mappingResult = mapping.apply(path, query);
-            if (mappingResult.isPresent()) {
-                result = PathMapped.of(mapping, mappingResult, e.getValue());
-                break;
-            }
+        final PathMapped<T> result;
+        if (!path.isEmpty() && path.charAt(0) == '/') {
+            result = router.apply(path, query);
+        } else {
+            // Let the mappings reject the invalid path just like they used to.
+            result = applyAll(path, query);
         }
 
         // Cache the result.
@@ -133,6 +138,19 @@ public class PathMappings<T> implements BiFunction<String, String, PathMapped<T>
         return result;
     }
 
+    private PathMapped<T> applyAll(String path, @Nullable String query) {
+        final int size = patterns.size();
+        for (int i = 0; i < size; i++) {
+            final Entry<PathMapping, T> e = patterns.get(i);
+            final PathMapping mapping = e.getKey();
+            final PathMappingResult mappingResult = mapping.apply(path, query);
+            if (mappingResult.isPresent()) {
+                return PathMapped.of(mapping, mappingResult, e.getValue());
+            }
+        }
+        return PathMapped.empty();
+    }
+
     @Override
     public String toString() {
         return patterns.toString();
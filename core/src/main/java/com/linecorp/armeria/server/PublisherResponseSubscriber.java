@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.linecorp.armeria.common.http.DefaultHttpResponse;
+import com.linecorp.armeria.common.http.HttpHeaders;
+import com.linecorp.armeria.common.http.HttpObject;
+import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.common.http.HttpStatus;
+
+/**
+ * Writes the {@link HttpObject}s published by a {@link Publisher} to an {@link HttpResponse}. The next object
+ * is requested only when the previous one has been consumed, so that a slow client does not make the
+ * published objects pile up in the memory.
+ *
+ * <p>If the first published object is not an {@link HttpHeaders} with a status, the response starts with
+ * the headers of {@link HttpStatus#OK}.
+ */
+final class PublisherResponseSubscriber implements Subscriber<Object> {
+
+    /**
+     * Returns a new {@link HttpResponse} which streams the {@link HttpObject}s published by the specified
+     * {@link Publisher}.
+     */
+    static HttpResponse streamingResponse(Publisher<?> publisher) {
+        final DefaultHttpResponse res = new DefaultHttpResponse();
+        publisher.subscribe(new PublisherResponseSubscriber(res));
+        return res;
+    }
+
+    private final DefaultHttpResponse res;
+    private Subscription subscription;
+    private boolean headersWritten;
+
+    private PublisherResponseSubscriber(DefaultHttpResponse res) {
+        this.res = res;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        this.subscription = subscription;
+        // Stop the publisher if the response has been aborted, e.g. the client went away.
+        res.closeFuture().exceptionally(cause -> {
+            subscription.cancel();
+            return null;
+        });
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(Object obj) {
+        if (!(obj instanceof HttpObject)) {
+            subscription.cancel();
+            res.close(new IllegalArgumentException(
+                    "published an object which is not an HttpObject: " + obj.getClass().getName()));
+            return;
+        }
+
+        if (!headersWritten) {
+            headersWritten = true;
+            if (!(obj instanceof HttpHeaders) || ((HttpHeaders) obj).status() == null) {
+                res.write(HttpHeaders.of(HttpStatus.OK));
+            }
+        }
+
+        if (!res.write((HttpObject) obj)) {
+            subscription.cancel();
+            return;
+        }
+
+        res.onDemand(() -> subscription.request(1));
+    }
+
+    @Override
+    public void onError(Throwable cause) {
+        res.close(cause);
+    }
+
+    @Override
+    public void onComplete() {
+        if (!headersWritten) {
+            headersWritten = true;
+            res.write(HttpHeaders.of(HttpStatus.OK));
+        }
+        res.close();
+    }
+}
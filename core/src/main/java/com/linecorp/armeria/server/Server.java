@@ -48,6 +48,7 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
@@ -240,7 +241,9 @@ public final class Server implements AutoCloseable {
                         new DefaultThreadFactory("armeria-server-boss-epoll", false);
                 final ThreadFactory workerThreadFactory =
                         new DefaultThreadFactory("armeria-server-epoll", false);
-                bossGroup = new EpollEventLoopGroup(config.numBosses(), bossThreadFactory);
+                // Give each SO_REUSEPORT server socket its own boss thread.
+                final int numBosses = Math.max(config.numBosses(), config.numAcceptors());
+                bossGroup = new EpollEventLoopGroup(numBosses, bossThreadFactory);
                 workerGroup = new EpollEventLoopGroup(config.numWorkers(), workerThreadFactory);
             } else {
                 final ThreadFactory bossThreadFactory =
@@ -271,15 +274,30 @@ public final class Server implements AutoCloseable {
     }
 
     private ChannelFuture start(ServerPort port) {
+        return newServerBootstrap(port).bind(port.localAddress());
+    }
+
+    private ServerBootstrap newServerBootstrap(ServerPort port) {
         ServerBootstrap b = new ServerBootstrap();
 
         b.group(bossGroup, workerGroup);
         b.channel(NativeLibraries.isEpollAvailable() ? EpollServerSocketChannel.class
                                                      : NioServerSocketChannel.class);
+        if (numAcceptors() > 1) {
+            b.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
         b.handler(connectionLimitingHandler);
         b.childHandler(new HttpServerPipelineConfigurator(config, port, sslContexts, gracefulShutdownSupport));
 
-        return b.bind(port.localAddress());
+        return b;
+    }
+
+    /**
+     * Returns the number of the server sockets to bind to each {@link ServerPort}, which is always {@code 1}
+     * if {@code SO_REUSEPORT} is not available.
+     */
+    private int numAcceptors() {
+        return NativeLibraries.isEpollAvailable() ? config.numAcceptors() : 1;
     }
 
     /**
@@ -584,22 +602,50 @@ public final class Server implements AutoCloseable {
                 return;
             }
 
-            if (f.isSuccess()) {
-                InetSocketAddress localAddress = (InetSocketAddress) f.channel().localAddress();
-                ServerPort actualPort = new ServerPort(localAddress, port.protocol());
+            if (!f.isSuccess()) {
+                completeFutureExceptionally(startFuture, f.cause());
+                return;
+            }
 
-                activePorts.put(localAddress, actualPort);
+            final InetSocketAddress localAddress = (InetSocketAddress) f.channel().localAddress();
+            final int numAcceptors = numAcceptors();
+            if (numAcceptors == 1) {
+                portStarted(localAddress);
+                return;
+            }
 
-                // The port that has been activated first becomes the primary port.
-                if (primaryActivePort == null) {
-                    primaryActivePort = actualPort;
-                }
+            // Bind the remaining server sockets to the actual local address, which is known only after
+            // the first one is bound if the port number was 0.
+            final ServerBootstrap b = newServerBootstrap(port);
+            final AtomicInteger remainingAcceptors = new AtomicInteger(numAcceptors - 1);
+            for (int i = 1; i < numAcceptors; i++) {
+                b.bind(localAddress).addListener((ChannelFutureListener) f2 -> {
+                    if (startFuture.isDone()) {
+                        return;
+                    }
+                    if (!f2.isSuccess()) {
+                        completeFutureExceptionally(startFuture, f2.cause());
+                        return;
+                    }
+                    if (remainingAcceptors.decrementAndGet() == 0) {
+                        portStarted(localAddress);
+                    }
+                });
+            }
+        }
 
-                if (remainingPorts.decrementAndGet() == 0) {
-                    completeFuture(startFuture);
-                }
-            } else {
-                completeFutureExceptionally(startFuture, f.cause());
+        private void portStarted(InetSocketAddress localAddress) {
+            final ServerPort actualPort = new ServerPort(localAddress, port.protocol());
+
+            activePorts.put(localAddress, actualPort);
+
+            // The port that has been activated first becomes the primary port.
+            if (primaryActivePort == null) {
+                primaryActivePort = actualPort;
+            }
+
+            if (remainingPorts.decrementAndGet() == 0) {
+                completeFuture(startFuture);
             }
         }
     }
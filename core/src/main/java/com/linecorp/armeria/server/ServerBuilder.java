@@ -43,8 +43,10 @@ import com.linecorp.armeria.common.Request;
 import com.linecorp.armeria.common.SessionProtocol;
 import com.linecorp.armeria.common.http.HttpRequest;
 import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.internal.http.Http2SettingsUtil;
 import com.linecorp.armeria.server.http.dynamic.ResponseConverter;
 
+import io.netty.handler.codec.http2.Http2CodecUtil;
 import io.netty.handler.ssl.SslContext;
 import io.netty.util.concurrent.DefaultThreadFactory;
 
@@ -82,6 +84,7 @@ import io.netty.util.concurrent.DefaultThreadFactory;
 public final class ServerBuilder {
 
     private static final int DEFAULT_NUM_BOSSES = 1;
+    private static final int DEFAULT_NUM_ACCEPTORS = 1;
     private static final int DEFAULT_NUM_WORKERS;
 
     // Use Integer.MAX_VALUE not to limit open connections by default.
@@ -91,6 +94,13 @@ public final class ServerBuilder {
     private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = Duration.ofSeconds(15).toMillis();
     private static final long DEFAULT_DEFAULT_REQUEST_TIMEOUT_MILLIS = Duration.ofSeconds(10).toMillis();
     private static final long DEFAULT_DEFAULT_MAX_REQUEST_LENGTH = 10 * 1024 * 1024; // 10 MB
+    private static final long DEFAULT_MAX_CONNECTION_AGE_MILLIS = 0; // Unlimited
+    private static final int DEFAULT_MAX_NUM_REQUESTS_PER_CONNECTION = 0; // Unlimited
+    private static final int DEFAULT_HTTP2_INITIAL_CONNECTION_WINDOW_SIZE = Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+    private static final int DEFAULT_HTTP2_INITIAL_STREAM_WINDOW_SIZE = Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+    private static final long DEFAULT_HTTP2_MAX_STREAMS_PER_CONNECTION = Http2CodecUtil.MAX_CONCURRENT_STREAMS;
+    private static final int DEFAULT_HTTP2_MAX_FRAME_SIZE = Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE;
+    private static final long DEFAULT_HTTP2_HEADER_TABLE_SIZE = Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
     // Defaults to no graceful shutdown.
     private static final Duration DEFAULT_GRACEFUL_SHUTDOWN_QUIET_PERIOD = Duration.ZERO;
     private static final Duration DEFAULT_GRACEFUL_SHUTDOWN_TIMEOUT = Duration.ZERO;
@@ -133,12 +143,23 @@ public final class ServerBuilder {
 
     private VirtualHost defaultVirtualHost;
     private int numBosses = DEFAULT_NUM_BOSSES;
+    private int numAcceptors = DEFAULT_NUM_ACCEPTORS;
     private int numWorkers = DEFAULT_NUM_WORKERS;
     private int maxNumConnections = DEFAULT_MAX_NUM_CONNECTIONS;
     @SuppressWarnings("RedundantFieldInitialization")
     private long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
     private long defaultRequestTimeoutMillis = DEFAULT_DEFAULT_REQUEST_TIMEOUT_MILLIS;
     private long defaultMaxRequestLength = DEFAULT_DEFAULT_MAX_REQUEST_LENGTH;
+    private long maxConnectionAgeMillis = DEFAULT_MAX_CONNECTION_AGE_MILLIS;
+    private int maxNumRequestsPerConnection = DEFAULT_MAX_NUM_REQUESTS_PER_CONNECTION;
+    private int http2InitialConnectionWindowSize = DEFAULT_HTTP2_INITIAL_CONNECTION_WINDOW_SIZE;
+    private int http2InitialStreamWindowSize = DEFAULT_HTTP2_INITIAL_STREAM_WINDOW_SIZE;
+    private long http2MaxStreamsPerConnection = DEFAULT_HTTP2_MAX_STREAMS_PER_CONNECTION;
+    private int http2MaxFrameSize = DEFAULT_HTTP2_MAX_FRAME_SIZE;
+    private long http2HeaderTableSize = DEFAULT_HTTP2_HEADER_TABLE_SIZE;
+    private boolean http2AdaptiveFlowControl;
+    private boolean dateHeaderEnabled = true;
+    private boolean serverHeaderEnabled;
     private Duration gracefulShutdownQuietPeriod = DEFAULT_GRACEFUL_SHUTDOWN_QUIET_PERIOD;
     private Duration gracefulShutdownTimeout = DEFAULT_GRACEFUL_SHUTDOWN_TIMEOUT;
     private Executor blockingTaskExecutor;
@@ -210,6 +231,18 @@ public final class ServerBuilder {
         return this;
     }
 
+    /**
+     * Sets the number of the server sockets bound to each {@link ServerPort}. When greater than {@code 1},
+     * the server sockets are bound with {@code SO_REUSEPORT} so that the kernel distributes incoming
+     * connections among them, and the number of boss threads is raised to {@code numAcceptors} so that each
+     * server socket accepts connections in its own thread. This option is effective only when
+     * {@code /dev/epoll} is available. Otherwise, a single server socket is bound to each {@link ServerPort}.
+     */
+    public ServerBuilder numAcceptors(int numAcceptors) {
+        this.numAcceptors = ServerConfig.validateNumAcceptors(numAcceptors);
+        return this;
+    }
+
     /**
      * Sets the number of worker threads that performs socket I/O and runs
      * {@link Service#serve(ServiceRequestContext, Request)}.
@@ -280,6 +313,121 @@ public final class ServerBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum age of a connection in milliseconds. When a connection gets older than this, the server
+     * stops accepting new requests on the connection and closes it after its requests in progress are
+     * finished, so that the client reconnects, possibly to another server. An HTTP/2 connection is notified
+     * with a {@code GOAWAY} frame and an HTTP/1 connection with a {@code "connection: close"} header.
+     * Up to 10% of random jitter is added to the age so that the connections opened at the same time are not
+     * closed at the same time.
+     *
+     * @param maxConnectionAgeMillis the maximum age in milliseconds. {@code 0} disables the limit.
+     */
+    public ServerBuilder maxConnectionAgeMillis(long maxConnectionAgeMillis) {
+        this.maxConnectionAgeMillis = ServerConfig.validateMaxConnectionAgeMillis(maxConnectionAgeMillis);
+        return this;
+    }
+
+    /**
+     * Sets the maximum age of a connection. See {@link #maxConnectionAgeMillis(long)} for details.
+     *
+     * @param maxConnectionAge the maximum age. {@code 0} disables the limit.
+     */
+    public ServerBuilder maxConnectionAge(Duration maxConnectionAge) {
+        return maxConnectionAgeMillis(requireNonNull(maxConnectionAge, "maxConnectionAge").toMillis());
+    }
+
+    /**
+     * Sets the maximum number of the requests that can be handled by a connection. When a connection received
+     * this many requests, it is closed gracefully in the same way as described in
+     * {@link #maxConnectionAgeMillis(long)}.
+     *
+     * @param maxNumRequestsPerConnection the maximum number of the requests. {@code 0} disables the limit.
+     */
+    public ServerBuilder maxNumRequestsPerConnection(int maxNumRequestsPerConnection) {
+        this.maxNumRequestsPerConnection =
+                ServerConfig.validateMaxNumRequestsPerConnection(maxNumRequestsPerConnection);
+        return this;
+    }
+
+    /**
+     * Sets the initial flow-control window size of an HTTP/2 connection. The default value is
+     * 65535 bytes, which is the minimum allowed by the protocol.
+     * A larger window lets a client upload faster over a connection with a large bandwidth-delay product.
+     */
+    public ServerBuilder http2InitialConnectionWindowSize(int http2InitialConnectionWindowSize) {
+        this.http2InitialConnectionWindowSize =
+                Http2SettingsUtil.validateHttp2InitialConnectionWindowSize(http2InitialConnectionWindowSize);
+        return this;
+    }
+
+    /**
+     * Sets the initial flow-control window size of an HTTP/2 stream. The default value is
+     * 65535 bytes.
+     */
+    public ServerBuilder http2InitialStreamWindowSize(int http2InitialStreamWindowSize) {
+        this.http2InitialStreamWindowSize =
+                Http2SettingsUtil.validateHttp2InitialStreamWindowSize(http2InitialStreamWindowSize);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of concurrent streams per HTTP/2 connection. Unlimited by default.
+     */
+    public ServerBuilder http2MaxStreamsPerConnection(long http2MaxStreamsPerConnection) {
+        this.http2MaxStreamsPerConnection =
+                ServerConfig.validateHttp2MaxStreamsPerConnection(http2MaxStreamsPerConnection);
+        return this;
+    }
+
+    /**
+     * Sets the maximum size of an HTTP/2 frame that can be received. The default value is
+     * 16384 bytes.
+     */
+    public ServerBuilder http2MaxFrameSize(int http2MaxFrameSize) {
+        this.http2MaxFrameSize = Http2SettingsUtil.validateHttp2MaxFrameSize(http2MaxFrameSize);
+        return this;
+    }
+
+    /**
+     * Sets the size of the HPACK header table used for decoding HTTP/2 headers. The default value is
+     * 4096 bytes.
+     */
+    public ServerBuilder http2HeaderTableSize(long http2HeaderTableSize) {
+        this.http2HeaderTableSize = Http2SettingsUtil.validateHttp2HeaderTableSize(http2HeaderTableSize);
+        return this;
+    }
+
+    /**
+     * Sets whether the HTTP/2 flow-control windows are grown automatically. When enabled, the bandwidth-delay
+     * product of a connection is measured with {@code PING} frames while receiving {@code DATA} frames, and
+     * the connection window and the initial stream window are enlarged when they limit the throughput.
+     * The windows configured by {@link #http2InitialConnectionWindowSize(int)} and
+     * {@link #http2InitialStreamWindowSize(int)} are used as the starting points. Disabled by default.
+     */
+    public ServerBuilder http2AdaptiveFlowControl(boolean http2AdaptiveFlowControl) {
+        this.http2AdaptiveFlowControl = http2AdaptiveFlowControl;
+        return this;
+    }
+
+    /**
+     * Sets whether a {@code "date"} header is added to the responses which do not have one.
+     * The header value is formatted at most once per second per event loop. Enabled by default.
+     */
+    public ServerBuilder dateHeaderEnabled(boolean dateHeaderEnabled) {
+        this.dateHeaderEnabled = dateHeaderEnabled;
+        return this;
+    }
+
+    /**
+     * Sets whether a {@code "server"} header with the name and the version of Armeria is added to
+     * the responses which do not have one. Disabled by default.
+     */
+    public ServerBuilder serverHeaderEnabled(boolean serverHeaderEnabled) {
+        this.serverHeaderEnabled = serverHeaderEnabled;
+        return this;
+    }
+
     /**
      * Sets the amount of time to wait after calling {@link Server#stop()} for
      * requests to go away before actually shutting down.
@@ -663,8 +811,12 @@ public final class ServerBuilder {
         }
 
         Server server = new Server(new ServerConfig(
-                ports, defaultVirtualHost, virtualHosts, numBosses, numWorkers,
+                ports, defaultVirtualHost, virtualHosts, numBosses, numAcceptors, numWorkers,
                 maxNumConnections, idleTimeoutMillis, defaultRequestTimeoutMillis, defaultMaxRequestLength,
+                maxConnectionAgeMillis, maxNumRequestsPerConnection,
+                http2InitialConnectionWindowSize, http2InitialStreamWindowSize, http2MaxStreamsPerConnection,
+                http2MaxFrameSize, http2HeaderTableSize, http2AdaptiveFlowControl,
+                dateHeaderEnabled, serverHeaderEnabled,
                 gracefulShutdownQuietPeriod, gracefulShutdownTimeout,
                 blockingTaskExecutor, serviceLoggerPrefix));
         serverListeners.forEach(server::addListener);
@@ -17,6 +17,10 @@
 package com.linecorp.armeria.server;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.linecorp.armeria.internal.http.Http2SettingsUtil.validateHttp2HeaderTableSize;
+import static com.linecorp.armeria.internal.http.Http2SettingsUtil.validateHttp2InitialConnectionWindowSize;
+import static com.linecorp.armeria.internal.http.Http2SettingsUtil.validateHttp2InitialStreamWindowSize;
+import static com.linecorp.armeria.internal.http.Http2SettingsUtil.validateHttp2MaxFrameSize;
 import static java.util.Objects.requireNonNull;
 
 import java.time.Duration;
@@ -31,6 +35,7 @@ import java.util.stream.Collectors;
 import com.linecorp.armeria.common.Request;
 import com.linecorp.armeria.internal.ConnectionLimitingHandler;
 
+import io.netty.handler.codec.http2.Http2CodecUtil;
 import io.netty.handler.ssl.SslContext;
 import io.netty.util.DomainNameMapping;
 import io.netty.util.DomainNameMappingBuilder;
@@ -52,11 +57,24 @@ public final class ServerConfig {
     private final List<ServiceConfig> services;
 
     private final int numBosses;
+    private final int numAcceptors;
     private final int numWorkers;
     private final int maxNumConnections;
     private final long defaultRequestTimeoutMillis;
     private final long idleTimeoutMillis;
     private final long defaultMaxRequestLength;
+    private final long maxConnectionAgeMillis;
+    private final int maxNumRequestsPerConnection;
+
+    private final int http2InitialConnectionWindowSize;
+    private final int http2InitialStreamWindowSize;
+    private final long http2MaxStreamsPerConnection;
+    private final int http2MaxFrameSize;
+    private final long http2HeaderTableSize;
+    private final boolean http2AdaptiveFlowControl;
+
+    private final boolean dateHeaderEnabled;
+    private final boolean serverHeaderEnabled;
 
     private final Duration gracefulShutdownQuietPeriod;
     private final Duration gracefulShutdownTimeout;
@@ -70,9 +88,12 @@ public final class ServerConfig {
     ServerConfig(
             Iterable<ServerPort> ports,
             VirtualHost defaultVirtualHost, Iterable<VirtualHost> virtualHosts,
-            int numBosses, int numWorkers, int maxNumConnections,
+            int numBosses, int numAcceptors, int numWorkers, int maxNumConnections,
             long idleTimeoutMillis, long defaultRequestTimeoutMillis,
-            long defaultMaxRequestLength,
+            long defaultMaxRequestLength, long maxConnectionAgeMillis, int maxNumRequestsPerConnection,
+            int http2InitialConnectionWindowSize, int http2InitialStreamWindowSize,
+            long http2MaxStreamsPerConnection, int http2MaxFrameSize, long http2HeaderTableSize,
+            boolean http2AdaptiveFlowControl, boolean dateHeaderEnabled, boolean serverHeaderEnabled,
             Duration gracefulShutdownQuietPeriod, Duration gracefulShutdownTimeout,
             Executor blockingTaskExecutor, String serviceLoggerPrefix) {
 
@@ -82,11 +103,23 @@ public final class ServerConfig {
 
         // Set the primitive properties.
         this.numBosses = validateNumBosses(numBosses);
+        this.numAcceptors = validateNumAcceptors(numAcceptors);
         this.numWorkers = validateNumWorkers(numWorkers);
         this.maxNumConnections = validateMaxNumConnections(maxNumConnections);
         this.idleTimeoutMillis = validateIdleTimeoutMillis(idleTimeoutMillis);
         this.defaultRequestTimeoutMillis = validateDefaultRequestTimeoutMillis(defaultRequestTimeoutMillis);
         this.defaultMaxRequestLength = validateDefaultMaxRequestLength(defaultMaxRequestLength);
+        this.maxConnectionAgeMillis = validateMaxConnectionAgeMillis(maxConnectionAgeMillis);
+        this.maxNumRequestsPerConnection = validateMaxNumRequestsPerConnection(maxNumRequestsPerConnection);
+        this.http2InitialConnectionWindowSize = validateHttp2InitialConnectionWindowSize(
+                http2InitialConnectionWindowSize);
+        this.http2InitialStreamWindowSize = validateHttp2InitialStreamWindowSize(http2InitialStreamWindowSize);
+        this.http2MaxStreamsPerConnection = validateHttp2MaxStreamsPerConnection(http2MaxStreamsPerConnection);
+        this.http2MaxFrameSize = validateHttp2MaxFrameSize(http2MaxFrameSize);
+        this.http2HeaderTableSize = validateHttp2HeaderTableSize(http2HeaderTableSize);
+        this.http2AdaptiveFlowControl = http2AdaptiveFlowControl;
+        this.dateHeaderEnabled = dateHeaderEnabled;
+        this.serverHeaderEnabled = serverHeaderEnabled;
         this.gracefulShutdownQuietPeriod = validateNonNegative(requireNonNull(
                 gracefulShutdownQuietPeriod), "gracefulShutdownQuietPeriod");
         this.gracefulShutdownTimeout = validateNonNegative(requireNonNull(
@@ -159,6 +192,13 @@ public final class ServerConfig {
         return numBosses;
     }
 
+    static int validateNumAcceptors(int numAcceptors) {
+        if (numAcceptors <= 0) {
+            throw new IllegalArgumentException("numAcceptors: " + numAcceptors + " (expected: > 0)");
+        }
+        return numAcceptors;
+    }
+
     static int validateNumWorkers(int numWorkers) {
         if (numWorkers <= 0) {
             throw new IllegalArgumentException("numWorkers: " + numWorkers + " (expected: > 0)");
@@ -193,6 +233,32 @@ public final class ServerConfig {
         return defaultMaxRequestLength;
     }
 
+    static long validateMaxConnectionAgeMillis(long maxConnectionAgeMillis) {
+        if (maxConnectionAgeMillis < 0) {
+            throw new IllegalArgumentException(
+                    "maxConnectionAgeMillis: " + maxConnectionAgeMillis + " (expected: >= 0)");
+        }
+        return maxConnectionAgeMillis;
+    }
+
+    static int validateMaxNumRequestsPerConnection(int maxNumRequestsPerConnection) {
+        if (maxNumRequestsPerConnection < 0) {
+            throw new IllegalArgumentException(
+                    "maxNumRequestsPerConnection: " + maxNumRequestsPerConnection + " (expected: >= 0)");
+        }
+        return maxNumRequestsPerConnection;
+    }
+
+    static long validateHttp2MaxStreamsPerConnection(long http2MaxStreamsPerConnection) {
+        if (http2MaxStreamsPerConnection <= 0 ||
+            http2MaxStreamsPerConnection > Http2CodecUtil.MAX_CONCURRENT_STREAMS) {
+            throw new IllegalArgumentException(
+                    "http2MaxStreamsPerConnection: " + http2MaxStreamsPerConnection +
+                    " (expected: > 0 and <= " + Http2CodecUtil.MAX_CONCURRENT_STREAMS + ')');
+        }
+        return http2MaxStreamsPerConnection;
+    }
+
     static Duration validateNonNegative(Duration duration, String fieldName) {
         if (duration.isNegative()) {
             throw new IllegalArgumentException(fieldName + ": " + duration + " (expected: >= 0)");
@@ -323,6 +389,15 @@ public final class ServerConfig {
         return numBosses;
     }
 
+    /**
+     * Returns the number of the server sockets bound to each {@link ServerPort} with {@code SO_REUSEPORT}.
+     * Note that only one server socket is bound to each {@link ServerPort} when {@code /dev/epoll} is not
+     * available.
+     */
+    public int numAcceptors() {
+        return numAcceptors;
+    }
+
     /**
      * Returns the number of worker threads that perform socket I/O and run
      * {@link Service#serve(ServiceRequestContext, Request)}.
@@ -360,6 +435,84 @@ public final class ServerConfig {
         return defaultMaxRequestLength;
     }
 
+    /**
+     * Returns the maximum age of a connection in milliseconds. A connection older than this is closed
+     * gracefully after its requests in progress are finished. {@code 0} means unlimited.
+     */
+    public long maxConnectionAgeMillis() {
+        return maxConnectionAgeMillis;
+    }
+
+    /**
+     * Returns the maximum number of the requests that can be handled by a connection. A connection which
+     * received this many requests is closed gracefully after its requests in progress are finished.
+     * {@code 0} means unlimited.
+     */
+    public int maxNumRequestsPerConnection() {
+        return maxNumRequestsPerConnection;
+    }
+
+    /**
+     * Returns the initial flow-control window size of an HTTP/2 connection.
+     */
+    public int http2InitialConnectionWindowSize() {
+        return http2InitialConnectionWindowSize;
+    }
+
+    /**
+     * Returns the initial flow-control window size of an HTTP/2 stream, which is sent to a client as
+     * {@code SETTINGS_INITIAL_WINDOW_SIZE}.
+     */
+    public int http2InitialStreamWindowSize() {
+        return http2InitialStreamWindowSize;
+    }
+
+    /**
+     * Returns the maximum number of concurrent streams per HTTP/2 connection, which is sent to a client as
+     * {@code SETTINGS_MAX_CONCURRENT_STREAMS}.
+     */
+    public long http2MaxStreamsPerConnection() {
+        return http2MaxStreamsPerConnection;
+    }
+
+    /**
+     * Returns the maximum size of an HTTP/2 frame that can be received, which is sent to a client as
+     * {@code SETTINGS_MAX_FRAME_SIZE}.
+     */
+    public int http2MaxFrameSize() {
+        return http2MaxFrameSize;
+    }
+
+    /**
+     * Returns the size of the HPACK header table used for decoding HTTP/2 headers, which is sent to
+     * a client as {@code SETTINGS_HEADER_TABLE_SIZE}.
+     */
+    public long http2HeaderTableSize() {
+        return http2HeaderTableSize;
+    }
+
+    /**
+     * Returns whether the HTTP/2 flow-control windows are grown automatically to the bandwidth-delay
+     * product of a connection.
+     */
+    public boolean http2AdaptiveFlowControl() {
+        return http2AdaptiveFlowControl;
+    }
+
+    /**
+     * Returns whether a {@code "date"} header is added to the responses which do not have one.
+     */
+    public boolean dateHeaderEnabled() {
+        return dateHeaderEnabled;
+    }
+
+    /**
+     * Returns whether a {@code "server"} header is added to the responses which do not have one.
+     */
+    public boolean serverHeaderEnabled() {
+        return serverHeaderEnabled;
+    }
+
     /**
      * Returns the number of milliseconds to wait for active requests to go end before shutting down.
      * {@code 0} means the server will stop right away without waiting.
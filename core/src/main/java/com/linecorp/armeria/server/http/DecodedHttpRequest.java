@@ -16,20 +16,24 @@
 
 package com.linecorp.armeria.server.http;
 
-import org.reactivestreams.Subscriber;
+import com.google.common.base.MoreObjects;
 
-import com.linecorp.armeria.common.http.DefaultHttpRequest;
 import com.linecorp.armeria.common.http.HttpData;
 import com.linecorp.armeria.common.http.HttpHeaders;
 import com.linecorp.armeria.common.http.HttpObject;
+import com.linecorp.armeria.common.http.HttpRequest;
+import com.linecorp.armeria.common.http.HttpRequestWriter;
+import com.linecorp.armeria.common.stream.EventLoopStreamMessage;
 import com.linecorp.armeria.internal.InboundTrafficController;
 import com.linecorp.armeria.server.ServiceRequestContext;
 
 import io.netty.channel.EventLoop;
 
-final class DecodedHttpRequest extends DefaultHttpRequest {
+final class DecodedHttpRequest extends EventLoopStreamMessage<HttpObject>
+        implements HttpRequest, HttpRequestWriter {
 
-    private final EventLoop eventLoop;
+    private final HttpHeaders headers;
+    private final boolean keepAlive;
     private final int id;
     private final int streamId;
     private final InboundTrafficController inboundTrafficController;
@@ -40,9 +44,10 @@ final class DecodedHttpRequest extends DefaultHttpRequest {
     DecodedHttpRequest(EventLoop eventLoop, int id, int streamId, HttpHeaders headers, boolean keepAlive,
                        InboundTrafficController inboundTrafficController, long defaultMaxRequestLength) {
 
-        super(headers, keepAlive);
+        super(eventLoop);
 
-        this.eventLoop = eventLoop;
+        this.headers = headers;
+        this.keepAlive = keepAlive;
         this.id = id;
         this.streamId = streamId;
         this.inboundTrafficController = inboundTrafficController;
@@ -79,8 +84,13 @@ final class DecodedHttpRequest extends DefaultHttpRequest {
     }
 
     @Override
-    public void subscribe(Subscriber<? super HttpObject> subscriber) {
-        subscribe(subscriber, eventLoop);
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    @Override
+    public boolean isKeepAlive() {
+        return keepAlive;
     }
 
     @Override
@@ -102,4 +112,11 @@ final class DecodedHttpRequest extends DefaultHttpRequest {
             inboundTrafficController.dec(length);
         }
     }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("keepAlive", isKeepAlive())
+                          .add("headers", headers()).toString();
+    }
 }
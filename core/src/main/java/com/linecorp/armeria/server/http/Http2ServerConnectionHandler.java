@@ -18,18 +18,59 @@ package com.linecorp.armeria.server.http;
 
 import com.linecorp.armeria.internal.http.AbstractHttp2ConnectionHandler;
 
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http2.Http2ConnectionAdapter;
 import io.netty.handler.codec.http2.Http2ConnectionDecoder;
 import io.netty.handler.codec.http2.Http2ConnectionEncoder;
+import io.netty.handler.codec.http2.Http2Error;
 import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2Stream;
 
 final class Http2ServerConnectionHandler extends AbstractHttp2ConnectionHandler {
 
+    private ChannelHandlerContext ctx;
+    private boolean draining;
+
     Http2ServerConnectionHandler(
             Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder,
-            Http2Settings initialSettings) {
+            Http2Settings initialSettings, int initialConnectionWindowSize) {
+
+        super(decoder, encoder, initialSettings, initialConnectionWindowSize);
+        connection().addListener(new Http2ConnectionAdapter() {
+            @Override
+            public void onStreamClosed(Http2Stream stream) {
+                if (draining && connection().numActiveStreams() == 0) {
+                    ctx.close();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+        super.handlerAdded(ctx);
+    }
+
+    /**
+     * Sends a {@code GOAWAY} frame so that the client does not open a new stream, and closes the connection
+     * once all active streams are closed. Unlike {@link ChannelHandlerContext#close()}, the streams in progress
+     * are not aborted.
+     */
+    void drain() {
+        if (draining || isClosing()) {
+            return;
+        }
+
+        draining = true;
+        goAway(ctx, connection().remote().lastStreamCreated(), Http2Error.NO_ERROR.code(),
+               Unpooled.EMPTY_BUFFER, ctx.newPromise());
+        ctx.flush();
 
-        super(decoder, encoder, initialSettings);
+        if (connection().numActiveStreams() == 0) {
+            ctx.close();
+        }
     }
 
     @Override
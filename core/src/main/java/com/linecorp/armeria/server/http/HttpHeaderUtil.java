@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import com.linecorp.armeria.common.http.HttpHeaderNames;
+import com.linecorp.armeria.common.http.HttpHeaders;
+import com.linecorp.armeria.common.util.Version;
+import com.linecorp.armeria.server.ServerConfig;
+
+import io.netty.util.concurrent.FastThreadLocal;
+
+final class HttpHeaderUtil {
+
+    private static final String SERVER_ARTIFACT_ID = "armeria";
+
+    static final String SERVER = createServerName();
+
+    /**
+     * The preferred format of the {@code "date"} header, as defined in
+     * <a href="https://tools.ietf.org/html/rfc7231#section-7.1.1.1">RFC 7231, section 7.1.1.1</a>.
+     */
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.ENGLISH)
+                             .withZone(ZoneOffset.UTC);
+
+    /**
+     * The {@code "date"} header value of the current second, cached per thread, i.e. per event loop.
+     * It is kept as a {@link String} because {@link HttpHeaders} stores its values as {@link String}s.
+     */
+    private static final FastThreadLocal<CachedDate> cachedDate = new FastThreadLocal<CachedDate>() {
+        @Override
+        protected CachedDate initialValue() {
+            return new CachedDate();
+        }
+    };
+
+    /**
+     * Returns a copy of the specified non-informational response headers with the {@code "date"} and
+     * {@code "server"} headers added, if enabled and not set already, or the specified headers as they are if
+     * there is nothing to add. The specified headers are never modified, because a service may publish
+     * the same headers for more than one response, possibly from different event loops.
+     */
+    static HttpHeaders addServerHeaders(HttpHeaders headers, ServerConfig config) {
+        final boolean addDate = config.dateHeaderEnabled() && !headers.contains(HttpHeaderNames.DATE);
+        final boolean addServer = config.serverHeaderEnabled() && !headers.contains(HttpHeaderNames.SERVER);
+        if (!addDate && !addServer) {
+            return headers;
+        }
+
+        final HttpHeaders copy = HttpHeaders.copyOf(headers);
+        if (addDate) {
+            copy.set(HttpHeaderNames.DATE, date());
+        }
+        if (addServer) {
+            copy.set(HttpHeaderNames.SERVER, SERVER);
+        }
+        return copy;
+    }
+
+    static String date() {
+        return date(System.currentTimeMillis());
+    }
+
+    static String date(long currentTimeMillis) {
+        final CachedDate cachedDate = HttpHeaderUtil.cachedDate.get();
+        final long epochSecond = currentTimeMillis / 1000;
+        if (cachedDate.epochSecond != epochSecond) {
+            cachedDate.epochSecond = epochSecond;
+            cachedDate.value = DATE_FORMAT.format(Instant.ofEpochSecond(epochSecond));
+        }
+        return cachedDate.value;
+    }
+
+    private static String createServerName() {
+        final Version version = Version.identify(HttpHeaderUtil.class.getClassLoader())
+                                       .get(SERVER_ARTIFACT_ID);
+
+        return SERVER_ARTIFACT_ID + '/' + (version != null ? version.artifactVersion() : "unknown");
+    }
+
+    private static final class CachedDate {
+        long epochSecond = Long.MIN_VALUE;
+        String value;
+    }
+
+    private HttpHeaderUtil() {}
+}
@@ -16,6 +16,7 @@
 
 package com.linecorp.armeria.server.http;
 
+import static com.linecorp.armeria.server.http.HttpHeaderUtil.addServerHeaders;
 import static com.linecorp.armeria.server.http.HttpResponseSubscriber.State.NEEDS_DATA_OR_TRAILING_HEADERS;
 
 import java.util.concurrent.ScheduledFuture;
@@ -41,6 +42,7 @@ import com.linecorp.armeria.server.DefaultServiceRequestContext;
 import com.linecorp.armeria.server.RequestTimeoutChangeListener;
 import com.linecorp.armeria.server.RequestTimeoutException;
 import com.linecorp.armeria.server.ResourceNotFoundException;
+import com.linecorp.armeria.server.ServerConfig;
 import com.linecorp.armeria.server.Service;
 import com.linecorp.armeria.server.ServiceUnavailableException;
 
@@ -65,6 +67,7 @@ final class HttpResponseSubscriber implements Subscriber<HttpObject>, RequestTim
     private final HttpObjectEncoder responseEncoder;
     private final DecodedHttpRequest req;
     private final DefaultServiceRequestContext reqCtx;
+    private final ServerConfig config;
     private final long startTimeNanos;
 
     private Subscription subscription;
@@ -72,11 +75,12 @@ final class HttpResponseSubscriber implements Subscriber<HttpObject>, RequestTim
     private State state = State.NEEDS_HEADERS;
 
     HttpResponseSubscriber(ChannelHandlerContext ctx, HttpObjectEncoder responseEncoder,
-                           DefaultServiceRequestContext reqCtx, DecodedHttpRequest req) {
+                           DefaultServiceRequestContext reqCtx, DecodedHttpRequest req, ServerConfig config) {
         this.ctx = ctx;
         this.responseEncoder = responseEncoder;
         this.req = req;
         this.reqCtx = reqCtx;
+        this.config = config;
         startTimeNanos = System.nanoTime();
     }
 
@@ -159,7 +163,7 @@ final class HttpResponseSubscriber implements Subscriber<HttpObject>, RequestTim
                             " (service: " + service() + ')');
                 }
 
-                final HttpHeaders headers = (HttpHeaders) o;
+                HttpHeaders headers = (HttpHeaders) o;
                 final HttpStatus status = headers.status();
                 if (status == null) {
                     throw newIllegalStateException("published an HttpHeaders without status: " + o +
@@ -171,6 +175,9 @@ final class HttpResponseSubscriber implements Subscriber<HttpObject>, RequestTim
                     break;
                 }
 
+                headers = addServerHeaders(headers, config);
+                o = headers;
+
                 final int statusCode = status.code();
                 logBuilder().statusCode(statusCode);
                 logBuilder().responseEnvelope(headers);
@@ -311,10 +318,11 @@ final class HttpResponseSubscriber implements Subscriber<HttpObject>, RequestTim
             final HttpData content = status.toHttpData();
             responseEncoder.writeHeaders(
                     ctx, id, streamId,
-                    HttpHeaders.of(status)
-                               .set(HttpHeaderNames.CONTENT_TYPE,
-                                    MediaType.PLAIN_TEXT_UTF_8.toString())
-                               .setInt(HttpHeaderNames.CONTENT_LENGTH, content.length()),
+                    addServerHeaders(HttpHeaders.of(status)
+                                                .set(HttpHeaderNames.CONTENT_TYPE,
+                                                     MediaType.PLAIN_TEXT_UTF_8.toString())
+                                                .setInt(HttpHeaderNames.CONTENT_LENGTH, content.length()),
+                                     config),
                     false);
             responseEncoder.writeData(ctx, id, streamId, content, true);
         } else {
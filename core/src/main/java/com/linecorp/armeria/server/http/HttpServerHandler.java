@@ -26,6 +26,9 @@ import static java.util.Objects.requireNonNull;
 
 import java.net.InetSocketAddress;
 import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
@@ -153,8 +156,10 @@ final class HttpServerHandler extends ChannelInboundHandlerAdapter implements Ht
     private HttpObjectEncoder responseEncoder;
 
     private int unfinishedRequests;
+    private int numRequests;
     private boolean isReading;
     private boolean handledLastRequest;
+    private ScheduledFuture<?> maxConnectionAgeFuture;
 
     HttpServerHandler(ServerConfig config,
                       GracefulShutdownSupport gracefulShutdownSupport,
@@ -181,8 +186,23 @@ final class HttpServerHandler extends ChannelInboundHandlerAdapter implements Ht
         return unfinishedRequests;
     }
 
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        final long maxConnectionAgeMillis = config.maxConnectionAgeMillis();
+        if (maxConnectionAgeMillis > 0) {
+            // Add up to 10% of jitter so that the connections opened at the same time are not closed together.
+            final long jitterMillis = ThreadLocalRandom.current().nextLong(maxConnectionAgeMillis / 10 + 1);
+            final long delayMillis = maxConnectionAgeMillis + jitterMillis;
+            maxConnectionAgeFuture = ctx.executor().schedule(
+                    () -> disconnectWhenFinished(ctx), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (maxConnectionAgeFuture != null) {
+            maxConnectionAgeFuture.cancel(false);
+        }
         if (responseEncoder != null) {
             responseEncoder.close();
         }
@@ -232,6 +252,8 @@ final class HttpServerHandler extends ChannelInboundHandlerAdapter implements Ht
         // we should not accept a request anymore.
         if (!req.isKeepAlive()) {
             handledLastRequest = true;
+        } else if (++numRequests == config.maxNumRequestsPerConnection()) {
+            disconnectWhenFinished(ctx);
         }
 
         final HttpHeaders headers = req.headers();
@@ -330,12 +352,40 @@ final class HttpServerHandler extends ChannelInboundHandlerAdapter implements Ht
             })).exceptionally(CompletionActions::log);
 
             final HttpResponseSubscriber resSubscriber =
-                    new HttpResponseSubscriber(ctx, responseEncoder, reqCtx, req);
+                    new HttpResponseSubscriber(ctx, responseEncoder, reqCtx, req, config);
             reqCtx.setRequestTimeoutChangeListener(resSubscriber);
             res.subscribe(resSubscriber, eventLoop, true);
         }
     }
 
+    /**
+     * Stops accepting new requests on the connection and closes it once all requests in progress are finished.
+     */
+    private void disconnectWhenFinished(ChannelHandlerContext ctx) {
+        if (!ctx.channel().isActive()) {
+            return;
+        }
+
+        if (protocol == H2 || protocol == H2C) {
+            // Send a GOAWAY frame and close the connection when all active streams are closed.
+            ctx.pipeline().get(Http2ServerConnectionHandler.class).drain();
+            return;
+        }
+
+        if (handledLastRequest) {
+            return;
+        }
+
+        // Let the client know the connection will be closed with the 'connection: close' header and
+        // close the connection after sending the last response.
+        handledLastRequest = true;
+        ((Http1ObjectEncoder) responseEncoder).disableKeepAlive();
+        // Close the connection right away if idle. Otherwise, it is closed when the last response is sent.
+        if (unfinishedRequests == 0 && !isReading) {
+            ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(CLOSE);
+        }
+    }
+
     private void handleOptions(ChannelHandlerContext ctx, DecodedHttpRequest req) {
         respond(ctx, req,
                 AggregatedHttpMessage.of(
@@ -414,6 +464,9 @@ final class HttpServerHandler extends ChannelInboundHandlerAdapter implements Ht
     }
 
     private void respond(ChannelHandlerContext ctx, DecodedHttpRequest req, AggregatedHttpMessage res) {
+        res = AggregatedHttpMessage.of(HttpHeaderUtil.addServerHeaders(res.headers(), config),
+                                       res.content(), res.trailingHeaders());
+
         if (!handledLastRequest) {
             addKeepAliveHeaders(req, res);
             respond0(ctx, req, res).addListener(CLOSE_ON_FAILURE);
@@ -24,6 +24,7 @@ import com.linecorp.armeria.common.http.HttpSessionProtocols;
 import com.linecorp.armeria.internal.FlushConsolidationHandler;
 import com.linecorp.armeria.internal.ReadSuppressingHandler;
 import com.linecorp.armeria.internal.TrafficLoggingHandler;
+import com.linecorp.armeria.internal.http.AdaptiveHttp2FlowControlListener;
 import com.linecorp.armeria.internal.http.Http2GoAwayListener;
 import com.linecorp.armeria.server.GracefulShutdownSupport;
 import com.linecorp.armeria.server.ServerConfig;
@@ -123,7 +124,7 @@ public final class HttpServerPipelineConfigurator extends ChannelInitializer<Cha
     private Http2ConnectionHandler newHttp2ConnectionHandler(ChannelPipeline pipeline) {
 
         final Http2Connection conn = new DefaultHttp2Connection(true);
-        conn.addListener(new Http2GoAwayListener(pipeline.channel()));
+        conn.addListener(new Http2GoAwayListener(conn, pipeline.channel()));
 
         Http2FrameReader reader = new DefaultHttp2FrameReader(true);
         Http2FrameWriter writer = new DefaultHttp2FrameWriter();
@@ -131,20 +132,32 @@ public final class HttpServerPipelineConfigurator extends ChannelInitializer<Cha
         Http2ConnectionEncoder encoder = new DefaultHttp2ConnectionEncoder(conn, writer);
         Http2ConnectionDecoder decoder = new DefaultHttp2ConnectionDecoder(conn, encoder, reader);
 
-        final Http2ConnectionHandler handler =
-                new Http2ServerConnectionHandler(decoder, encoder, new Http2Settings());
+        final Http2ConnectionHandler handler = new Http2ServerConnectionHandler(
+                decoder, encoder, http2Settings(), config.http2InitialConnectionWindowSize());
 
         // Setup post build options
         final Http2RequestDecoder listener =
                 new Http2RequestDecoder(config, pipeline.channel(), handler.encoder());
 
         handler.connection().addListener(listener);
-        handler.decoder().frameListener(listener);
+        if (config.http2AdaptiveFlowControl()) {
+            handler.decoder().frameListener(new AdaptiveHttp2FlowControlListener(
+                    listener, handler.encoder(), handler.decoder().flowController()));
+        } else {
+            handler.decoder().frameListener(listener);
+        }
         handler.gracefulShutdownTimeoutMillis(config.idleTimeoutMillis());
 
         return handler;
     }
 
+    private Http2Settings http2Settings() {
+        return new Http2Settings().initialWindowSize(config.http2InitialStreamWindowSize())
+                                  .maxConcurrentStreams(config.http2MaxStreamsPerConnection())
+                                  .maxFrameSize(config.http2MaxFrameSize())
+                                  .headerTableSize(config.http2HeaderTableSize());
+    }
+
     private final class Http2OrHttpHandler extends ApplicationProtocolNegotiationHandler {
 
         Http2OrHttpHandler() {
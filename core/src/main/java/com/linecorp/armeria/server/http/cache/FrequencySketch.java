@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Count-Min sketch of 4-bit counters which estimates how often a key has been accessed recently. All
+ * counters are halved once the number of the increments reaches 10 times the expected number of the keys,
+ * so that the keys which used to be popular fade away.
+ *
+ * <p>The counters are updated with CAS instead of a lock, because every cacheable request increments them.
+ * A concurrent increment and reset may lose a count, which is acceptable for an estimate.
+ */
+final class FrequencySketch {
+
+    /**
+     * The seeds of the hash functions, each of which picks a counter for a key.
+     */
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    /**
+     * Clears the most significant bit of each 4-bit counter after shifting it to the right by 1.
+     */
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private static final int MAX_COUNT = 15;
+
+    private static final int MAX_TABLE_LENGTH = 1 << 20;
+
+    private final AtomicLongArray table;
+    private final int counterMask;
+    private final int sampleSize;
+    private final AtomicInteger numIncrements = new AtomicInteger();
+
+    /**
+     * Creates a new instance which is large enough to track approximately the specified number of keys.
+     */
+    FrequencySketch(int expectedNumKeys) {
+        // Have a long, i.e. 16 counters, per key.
+        table = new AtomicLongArray(
+                ceilingPowerOfTwo(Math.max(1, Math.min(expectedNumKeys, MAX_TABLE_LENGTH))));
+        counterMask = table.length() * 16 - 1;
+        sampleSize = table.length() * 10;
+    }
+
+    /**
+     * Returns the estimated number of the recent accesses to the specified key, up to 15.
+     */
+    int frequency(Object key) {
+        final int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (long seed : SEEDS) {
+            final int index = index(hash, seed);
+            final int count = (int) (table.get(index >>> 4) >>> ((index & 15) << 2)) & MAX_COUNT;
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an access to the specified key.
+     */
+    void increment(Object key) {
+        final int hash = spread(key.hashCode());
+        boolean incremented = false;
+        for (long seed : SEEDS) {
+            final int index = index(hash, seed);
+            incremented |= tryIncrement(index >>> 4, (index & 15) << 2);
+        }
+
+        // Only the thread which reaches the sample size resets the counters.
+        if (incremented && numIncrements.incrementAndGet() == sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Increments the counter at the specified bit offset of the specified word, unless it is saturated.
+     */
+    private boolean tryIncrement(int wordIndex, int shift) {
+        for (;;) {
+            final long word = table.get(wordIndex);
+            if (((word >>> shift) & MAX_COUNT) == MAX_COUNT) {
+                return false;
+            }
+            if (table.compareAndSet(wordIndex, word, word + (1L << shift))) {
+                return true;
+            }
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length(); i++) {
+            for (;;) {
+                final long word = table.get(i);
+                if (table.compareAndSet(i, word, (word >>> 1) & RESET_MASK)) {
+                    break;
+                }
+            }
+        }
+        numIncrements.addAndGet(-sampleSize / 2);
+    }
+
+    private int index(int hash, long seed) {
+        long h = (hash + seed) * seed;
+        h ^= h >>> 32;
+        return (int) h & counterMask;
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 17;
+        hash *= 0xed5ad4bb;
+        hash ^= hash >>> 11;
+        hash *= 0xac4c1b51;
+        hash ^= hash >>> 15;
+        return hash;
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        return 1 << -Integer.numberOfLeadingZeros(value - 1);
+    }
+}
@@ -0,0 +1,609 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+
+import com.linecorp.armeria.common.http.AggregatedHttpMessage;
+import com.linecorp.armeria.common.http.DefaultHttpResponse;
+import com.linecorp.armeria.common.http.HttpHeaderNames;
+import com.linecorp.armeria.common.http.HttpHeaders;
+import com.linecorp.armeria.common.http.HttpMethod;
+import com.linecorp.armeria.common.http.HttpRequest;
+import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.common.http.HttpStatus;
+import com.linecorp.armeria.common.http.HttpStatusClass;
+import com.linecorp.armeria.internal.http.ByteBufHttpData;
+import com.linecorp.armeria.internal.http.CacheControl;
+import com.linecorp.armeria.server.DecoratingService;
+import com.linecorp.armeria.server.Service;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.SimpleDecoratingService;
+import com.linecorp.armeria.server.http.HttpService;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.AsciiString;
+
+/**
+ * A {@link DecoratingService} that caches the cacheable responses of an {@link HttpService} and serves
+ * the subsequent requests from the cache, as a shared cache defined in
+ * <a href="https://tools.ietf.org/html/rfc7234">RFC 7234</a>.
+ *
+ * <p>The response of a {@code GET} request is cached per the {@code "authority"} and the path of
+ * the request, and the request headers listed in the {@code "vary"} header of the response, when:
+ * <ul>
+ *   <li>the request does not have {@code "cache-control: no-store"},</li>
+ *   <li>the response status is cacheable by default, e.g. {@code 200 OK} or {@code 404 Not Found},</li>
+ *   <li>the response does not have trailing headers, {@code "set-cookie"} or {@code "vary: *"},</li>
+ *   <li>the {@code "cache-control"} header of the response does not have {@code no-store}, {@code no-cache}
+ *       or {@code private}, and the response to a request with {@code "authorization"} has {@code public}
+ *       or {@code s-maxage}, and</li>
+ *   <li>the response has an explicit expiration time, i.e. {@code s-maxage}, {@code max-age} or
+ *       {@code "expires"}.</li>
+ * </ul>
+ * A cached response expires at the explicit expiration time or after the configured maximum time-to-live,
+ * whichever comes first. A request with {@code "cache-control: no-cache"} or a {@code max-age} shorter than
+ * the age of the cached response is served by the decorated {@link Service}. A {@code GET} or {@code HEAD}
+ * request with a matching {@code "if-none-match"} or {@code "if-modified-since"} header is answered with
+ * {@code 304 Not Modified} if the cached response is successful, i.e. {@code 2xx}. A {@code POST},
+ * {@code PUT}, {@code PATCH} or {@code DELETE} request invalidates the responses cached for its path.
+ *
+ * <p>The cached content is stored in pooled direct buffers, which are released when their entries are
+ * removed. The cache is bounded by the total size of the content. While the cache is full, a response is
+ * stored only if its path has been requested frequently enough recently, so that the responses requested
+ * only once do not evict the popular ones. Use {@link #cacheStats()} to monitor the hit rate.
+ */
+public final class HttpResponseCacheService extends SimpleDecoratingService<HttpRequest, HttpResponse> {
+
+    private static final long DEFAULT_MAX_CACHE_SIZE_BYTES = 64 * 1024 * 1024;
+    private static final Duration DEFAULT_MAX_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    /**
+     * The estimated memory overhead of a cache entry, in bytes.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 512;
+
+    /**
+     * The estimated average size of a cache entry, in bytes, which is used to size the frequency sketch.
+     */
+    private static final int AVERAGE_ENTRY_SIZE_BYTES = 4096;
+
+    /**
+     * The number of the recent requests to a path, at or above which its response is stored even if
+     * the cache is full. This is a fixed threshold rather than a comparison with the frequency of
+     * the entry to be evicted, because the Guava cache does not expose its eviction candidate.
+     */
+    private static final int ADMISSION_FREQUENCY = 2;
+
+    /**
+     * Returns a new {@link HttpResponseCacheService} decorator which caches up to 64 MiB of the content for
+     * 10 minutes at most.
+     */
+    public static Function<Service<HttpRequest, HttpResponse>, HttpResponseCacheService> newDecorator() {
+        return HttpResponseCacheService::new;
+    }
+
+    /**
+     * Returns a new {@link HttpResponseCacheService} decorator which caches up to {@code maxCacheSizeBytes}
+     * of the content for {@code maxTimeToLive} at most.
+     */
+    public static Function<Service<HttpRequest, HttpResponse>, HttpResponseCacheService>
+    newDecorator(long maxCacheSizeBytes, Duration maxTimeToLive) {
+        validateMaxCacheSizeBytes(maxCacheSizeBytes);
+        validateMaxTimeToLive(maxTimeToLive);
+        return delegate -> new HttpResponseCacheService(delegate, maxCacheSizeBytes, maxTimeToLive);
+    }
+
+    private final long maxCacheSizeBytes;
+    private final long maxTimeToLiveNanos;
+    private final int maxEntrySizeBytes;
+    private final Cache<String, Variants> variants;
+    private final Cache<CacheKey, CachedResponse> cache;
+    private final FrequencySketch sketch;
+    private final AtomicLong weightedSize = new AtomicLong();
+    private final LongAdder contentSizeBytes = new LongAdder();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder notModifiedCount = new LongAdder();
+    private final LongAdder rejectionCount = new LongAdder();
+
+    /**
+     * Creates a new instance which caches up to 64 MiB of the content for 10 minutes at most.
+     */
+    public HttpResponseCacheService(Service<? super HttpRequest, ? extends HttpResponse> delegate) {
+        this(delegate, DEFAULT_MAX_CACHE_SIZE_BYTES, DEFAULT_MAX_TIME_TO_LIVE);
+    }
+
+    /**
+     * Creates a new instance which caches up to {@code maxCacheSizeBytes} of the content for
+     * {@code maxTimeToLive} at most.
+     */
+    public HttpResponseCacheService(Service<? super HttpRequest, ? extends HttpResponse> delegate,
+                                    long maxCacheSizeBytes, Duration maxTimeToLive) {
+        super(delegate);
+        this.maxCacheSizeBytes = validateMaxCacheSizeBytes(maxCacheSizeBytes);
+        maxTimeToLiveNanos = validateMaxTimeToLive(maxTimeToLive).toNanos();
+
+        // Do not let a single entry take up more than 1/16 of the cache.
+        maxEntrySizeBytes = (int) Math.min(Integer.MAX_VALUE, maxCacheSizeBytes / 16);
+
+        final int expectedNumEntries =
+                (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxCacheSizeBytes / AVERAGE_ENTRY_SIZE_BYTES));
+        sketch = new FrequencySketch(expectedNumEntries);
+        variants = CacheBuilder.newBuilder()
+                               .maximumSize(expectedNumEntries)
+                               .expireAfterAccess(maxTimeToLiveNanos, TimeUnit.NANOSECONDS)
+                               .build();
+        cache = CacheBuilder.newBuilder()
+                            .maximumWeight(maxCacheSizeBytes)
+                            .weigher((CacheKey key, CachedResponse value) -> value.weight())
+                            .expireAfterWrite(maxTimeToLiveNanos, TimeUnit.NANOSECONDS)
+                            .removalListener((RemovalNotification<CacheKey, CachedResponse> n) -> {
+                                final CachedResponse value = n.getValue();
+                                weightedSize.addAndGet(-value.weight());
+                                contentSizeBytes.add(-value.contentLength());
+                                value.destroyContent();
+                            })
+                            .recordStats()
+                            .build();
+    }
+
+    /**
+     * Returns the current statistics of the cache.
+     */
+    public HttpResponseCacheStats cacheStats() {
+        return new HttpResponseCacheStats(hitCount.sum(), missCount.sum(), notModifiedCount.sum(),
+                                          rejectionCount.sum(), cache.stats().evictionCount(),
+                                          cache.size(), contentSizeBytes.sum());
+    }
+
+    @Override
+    public HttpResponse serve(ServiceRequestContext ctx, HttpRequest req) throws Exception {
+        final HttpMethod method = req.method();
+        final HttpHeaders headers = req.headers();
+        if (method != HttpMethod.GET && method != HttpMethod.HEAD) {
+            if (method == HttpMethod.POST || method == HttpMethod.PUT ||
+                method == HttpMethod.PATCH || method == HttpMethod.DELETE) {
+                // An unsafe request may change the resource, so the cached responses are not valid anymore.
+                variants.invalidate(primaryKey(headers));
+            }
+            return delegate().serve(ctx, req);
+        }
+
+        final CacheControl cacheControl = CacheControl.parse(headers);
+        if (cacheControl.noStore()) {
+            return delegate().serve(ctx, req);
+        }
+
+        final String primaryKey = primaryKey(headers);
+        sketch.increment(primaryKey);
+
+        if (!cacheControl.noCache()) {
+            final CachedResponse cached = lookup(primaryKey, headers);
+            if (cached != null) {
+                final long nowNanos = System.nanoTime();
+                final long ageSeconds = TimeUnit.NANOSECONDS.toSeconds(nowNanos - cached.storedAtNanos);
+                if (cached.expiresAtNanos - nowNanos > 0 &&
+                    (cacheControl.maxAgeSeconds() < 0 || ageSeconds <= cacheControl.maxAgeSeconds())) {
+
+                    if (cached.isNotModified(headers)) {
+                        hitCount.increment();
+                        notModifiedCount.increment();
+                        return cached.toNotModifiedResponse(ageSeconds);
+                    }
+
+                    final HttpResponse res = cached.toResponse(ageSeconds, method == HttpMethod.HEAD);
+                    if (res != null) {
+                        hitCount.increment();
+                        return res;
+                    }
+                }
+            }
+        }
+
+        missCount.increment();
+        final HttpResponse res = delegate().serve(ctx, req);
+        if (method == HttpMethod.HEAD) {
+            // A response to a HEAD request does not have content to store.
+            return res;
+        }
+
+        final boolean authorized = headers.contains(HttpHeaderNames.AUTHORIZATION);
+        return new StoringHttpResponse(res, ctx.alloc(), maxEntrySizeBytes, (resHeaders, content) -> {
+            final long timeToLiveNanos = timeToLiveNanos(resHeaders, authorized);
+            if (timeToLiveNanos <= 0) {
+                content.release();
+                return;
+            }
+            store(primaryKey, headers, resHeaders, content, timeToLiveNanos);
+        });
+    }
+
+    @Nullable
+    private CachedResponse lookup(String primaryKey, HttpHeaders reqHeaders) {
+        final Variants variants = this.variants.getIfPresent(primaryKey);
+        if (variants == null) {
+            return null;
+        }
+        return cache.getIfPresent(new CacheKey(variants, reqHeaders));
+    }
+
+    private void store(String primaryKey, HttpHeaders reqHeaders, HttpHeaders resHeaders, ByteBuf content,
+                       long timeToLiveNanos) {
+
+        final long nowNanos = System.nanoTime();
+        final CachedResponse cached = new CachedResponse(resHeaders, content, nowNanos,
+                                                         nowNanos + timeToLiveNanos);
+        final int weight = cached.weight();
+        if (weightedSize.get() + weight > maxCacheSizeBytes &&
+            sketch.frequency(primaryKey) < ADMISSION_FREQUENCY) {
+            // Do not evict the other responses for the one which has rarely been requested.
+            rejectionCount.increment();
+            cached.destroyContent();
+            return;
+        }
+
+        final CacheKey key = new CacheKey(variants(primaryKey, resHeaders), reqHeaders);
+        weightedSize.addAndGet(weight);
+        contentSizeBytes.add(cached.contentLength());
+        cache.put(key, cached);
+    }
+
+    /**
+     * Returns the {@link Variants} of the specified primary key which vary by the request headers listed in
+     * the {@code "vary"} header of the specified response headers.
+     */
+    private Variants variants(String primaryKey, HttpHeaders resHeaders) {
+        final List<AsciiString> varyNames = varyNames(resHeaders);
+        assert varyNames != null;
+
+        final ConcurrentMap<String, Variants> map = variants.asMap();
+        for (;;) {
+            final Variants oldVariants = map.get(primaryKey);
+            if (oldVariants != null && oldVariants.varyNames.equals(varyNames)) {
+                return oldVariants;
+            }
+
+            final Variants newVariants = new Variants(primaryKey, varyNames);
+            if (oldVariants == null ? map.putIfAbsent(primaryKey, newVariants) == null
+                                    : map.replace(primaryKey, oldVariants, newVariants)) {
+                return newVariants;
+            }
+        }
+    }
+
+    /**
+     * Returns how long the response with the specified {@link HttpHeaders} can be cached for,
+     * or {@code 0} if the response is not cacheable.
+     */
+    private long timeToLiveNanos(HttpHeaders headers, boolean authorized) {
+        if (headers.contains(HttpHeaderNames.SET_COOKIE) || varyNames(headers) == null) {
+            return 0;
+        }
+
+        final CacheControl cacheControl = CacheControl.parse(headers);
+        if (cacheControl.noStore() || cacheControl.noCache() || cacheControl.isPrivate()) {
+            return 0;
+        }
+        if (authorized && !cacheControl.isPublic() && cacheControl.sharedMaxAgeSeconds() < 0) {
+            // A response to an authorized request must be explicitly marked as shareable.
+            return 0;
+        }
+
+        final long timeToLiveNanos;
+        if (cacheControl.sharedMaxAgeSeconds() >= 0) {
+            timeToLiveNanos = TimeUnit.SECONDS.toNanos(cacheControl.sharedMaxAgeSeconds());
+        } else if (cacheControl.maxAgeSeconds() >= 0) {
+            timeToLiveNanos = TimeUnit.SECONDS.toNanos(cacheControl.maxAgeSeconds());
+        } else {
+            final long expiresMillis = headers.getTimeMillis(HttpHeaderNames.EXPIRES, Long.MIN_VALUE);
+            if (expiresMillis == Long.MIN_VALUE) {
+                // Do not guess the freshness of the response.
+                return 0;
+            }
+            timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(expiresMillis - System.currentTimeMillis());
+        }
+
+        return Math.min(maxTimeToLiveNanos, timeToLiveNanos);
+    }
+
+    /**
+     * Returns the sorted names of the request headers listed in the {@code "vary"} header of the specified
+     * response headers, or {@code null} if the response varies by something other than the request headers.
+     */
+    @Nullable
+    private static List<AsciiString> varyNames(HttpHeaders resHeaders) {
+        final List<String> values = resHeaders.getAll(HttpHeaderNames.VARY);
+        if (values.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<AsciiString> varyNames = new ArrayList<>();
+        for (String value : values) {
+            for (String name : value.split(",")) {
+                name = name.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if ("*".equals(name)) {
+                    return null;
+                }
+                final AsciiString lowerCaseName = AsciiString.of(name).toLowerCase();
+                if (!varyNames.contains(lowerCaseName)) {
+                    varyNames.add(lowerCaseName);
+                }
+            }
+        }
+        varyNames.sort(null);
+        return varyNames;
+    }
+
+    private static String primaryKey(HttpHeaders reqHeaders) {
+        return Objects.toString(reqHeaders.authority(), "") + reqHeaders.path();
+    }
+
+    private static long validateMaxCacheSizeBytes(long maxCacheSizeBytes) {
+        if (maxCacheSizeBytes <= 0) {
+            throw new IllegalArgumentException(
+                    "maxCacheSizeBytes: " + maxCacheSizeBytes + " (expected: > 0)");
+        }
+        return maxCacheSizeBytes;
+    }
+
+    private static Duration validateMaxTimeToLive(Duration maxTimeToLive) {
+        requireNonNull(maxTimeToLive, "maxTimeToLive");
+        if (maxTimeToLive.isNegative() || maxTimeToLive.isZero()) {
+            throw new IllegalArgumentException("maxTimeToLive: " + maxTimeToLive + " (expected: > 0)");
+        }
+        return maxTimeToLive;
+    }
+
+    /**
+     * The names of the request headers which the responses of a primary key vary by. A new instance replaces
+     * the old one when the responses are invalidated or start to vary by different headers, so that
+     * the {@link CacheKey}s of the old responses are never matched again.
+     */
+    private static final class Variants {
+
+        private final String primaryKey;
+        final List<AsciiString> varyNames;
+
+        Variants(String primaryKey, List<AsciiString> varyNames) {
+            this.primaryKey = primaryKey;
+            this.varyNames = varyNames;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                              .add("primaryKey", primaryKey)
+                              .add("varyNames", varyNames).toString();
+        }
+    }
+
+    private static final class CacheKey {
+
+        private final Variants variants;
+        private final List<String> varyValues;
+        private final int hashCode;
+
+        CacheKey(Variants variants, HttpHeaders reqHeaders) {
+            this.variants = variants;
+            final List<AsciiString> varyNames = variants.varyNames;
+            if (varyNames.isEmpty()) {
+                varyValues = Collections.emptyList();
+            } else {
+                varyValues = new ArrayList<>(varyNames.size());
+                for (AsciiString name : varyNames) {
+                    varyValues.add(String.join(",", reqHeaders.getAll(name)));
+                }
+            }
+            hashCode = System.identityHashCode(variants) * 31 + varyValues.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+
+            final CacheKey that = (CacheKey) obj;
+            return hashCode == that.hashCode &&
+                   variants == that.variants &&
+                   varyValues.equals(that.varyValues);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                              .add("variants", variants)
+                              .add("varyValues", varyValues).toString();
+        }
+    }
+
+    /**
+     * A cached response, whose content is referenced by the cache until {@link #destroyContent()} is called
+     * on removal. {@link #retainedContent()} and {@link #destroyContent()} synchronize on the entry, so
+     * a response being served keeps the content alive even if the entry is removed meanwhile.
+     */
+    private static final class CachedResponse {
+
+        /**
+         * The response headers which are sent with {@code 304 Not Modified}, as defined in
+         * <a href="https://tools.ietf.org/html/rfc7232#section-4.1">RFC 7232, section 4.1</a>.
+         */
+        private static final AsciiString[] NOT_MODIFIED_HEADER_NAMES = {
+                HttpHeaderNames.CACHE_CONTROL, HttpHeaderNames.CONTENT_LOCATION, HttpHeaderNames.DATE,
+                HttpHeaderNames.ETAG, HttpHeaderNames.EXPIRES, HttpHeaderNames.LAST_MODIFIED,
+                HttpHeaderNames.VARY
+        };
+
+        private final HttpHeaders headers;
+        private final int contentLength;
+        @Nullable
+        private ByteBuf content; // Guarded by 'this'; set to null when the cache drops its reference.
+        final long storedAtNanos;
+        final long expiresAtNanos;
+
+        CachedResponse(HttpHeaders headers, ByteBuf content, long storedAtNanos, long expiresAtNanos) {
+            this.headers = headers;
+            this.content = content;
+            this.storedAtNanos = storedAtNanos;
+            this.expiresAtNanos = expiresAtNanos;
+            contentLength = content.readableBytes();
+        }
+
+        int weight() {
+            return ENTRY_OVERHEAD_BYTES + contentLength();
+        }
+
+        int contentLength() {
+            return contentLength;
+        }
+
+        /**
+         * Returns whether the conditional headers of the specified request headers are satisfied by this
+         * response, i.e. the client has the same response already. The conditional headers are evaluated
+         * only for a {@code 2xx} response, as defined in
+         * <a href="https://tools.ietf.org/html/rfc7232#section-5">RFC 7232, section 5</a>.
+         */
+        boolean isNotModified(HttpHeaders reqHeaders) {
+            final HttpStatus status = headers.status();
+            if (status == null || status.codeClass() != HttpStatusClass.SUCCESS) {
+                return false;
+            }
+
+            final String ifNoneMatch = reqHeaders.get(HttpHeaderNames.IF_NONE_MATCH);
+            if (ifNoneMatch != null) {
+                final String etag = headers.get(HttpHeaderNames.ETAG);
+                if (etag == null) {
+                    return false;
+                }
+                // Use the weak comparison, as required for 'if-none-match'.
+                final String opaqueTag = stripWeakPrefix(etag.trim());
+                for (String tag : ifNoneMatch.split(",")) {
+                    tag = tag.trim();
+                    if ("*".equals(tag) || opaqueTag.equals(stripWeakPrefix(tag))) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            final long ifModifiedSinceMillis =
+                    reqHeaders.getTimeMillis(HttpHeaderNames.IF_MODIFIED_SINCE, Long.MIN_VALUE);
+            if (ifModifiedSinceMillis == Long.MIN_VALUE) {
+                return false;
+            }
+            final long lastModifiedMillis =
+                    headers.getTimeMillis(HttpHeaderNames.LAST_MODIFIED, Long.MAX_VALUE);
+            return lastModifiedMillis <= ifModifiedSinceMillis;
+        }
+
+        /**
+         * Returns a new {@link HttpResponse} which has the cached headers and content, or {@code null} if
+         * the entry has been removed by other thread.
+         */
+        @Nullable
+        HttpResponse toResponse(long ageSeconds, boolean headersOnly) {
+            ByteBuf duplicate = null;
+            if (!headersOnly && contentLength != 0) {
+                duplicate = retainedContent();
+                if (duplicate == null) {
+                    // Removed by other thread.
+                    return null;
+                }
+            }
+
+            final HttpHeaders resHeaders = HttpHeaders.copyOf(headers)
+                                                      .setLong(HttpHeaderNames.AGE, ageSeconds);
+            if (!resHeaders.contains(HttpHeaderNames.CONTENT_LENGTH)) {
+                resHeaders.setInt(HttpHeaderNames.CONTENT_LENGTH, contentLength());
+            }
+
+            final DefaultHttpResponse res = new DefaultHttpResponse();
+            res.write(resHeaders);
+            if (duplicate != null && !res.write(new ByteBufHttpData(duplicate, false))) {
+                duplicate.release();
+            }
+            res.close();
+            return res;
+        }
+
+        HttpResponse toNotModifiedResponse(long ageSeconds) {
+            final HttpHeaders resHeaders = HttpHeaders.of(HttpStatus.NOT_MODIFIED);
+            for (AsciiString name : NOT_MODIFIED_HEADER_NAMES) {
+                final List<String> values = headers.getAll(name);
+                if (!values.isEmpty()) {
+                    resHeaders.set(name, values);
+                }
+            }
+            resHeaders.setLong(HttpHeaderNames.AGE, ageSeconds);
+
+            final DefaultHttpResponse res = new DefaultHttpResponse();
+            res.respond(AggregatedHttpMessage.of(resHeaders));
+            return res;
+        }
+
+        @Nullable
+        private synchronized ByteBuf retainedContent() {
+            return content != null ? content.retainedDuplicate() : null;
+        }
+
+        void destroyContent() {
+            final ByteBuf content;
+            synchronized (this) {
+                content = this.content;
+                this.content = null;
+            }
+
+            if (content != null) {
+                content.release();
+            }
+        }
+
+        private static String stripWeakPrefix(String tag) {
+            return tag.startsWith("W/") ? tag.substring(2) : tag;
+        }
+    }
+}
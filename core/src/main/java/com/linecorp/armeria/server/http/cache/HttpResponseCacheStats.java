@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http.cache;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A snapshot of the statistics of the cache of an {@link HttpResponseCacheService}.
+ *
+ * @see HttpResponseCacheService#cacheStats()
+ */
+public final class HttpResponseCacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long notModifiedCount;
+    private final long rejectionCount;
+    private final long evictionCount;
+    private final long entryCount;
+    private final long contentSizeBytes;
+
+    HttpResponseCacheStats(long hitCount, long missCount, long notModifiedCount, long rejectionCount,
+                           long evictionCount, long entryCount, long contentSizeBytes) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.notModifiedCount = notModifiedCount;
+        this.rejectionCount = rejectionCount;
+        this.evictionCount = evictionCount;
+        this.entryCount = entryCount;
+        this.contentSizeBytes = contentSizeBytes;
+    }
+
+    /**
+     * Returns the number of the requests served from the cache, including {@link #notModifiedCount()}.
+     */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of the cacheable requests which were served by the decorated service.
+     */
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of {@link #hitCount()} to the total number of the cacheable requests, or {@code 1.0}
+     * if there were no cacheable requests.
+     */
+    public double hitRate() {
+        final long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * Returns the number of the conditional requests answered with {@code 304 Not Modified} from the cache.
+     */
+    public long notModifiedCount() {
+        return notModifiedCount;
+    }
+
+    /**
+     * Returns the number of the cacheable responses which were not stored because the cache was full and
+     * they had rarely been requested.
+     */
+    public long rejectionCount() {
+        return rejectionCount;
+    }
+
+    /**
+     * Returns the number of the entries evicted due to the size limit of the cache.
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of the cached responses.
+     */
+    public long entryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the total size of the cached content, in bytes.
+     */
+    public long contentSizeBytes() {
+        return contentSizeBytes;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("hitCount", hitCount)
+                          .add("missCount", missCount)
+                          .add("notModifiedCount", notModifiedCount)
+                          .add("rejectionCount", rejectionCount)
+                          .add("evictionCount", evictionCount)
+                          .add("entryCount", entryCount)
+                          .add("contentSizeBytes", contentSizeBytes).toString();
+    }
+}
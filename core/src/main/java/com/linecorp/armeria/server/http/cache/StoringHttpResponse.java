@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.function.BiConsumer;
+
+import javax.annotation.Nullable;
+
+import org.reactivestreams.Subscriber;
+
+import com.linecorp.armeria.common.http.FilteredHttpResponse;
+import com.linecorp.armeria.common.http.HttpData;
+import com.linecorp.armeria.common.http.HttpHeaderNames;
+import com.linecorp.armeria.common.http.HttpHeaders;
+import com.linecorp.armeria.common.http.HttpObject;
+import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.common.http.HttpStatus;
+import com.linecorp.armeria.common.http.HttpStatusClass;
+import com.linecorp.armeria.internal.http.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+/**
+ * A {@link FilteredHttpResponse} that copies the content of the response into a pooled direct buffer as it
+ * is published, and passes the headers and the buffer to a callback when the response completes successfully.
+ * The callback takes the ownership of the buffer. The response is not kept if its status is not cacheable
+ * by default, it has trailing headers or its content is larger than the limit.
+ */
+final class StoringHttpResponse extends FilteredHttpResponse {
+
+    private final ByteBufAllocator alloc;
+    private final int maxContentLength;
+    private final BiConsumer<HttpHeaders, ByteBuf> callback;
+
+    private boolean storable = true;
+    @Nullable
+    private HttpHeaders headers;
+    @Nullable
+    private ByteBuf content;
+
+    StoringHttpResponse(HttpResponse delegate, ByteBufAllocator alloc, int maxContentLength,
+                        BiConsumer<HttpHeaders, ByteBuf> callback) {
+        super(delegate);
+        this.alloc = requireNonNull(alloc, "alloc");
+        this.maxContentLength = maxContentLength;
+        this.callback = requireNonNull(callback, "callback");
+
+        // A subscriber which cancels its subscription is not notified with beforeComplete() or beforeError(),
+        // so release the content when the stream is closed unsuccessfully.
+        closeFuture().whenComplete((unused, cause) -> {
+            if (cause != null) {
+                discard();
+            }
+        });
+    }
+
+    @Override
+    protected HttpObject filter(HttpObject obj) {
+        if (!storable) {
+            return obj;
+        }
+
+        if (obj instanceof HttpHeaders) {
+            final HttpHeaders headers = (HttpHeaders) obj;
+            final HttpStatus status = headers.status();
+            if (status != null && status.codeClass() == HttpStatusClass.INFORMATIONAL) {
+                return obj;
+            }
+
+            if (this.headers == null && status != null && isCacheableByDefault(status.code()) &&
+                headers.getInt(HttpHeaderNames.CONTENT_LENGTH, 0) <= maxContentLength) {
+                this.headers = HttpHeaders.copyOf(headers).asImmutable();
+            } else {
+                // Not cacheable, too large or trailing headers.
+                discard();
+            }
+            return obj;
+        }
+
+        final HttpData data = (HttpData) obj;
+        if (headers == null) {
+            discard();
+            return obj;
+        }
+
+        final int length = data.length();
+        final int contentLength = content != null ? content.readableBytes() : 0;
+        if (contentLength + length > maxContentLength) {
+            discard();
+            return obj;
+        }
+
+        if (content == null) {
+            final int expectedLength = headers.getInt(HttpHeaderNames.CONTENT_LENGTH, length);
+            content = alloc.directBuffer(Math.max(length, expectedLength), maxContentLength);
+        }
+        if (data instanceof ByteBufHttpData) {
+            final ByteBuf buf = ((ByteBufHttpData) data).buf();
+            content.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+        } else {
+            content.writeBytes(data.array(), data.offset(), length);
+        }
+        return obj;
+    }
+
+    @Override
+    protected void beforeComplete(Subscriber<? super HttpObject> subscriber) {
+        if (storable && headers != null) {
+            final ByteBuf content = this.content != null ? this.content : Unpooled.EMPTY_BUFFER;
+            this.content = null;
+            callback.accept(headers, content);
+        }
+        discard();
+    }
+
+    @Override
+    protected void beforeError(Subscriber<? super HttpObject> subscriber, Throwable cause) {
+        discard();
+    }
+
+    private void discard() {
+        storable = false;
+        headers = null;
+        if (content != null) {
+            content.release();
+            content = null;
+        }
+    }
+
+    /**
+     * Returns whether the response of the specified status code can be cached without revalidation, as
+     * defined in <a href="https://tools.ietf.org/html/rfc7231#section-6.1">RFC 7231, section 6.1</a>.
+     * {@code 206 Partial Content} is excluded because this cache does not combine partial responses.
+     */
+    private static boolean isCacheableByDefault(int statusCode) {
+        switch (statusCode) {
+            case 200:
+            case 203:
+            case 204:
+            case 300:
+            case 301:
+            case 404:
+            case 405:
+            case 410:
+            case 414:
+            case 501:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http.coalescing;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.common.http.AggregatedHttpMessage;
+import com.linecorp.armeria.common.http.HttpHeaderNames;
+import com.linecorp.armeria.common.http.HttpHeaders;
+import com.linecorp.armeria.common.http.HttpMethod;
+import com.linecorp.armeria.common.http.HttpRequest;
+import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.common.stream.NoopSubscriber;
+import com.linecorp.armeria.server.DecoratingService;
+import com.linecorp.armeria.server.Service;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.SimpleDecoratingService;
+
+import io.netty.util.AsciiString;
+
+/**
+ * A {@link DecoratingService} that serves identical concurrent {@link HttpRequest}s with a single invocation
+ * of the decorated {@link Service}.
+ *
+ * <p>The {@link HttpRequest}s are identical when their keys, resolved by a {@link KeySelector}, are equal.
+ * While the first {@link HttpRequest} of a key is in progress, the subsequent ones with the same key wait
+ * for its response instead of being handed to the decorated {@link Service}. The response is aggregated and
+ * every waiting {@link HttpRequest} gets its own copy, so that the {@link ServiceRequestContext#log()} of
+ * each {@link HttpRequest} records the response it actually got.
+ *
+ * <p>Only the idempotent requests whose responses do not depend on the client should be coalesced.
+ * The {@linkplain KeySelector#DEFAULT default key selector} coalesces only the {@code GET} and {@code HEAD}
+ * requests without an {@code "authorization"} or {@code "cookie"} header, and only when they negotiate
+ * the same representation with their {@code "accept"}, {@code "accept-encoding"} and
+ * {@code "accept-language"} headers:
+ * <pre>{@code
+ * ServerBuilder sb = new ServerBuilder();
+ * sb.service("/api", myService.decorate(RequestCoalescingService.newDecorator()));
+ * }</pre>
+ */
+public final class RequestCoalescingService extends SimpleDecoratingService<HttpRequest, HttpResponse> {
+
+    /**
+     * Returns a new {@link Service} decorator that coalesces the {@link HttpRequest}s by the
+     * {@link KeySelector#DEFAULT} key selector.
+     */
+    public static Function<Service<? super HttpRequest, ? extends HttpResponse>, RequestCoalescingService>
+    newDecorator() {
+        return newDecorator(KeySelector.DEFAULT);
+    }
+
+    /**
+     * Returns a new {@link Service} decorator that coalesces the {@link HttpRequest}s by the specified
+     * {@link KeySelector}.
+     */
+    public static Function<Service<? super HttpRequest, ? extends HttpResponse>, RequestCoalescingService>
+    newDecorator(KeySelector<?> keySelector) {
+        requireNonNull(keySelector, "keySelector");
+        return delegate -> new RequestCoalescingService(delegate, keySelector);
+    }
+
+    private final KeySelector<?> keySelector;
+    private final ConcurrentMap<Object, CompletableFuture<AggregatedHttpMessage>> inProgress =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance that decorates the specified {@link Service}.
+     */
+    public RequestCoalescingService(Service<? super HttpRequest, ? extends HttpResponse> delegate,
+                                    KeySelector<?> keySelector) {
+        super(delegate);
+        this.keySelector = requireNonNull(keySelector, "keySelector");
+    }
+
+    @Override
+    public HttpResponse serve(ServiceRequestContext ctx, HttpRequest req) throws Exception {
+        final Object key = keySelector.get(ctx, req);
+        if (key == null) {
+            return delegate().serve(ctx, req);
+        }
+
+        final CompletableFuture<AggregatedHttpMessage> future = new CompletableFuture<>();
+        final CompletableFuture<AggregatedHttpMessage> existingFuture = inProgress.putIfAbsent(key, future);
+        if (existingFuture != null) {
+            // Consume the request, which is not handed to the delegate, so that its log is completed.
+            req.subscribe(NoopSubscriber.get());
+            return newResponse(existingFuture);
+        }
+
+        final HttpResponse res;
+        try {
+            res = delegate().serve(ctx, req);
+        } catch (Throwable cause) {
+            inProgress.remove(key, future);
+            future.completeExceptionally(cause);
+            throw cause;
+        }
+
+        res.aggregate().whenComplete((msg, cause) -> {
+            // Remove the key first so that the requests arriving from now on invoke the delegate again.
+            inProgress.remove(key, future);
+            if (cause != null) {
+                future.completeExceptionally(cause);
+            } else {
+                future.complete(msg);
+            }
+        });
+        return newResponse(future);
+    }
+
+    private static HttpResponse newResponse(CompletableFuture<AggregatedHttpMessage> future) {
+        return HttpResponse.from(future.thenApply(AggregatedHttpMessage::toHttpResponse));
+    }
+
+    /**
+     * Returns the key of the given {@link HttpRequest}. The {@link HttpRequest}s with equal keys are
+     * coalesced.
+     *
+     * @param <K> the key type
+     */
+    @FunctionalInterface
+    public interface KeySelector<K> {
+
+        /**
+         * A {@link KeySelector} that returns the method, the path with the query string and the content
+         * negotiation headers ({@code "accept"}, {@code "accept-encoding"} and {@code "accept-language"})
+         * of the {@code GET} and {@code HEAD} requests without an {@code "authorization"} or
+         * {@code "cookie"} header. The other requests are not coalesced.
+         */
+        KeySelector<String> DEFAULT = (ctx, req) -> {
+            final HttpMethod method = req.method();
+            if (method != HttpMethod.GET && method != HttpMethod.HEAD) {
+                return null;
+            }
+
+            final HttpHeaders headers = req.headers();
+            if (headers.contains(HttpHeaderNames.AUTHORIZATION) || headers.contains(HttpHeaderNames.COOKIE)) {
+                return null;
+            }
+
+            // Include the headers the response may vary by, so that a client never gets a representation
+            // negotiated for another client, e.g. a gzip-encoded content it did not accept.
+            final StringBuilder buf = new StringBuilder();
+            buf.append(method.name()).append(' ').append(req.path());
+            appendHeader(buf, headers, HttpHeaderNames.ACCEPT);
+            appendHeader(buf, headers, HttpHeaderNames.ACCEPT_ENCODING);
+            appendHeader(buf, headers, HttpHeaderNames.ACCEPT_LANGUAGE);
+            return buf.toString();
+        };
+
+        /**
+         * Returns the key of the given {@link HttpRequest}, or {@code null} not to coalesce the
+         * {@link HttpRequest}.
+         */
+        @Nullable
+        K get(ServiceRequestContext ctx, HttpRequest req) throws Exception;
+    }
+
+    private static void appendHeader(StringBuilder buf, HttpHeaders headers, AsciiString name) {
+        buf.append('\n');
+        for (String value : headers.getAll(name)) {
+            buf.append(value).append(',');
+        }
+    }
+}
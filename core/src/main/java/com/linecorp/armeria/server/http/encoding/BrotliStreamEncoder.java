@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.http.encoding;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.BrotliOutputStream;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * An {@link HttpStreamEncoder} that applies the 'br' encoding using
+ * <a href="https://github.com/hyperxpro/Brotli4j">Brotli4j</a>, which is an optional dependency.
+ */
+final class BrotliStreamEncoder extends OutputStreamEncoder {
+
+    /**
+     * The quality level commonly used for dynamic content, which compresses better than gzip
+     * at a similar speed.
+     */
+    private static final int QUALITY = 4;
+
+    /**
+     * Returns whether Brotli4j and its native library are available.
+     */
+    static boolean isAvailable() {
+        try {
+            return Brotli4jLoader.isAvailable();
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    BrotliStreamEncoder(ByteBufAllocator alloc) {
+        super(alloc);
+    }
+
+    @Override
+    protected OutputStream newEncodingStream(OutputStream out) throws IOException {
+        return new BrotliOutputStream(out, new Encoder.Parameters().setQuality(QUALITY));
+    }
+}
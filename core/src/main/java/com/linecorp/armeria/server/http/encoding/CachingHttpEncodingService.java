@@ -0,0 +1,324 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http.encoding;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.http.DefaultHttpResponse;
+import com.linecorp.armeria.common.http.HttpData;
+import com.linecorp.armeria.common.http.HttpHeaderNames;
+import com.linecorp.armeria.common.http.HttpHeaders;
+import com.linecorp.armeria.common.http.HttpMethod;
+import com.linecorp.armeria.common.http.HttpRequest;
+import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.internal.http.CacheControl;
+import com.linecorp.armeria.server.DecoratingService;
+import com.linecorp.armeria.server.Service;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.SimpleDecoratingService;
+import com.linecorp.armeria.server.http.HttpService;
+
+/**
+ * A {@link DecoratingService} that applies HTTP encoding to an {@link HttpService} just like
+ * {@link HttpEncodingService} does, and keeps the encoded content of cacheable responses so that
+ * the same content is not encoded again for the subsequent requests.
+ *
+ * <p>A response is cached per the request path, the {@code "authority"}, {@code "accept"} and
+ * {@code "accept-language"} headers of the request and the chosen encoding, when:
+ * <ul>
+ *   <li>the request is a {@code GET} request without {@code "cache-control: no-store"},</li>
+ *   <li>the response is a {@code 200 OK} response without trailing headers and {@code "set-cookie"},</li>
+ *   <li>the {@code "cache-control"} header of the response does not have {@code no-store}, {@code no-cache}
+ *       or {@code private}, and</li>
+ *   <li>the {@code "vary"} header of the response does not refer to other request headers.</li>
+ * </ul>
+ * A cached response expires after the configured time-to-live or the {@code max-age} (or {@code s-maxage})
+ * of the response, whichever is shorter. A request with {@code "cache-control: no-cache"} is always served
+ * by the decorated {@link Service}.
+ *
+ * <p>Note that this decorator is meant for the responses which are identical for all clients. Do not use it
+ * for a {@link Service} whose responses depend on the request headers other than the ones listed above,
+ * unless the responses have proper {@code "cache-control"} or {@code "vary"} headers.
+ */
+public class CachingHttpEncodingService extends SimpleDecoratingService<HttpRequest, HttpResponse> {
+
+    private static final long DEFAULT_MAX_CACHE_SIZE_BYTES = 16 * 1024 * 1024;
+    private static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(1);
+
+    /**
+     * The estimated memory overhead of a cache entry, in bytes.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 512;
+
+    /**
+     * Creates a new {@link CachingHttpEncodingService} decorator which caches up to
+     * {@code maxCacheSizeBytes} of the encoded content for {@code timeToLive} at most.
+     */
+    public static Function<Service<HttpRequest, HttpResponse>, CachingHttpEncodingService>
+    newDecorator(long maxCacheSizeBytes, Duration timeToLive) {
+        validateMaxCacheSizeBytes(maxCacheSizeBytes);
+        validateTimeToLive(timeToLive);
+        return delegate -> new CachingHttpEncodingService(
+                delegate, HttpEncodingService.DEFAULT_ENCODABLE_CONTENT_TYPE_PREDICATE,
+                HttpEncodingService.DEFAULT_MIN_BYTES_TO_FORCE_CHUNKED_AND_ENCODING,
+                maxCacheSizeBytes, timeToLive);
+    }
+
+    private final Predicate<MediaType> encodableContentTypePredicate;
+    private final int minBytesToForceChunkedAndEncoding;
+    private final long timeToLiveNanos;
+    private final int maxEntrySizeBytes;
+    private final Cache<CacheKey, CachedResponse> cache;
+
+    /**
+     * Creates a new {@link DecoratingService} that HTTP encodes and caches response data published from
+     * {@code delegate}, with the same encoding conditions as {@link HttpEncodingService}. Up to 16 MiB of
+     * the encoded content is cached for 1 minute at most.
+     */
+    public CachingHttpEncodingService(Service<? super HttpRequest, ? extends HttpResponse> delegate) {
+        this(delegate, HttpEncodingService.DEFAULT_ENCODABLE_CONTENT_TYPE_PREDICATE,
+             HttpEncodingService.DEFAULT_MIN_BYTES_TO_FORCE_CHUNKED_AND_ENCODING,
+             DEFAULT_MAX_CACHE_SIZE_BYTES, DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * Creates a new {@link DecoratingService} that HTTP encodes and caches response data published from
+     * {@code delegate}. Encoding will be applied under the same conditions as
+     * {@link HttpEncodingService#HttpEncodingService(Service, Predicate, int)}. Up to
+     * {@code maxCacheSizeBytes} of the encoded content is cached for {@code timeToLive} at most.
+     */
+    public CachingHttpEncodingService(Service<? super HttpRequest, ? extends HttpResponse> delegate,
+                                      Predicate<MediaType> encodableContentTypePredicate,
+                                      int minBytesToForceChunkedAndEncoding,
+                                      long maxCacheSizeBytes, Duration timeToLive) {
+        super(delegate);
+        this.encodableContentTypePredicate = requireNonNull(encodableContentTypePredicate,
+                                                            "encodableContentTypePredicate");
+        this.minBytesToForceChunkedAndEncoding =
+                HttpEncodingService.validateMinBytesToForceChunkedAndEncoding(
+                        minBytesToForceChunkedAndEncoding);
+        timeToLiveNanos = validateTimeToLive(timeToLive).toNanos();
+
+        validateMaxCacheSizeBytes(maxCacheSizeBytes);
+        // Do not let a single entry take up more than 1/16 of the cache.
+        maxEntrySizeBytes = (int) Math.min(Integer.MAX_VALUE, maxCacheSizeBytes / 16);
+        cache = CacheBuilder.newBuilder()
+                            .maximumWeight(maxCacheSizeBytes)
+                            .weigher((CacheKey key, CachedResponse value) -> value.weight())
+                            .expireAfterWrite(timeToLiveNanos, TimeUnit.NANOSECONDS)
+                            .build();
+    }
+
+    @Override
+    public HttpResponse serve(ServiceRequestContext ctx, HttpRequest req) throws Exception {
+        final HttpEncodingType encodingType = HttpEncoders.getWrapperForRequest(req);
+        if (encodingType == null) {
+            return delegate().serve(ctx, req);
+        }
+
+        final CacheKey key;
+        if (req.method() == HttpMethod.GET) {
+            final CacheControl cacheControl = CacheControl.parse(req.headers());
+            if (cacheControl.noStore()) {
+                key = null;
+            } else {
+                key = new CacheKey(req.headers(), encodingType);
+                if (!cacheControl.noCache()) {
+                    final CachedResponse cached = cache.getIfPresent(key);
+                    if (cached != null) {
+                        if (cached.expiresAtNanos - System.nanoTime() > 0) {
+                            return cached.toResponse();
+                        }
+                        cache.asMap().remove(key, cached);
+                    }
+                }
+            }
+        } else {
+            key = null;
+        }
+
+        final HttpResponse res = new HttpEncodedResponse(
+                delegate().serve(ctx, req),
+                encodingType,
+                encodableContentTypePredicate,
+                minBytesToForceChunkedAndEncoding,
+                ctx.alloc());
+
+        if (key == null) {
+            return res;
+        }
+
+        final boolean authorized = req.headers().contains(HttpHeaderNames.AUTHORIZATION);
+        return new CachingHttpResponse(res, maxEntrySizeBytes, (headers, content) -> {
+            final long timeToLiveNanos = timeToLiveNanos(headers, authorized);
+            if (timeToLiveNanos > 0) {
+                cache.put(key, new CachedResponse(headers, content, System.nanoTime() + timeToLiveNanos));
+            }
+        });
+    }
+
+    /**
+     * Returns how long the response with the specified {@link HttpHeaders} can be cached for,
+     * or {@code 0} if the response is not cacheable.
+     */
+    private long timeToLiveNanos(HttpHeaders headers, boolean authorized) {
+        if (headers.contains(HttpHeaderNames.SET_COOKIE)) {
+            return 0;
+        }
+
+        final String vary = headers.get(HttpHeaderNames.VARY);
+        if (vary != null) {
+            for (String name : vary.split(",")) {
+                if (!CacheKey.isKeyHeader(name.trim())) {
+                    return 0;
+                }
+            }
+        }
+
+        final CacheControl cacheControl = CacheControl.parse(headers);
+        if (cacheControl.noStore() || cacheControl.noCache() || cacheControl.isPrivate()) {
+            return 0;
+        }
+        if (authorized && !cacheControl.isPublic() && cacheControl.sharedMaxAgeSeconds() < 0) {
+            // A response to an authorized request must be explicitly marked as shareable.
+            return 0;
+        }
+
+        final long maxAgeSeconds = cacheControl.sharedMaxAgeSeconds() >= 0 ?
+                                   cacheControl.sharedMaxAgeSeconds() : cacheControl.maxAgeSeconds();
+        if (maxAgeSeconds >= 0) {
+            return Math.min(timeToLiveNanos, TimeUnit.SECONDS.toNanos(maxAgeSeconds));
+        }
+        return timeToLiveNanos;
+    }
+
+    private static long validateMaxCacheSizeBytes(long maxCacheSizeBytes) {
+        if (maxCacheSizeBytes <= 0) {
+            throw new IllegalArgumentException(
+                    "maxCacheSizeBytes: " + maxCacheSizeBytes + " (expected: > 0)");
+        }
+        return maxCacheSizeBytes;
+    }
+
+    private static Duration validateTimeToLive(Duration timeToLive) {
+        requireNonNull(timeToLive, "timeToLive");
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("timeToLive: " + timeToLive + " (expected: > 0)");
+        }
+        return timeToLive;
+    }
+
+    private static final class CacheKey {
+
+        static boolean isKeyHeader(String name) {
+            return HttpHeaderNames.ACCEPT_ENCODING.contentEqualsIgnoreCase(name) ||
+                   HttpHeaderNames.ACCEPT.contentEqualsIgnoreCase(name) ||
+                   HttpHeaderNames.ACCEPT_LANGUAGE.contentEqualsIgnoreCase(name);
+        }
+
+        private final String authority;
+        private final String path;
+        @Nullable
+        private final String accept;
+        @Nullable
+        private final String acceptLanguage;
+        private final HttpEncodingType encodingType;
+        private final int hashCode;
+
+        CacheKey(HttpHeaders headers, HttpEncodingType encodingType) {
+            authority = Objects.toString(headers.authority(), "");
+            path = headers.path();
+            accept = headers.get(HttpHeaderNames.ACCEPT);
+            acceptLanguage = headers.get(HttpHeaderNames.ACCEPT_LANGUAGE);
+            this.encodingType = encodingType;
+            hashCode = Objects.hash(authority, path, accept, acceptLanguage, encodingType);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+
+            final CacheKey that = (CacheKey) obj;
+            return hashCode == that.hashCode &&
+                   encodingType == that.encodingType &&
+                   path.equals(that.path) &&
+                   authority.equals(that.authority) &&
+                   Objects.equals(accept, that.accept) &&
+                   Objects.equals(acceptLanguage, that.acceptLanguage);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                              .add("authority", authority)
+                              .add("path", path)
+                              .add("accept", accept)
+                              .add("acceptLanguage", acceptLanguage)
+                              .add("encodingType", encodingType).toString();
+        }
+    }
+
+    private static final class CachedResponse {
+
+        private final HttpHeaders headers;
+        private final byte[] content;
+        final long expiresAtNanos;
+
+        CachedResponse(HttpHeaders headers, byte[] content, long expiresAtNanos) {
+            this.headers = headers;
+            this.content = content;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        int weight() {
+            return ENTRY_OVERHEAD_BYTES + content.length;
+        }
+
+        HttpResponse toResponse() {
+            final DefaultHttpResponse res = new DefaultHttpResponse();
+            res.write(HttpHeaders.copyOf(headers));
+            if (content.length != 0) {
+                res.write(HttpData.of(content));
+            }
+            res.close();
+            return res;
+        }
+    }
+}
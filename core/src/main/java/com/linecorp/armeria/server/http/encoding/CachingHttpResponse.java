@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.http.encoding;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.function.BiConsumer;
+
+import javax.annotation.Nullable;
+
+import org.reactivestreams.Subscriber;
+
+import com.linecorp.armeria.common.http.FilteredHttpResponse;
+import com.linecorp.armeria.common.http.HttpData;
+import com.linecorp.armeria.common.http.HttpHeaders;
+import com.linecorp.armeria.common.http.HttpObject;
+import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.common.http.HttpStatus;
+import com.linecorp.armeria.common.http.HttpStatusClass;
+import com.linecorp.armeria.internal.http.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A {@link FilteredHttpResponse} that keeps a copy of the {@link HttpObject}s as they are published,
+ * and passes the headers and the content of the response to a callback when the response completes
+ * successfully. The response is not kept if it is not a {@code 200 OK} response, it has trailing headers
+ * or its content is larger than the limit.
+ */
+final class CachingHttpResponse extends FilteredHttpResponse {
+
+    private final int maxContentLength;
+    private final BiConsumer<HttpHeaders, byte[]> callback;
+
+    @Nullable
+    private HttpHeaders headers;
+    @Nullable
+    private ByteArrayOutputStream content;
+
+    CachingHttpResponse(HttpResponse delegate, int maxContentLength,
+                        BiConsumer<HttpHeaders, byte[]> callback) {
+        super(delegate);
+        this.maxContentLength = maxContentLength;
+        this.callback = requireNonNull(callback, "callback");
+        content = new ByteArrayOutputStream();
+    }
+
+    @Override
+    protected HttpObject filter(HttpObject obj) {
+        if (content == null) {
+            // Not cacheable.
+            return obj;
+        }
+
+        if (obj instanceof HttpHeaders) {
+            final HttpHeaders headers = (HttpHeaders) obj;
+            final HttpStatus status = headers.status();
+            if (status != null && status.codeClass() == HttpStatusClass.INFORMATIONAL) {
+                return obj;
+            }
+
+            if (this.headers == null && HttpStatus.OK.equals(status)) {
+                this.headers = HttpHeaders.copyOf(headers).asImmutable();
+            } else {
+                // Not a '200 OK' response or trailing headers.
+                content = null;
+            }
+            return obj;
+        }
+
+        final HttpData data = (HttpData) obj;
+        if (content.size() + data.length() > maxContentLength) {
+            content = null;
+            return obj;
+        }
+
+        if (data instanceof ByteBufHttpData) {
+            final ByteBuf buf = ((ByteBufHttpData) data).buf();
+            try {
+                buf.getBytes(buf.readerIndex(), content, buf.readableBytes());
+            } catch (IOException e) {
+                // Never happens with a ByteArrayOutputStream.
+                content = null;
+            }
+        } else {
+            content.write(data.array(), data.offset(), data.length());
+        }
+        return obj;
+    }
+
+    @Override
+    protected void beforeComplete(Subscriber<? super HttpObject> subscriber) {
+        if (headers != null && content != null) {
+            callback.accept(headers, content.toByteArray());
+        }
+        headers = null;
+        content = null;
+    }
+
+    @Override
+    protected void beforeError(Subscriber<? super HttpObject> subscriber, Throwable cause) {
+        headers = null;
+        content = null;
+    }
+}
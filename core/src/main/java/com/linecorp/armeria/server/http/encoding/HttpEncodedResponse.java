@@ -18,10 +18,8 @@ package com.linecorp.armeria.server.http.encoding;
 
 import static java.util.Objects.requireNonNull;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.util.concurrent.Executor;
 import java.util.function.Predicate;
-import java.util.zip.DeflaterOutputStream;
 
 import javax.annotation.Nullable;
 
@@ -36,37 +34,58 @@ import com.linecorp.armeria.common.http.HttpObject;
 import com.linecorp.armeria.common.http.HttpResponse;
 import com.linecorp.armeria.common.http.HttpStatusClass;
 import com.linecorp.armeria.common.stream.FilteredStreamMessage;
+import com.linecorp.armeria.internal.http.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
 
 /**
  * A {@link FilteredStreamMessage} that applies HTTP encoding to {@link HttpObject}s as they are published.
+ * Every {@link HttpData} is compressed into a pooled {@link ByteBuf} and flushed immediately, so that
+ * the demand of the subscriber is propagated to the delegate as is.
  */
 class HttpEncodedResponse extends FilteredHttpResponse {
 
     private final HttpEncodingType encodingType;
     private final Predicate<MediaType> encodableContentTypePredicate;
     private final int minBytesToForceChunkedAndEncoding;
+    private final ByteBufAllocator alloc;
 
     @Nullable
-    private ByteArrayOutputStream encodedStream;
-
-    @Nullable
-    private DeflaterOutputStream encodingStream;
+    private HttpStreamEncoder encoder;
 
     private boolean headersSent;
+    private boolean withPooledObjects;
 
     HttpEncodedResponse(
             HttpResponse delegate,
             HttpEncodingType encodingType,
             Predicate<MediaType> encodableContentTypePredicate,
-            int minBytesToForceChunkedAndEncoding) {
+            int minBytesToForceChunkedAndEncoding,
+            ByteBufAllocator alloc) {
         super(delegate);
         this.encodingType = requireNonNull(encodingType, "encodingType");
+        this.alloc = requireNonNull(alloc, "alloc");
         this.encodableContentTypePredicate = requireNonNull(encodableContentTypePredicate,
                                                             "encodableContentTypePredicate");
         this.minBytesToForceChunkedAndEncoding = HttpEncodingService.validateMinBytesToForceChunkedAndEncoding(
                 minBytesToForceChunkedAndEncoding);
     }
 
+    @Override
+    public void subscribe(Subscriber<? super HttpObject> subscriber, boolean withPooledObjects) {
+        this.withPooledObjects = withPooledObjects;
+        super.subscribe(subscriber, withPooledObjects);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super HttpObject> subscriber, Executor executor,
+                          boolean withPooledObjects) {
+        this.withPooledObjects = withPooledObjects;
+        super.subscribe(subscriber, executor, withPooledObjects);
+    }
+
     @Override
     protected HttpObject filter(HttpObject obj) {
         if (obj instanceof HttpHeaders) {
@@ -86,65 +105,52 @@ class HttpEncodedResponse extends FilteredHttpResponse {
                 return obj;
             }
 
-            encodedStream = new ByteArrayOutputStream();
-            encodingStream = HttpEncoders.getEncodingOutputStream(encodingType, encodedStream);
+            encoder = HttpEncoders.newEncoder(encodingType, alloc);
 
             // Always use chunked encoding when compressing.
             headers.remove(HttpHeaderNames.CONTENT_LENGTH);
-            switch (encodingType) {
-                case GZIP:
-                    headers.set(HttpHeaderNames.CONTENT_ENCODING, "gzip");
-                    break;
-                case DEFLATE:
-                    headers.set(HttpHeaderNames.CONTENT_ENCODING, "deflate");
-                    break;
-            }
+            headers.set(HttpHeaderNames.CONTENT_ENCODING, encodingType.headerValue());
             headers.set(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING.toString());
             return headers;
         }
 
-        if (encodingStream == null) {
+        if (encoder == null) {
             // Encoding was disabled for this response.
             return obj;
         }
 
-        HttpData data = (HttpData) obj;
-        try {
-            encodingStream.write(data.array(), data.offset(), data.length());
-            encodingStream.flush();
-            return HttpData.of(encodedStream.toByteArray());
-        } catch (IOException e) {
-            throw new IllegalStateException(
-                    "Error encoding HttpData, this should not happen with byte arrays.",
-                    e);
-        } finally {
-            encodedStream.reset();
-        }
+        return toHttpData(encoder.encode((HttpData) obj));
     }
 
     @Override
     protected void beforeComplete(Subscriber<? super HttpObject> subscriber) {
-        closeEncoder();
-        if (encodedStream != null && encodedStream.size() > 0) {
-            subscriber.onNext(HttpData.of(encodedStream.toByteArray()));
+        if (encoder == null) {
+            return;
+        }
+        try {
+            subscriber.onNext(toHttpData(encoder.finish()));
+        } finally {
+            encoder.close();
         }
     }
 
     @Override
     protected void beforeError(Subscriber<? super HttpObject> subscriber, Throwable cause) {
-        closeEncoder();
+        if (encoder != null) {
+            encoder.close();
+        }
     }
 
-    private void closeEncoder() {
-        if (encodingStream == null) {
-            return;
+    private HttpData toHttpData(ByteBuf buf) {
+        if (withPooledObjects) {
+            return new ByteBufHttpData(buf, false);
         }
+
+        // The subscriber does not expect a pooled object.
         try {
-            encodingStream.close();
-        } catch (IOException e) {
-            throw new IllegalStateException(
-                    "Error closing encodingStream, this should not happen with byte arrays.",
-                    e);
+            return HttpData.of(ByteBufUtil.getBytes(buf));
+        } finally {
+            buf.release();
         }
     }
 
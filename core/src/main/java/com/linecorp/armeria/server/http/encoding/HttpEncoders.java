@@ -16,21 +16,30 @@
 
 package com.linecorp.armeria.server.http.encoding;
 
-import java.io.IOException;
-import java.io.OutputStream;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.Arrays;
 
 import javax.annotation.Nullable;
 
+import com.google.common.base.Ascii;
+
 import com.linecorp.armeria.common.http.HttpHeaderNames;
 import com.linecorp.armeria.common.http.HttpRequest;
 
+import io.netty.buffer.ByteBufAllocator;
+
 /**
- * Support utilities for dealing with HTTP encoding (e.g., gzip).
+ * Support utilities for dealing with HTTP encoding (e.g., gzip, br and zstd).
  */
 final class HttpEncoders {
 
+    /**
+     * The {@link HttpEncodingType}s in the order of preference, which is used when a client accepts
+     * more than one encoding with the same q-value.
+     */
+    private static final HttpEncodingType[] PREFERENCES = {
+            HttpEncodingType.ZSTD, HttpEncodingType.BROTLI, HttpEncodingType.GZIP, HttpEncodingType.DEFLATE
+    };
+
     @Nullable
     static HttpEncodingType getWrapperForRequest(HttpRequest request) {
         String acceptEncoding = request.headers().get(HttpHeaderNames.ACCEPT_ENCODING);
@@ -40,27 +49,41 @@ final class HttpEncoders {
         return determineEncoding(acceptEncoding);
     }
 
-    static DeflaterOutputStream getEncodingOutputStream(HttpEncodingType encodingType, OutputStream out) {
+    /**
+     * Returns whether the specified {@link HttpEncodingType} can be applied, i.e. its optional
+     * compression library is available.
+     */
+    static boolean isAvailable(HttpEncodingType encodingType) {
+        switch (encodingType) {
+            case BROTLI:
+                return BrotliAvailability.AVAILABLE;
+            case ZSTD:
+                return ZstdAvailability.AVAILABLE;
+            default:
+                return true;
+        }
+    }
+
+    static HttpStreamEncoder newEncoder(HttpEncodingType encodingType, ByteBufAllocator alloc) {
         switch (encodingType) {
             case GZIP:
-                try {
-                    return new GZIPOutputStream(out, true);
-                } catch (IOException e) {
-                    throw new IllegalStateException(
-                            "Error writing gzip header. This should not happen with byte arrays.", e);
-                }
             case DEFLATE:
-                return new DeflaterOutputStream(out, true);
+                return new StreamingDeflater(encodingType, alloc);
+            case BROTLI:
+                return new BrotliStreamEncoder(alloc);
+            case ZSTD:
+                return new ZstdStreamEncoder(alloc);
             default:
-                throw new IllegalArgumentException("Unexpected zlib type, this is a programming bug.");
+                throw new IllegalArgumentException("Unexpected encoding type, this is a programming bug.");
         }
     }
 
-    // Copied from netty's HttpContentCompressor.
+    // Based on netty's HttpContentCompressor.
+    @Nullable
     private static HttpEncodingType determineEncoding(String acceptEncoding) {
+        final float[] qValues = new float[PREFERENCES.length];
+        Arrays.fill(qValues, -1.0f);
         float starQ = -1.0f;
-        float gzipQ = -1.0f;
-        float deflateQ = -1.0f;
         for (String encoding : acceptEncoding.split(",")) {
             float q = 1.0f;
             int equalsPos = encoding.indexOf('=');
@@ -72,31 +95,78 @@ final class HttpEncoders {
                     q = 0.0f;
                 }
             }
-            if (encoding.contains("*")) {
+
+            final int semicolonPos = encoding.indexOf(';');
+            String name = Ascii.toLowerCase(
+                    (semicolonPos != -1 ? encoding.substring(0, semicolonPos) : encoding).trim());
+            if ("x-gzip".equals(name)) {
+                name = "gzip";
+            }
+            if ("*".equals(name)) {
                 starQ = q;
-            } else if (encoding.contains("gzip") && q > gzipQ) {
-                gzipQ = q;
-            } else if (encoding.contains("deflate") && q > deflateQ) {
-                deflateQ = q;
+                continue;
+            }
+
+            for (int i = 0; i < PREFERENCES.length; i++) {
+                final HttpEncodingType type = PREFERENCES[i];
+                if (type.headerValue().equals(name) && q > qValues[i]) {
+                    qValues[i] = q;
+                }
             }
         }
-        if (gzipQ > 0.0f || deflateQ > 0.0f) {
-            if (gzipQ >= deflateQ) {
-                return HttpEncodingType.GZIP;
-            } else {
-                return HttpEncodingType.DEFLATE;
+
+        // Choose the encoding with the highest q-value, preferring the one with the better compression.
+        HttpEncodingType bestType = null;
+        float bestQ = 0.0f;
+        for (int i = 0; i < PREFERENCES.length; i++) {
+            final HttpEncodingType type = PREFERENCES[i];
+            if (qValues[i] > bestQ && isAvailable(type)) {
+                bestType = type;
+                bestQ = qValues[i];
             }
         }
+        if (bestType != null) {
+            return bestType;
+        }
+
         if (starQ > 0.0f) {
-            if (gzipQ == -1.0f) {
-                return HttpEncodingType.GZIP;
-            }
-            if (deflateQ == -1.0f) {
-                return HttpEncodingType.DEFLATE;
+            // Use only the encodings every client supports for a wildcard.
+            for (int i = 0; i < PREFERENCES.length; i++) {
+                final HttpEncodingType type = PREFERENCES[i];
+                if ((type == HttpEncodingType.GZIP || type == HttpEncodingType.DEFLATE) &&
+                    qValues[i] == -1.0f) {
+                    return type;
+                }
             }
         }
         return null;
     }
 
+    /**
+     * Returns whether the class with the specified name can be found, without initializing it.
+     */
+    private static boolean isClassPresent(String className) {
+        try {
+            Class.forName(className, false, HttpEncoders.class.getClassLoader());
+            return true;
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    // The holder classes below are initialized on the first use, and they do not touch the encoders
+    // unless the optional library is in the class path, because loading an encoder without its library
+    // fails with a NoClassDefFoundError.
+
+    private static final class BrotliAvailability {
+        static final boolean AVAILABLE = isClassPresent("com.aayushatharva.brotli4j.Brotli4jLoader") &&
+                                         BrotliStreamEncoder.isAvailable();
+    }
+
+    private static final class ZstdAvailability {
+        static final boolean AVAILABLE = isClassPresent("com.github.luben.zstd.ZstdOutputStream") &&
+                                         ZstdStreamEncoder.isAvailable();
+    }
+
     private HttpEncoders() {}
 }
@@ -34,18 +34,24 @@ import com.linecorp.armeria.server.http.HttpService;
  * A {@link DecoratingService} that applies HTTP encoding (e.g., gzip) to an {@link HttpService}.
  * HTTP encoding will be applied if the client specifies it, the response content type is a reasonable
  * type to encode, and the response either has no fixed content length or the length is larger than 1KB.
+ *
+ * <p>'gzip' and 'deflate' are always supported. 'br' and 'zstd' are supported when
+ * <a href="https://github.com/hyperxpro/Brotli4j">Brotli4j</a> and
+ * <a href="https://github.com/luben/zstd-jni">zstd-jni</a> are in the class path respectively.
+ * The encoding with the highest q-value in the accept-encoding header is chosen, preferring 'zstd', 'br',
+ * 'gzip' and 'deflate' in this order when q-values are equal.
  */
 public class HttpEncodingService
         extends SimpleDecoratingService<HttpRequest, HttpResponse> {
 
-    private static final Predicate<MediaType> DEFAULT_ENCODABLE_CONTENT_TYPE_PREDICATE =
+    static final Predicate<MediaType> DEFAULT_ENCODABLE_CONTENT_TYPE_PREDICATE =
             contentType -> Stream.of(MediaType.ANY_TEXT_TYPE,
                                      MediaType.APPLICATION_XML_UTF_8,
                                      MediaType.JAVASCRIPT_UTF_8,
                                      MediaType.JSON_UTF_8)
                                  .anyMatch(contentType::is);
 
-    private static final int DEFAULT_MIN_BYTES_TO_FORCE_CHUNKED_AND_ENCODING = 1024;
+    static final int DEFAULT_MIN_BYTES_TO_FORCE_CHUNKED_AND_ENCODING = 1024;
 
     private final Predicate<MediaType> encodableContentTypePredicate;
     private final int minBytesToForceChunkedAndEncoding;
@@ -87,7 +93,8 @@ public class HttpEncodingService
                 delegateResponse,
                 encodingType,
                 encodableContentTypePredicate,
-                minBytesToForceChunkedAndEncoding);
+                minBytesToForceChunkedAndEncoding,
+                ctx.alloc());
     }
 
     static int validateMinBytesToForceChunkedAndEncoding(int minBytesToForceChunkedAndEncoding) {
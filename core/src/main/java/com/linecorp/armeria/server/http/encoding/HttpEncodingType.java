@@ -20,6 +20,21 @@ package com.linecorp.armeria.server.http.encoding;
  * A type of HTTP encoding, which is usually included in accept-encoding and content-encoding headers.
  */
 enum HttpEncodingType {
-    GZIP,
-    DEFLATE;
+    GZIP("gzip"),
+    DEFLATE("deflate"),
+    BROTLI("br"),
+    ZSTD("zstd");
+
+    private final String headerValue;
+
+    HttpEncodingType(String headerValue) {
+        this.headerValue = headerValue;
+    }
+
+    /**
+     * Returns the value of the content-encoding header for this encoding.
+     */
+    String headerValue() {
+        return headerValue;
+    }
 }
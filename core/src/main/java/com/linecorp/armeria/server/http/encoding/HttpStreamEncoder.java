@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http.encoding;
+
+import com.linecorp.armeria.common.http.HttpData;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Compresses a stream of {@link HttpData} into {@link ByteBuf}s. An encoder is used by a single thread
+ * for the lifetime of an {@link com.linecorp.armeria.common.http.HttpResponse}.
+ */
+interface HttpStreamEncoder {
+
+    /**
+     * Compresses the specified {@link HttpData} and flushes the compressed output.
+     * The {@link HttpData} is released if it is pooled.
+     *
+     * @return the compressed output, which has to be released by the caller
+     */
+    ByteBuf encode(HttpData data);
+
+    /**
+     * Finishes the compressed stream.
+     *
+     * @return the remainder of the compressed output, which has to be released by the caller
+     */
+    ByteBuf finish();
+
+    /**
+     * Releases the resources held by this encoder. Called after {@link #finish()} or when the response
+     * has failed.
+     */
+    void close();
+}
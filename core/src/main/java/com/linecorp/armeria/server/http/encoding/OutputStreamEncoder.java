@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.http.encoding;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.common.http.HttpData;
+import com.linecorp.armeria.internal.http.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * A skeletal {@link HttpStreamEncoder} implementation for the compression libraries which provide
+ * an {@link OutputStream}. The compressed output is written into pooled {@link ByteBuf}s.
+ */
+abstract class OutputStreamEncoder implements HttpStreamEncoder {
+
+    private final ByteBufAllocator alloc;
+    private final ByteBufSink sink = new ByteBufSink();
+
+    @Nullable
+    private OutputStream encodingStream;
+    private boolean closed;
+
+    OutputStreamEncoder(ByteBufAllocator alloc) {
+        this.alloc = requireNonNull(alloc, "alloc");
+    }
+
+    /**
+     * Creates a new {@link OutputStream} that compresses the data written to it into the specified
+     * {@link OutputStream}. {@link OutputStream#flush()} must write out all data written so far.
+     */
+    protected abstract OutputStream newEncodingStream(OutputStream out) throws IOException;
+
+    @Override
+    public final ByteBuf encode(HttpData data) {
+        final ByteBuf out = alloc.heapBuffer(data.length() / 2 + 64);
+        sink.buf = out;
+        boolean success = false;
+        try {
+            final OutputStream encodingStream = encodingStream();
+            if (data instanceof ByteBufHttpData) {
+                final ByteBuf buf = ((ByteBufHttpData) data).buf();
+                buf.getBytes(buf.readerIndex(), encodingStream, buf.readableBytes());
+            } else {
+                encodingStream.write(data.array(), data.offset(), data.length());
+            }
+            encodingStream.flush();
+            success = true;
+            return out;
+        } catch (IOException e) {
+            throw new IllegalStateException(
+                    "Error encoding HttpData, this should not happen with ByteBufs.", e);
+        } finally {
+            sink.buf = null;
+            if (data instanceof ByteBufHttpData) {
+                ((ByteBufHttpData) data).buf().release();
+            }
+            if (!success) {
+                out.release();
+            }
+        }
+    }
+
+    @Override
+    public final ByteBuf finish() {
+        final ByteBuf out = alloc.heapBuffer(64);
+        sink.buf = out;
+        boolean success = false;
+        try {
+            final OutputStream encodingStream = encodingStream();
+            closed = true;
+            encodingStream.close();
+            success = true;
+            return out;
+        } catch (IOException e) {
+            throw new IllegalStateException(
+                    "Error closing encodingStream, this should not happen with ByteBufs.", e);
+        } finally {
+            sink.buf = null;
+            if (!success) {
+                out.release();
+            }
+        }
+    }
+
+    @Override
+    public final void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (encodingStream != null) {
+            // Release the resources held by the compression library. The output is discarded.
+            try {
+                encodingStream.close();
+            } catch (IOException ignored) {
+                // Should never reach here.
+            }
+        }
+    }
+
+    private OutputStream encodingStream() throws IOException {
+        OutputStream encodingStream = this.encodingStream;
+        if (encodingStream == null) {
+            this.encodingStream = encodingStream = newEncodingStream(sink);
+        }
+        return encodingStream;
+    }
+
+    /**
+     * An {@link OutputStream} that writes into the current output {@link ByteBuf}, or discards
+     * the data written when there is no current output.
+     */
+    private static final class ByteBufSink extends OutputStream {
+
+        @Nullable
+        ByteBuf buf;
+
+        @Override
+        public void write(int b) {
+            if (buf != null) {
+                buf.writeByte(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (buf != null) {
+                buf.writeBytes(b, off, len);
+            }
+        }
+    }
+}
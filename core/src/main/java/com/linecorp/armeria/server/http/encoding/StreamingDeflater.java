@@ -0,0 +1,228 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http.encoding;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayDeque;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+import java.util.zip.Deflater;
+
+import com.linecorp.armeria.common.http.HttpData;
+import com.linecorp.armeria.internal.http.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * Compresses a stream of {@link HttpData} into pooled {@link ByteBuf}s with a {@link Deflater}, flushing
+ * the compressed output of every {@link HttpData} so that it can be sent immediately.
+ *
+ * <p>{@link Deflater}s are expensive to create, so they are borrowed from a pool local to the current
+ * thread, which is usually an event loop, and returned to the pool by {@link #close()}. An instance must
+ * be used and closed by a single thread.
+ */
+final class StreamingDeflater implements HttpStreamEncoder {
+
+    /**
+     * The maximum number of the idle {@link Deflater}s kept by a thread.
+     */
+    private static final int MAX_POOLED_DEFLATERS = 16;
+
+    /**
+     * The size of the scratch array used for reading a direct {@link ByteBuf}, because {@link Deflater}
+     * accepts only a byte array in Java 8.
+     */
+    private static final int SCRATCH_SIZE = 8192;
+
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    private static final FastThreadLocal<ArrayDeque<Deflater>> deflaters =
+            new FastThreadLocal<ArrayDeque<Deflater>>() {
+                @Override
+                protected ArrayDeque<Deflater> initialValue() {
+                    return new ArrayDeque<>(MAX_POOLED_DEFLATERS);
+                }
+            };
+
+    private static final FastThreadLocal<byte[]> scratchArrays = new FastThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[SCRATCH_SIZE];
+        }
+    };
+
+    private final ByteBufAllocator alloc;
+    private final Deflater deflater;
+    private final Checksum checksum;
+    private final boolean gzip;
+    private boolean headerWritten;
+    private boolean closed;
+
+    StreamingDeflater(HttpEncodingType encodingType, ByteBufAllocator alloc) {
+        requireNonNull(encodingType, "encodingType");
+        this.alloc = requireNonNull(alloc, "alloc");
+
+        final Deflater deflater = deflaters.get().pollFirst();
+        this.deflater = deflater != null ? deflater : new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+        switch (encodingType) {
+            case GZIP:
+                gzip = true;
+                checksum = new CRC32();
+                break;
+            case DEFLATE:
+                // The 'deflate' content coding is the zlib format. Its header and trailer are written
+                // manually, so that the raw Deflaters in the pool can be shared with the 'gzip' coding.
+                gzip = false;
+                checksum = new Adler32();
+                break;
+            default:
+                throw new IllegalArgumentException("Unexpected zlib type, this is a programming bug.");
+        }
+    }
+
+    @Override
+    public ByteBuf encode(HttpData data) {
+        final ByteBuf out = alloc.heapBuffer(maxOutputLength(data.length()));
+        boolean success = false;
+        try {
+            writeHeaderIfNeeded(out);
+            if (data instanceof ByteBufHttpData) {
+                final ByteBuf buf = ((ByteBufHttpData) data).buf();
+                if (buf.hasArray()) {
+                    deflate(buf.array(), buf.arrayOffset() + buf.readerIndex(), buf.readableBytes(), out);
+                } else {
+                    final byte[] scratch = scratchArrays.get();
+                    for (int i = buf.readerIndex(); i < buf.writerIndex();) {
+                        final int length = Math.min(scratch.length, buf.writerIndex() - i);
+                        buf.getBytes(i, scratch, 0, length);
+                        deflate(scratch, 0, length, out);
+                        i += length;
+                    }
+                }
+            } else {
+                deflate(data.array(), data.offset(), data.length(), out);
+            }
+            success = true;
+            return out;
+        } finally {
+            if (data instanceof ByteBufHttpData) {
+                ((ByteBufHttpData) data).buf().release();
+            }
+            if (!success) {
+                out.release();
+            }
+        }
+    }
+
+    @Override
+    public ByteBuf finish() {
+        final ByteBuf out = alloc.heapBuffer(64);
+        boolean success = false;
+        try {
+            writeHeaderIfNeeded(out);
+            deflater.finish();
+            while (!deflater.finished()) {
+                out.ensureWritable(64);
+                out.writerIndex(out.writerIndex() + deflater.deflate(
+                        out.array(), out.arrayOffset() + out.writerIndex(), out.writableBytes()));
+            }
+
+            if (gzip) {
+                out.ensureWritable(GZIP_TRAILER_SIZE);
+                out.writeIntLE((int) checksum.getValue());
+                out.writeIntLE((int) deflater.getBytesRead());
+            } else {
+                out.ensureWritable(4);
+                out.writeInt((int) checksum.getValue());
+            }
+            success = true;
+            return out;
+        } finally {
+            if (!success) {
+                out.release();
+            }
+        }
+    }
+
+    /**
+     * Returns the {@link Deflater} to the pool of the current thread.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        final ArrayDeque<Deflater> pool = deflaters.get();
+        if (pool.size() < MAX_POOLED_DEFLATERS) {
+            deflater.reset();
+            pool.addFirst(deflater);
+        } else {
+            deflater.end();
+        }
+    }
+
+    private void writeHeaderIfNeeded(ByteBuf out) {
+        if (headerWritten) {
+            return;
+        }
+        headerWritten = true;
+        if (gzip) {
+            out.writeBytes(GZIP_HEADER);
+        } else {
+            // CMF: deflate with 32K window, FLG: default compression level with a valid FCHECK.
+            out.writeByte(0x78);
+            out.writeByte(0x9c);
+        }
+    }
+
+    private void deflate(byte[] array, int offset, int length, ByteBuf out) {
+        checksum.update(array, offset, length);
+
+        deflater.setInput(array, offset, length);
+        for (;;) {
+            out.ensureWritable(16);
+            final int writableBytes = out.writableBytes();
+            final int numBytes = deflater.deflate(out.array(), out.arrayOffset() + out.writerIndex(),
+                                                  writableBytes, Deflater.SYNC_FLUSH);
+            out.writerIndex(out.writerIndex() + numBytes);
+            if (numBytes < writableBytes) {
+                // All input has been consumed and flushed.
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the maximum length of the output of a flushed chunk, so that the output buffer does not
+     * need to be expanded in most cases.
+     */
+    private static int maxOutputLength(int inputLength) {
+        // Stored blocks have 5 bytes of overhead per 16 KiB, plus the gzip header and the sync marker.
+        return inputLength + (inputLength >>> 12) + 32;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.http.encoding;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.github.luben.zstd.util.Native;
+
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * An {@link HttpStreamEncoder} that applies the 'zstd' encoding using
+ * <a href="https://github.com/luben/zstd-jni">zstd-jni</a>, which is an optional dependency.
+ */
+final class ZstdStreamEncoder extends OutputStreamEncoder {
+
+    /**
+     * The default compression level of Zstandard.
+     */
+    private static final int LEVEL = 3;
+
+    /**
+     * Returns whether zstd-jni and its native library are available.
+     */
+    static boolean isAvailable() {
+        try {
+            Native.load();
+            return true;
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    ZstdStreamEncoder(ByteBufAllocator alloc) {
+        super(alloc);
+    }
+
+    @Override
+    protected OutputStream newEncodingStream(OutputStream out) throws IOException {
+        return new ZstdOutputStream(out, LEVEL);
+    }
+}
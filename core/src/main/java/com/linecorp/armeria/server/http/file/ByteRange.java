@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http.file;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Ascii;
+import com.google.common.base.Splitter;
+
+/**
+ * A satisfiable byte range of a representation, as defined in
+ * <a href="https://tools.ietf.org/html/rfc7233#section-2.1">RFC7233</a>.
+ */
+final class ByteRange {
+
+    /**
+     * The maximum number of the ranges in a {@code "range"} header. A request with more ranges is served
+     * as if it did not have a {@code "range"} header, as permitted by RFC7233.
+     */
+    static final int MAX_RANGES = 32;
+
+    private static final String BYTES_UNIT = "bytes=";
+    private static final Splitter COMMA_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+    /**
+     * Parses the value of a {@code "range"} header.
+     *
+     * @param rangeHeader the value of the {@code "range"} header
+     * @param length the length of the representation
+     *
+     * @return the satisfiable ranges in the order of appearance, an empty list if none of the ranges are
+     *         satisfiable, or {@code null} if the header has to be ignored because it is malformed,
+     *         uses an unknown unit or has too many ranges
+     */
+    @Nullable
+    static List<ByteRange> parse(String rangeHeader, long length) {
+        if (rangeHeader.length() <= BYTES_UNIT.length() ||
+            !Ascii.equalsIgnoreCase(rangeHeader.substring(0, BYTES_UNIT.length()), BYTES_UNIT)) {
+            return null;
+        }
+
+        final List<ByteRange> ranges = new ArrayList<>();
+        int numSpecs = 0;
+        for (String spec : COMMA_SPLITTER.split(rangeHeader.substring(BYTES_UNIT.length()))) {
+            if (++numSpecs > MAX_RANGES) {
+                return null;
+            }
+
+            final int dashIdx = spec.indexOf('-');
+            if (dashIdx < 0) {
+                return null;
+            }
+
+            final String firstStr = spec.substring(0, dashIdx).trim();
+            final String lastStr = spec.substring(dashIdx + 1).trim();
+            final long first;
+            final long last;
+            if (firstStr.isEmpty()) {
+                // suffix-byte-range-spec: "-<suffix-length>"
+                final long suffixLength = parseNonNegative(lastStr);
+                if (suffixLength < 0) {
+                    return null;
+                }
+                if (suffixLength == 0 || length == 0) {
+                    // Unsatisfiable
+                    continue;
+                }
+                first = Math.max(0, length - suffixLength);
+                last = length - 1;
+            } else {
+                first = parseNonNegative(firstStr);
+                if (first < 0) {
+                    return null;
+                }
+                if (lastStr.isEmpty()) {
+                    last = length - 1;
+                } else {
+                    final long lastPos = parseNonNegative(lastStr);
+                    if (lastPos < first) {
+                        // Includes the case where lastStr is malformed.
+                        return null;
+                    }
+                    last = Math.min(lastPos, length - 1);
+                }
+                if (first >= length) {
+                    // Unsatisfiable
+                    continue;
+                }
+            }
+
+            ranges.add(new ByteRange(first, last));
+        }
+
+        if (numSpecs == 0) {
+            return null;
+        }
+
+        return ranges.isEmpty() ? Collections.emptyList() : ranges;
+    }
+
+    /**
+     * Parses a non-negative decimal number.
+     *
+     * @return the parsed number, or {@code -1} if the specified {@link String} is not a valid non-negative
+     *         decimal number
+     */
+    private static long parseNonNegative(String str) {
+        if (str.isEmpty() || str.length() > 18) {
+            return -1;
+        }
+
+        long value = 0;
+        for (int i = 0; i < str.length(); i++) {
+            final char ch = str.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return -1;
+            }
+            value = value * 10 + (ch - '0');
+        }
+        return value;
+    }
+
+    private final long first;
+    private final long last;
+
+    ByteRange(long first, long last) {
+        assert first >= 0 && first <= last : "first: " + first + ", last: " + last;
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Returns the position of the first byte, inclusive.
+     */
+    long first() {
+        return first;
+    }
+
+    /**
+     * Returns the position of the last byte, inclusive.
+     */
+    long last() {
+        return last;
+    }
+
+    /**
+     * Returns the number of the bytes in this range.
+     */
+    long length() {
+        return last - first + 1;
+    }
+
+    /**
+     * Returns the value of the {@code "content-range"} header for this range.
+     */
+    String contentRange(long completeLength) {
+        return "bytes " + first + '-' + last + '/' + completeLength;
+    }
+
+    @Override
+    public String toString() {
+        return first + "-" + last;
+    }
+}
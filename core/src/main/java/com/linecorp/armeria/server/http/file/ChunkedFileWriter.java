@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http.file;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linecorp.armeria.common.http.HttpData;
+import com.linecorp.armeria.common.http.HttpResponseWriter;
+import com.linecorp.armeria.internal.http.ByteBufHttpData;
+import com.linecorp.armeria.internal.http.FileRegionHttpData;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Writes the parts of a response body to an {@link HttpResponseWriter}, splitting the {@link ByteRange}s of
+ * a {@link File} into chunks. A chunk is either read from a {@link FileChannel} into a pooled direct buffer,
+ * or written as a {@link FileRegionHttpData} when no {@link FileChannel} is given. The next chunk is written
+ * only when the previous one has been consumed, so that a large file does not fill up the memory even if
+ * a decorator reads the content of the {@link FileRegionHttpData}s.
+ */
+final class ChunkedFileWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedFileWriter.class);
+
+    /**
+     * The maximum length of a chunk read into a buffer.
+     */
+    private static final int MAX_CHUNK_SIZE = 65536;
+
+    /**
+     * The maximum length of a {@link FileRegionHttpData}, which is larger than {@link #MAX_CHUNK_SIZE}
+     * because it's transferred without being copied unless a decorator reads its content.
+     */
+    private static final int MAX_FILE_REGION_SIZE = 1048576;
+
+    private final ServiceRequestContext ctx;
+    private final HttpResponseWriter res;
+    private final File file;
+    @Nullable
+    private final FileChannel ch;
+
+    /**
+     * The parts of the response body, each of which is either an {@link HttpData} or a {@link ByteRange}.
+     */
+    private final List<Object> parts;
+    private int partIdx;
+    private long position = -1;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param ch the {@link FileChannel} of the {@code file} to read the chunks from, or {@code null} to
+     *           write the chunks as {@link FileRegionHttpData}s
+     */
+    ChunkedFileWriter(ServiceRequestContext ctx, HttpResponseWriter res,
+                      File file, @Nullable FileChannel ch, List<Object> parts) {
+        this.ctx = ctx;
+        this.res = res;
+        this.file = file;
+        this.ch = ch;
+        this.parts = parts;
+    }
+
+    /**
+     * Writes the parts until a chunk of a {@link ByteRange} is written, and then schedules the remaining
+     * writes on demand. The {@link HttpResponseWriter} is closed after all parts are written.
+     */
+    void write() {
+        boolean success = false;
+        try {
+            for (;;) {
+                if (partIdx == parts.size()) {
+                    res.close();
+                    return;
+                }
+
+                final Object part = parts.get(partIdx);
+                if (part instanceof HttpData) {
+                    partIdx++;
+                    if (!res.write((HttpData) part)) {
+                        return;
+                    }
+                    continue;
+                }
+
+                final ByteRange range = (ByteRange) part;
+                if (position < 0) {
+                    position = range.first();
+                }
+
+                final int maxChunkSize = ch != null ? MAX_CHUNK_SIZE : MAX_FILE_REGION_SIZE;
+                final int chunkSize = (int) Math.min(maxChunkSize, range.last() - position + 1);
+                final HttpData chunk;
+                if (ch != null) {
+                    chunk = new ByteBufHttpData(readChunk(position, chunkSize), false);
+                } else {
+                    chunk = new FileRegionHttpData(file, position, chunkSize, false);
+                }
+                position += chunkSize;
+                if (position > range.last()) {
+                    partIdx++;
+                    position = -1;
+                }
+
+                if (!res.write(chunk)) {
+                    if (chunk instanceof ByteBufHttpData) {
+                        ((ByteBufHttpData) chunk).buf().release();
+                    }
+                    return;
+                }
+
+                break;
+            }
+
+            success = true;
+            res.onDemand(this::write)
+               .exceptionally(cause -> {
+                   closeQuietly();
+                   return null;
+               });
+        } catch (Throwable t) {
+            logger.warn("{} Unexpected exception reading a file:", ctx, t);
+            res.close(t);
+        } finally {
+            if (!success) {
+                closeQuietly();
+            }
+        }
+    }
+
+    private ByteBuf readChunk(long position, int chunkSize) throws IOException {
+        final ByteBuf buf = ctx.alloc().directBuffer(chunkSize, chunkSize);
+        boolean success = false;
+        try {
+            long pos = position;
+            while (buf.isWritable()) {
+                final int readBytes = buf.writeBytes(ch, pos, buf.writableBytes());
+                if (readBytes < 0) {
+                    throw new EOFException("unexpected end of file: " + ch);
+                }
+                pos += readBytes;
+            }
+            success = true;
+            return buf;
+        } finally {
+            if (!success) {
+                buf.release();
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        if (ch == null) {
+            return;
+        }
+        try {
+            ch.close();
+        } catch (IOException e) {
+            logger.warn("{} Failed to close a file: {}", ctx, ch, e);
+        }
+    }
+}
@@ -71,6 +71,13 @@ final class FileSystemHttpVfs implements HttpVfs {
             this.file = file;
         }
 
+        /**
+         * Returns the {@link File} of this entry.
+         */
+        File file() {
+            return file;
+        }
+
         @Override
         public long lastModifiedMillis() {
             return file.lastModified();
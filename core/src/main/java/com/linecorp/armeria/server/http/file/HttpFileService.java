@@ -18,13 +18,19 @@ package com.linecorp.armeria.server.http.file;
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.text.ParseException;
-import java.util.Collections;
 import java.util.EnumSet;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.annotation.Nullable;
 
@@ -32,6 +38,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableList;
 
 import com.linecorp.armeria.common.MediaType;
 import com.linecorp.armeria.common.Request;
@@ -41,16 +51,21 @@ import com.linecorp.armeria.common.http.HttpHeaders;
 import com.linecorp.armeria.common.http.HttpRequest;
 import com.linecorp.armeria.common.http.HttpResponse;
 import com.linecorp.armeria.common.http.HttpResponseWriter;
+import com.linecorp.armeria.common.http.HttpSessionProtocols;
 import com.linecorp.armeria.common.http.HttpStatus;
-import com.linecorp.armeria.common.util.LruMap;
+import com.linecorp.armeria.internal.http.ByteBufHttpData;
 import com.linecorp.armeria.server.Service;
 import com.linecorp.armeria.server.ServiceConfig;
 import com.linecorp.armeria.server.ServiceRequestContext;
 import com.linecorp.armeria.server.http.AbstractHttpService;
 import com.linecorp.armeria.server.http.HttpService;
 import com.linecorp.armeria.server.http.encoding.HttpEncodingService;
+import com.linecorp.armeria.server.http.file.FileSystemHttpVfs.FileSystemEntry;
 import com.linecorp.armeria.server.http.file.HttpVfs.Entry;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
 /**
  * An {@link HttpService} that serves static files from a file system.
  *
@@ -97,20 +112,71 @@ public final class HttpFileService extends AbstractHttpService {
         return HttpFileServiceBuilder.forVfs(vfs).build();
     }
 
+    /**
+     * The approximate number of bytes used by a cached content besides the content itself, such as its
+     * buffer and the cache nodes, which is added to the weight of the content.
+     */
+    private static final int CONTENT_OVERHEAD_BYTES = 256;
+
+    /**
+     * How often the file system is checked again for a file which did not exist.
+     */
+    private static final long MISSING_ENTRY_RECHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
     private final HttpFileServiceConfig config;
 
     /**
-     * An LRU cache map that releases the buffer that contains the cached content.
+     * A concurrent LRU cache of the entries, including the entries of the files which do not exist,
+     * whose size is bounded by {@link HttpFileServiceConfig#maxCacheEntries()}.
+     */
+    @Nullable
+    private final Cache<String, CachedEntry> cache;
+
+    /**
+     * A concurrent LRU cache of the entries which hold their content, whose total weight is bounded by
+     * {@link HttpFileServiceConfig#maxCacheSizeBytes()}. The cached content is stored in a pooled direct
+     * buffer, which is released when its entry is removed from either cache.
      */
-    private final Map<String, CachedEntry> cache;
+    @Nullable
+    private final Cache<CachedEntry, Boolean> contentCache;
+
+    /**
+     * The total size of the content held by the entries in {@link #contentCache}, updated when a content
+     * is added or removed so that {@link #cacheStats()} does not have to visit all entries.
+     */
+    private final LongAdder cachedContentSizeBytes = new LongAdder();
+    private final LongAdder cacheHitCount = new LongAdder();
+    private final LongAdder cacheMissCount = new LongAdder();
+    private final LongAdder cacheEvictionCount = new LongAdder();
 
     HttpFileService(HttpFileServiceConfig config) {
         this.config = requireNonNull(config, "config");
 
-        if (config.maxCacheEntries() != 0) {
-            cache = Collections.synchronizedMap(new LruMap<String, CachedEntry>(config.maxCacheEntries()));
+        if (config.maxCacheEntries() != 0 && config.maxCacheSizeBytes() != 0) {
+            cache = CacheBuilder.newBuilder()
+                                .maximumSize(config.maxCacheEntries())
+                                .removalListener((RemovalNotification<String, CachedEntry> n) -> {
+                                    if (n.wasEvicted()) {
+                                        cacheEvictionCount.increment();
+                                    }
+                                    n.getValue().destroy();
+                                })
+                                .build();
+            contentCache = CacheBuilder.newBuilder()
+                                       .maximumWeight(config.maxCacheSizeBytes())
+                                       .weigher((CachedEntry e, Boolean unused) -> (int) Math.min(
+                                               Integer.MAX_VALUE,
+                                               (long) e.contentLength() + CONTENT_OVERHEAD_BYTES))
+                                       .removalListener((RemovalNotification<CachedEntry, Boolean> n) -> {
+                                           if (n.wasEvicted()) {
+                                               cacheEvictionCount.increment();
+                                           }
+                                           n.getKey().destroyContent();
+                                       })
+                                       .build();
         } else {
             cache = null;
+            contentCache = null;
         }
     }
 
@@ -121,6 +187,20 @@ public final class HttpFileService extends AbstractHttpService {
         return config;
     }
 
+    /**
+     * Returns the current statistics of the file cache.
+     */
+    public HttpFileServiceCacheStats cacheStats() {
+        final Cache<String, CachedEntry> cache = this.cache;
+        if (cache == null) {
+            return HttpFileServiceCacheStats.EMPTY;
+        }
+
+        return new HttpFileServiceCacheStats(cacheHitCount.sum(), cacheMissCount.sum(),
+                                             cacheEvictionCount.sum(), cache.size(),
+                                             cachedContentSizeBytes.sum());
+    }
+
     @Override
     protected void doGet(ServiceRequestContext ctx, HttpRequest req, HttpResponseWriter res) {
         final Entry entry = getEntry(ctx, req);
@@ -158,33 +238,249 @@ public final class HttpFileService extends AbstractHttpService {
             return;
         }
 
+        final File file = zeroCopyFile(entry);
         final HttpData data;
-        try {
-            data = entry.readContent();
-        } catch (FileNotFoundException ignored) {
-            res.respond(HttpStatus.NOT_FOUND);
-            return;
-        } catch (Exception e) {
-            logger.warn("{} Unexpected exception reading a file:", ctx, e);
-            res.respond(HttpStatus.INTERNAL_SERVER_ERROR);
+        final long length;
+        if (file != null) {
+            if (cache != null) {
+                // Too large to be cached.
+                cacheMissCount.increment();
+            }
+            data = null;
+            length = file.length();
+        } else {
+            try {
+                data = entry.readContent();
+            } catch (FileNotFoundException ignored) {
+                res.respond(HttpStatus.NOT_FOUND);
+                return;
+            } catch (Exception e) {
+                logger.warn("{} Unexpected exception reading a file:", ctx, e);
+                res.respond(HttpStatus.INTERNAL_SERVER_ERROR);
+                return;
+            }
+            length = data.length();
+        }
+
+        final List<ByteRange> ranges = ranges(req, lastModifiedMillis, length);
+        if (ranges != null && ranges.isEmpty()) {
+            release(data);
+            res.write(HttpHeaders.of(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                                 .set(HttpHeaderNames.CONTENT_RANGE, "bytes */" + length)
+                                 .setInt(HttpHeaderNames.CONTENT_LENGTH, 0)
+                                 .setTimeMillis(HttpHeaderNames.DATE, config().clock().millis())
+                                 .setTimeMillis(HttpHeaderNames.LAST_MODIFIED, lastModifiedMillis));
+            res.close();
             return;
         }
 
-        HttpHeaders headers = HttpHeaders.of(HttpStatus.OK)
-                                         .setInt(HttpHeaderNames.CONTENT_LENGTH, data.length())
-                                         .setTimeMillis(HttpHeaderNames.DATE, config().clock().millis())
-                                         .setTimeMillis(HttpHeaderNames.LAST_MODIFIED, lastModifiedMillis);
+        // Build the parts of the response body, each of which is either an HttpData or a ByteRange.
+        final HttpHeaders headers;
+        final List<Object> parts;
+        if (ranges == null) {
+            headers = newHeaders(HttpStatus.OK, entry, length, lastModifiedMillis);
+            parts = length != 0 ? ImmutableList.of(new ByteRange(0, length - 1)) : ImmutableList.of();
+        } else if (ranges.size() == 1) {
+            final ByteRange range = ranges.get(0);
+            headers = newHeaders(HttpStatus.PARTIAL_CONTENT, entry, range.length(), lastModifiedMillis);
+            headers.set(HttpHeaderNames.CONTENT_RANGE, range.contentRange(length));
+            parts = ImmutableList.of(range);
+        } else {
+            final String boundary = newBoundary();
+            final ImmutableList.Builder<Object> partsBuilder = ImmutableList.builder();
+            long contentLength = 0;
+            for (ByteRange range : ranges) {
+                final StringBuilder buf = new StringBuilder(128);
+                buf.append("\r\n--").append(boundary).append("\r\n");
+                if (entry.mediaType() != null) {
+                    buf.append("Content-Type: ").append(entry.mediaType()).append("\r\n");
+                }
+                buf.append("Content-Range: ").append(range.contentRange(length)).append("\r\n\r\n");
+                final HttpData partHeaders = HttpData.ofAscii(buf.toString());
+                partsBuilder.add(partHeaders);
+                partsBuilder.add(range);
+                contentLength += partHeaders.length() + range.length();
+            }
+            final HttpData closeDelimiter = HttpData.ofAscii("\r\n--" + boundary + "--\r\n");
+            partsBuilder.add(closeDelimiter);
+            contentLength += closeDelimiter.length();
+
+            headers = newHeaders(HttpStatus.PARTIAL_CONTENT, entry, contentLength, lastModifiedMillis);
+            headers.set(HttpHeaderNames.CONTENT_TYPE, "multipart/byteranges; boundary=" + boundary);
+            parts = partsBuilder.build();
+        }
+
+        if (file != null) {
+            serveFile(ctx, res, file, headers, parts);
+        } else {
+            serveData(res, data, headers, parts);
+        }
+    }
+
+    private HttpHeaders newHeaders(HttpStatus status, Entry entry, long contentLength,
+                                   long lastModifiedMillis) {
+        final HttpHeaders headers = HttpHeaders.of(status)
+                                               .setLong(HttpHeaderNames.CONTENT_LENGTH, contentLength)
+                                               .set(HttpHeaderNames.ACCEPT_RANGES, "bytes")
+                                               .setTimeMillis(HttpHeaderNames.DATE, config().clock().millis())
+                                               .setTimeMillis(HttpHeaderNames.LAST_MODIFIED,
+                                                              lastModifiedMillis);
         if (entry.mediaType() != null) {
             headers.set(HttpHeaderNames.CONTENT_TYPE, entry.mediaType().toString());
         }
         if (entry.contentEncoding() != null) {
             headers.set(HttpHeaderNames.CONTENT_ENCODING, entry.contentEncoding());
         }
+        return headers;
+    }
+
+    /**
+     * Returns the {@link ByteRange}s requested by the {@code "range"} header.
+     *
+     * @return the satisfiable ranges, an empty list if none of the ranges are satisfiable, or {@code null}
+     *         if the complete content has to be sent
+     */
+    @Nullable
+    private static List<ByteRange> ranges(HttpRequest req, long lastModifiedMillis, long length) {
+        final String range = req.headers().get(HttpHeaderNames.RANGE);
+        if (range == null) {
+            return null;
+        }
+
+        final String ifRange = req.headers().get(HttpHeaderNames.IF_RANGE);
+        if (ifRange != null) {
+            if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+                // An entity tag never matches because we do not send an 'ETag' header.
+                return null;
+            }
+
+            long ifRangeMillis = Long.MIN_VALUE;
+            try {
+                ifRangeMillis = req.headers().getTimeMillis(HttpHeaderNames.IF_RANGE, Long.MIN_VALUE);
+            } catch (Exception e) {
+                // Ignore the ParseException, which is raised on malformed date.
+                //noinspection ConstantConditions
+                if (!(e instanceof ParseException)) {
+                    throw e;
+                }
+            }
+
+            // The date must be an exact match, with the precision of HTTP-date.
+            if (ifRangeMillis / 1000 != lastModifiedMillis / 1000) {
+                return null;
+            }
+        }
+
+        return ByteRange.parse(range, length);
+    }
+
+    private static String newBoundary() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        return Long.toHexString(random.nextLong() | Long.MIN_VALUE) +
+               Long.toHexString(random.nextLong() | Long.MIN_VALUE);
+    }
+
+    private static void release(@Nullable HttpData data) {
+        if (data instanceof ByteBufHttpData) {
+            ((ByteBufHttpData) data).buf().release();
+        }
+    }
+
+    /**
+     * Returns the {@link File} of the specified {@link Entry} if it has to be served without reading its
+     * content into the heap, or {@code null} if {@link Entry#readContent()} has to be used instead.
+     */
+    @Nullable
+    private File zeroCopyFile(Entry entry) {
+        if (!config.zeroCopy()) {
+            return null;
+        }
+
+        if (entry instanceof CachedEntry) {
+            final CachedEntry cachedEntry = (CachedEntry) entry;
+            if (cachedEntry.hasCachedContent()) {
+                return null;
+            }
+            entry = cachedEntry.entry;
+        }
+
+        if (!(entry instanceof FileSystemEntry)) {
+            return null;
+        }
+
+        final File file = ((FileSystemEntry) entry).file();
+        if (cache != null && file.length() <= config.maxCacheEntrySizeBytes()) {
+            // Small enough to be cached.
+            return null;
+        }
+
+        return file;
+    }
+
+    /**
+     * Writes the parts of a response body whose {@link ByteRange}s refer to the content of the specified
+     * {@link HttpData}. The slices of the {@link HttpData} are written without copying.
+     */
+    private static void serveData(HttpResponseWriter res, HttpData data, HttpHeaders headers,
+                                  List<Object> parts) {
         res.write(headers);
-        res.write(data);
+        try {
+            for (Object part : parts) {
+                if (part instanceof HttpData) {
+                    res.write((HttpData) part);
+                    continue;
+                }
+
+                final ByteRange range = (ByteRange) part;
+                final int first = (int) range.first();
+                final int length = (int) range.length();
+                if (data instanceof ByteBufHttpData) {
+                    final ByteBuf buf = ((ByteBufHttpData) data).buf();
+                    final ByteBuf slice = buf.retainedSlice(buf.readerIndex() + first, length);
+                    if (!res.write(new ByteBufHttpData(slice, false))) {
+                        slice.release();
+                    }
+                } else {
+                    res.write(HttpData.of(data.array(), data.offset() + first, length));
+                }
+            }
+        } finally {
+            release(data);
+        }
         res.close();
     }
 
+    /**
+     * Writes the parts of a response body whose {@link ByteRange}s refer to the content of the specified
+     * {@link File}.
+     */
+    private static void serveFile(ServiceRequestContext ctx, HttpResponseWriter res, File file,
+                                  HttpHeaders headers, List<Object> parts) {
+
+        if (ctx.sessionProtocol() == HttpSessionProtocols.H1C) {
+            // Cleartext HTTP/1; let the file be transferred to the socket directly, a region at a time.
+            res.write(headers);
+            new ChunkedFileWriter(ctx, res, file, null, parts).write();
+            return;
+        }
+
+        // TLS or HTTP/2; stream the file in chunks using pooled direct buffers.
+        final FileChannel ch;
+        try {
+            ch = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        } catch (NoSuchFileException ignored) {
+            res.respond(HttpStatus.NOT_FOUND);
+            return;
+        } catch (Exception e) {
+            logger.warn("{} Unexpected exception reading a file:", ctx, e);
+            res.respond(HttpStatus.INTERNAL_SERVER_ERROR);
+            return;
+        }
+
+        res.write(headers);
+        new ChunkedFileWriter(ctx, res, file, ch, parts).write();
+    }
+
     private Entry getEntry(ServiceRequestContext ctx, HttpRequest req) {
         final String pathWithoutPrefix = ctx.pathWithoutPrefix();
 
@@ -225,18 +521,23 @@ public final class HttpFileService extends AbstractHttpService {
     private Entry getEntry(String path, @Nullable String contentEncoding) {
         assert path != null;
 
+        final Cache<String, CachedEntry> cache = this.cache;
         if (cache == null) {
             return config.vfs().get(path, contentEncoding);
         }
 
-        CachedEntry e = cache.get(path);
-        if (e != null) {
-            return e;
+        final CachedEntry cachedEntry = cache.getIfPresent(path);
+        if (cachedEntry != null) {
+            return cachedEntry;
         }
 
-        e = new CachedEntry(config.vfs().get(path, contentEncoding), config.maxCacheEntrySizeBytes());
-        cache.put(path, e);
-        return e;
+        // Cache a non-existent entry as well, so that the file system is not looked up for every request
+        // of a missing file, such as the pre-compressed variant of a file. CachedEntry checks again
+        // periodically if the file has been created.
+        final Entry entry = config.vfs().get(path, contentEncoding);
+        final CachedEntry newCachedEntry = new CachedEntry(path, entry, entry.lastModifiedMillis());
+        final CachedEntry oldCachedEntry = cache.asMap().putIfAbsent(path, newCachedEntry);
+        return oldCachedEntry != null ? oldCachedEntry : newCachedEntry;
     }
 
     private Entry getEntryWithSupportedEncodings(String path,
@@ -250,17 +551,35 @@ public final class HttpFileService extends AbstractHttpService {
         return getEntry(path, null);
     }
 
-    private static final class CachedEntry implements Entry {
+    /**
+     * An {@link Entry} in the cache. The content is loaded into a pooled direct buffer lazily when
+     * {@link #readContent()} is called for the first time, and then the entry is added to
+     * {@link #contentCache} so that the total size of the content is bounded.
+     *
+     * <p>The cache owns one reference to the content, which is dropped by {@link #destroyContent()} when
+     * the entry is removed from either cache. A reader retains the content under the same lock, so that it
+     * never retains a released buffer, and the buffer is freed when the last reader releases its duplicate.
+     */
+    private final class CachedEntry implements Entry {
 
+        private final String path;
         private final Entry entry;
-        private final int maxCacheEntrySizeBytes;
-        private HttpData cachedContent;
-        private volatile long cachedLastModifiedMillis;
-
-        CachedEntry(Entry entry, int maxCacheEntrySizeBytes) {
+        private final long cachedLastModifiedMillis;
+        // Guarded by 'this'; set to null when the cache drops its reference.
+        @Nullable
+        private ByteBuf content;
+        private int contentLength; // Guarded by 'this'; read without the lock only by the weigher.
+        private boolean destroyed; // Guarded by 'this'
+        private volatile boolean stale;
+        private volatile long nextCheckNanos;
+
+        CachedEntry(String path, Entry entry, long cachedLastModifiedMillis) {
+            this.path = path;
             this.entry = entry;
-            this.maxCacheEntrySizeBytes = maxCacheEntrySizeBytes;
-            cachedLastModifiedMillis = entry.lastModifiedMillis();
+            this.cachedLastModifiedMillis = cachedLastModifiedMillis;
+            if (cachedLastModifiedMillis == 0) {
+                nextCheckNanos = System.nanoTime() + MISSING_ENTRY_RECHECK_INTERVAL_NANOS;
+            }
         }
 
         @Override
@@ -276,32 +595,126 @@ public final class HttpFileService extends AbstractHttpService {
 
         @Override
         public long lastModifiedMillis() {
+            if (cachedLastModifiedMillis == 0 && !stale) {
+                // The file did not exist; check again only after a while.
+                final long currentNanos = System.nanoTime();
+                if (currentNanos - nextCheckNanos < 0) {
+                    return 0;
+                }
+                nextCheckNanos = currentNanos + MISSING_ENTRY_RECHECK_INTERVAL_NANOS;
+            }
+
             final long newLastModifiedMillis = entry.lastModifiedMillis();
             if (newLastModifiedMillis != cachedLastModifiedMillis) {
-                cachedLastModifiedMillis = newLastModifiedMillis;
-                destroyContent();
+                // Created, modified or removed; invalidate this entry so that the next lookup loads
+                // the new one.
+                stale = true;
+                invalidate();
             }
 
             return newLastModifiedMillis;
         }
 
         @Override
-        public synchronized HttpData readContent() throws IOException {
-            if (cachedContent == null) {
-                final HttpData newContent = entry.readContent();
-                if (newContent.length() > maxCacheEntrySizeBytes) {
-                    // Do not cache if the content is too large.
-                    return newContent;
+        public HttpData readContent() throws IOException {
+            if (!stale) {
+                final ByteBuf duplicate = retainedContent();
+                if (duplicate != null) {
+                    cacheHitCount.increment();
+                    // Mark the content as recently used.
+                    contentCache.getIfPresent(this);
+                    return new ByteBufHttpData(duplicate, false);
+                }
+            }
+
+            cacheMissCount.increment();
+            final HttpData newContent = entry.readContent();
+            final int length = newContent.length();
+            if (stale || length > config.maxCacheEntrySizeBytes()) {
+                // Do not cache if the content is too large.
+                return newContent;
+            }
+
+            final ByteBuf buf = ByteBufAllocator.DEFAULT.directBuffer(length, length);
+            buf.writeBytes(newContent.array(), newContent.offset(), length);
+            if (setContent(buf)) {
+                contentCache.put(this, Boolean.TRUE);
+                if (isDestroyed()) {
+                    // Removed from the cache while being added to the content cache.
+                    contentCache.invalidate(this);
                 }
-                cachedContent = newContent;
+            } else {
+                buf.release();
+            }
+
+            return newContent;
+        }
+
+        private synchronized boolean setContent(ByteBuf content) {
+            if (destroyed || this.content != null) {
+                // Removed from the cache, or the content has been loaded by other thread.
+                return false;
+            }
+
+            this.content = content;
+            contentLength = content.readableBytes();
+            cachedContentSizeBytes.add(contentLength);
+            return true;
+        }
+
+        @Nullable
+        private synchronized ByteBuf retainedContent() {
+            return content != null ? content.retainedDuplicate() : null;
+        }
+
+        int contentLength() {
+            return contentLength;
+        }
+
+        boolean hasCachedContent() {
+            if (stale) {
+                return false;
+            }
+            synchronized (this) {
+                return content != null;
             }
+        }
+
+        private synchronized boolean isDestroyed() {
+            return destroyed;
+        }
 
-            return cachedContent;
+        private void invalidate() {
+            cache.asMap().remove(path, this);
         }
 
-        synchronized void destroyContent() {
-            if (cachedContent != null) {
-                cachedContent = null;
+        /**
+         * Invoked when this entry is removed from {@link #cache}.
+         */
+        void destroy() {
+            synchronized (this) {
+                destroyed = true;
+            }
+            contentCache.invalidate(this);
+            destroyContent();
+        }
+
+        /**
+         * Invoked when this entry is removed from {@link #contentCache}, or by {@link #destroy()}.
+         * The entry stays in {@link #cache} without its content, which is loaded again when requested.
+         */
+        void destroyContent() {
+            final ByteBuf content;
+            final int contentLength;
+            synchronized (this) {
+                content = this.content;
+                contentLength = this.contentLength;
+                this.content = null;
+            }
+
+            if (content != null) {
+                cachedContentSizeBytes.add(-contentLength);
+                content.release();
             }
         }
 
@@ -311,7 +724,6 @@ public final class HttpFileService extends AbstractHttpService {
         }
     }
 
-
     /**
      * Creates a new {@link HttpService} that tries this {@link HttpFileService} first and then the specified
      * {@link HttpService} when this {@link HttpFileService} does not have a requested resource.
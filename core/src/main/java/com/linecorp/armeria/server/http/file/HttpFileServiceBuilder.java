@@ -68,7 +68,9 @@ public final class HttpFileServiceBuilder {
     private Clock clock = Clock.systemUTC();
     private int maxCacheEntries = 1024;
     private int maxCacheEntrySizeBytes = 65536;
+    private long maxCacheSizeBytes = 64L * 1024 * 1024;
     private boolean serveCompressedFiles;
+    private boolean zeroCopy = true;
 
     private HttpFileServiceBuilder(HttpVfs vfs) {
         this.vfs = requireNonNull(vfs, "vfs");
@@ -83,7 +85,8 @@ public final class HttpFileServiceBuilder {
     }
 
     /**
-     * Sets the maximum allowed number of cached file entries.
+     * Sets the maximum allowed number of cached file entries, including the entries of the files which
+     * do not exist.
      */
     public HttpFileServiceBuilder maxCacheEntries(int maxCacheEntries) {
         this.maxCacheEntries = HttpFileServiceConfig.validateMaxCacheEntries(maxCacheEntries);
@@ -105,6 +108,17 @@ public final class HttpFileServiceBuilder {
         return this;
     }
 
+    /**
+     * Sets whether the files which are not cached should be served without copying their content into the
+     * JVM heap. If enabled, the file in an O/S file system is transferred directly to the socket on a
+     * cleartext HTTP/1 connection, and is streamed in chunks using pooled direct buffers otherwise.
+     * Enabled by default.
+     */
+    public HttpFileServiceBuilder zeroCopy(boolean zeroCopy) {
+        this.zeroCopy = zeroCopy;
+        return this;
+    }
+
     /**
      * Returns the maximum allowed size of a cached file entry. The file bigger than this value will not be
      * cached.
@@ -115,16 +129,28 @@ public final class HttpFileServiceBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum allowed total size of the cached file content. When the total size exceeds this value,
+     * the content of the least recently used entries is evicted. Each cached content is counted as a few
+     * hundred bytes larger than its actual size, for the memory used to keep it in the cache.
+     */
+    public HttpFileServiceBuilder maxCacheSizeBytes(long maxCacheSizeBytes) {
+        this.maxCacheSizeBytes = HttpFileServiceConfig.validateMaxCacheSizeBytes(maxCacheSizeBytes);
+        return this;
+    }
+
     /**
      * Creates a new {@link HttpFileService}.
      */
     public HttpFileService build() {
         return new HttpFileService(new HttpFileServiceConfig(
-                vfs, clock, maxCacheEntries, maxCacheEntrySizeBytes, serveCompressedFiles));
+                vfs, clock, maxCacheEntries, maxCacheEntrySizeBytes, maxCacheSizeBytes,
+                serveCompressedFiles, zeroCopy));
     }
 
     @Override
     public String toString() {
-        return HttpFileServiceConfig.toString(this, vfs, clock, maxCacheEntries, maxCacheEntrySizeBytes);
+        return HttpFileServiceConfig.toString(this, vfs, clock, maxCacheEntries, maxCacheEntrySizeBytes,
+                                              maxCacheSizeBytes, zeroCopy);
     }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http.file;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A snapshot of the statistics of the file cache of an {@link HttpFileService}.
+ *
+ * @see HttpFileService#cacheStats()
+ */
+public final class HttpFileServiceCacheStats {
+
+    static final HttpFileServiceCacheStats EMPTY = new HttpFileServiceCacheStats(0, 0, 0, 0, 0);
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long entryCount;
+    private final long contentSizeBytes;
+
+    HttpFileServiceCacheStats(long hitCount, long missCount, long evictionCount,
+                              long entryCount, long contentSizeBytes) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.entryCount = entryCount;
+        this.contentSizeBytes = contentSizeBytes;
+    }
+
+    /**
+     * Returns the number of the files whose content was served from the cache.
+     */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of the files whose content was read from the {@link HttpVfs} because it was not
+     * cached.
+     */
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of {@link #hitCount()} to the total number of the served files, or {@code 1.0} if
+     * there were no files served.
+     */
+    public double hitRate() {
+        final long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * Returns the number of the entries or content evicted due to the size limits of the cache.
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of the cached entries, including the entries of the files which do not exist.
+     */
+    public long entryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the total size of the cached file content, in bytes.
+     */
+    public long contentSizeBytes() {
+        return contentSizeBytes;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("hitCount", hitCount)
+                          .add("missCount", missCount)
+                          .add("evictionCount", evictionCount)
+                          .add("entryCount", entryCount)
+                          .add("contentSizeBytes", contentSizeBytes).toString();
+    }
+}
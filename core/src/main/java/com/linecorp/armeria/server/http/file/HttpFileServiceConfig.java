@@ -29,15 +29,19 @@ public final class HttpFileServiceConfig {
     private final Clock clock;
     private final int maxCacheEntries;
     private final int maxCacheEntrySizeBytes;
+    private final long maxCacheSizeBytes;
     private final boolean serveCompressedFiles;
+    private final boolean zeroCopy;
 
     HttpFileServiceConfig(HttpVfs vfs, Clock clock, int maxCacheEntries, int maxCacheEntrySizeBytes,
-                          boolean serveCompressedFiles) {
+                          long maxCacheSizeBytes, boolean serveCompressedFiles, boolean zeroCopy) {
         this.vfs = requireNonNull(vfs, "vfs");
         this.clock = requireNonNull(clock, "clock");
         this.maxCacheEntries = validateMaxCacheEntries(maxCacheEntries);
         this.maxCacheEntrySizeBytes = validateMaxCacheEntrySizeBytes(maxCacheEntrySizeBytes);
+        this.maxCacheSizeBytes = validateMaxCacheSizeBytes(maxCacheSizeBytes);
         this.serveCompressedFiles = serveCompressedFiles;
+        this.zeroCopy = zeroCopy;
     }
 
     static int validateMaxCacheEntries(int maxCacheEntries) {
@@ -48,6 +52,14 @@ public final class HttpFileServiceConfig {
         return validateNonNegativeParameter(maxCacheEntrySizeBytes, "maxCacheEntrySizeBytes");
     }
 
+    static long validateMaxCacheSizeBytes(long maxCacheSizeBytes) {
+        if (maxCacheSizeBytes < 0) {
+            throw new IllegalArgumentException(
+                    "maxCacheSizeBytes: " + maxCacheSizeBytes + " (expected: >= 0)");
+        }
+        return maxCacheSizeBytes;
+    }
+
     private static int validateNonNegativeParameter(int value, String name) {
         if (value < 0) {
             throw new IllegalArgumentException(name + ": " + value + " (expected: >= 0)");
@@ -84,6 +96,13 @@ public final class HttpFileServiceConfig {
         return maxCacheEntrySizeBytes;
     }
 
+    /**
+     * Returns the maximum allowed total size of the cached file content.
+     */
+    public long maxCacheSizeBytes() {
+        return maxCacheSizeBytes;
+    }
+
     /**
      * Whether pre-compressed files should be served.
      */
@@ -91,18 +110,29 @@ public final class HttpFileServiceConfig {
         return serveCompressedFiles;
     }
 
+    /**
+     * Whether the files which are not cached are served without copying their content into the JVM heap.
+     */
+    public boolean zeroCopy() {
+        return zeroCopy;
+    }
+
     @Override
     public String toString() {
-        return toString(this, vfs(), clock(), maxCacheEntries(), maxCacheEntrySizeBytes());
+        return toString(this, vfs(), clock(), maxCacheEntries(), maxCacheEntrySizeBytes(),
+                        maxCacheSizeBytes(), zeroCopy());
     }
 
     static String toString(Object holder, HttpVfs vfs, Clock clock,
-                           int maxCacheEntries, int maxCacheEntrySizeBytes) {
+                           int maxCacheEntries, int maxCacheEntrySizeBytes, long maxCacheSizeBytes,
+                           boolean zeroCopy) {
 
         return holder.getClass().getSimpleName() +
                "(vfs: " + vfs +
                ", clock: " + clock +
                ", maxCacheEntries: " + maxCacheEntries +
-               ", maxCacheEntrySizeBytes: " + maxCacheEntrySizeBytes + ')';
+               ", maxCacheEntrySizeBytes: " + maxCacheEntrySizeBytes +
+               ", maxCacheSizeBytes: " + maxCacheSizeBytes +
+               ", zeroCopy: " + zeroCopy + ')';
     }
 }
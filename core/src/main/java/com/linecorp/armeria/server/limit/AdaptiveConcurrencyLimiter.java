@@ -0,0 +1,207 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.limit;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Ticker;
+
+/**
+ * Limits the number of the requests being served concurrently, adjusting the limit from the observed
+ * latency.
+ *
+ * <p>The latencies observed during a sample window are averaged and compared with their long-term
+ * average. When the recent latency grows beyond the long-term latency multiplied by {@code rttTolerance},
+ * requests are queueing up somewhere, so the limit is scaled down by the ratio of the two latencies.
+ * The square root of the current limit is always added on top of it, so that the limit probes for more
+ * capacity while the latency stays flat. The limit is not raised while less than half of it is in use,
+ * because the latency of an underutilized service says nothing about its capacity.
+ *
+ * <p>An instance may be shared by more than one {@link ConcurrencyLimitingService} to limit the requests
+ * to a group of services, such as all services of a virtual host, as a whole.
+ *
+ * @see AdaptiveConcurrencyLimiterBuilder
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    /**
+     * The weight of the latest sample window in the long-term latency, which makes the long-term latency
+     * remember the last 20 or so windows.
+     */
+    private static final double LONG_RTT_SMOOTHING = 0.05;
+
+    private final Ticker ticker;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long sampleWindowNanos;
+    private final int minSamplesPerWindow;
+    private final double smoothing;
+    private final double rttTolerance;
+
+    private final AtomicInteger numActiveRequests = new AtomicInteger();
+    private volatile int limit;
+
+    private final LongAdder windowRttSum = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicInteger windowMaxActiveRequests = new AtomicInteger();
+    private final AtomicBoolean updating = new AtomicBoolean();
+    private volatile long windowEndNanos;
+
+    /**
+     * The long-term average latency in nanoseconds, guarded by {@link #updating}.
+     */
+    private double longRttNanos;
+
+    AdaptiveConcurrencyLimiter(Ticker ticker, int initialLimit, int minLimit, int maxLimit,
+                               long sampleWindowNanos, int minSamplesPerWindow,
+                               double smoothing, double rttTolerance) {
+        this.ticker = ticker;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.sampleWindowNanos = sampleWindowNanos;
+        this.minSamplesPerWindow = minSamplesPerWindow;
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+
+        limit = initialLimit;
+        windowEndNanos = ticker.read() + sampleWindowNanos;
+    }
+
+    /**
+     * Returns the current maximum number of the requests that can be served concurrently.
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * Returns the number of the requests being served.
+     */
+    public int numActiveRequests() {
+        return numActiveRequests.get();
+    }
+
+    /**
+     * Acquires a permit to serve a request.
+     *
+     * @return {@code true} if acquired, or {@code false} if the limit has been reached
+     */
+    boolean tryAcquire() {
+        for (;;) {
+            final int currentActiveRequests = numActiveRequests.get();
+            if (currentActiveRequests >= limit) {
+                return false;
+            }
+
+            final int newActiveRequests = currentActiveRequests + 1;
+            if (numActiveRequests.compareAndSet(currentActiveRequests, newActiveRequests)) {
+                if (newActiveRequests > windowMaxActiveRequests.get()) {
+                    windowMaxActiveRequests.accumulateAndGet(newActiveRequests, Math::max);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the current time of the {@link Ticker} of this limiter, which is given to
+     * {@link #release(long)} later.
+     */
+    long startTimeNanos() {
+        return ticker.read();
+    }
+
+    /**
+     * Releases the permit of a request which was served successfully or not, without taking its latency
+     * into account.
+     */
+    void release() {
+        numActiveRequests.decrementAndGet();
+    }
+
+    /**
+     * Releases the permit of a request which was started at {@code startTimeNanos}, and adjusts the limit
+     * if the current sample window is over.
+     */
+    void release(long startTimeNanos) {
+        numActiveRequests.decrementAndGet();
+
+        final long currentTimeNanos = ticker.read();
+        windowRttSum.add(currentTimeNanos - startTimeNanos);
+        windowSamples.increment();
+
+        if (currentTimeNanos - windowEndNanos >= 0 && updating.compareAndSet(false, true)) {
+            try {
+                updateLimit(currentTimeNanos);
+            } finally {
+                updating.set(false);
+            }
+        }
+    }
+
+    private void updateLimit(long currentTimeNanos) {
+        if (windowSamples.sum() < minSamplesPerWindow) {
+            // Keep collecting samples until they are enough to tell the latency.
+            return;
+        }
+
+        final long numSamples = windowSamples.sumThenReset();
+        final long rttSum = windowRttSum.sumThenReset();
+        final int maxActiveRequests = windowMaxActiveRequests.getAndSet(numActiveRequests.get());
+        windowEndNanos = currentTimeNanos + sampleWindowNanos;
+
+        final double shortRttNanos = Math.max(1.0, (double) rttSum / numSamples);
+        if (longRttNanos == 0) {
+            longRttNanos = shortRttNanos;
+        } else {
+            longRttNanos = longRttNanos * (1 - LONG_RTT_SMOOTHING) + shortRttNanos * LONG_RTT_SMOOTHING;
+            if (longRttNanos > shortRttNanos * 2) {
+                // Recovering from an overload; forget the latency under the overload sooner so that
+                // the limit does not keep growing over the capacity.
+                longRttNanos *= 0.95;
+            }
+        }
+
+        final int currentLimit = limit;
+        final double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / shortRttNanos));
+        if (gradient == 1.0 && maxActiveRequests < currentLimit / 2) {
+            // The limit has not been tested during this window.
+            return;
+        }
+
+        final double queueSize = Math.sqrt(currentLimit);
+        final double newLimit = currentLimit * gradient + queueSize;
+        final double smoothedLimit = currentLimit * (1 - smoothing) + newLimit * smoothing;
+        // Round away from the current limit so that a small limit can still move.
+        final double roundedLimit = smoothedLimit > currentLimit ? Math.ceil(smoothedLimit)
+                                                                 : Math.floor(smoothedLimit);
+        limit = (int) Math.max(minLimit, Math.min(maxLimit, roundedLimit));
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("limit", limit)
+                          .add("numActiveRequests", numActiveRequests)
+                          .add("minLimit", minLimit)
+                          .add("maxLimit", maxLimit)
+                          .toString();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.limit;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+
+/**
+ * Builds an {@link AdaptiveConcurrencyLimiter} instance using builder pattern.
+ */
+public final class AdaptiveConcurrencyLimiterBuilder {
+
+    private static final class Defaults {
+
+        private static final int INITIAL_LIMIT = 20;
+
+        private static final int MIN_LIMIT = 4;
+
+        private static final int MAX_LIMIT = 1000;
+
+        private static final Duration SAMPLE_WINDOW = Duration.ofMillis(100);
+
+        private static final int MIN_SAMPLES_PER_WINDOW = 10;
+
+        private static final double SMOOTHING = 0.2;
+
+        private static final double RTT_TOLERANCE = 1.5;
+
+        private static final Ticker TICKER = Ticker.systemTicker();
+    }
+
+    private int initialLimit = Defaults.INITIAL_LIMIT;
+
+    private int minLimit = Defaults.MIN_LIMIT;
+
+    private int maxLimit = Defaults.MAX_LIMIT;
+
+    private Duration sampleWindow = Defaults.SAMPLE_WINDOW;
+
+    private int minSamplesPerWindow = Defaults.MIN_SAMPLES_PER_WINDOW;
+
+    private double smoothing = Defaults.SMOOTHING;
+
+    private double rttTolerance = Defaults.RTT_TOLERANCE;
+
+    private Ticker ticker = Defaults.TICKER;
+
+    /**
+     * Sets the limit used until enough latency samples are collected.
+     */
+    public AdaptiveConcurrencyLimiterBuilder initialLimit(int initialLimit) {
+        if (initialLimit <= 0) {
+            throw new IllegalArgumentException("initialLimit: " + initialLimit + " (expected: > 0)");
+        }
+        this.initialLimit = initialLimit;
+        return this;
+    }
+
+    /**
+     * Sets the lower bound of the limit.
+     */
+    public AdaptiveConcurrencyLimiterBuilder minLimit(int minLimit) {
+        if (minLimit <= 0) {
+            throw new IllegalArgumentException("minLimit: " + minLimit + " (expected: > 0)");
+        }
+        this.minLimit = minLimit;
+        return this;
+    }
+
+    /**
+     * Sets the upper bound of the limit.
+     */
+    public AdaptiveConcurrencyLimiterBuilder maxLimit(int maxLimit) {
+        if (maxLimit <= 0) {
+            throw new IllegalArgumentException("maxLimit: " + maxLimit + " (expected: > 0)");
+        }
+        this.maxLimit = maxLimit;
+        return this;
+    }
+
+    /**
+     * Sets the minimum time length of a window whose latency samples are averaged to adjust the limit.
+     */
+    public AdaptiveConcurrencyLimiterBuilder sampleWindow(Duration sampleWindow) {
+        requireNonNull(sampleWindow, "sampleWindow");
+        if (sampleWindow.isNegative() || sampleWindow.isZero()) {
+            throw new IllegalArgumentException("sampleWindow: " + sampleWindow + " (expected: > 0)");
+        }
+        this.sampleWindow = sampleWindow;
+        return this;
+    }
+
+    /**
+     * Sets the minimum time length of a window whose latency samples are averaged to adjust the limit.
+     */
+    public AdaptiveConcurrencyLimiterBuilder sampleWindowMillis(long sampleWindowMillis) {
+        sampleWindow(Duration.ofMillis(sampleWindowMillis));
+        return this;
+    }
+
+    /**
+     * Sets the minimum number of latency samples in a window. A window is extended until it has enough
+     * samples.
+     */
+    public AdaptiveConcurrencyLimiterBuilder minSamplesPerWindow(int minSamplesPerWindow) {
+        if (minSamplesPerWindow <= 0) {
+            throw new IllegalArgumentException(
+                    "minSamplesPerWindow: " + minSamplesPerWindow + " (expected: > 0)");
+        }
+        this.minSamplesPerWindow = minSamplesPerWindow;
+        return this;
+    }
+
+    /**
+     * Sets how quickly the limit follows a new estimate.
+     *
+     * @param smoothing the weight of a new estimate, between 0 (exclusive) and 1 (inclusive)
+     */
+    public AdaptiveConcurrencyLimiterBuilder smoothing(double smoothing) {
+        if (smoothing <= 0 || 1 < smoothing) {
+            throw new IllegalArgumentException("smoothing: " + smoothing + " (expected: > 0 and <= 1)");
+        }
+        this.smoothing = smoothing;
+        return this;
+    }
+
+    /**
+     * Sets how much the recent latency may exceed the long-term latency before the limit is lowered.
+     *
+     * @param rttTolerance the ratio of the recent latency to the long-term latency, not less than 1
+     */
+    public AdaptiveConcurrencyLimiterBuilder rttTolerance(double rttTolerance) {
+        if (rttTolerance < 1) {
+            throw new IllegalArgumentException("rttTolerance: " + rttTolerance + " (expected: >= 1)");
+        }
+        this.rttTolerance = rttTolerance;
+        return this;
+    }
+
+    @VisibleForTesting
+    AdaptiveConcurrencyLimiterBuilder ticker(Ticker ticker) {
+        this.ticker = requireNonNull(ticker, "ticker");
+        return this;
+    }
+
+    /**
+     * Builds an {@link AdaptiveConcurrencyLimiter} instance.
+     */
+    public AdaptiveConcurrencyLimiter build() {
+        if (minLimit > maxLimit) {
+            throw new IllegalStateException(
+                    "minLimit: " + minLimit + " (expected: <= maxLimit (" + maxLimit + "))");
+        }
+        if (initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalStateException(
+                    "initialLimit: " + initialLimit +
+                    " (expected: >= minLimit (" + minLimit + ") and <= maxLimit (" + maxLimit + "))");
+        }
+        return new AdaptiveConcurrencyLimiter(ticker, initialLimit, minLimit, maxLimit,
+                                              sampleWindow.toNanos(), minSamplesPerWindow,
+                                              smoothing, rttTolerance);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.limit;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.function.Function;
+
+import com.linecorp.armeria.common.Request;
+import com.linecorp.armeria.common.Response;
+import com.linecorp.armeria.server.Service;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.ServiceUnavailableException;
+import com.linecorp.armeria.server.SimpleDecoratingService;
+
+/**
+ * Decorates a {@link Service} to limit the number of the {@link Request}s being served concurrently with
+ * an {@link AdaptiveConcurrencyLimiter}.
+ *
+ * <p>A {@link Request} over the limit is rejected immediately with a {@link ServiceUnavailableException},
+ * i.e. {@code 503 Service Unavailable}, before the {@link Request} is handed to the decorated
+ * {@link Service}. Therefore, the content of the rejected {@link Request} is never deserialized.
+ * A {@link Request} is counted until its {@link Response} is closed, and the time it took is used to adjust
+ * the limit.
+ *
+ * <p>For example, to limit all services of a server as a whole:
+ * <pre>{@code
+ * AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiterBuilder().build();
+ * ServerBuilder sb = new ServerBuilder();
+ * ...
+ * sb.decorator(ConcurrencyLimitingService.newDecorator(limiter));
+ * }</pre>
+ *
+ * @param <I> the {@link Request} type
+ * @param <O> the {@link Response} type
+ */
+public final class ConcurrencyLimitingService<I extends Request, O extends Response>
+        extends SimpleDecoratingService<I, O> {
+
+    /**
+     * Returns a new {@link Service} decorator that limits the {@link Request}s to each decorated
+     * {@link Service} with a new {@link AdaptiveConcurrencyLimiter} of the default settings.
+     */
+    public static <I extends Request, O extends Response>
+    Function<Service<I, O>, ConcurrencyLimitingService<I, O>> newDecorator() {
+        return delegate -> new ConcurrencyLimitingService<>(
+                delegate, new AdaptiveConcurrencyLimiterBuilder().build());
+    }
+
+    /**
+     * Returns a new {@link Service} decorator that limits the {@link Request}s to all decorated
+     * {@link Service}s with the specified {@link AdaptiveConcurrencyLimiter}.
+     */
+    public static <I extends Request, O extends Response>
+    Function<Service<I, O>, ConcurrencyLimitingService<I, O>> newDecorator(
+            AdaptiveConcurrencyLimiter limiter) {
+        requireNonNull(limiter, "limiter");
+        return delegate -> new ConcurrencyLimitingService<>(delegate, limiter);
+    }
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    /**
+     * Creates a new instance that decorates the specified {@link Service}.
+     */
+    public ConcurrencyLimitingService(Service<? super I, ? extends O> delegate,
+                                      AdaptiveConcurrencyLimiter limiter) {
+        super(delegate);
+        this.limiter = requireNonNull(limiter, "limiter");
+    }
+
+    /**
+     * Returns the {@link AdaptiveConcurrencyLimiter} of this service.
+     */
+    public AdaptiveConcurrencyLimiter limiter() {
+        return limiter;
+    }
+
+    @Override
+    public O serve(ServiceRequestContext ctx, I req) throws Exception {
+        if (!limiter.tryAcquire()) {
+            throw ServiceUnavailableException.get();
+        }
+
+        final long startTimeNanos = limiter.startTimeNanos();
+        boolean success = false;
+        try {
+            final O res = delegate().serve(ctx, req);
+            res.closeFuture().whenComplete((unused, cause) -> limiter.release(startTimeNanos));
+            success = true;
+            return res;
+        } finally {
+            if (!success) {
+                limiter.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.limit;
+
+import static java.util.Objects.requireNonNull;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import com.linecorp.armeria.common.Request;
+import com.linecorp.armeria.common.http.AggregatedHttpMessage;
+import com.linecorp.armeria.common.http.DefaultHttpResponse;
+import com.linecorp.armeria.common.http.HttpHeaderNames;
+import com.linecorp.armeria.common.http.HttpHeaders;
+import com.linecorp.armeria.common.http.HttpRequest;
+import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.common.http.HttpStatus;
+import com.linecorp.armeria.server.DecoratingService;
+import com.linecorp.armeria.server.Service;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.SimpleDecoratingService;
+
+import io.netty.util.AsciiString;
+
+/**
+ * A {@link DecoratingService} that limits the rate of the {@link HttpRequest}s with token buckets.
+ *
+ * <p>A {@link HttpRequest} takes a token from the bucket of its key, which is resolved by a
+ * {@link KeySelector}, and then from the global bucket, if configured. When either bucket is empty, the
+ * {@link HttpRequest} is rejected with {@link HttpStatus#TOO_MANY_REQUESTS} and a {@code "retry-after"}
+ * header, without being handed to the decorated {@link Service}. A rejected {@link HttpRequest} does not
+ * consume a token from any bucket.
+ *
+ * <p>The bucket of a key is discarded only when it has not been used until it is full again, so that
+ * forgetting a key never makes the limit looser. When there are more active keys than
+ * {@link RateLimitingServiceBuilder#maxKeys(long)}, the new keys share a single bucket until the buckets of
+ * the other keys are discarded.
+ *
+ * <p>For example, to allow 10 requests per second from each client IP address with bursts of 20 requests:
+ * <pre>{@code
+ * ServerBuilder sb = new ServerBuilder();
+ * sb.service("/api", myService.decorate(
+ *         new RateLimitingServiceBuilder().perKeyLimit(KeySelector.REMOTE_ADDRESS, 10, 20)
+ *                                         .newDecorator()));
+ * }</pre>
+ *
+ * @see RateLimitingServiceBuilder
+ */
+public final class RateLimitingService extends SimpleDecoratingService<HttpRequest, HttpResponse> {
+
+    private final Ticker ticker;
+    @Nullable
+    private final KeySelector<?> keySelector;
+    @Nullable
+    private final LoadingCache<Object, TokenBucket> buckets;
+    private final long maxKeys;
+    @Nullable
+    private final TokenBucket overflowBucket;
+    @Nullable
+    private final TokenBucket globalBucket;
+
+    RateLimitingService(Service<? super HttpRequest, ? extends HttpResponse> delegate, Ticker ticker,
+                        @Nullable KeySelector<?> keySelector, double perKeyPermitsPerSecond, int perKeyBurst,
+                        long maxKeys, double globalPermitsPerSecond, int globalBurst) {
+        super(delegate);
+        this.ticker = ticker;
+        this.keySelector = keySelector;
+        this.maxKeys = maxKeys;
+
+        if (keySelector != null) {
+            final long refillNanos = new TokenBucket(perKeyPermitsPerSecond, perKeyBurst, 0).refillNanos();
+            // A bucket which has not been used until it is full is the same as a new bucket,
+            // so it can be expired without affecting the rate limit. The size is not bounded by the cache,
+            // because evicting a bucket which is not full would give its key a new full bucket.
+            buckets = CacheBuilder.newBuilder()
+                                  .expireAfterAccess(refillNanos, TimeUnit.NANOSECONDS)
+                                  .ticker(ticker)
+                                  .build(CacheLoader.from(key -> new TokenBucket(
+                                          perKeyPermitsPerSecond, perKeyBurst, ticker.read())));
+            overflowBucket = new TokenBucket(perKeyPermitsPerSecond, perKeyBurst, ticker.read());
+        } else {
+            buckets = null;
+            overflowBucket = null;
+        }
+
+        if (globalPermitsPerSecond > 0) {
+            globalBucket = new TokenBucket(globalPermitsPerSecond, globalBurst, ticker.read());
+        } else {
+            globalBucket = null;
+        }
+    }
+
+    @Override
+    public HttpResponse serve(ServiceRequestContext ctx, HttpRequest req) throws Exception {
+        final long currentTimeNanos = ticker.read();
+
+        TokenBucket keyBucket = null;
+        if (keySelector != null) {
+            final Object key = keySelector.get(ctx, req);
+            if (key != null) {
+                keyBucket = bucket(key);
+                final long waitNanos = keyBucket.tryAcquire(currentTimeNanos);
+                if (waitNanos > 0) {
+                    return tooManyRequests(waitNanos);
+                }
+            }
+        }
+
+        if (globalBucket != null) {
+            final long waitNanos = globalBucket.tryAcquire(currentTimeNanos);
+            if (waitNanos > 0) {
+                if (keyBucket != null) {
+                    // Give the token back so that the rejected request does not count against its key.
+                    keyBucket.release();
+                }
+                return tooManyRequests(waitNanos);
+            }
+        }
+
+        return delegate().serve(ctx, req);
+    }
+
+    private TokenBucket bucket(Object key) {
+        assert buckets != null;
+        assert overflowBucket != null;
+
+        final TokenBucket bucket = buckets.getIfPresent(key);
+        if (bucket != null) {
+            return bucket;
+        }
+
+        if (buckets.size() >= maxKeys) {
+            // Discard the expired buckets, which may still be counted, before giving up.
+            buckets.cleanUp();
+            if (buckets.size() >= maxKeys) {
+                return overflowBucket;
+            }
+        }
+        return buckets.getUnchecked(key);
+    }
+
+    private static HttpResponse tooManyRequests(long waitNanos) {
+        final long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000);
+        final DefaultHttpResponse res = new DefaultHttpResponse();
+        res.respond(AggregatedHttpMessage.of(
+                HttpHeaders.of(HttpStatus.TOO_MANY_REQUESTS)
+                           .setLong(HttpHeaderNames.RETRY_AFTER, retryAfterSeconds)));
+        return res;
+    }
+
+    /**
+     * Returns the key of the token bucket of the given {@link Request}.
+     *
+     * @param <K> the key type
+     */
+    @FunctionalInterface
+    public interface KeySelector<K> {
+
+        /**
+         * A {@link KeySelector} that returns the IP address of the client.
+         */
+        KeySelector<InetAddress> REMOTE_ADDRESS = (ctx, req) -> {
+            final SocketAddress remoteAddress = ctx.remoteAddress();
+            if (remoteAddress instanceof InetSocketAddress) {
+                return ((InetSocketAddress) remoteAddress).getAddress();
+            }
+            return null;
+        };
+
+        /**
+         * A {@link KeySelector} that returns the path of the {@link Request}.
+         */
+        KeySelector<String> PATH = (ctx, req) -> ctx.path();
+
+        /**
+         * Returns a {@link KeySelector} that returns the value of the specified HTTP header.
+         * The {@link Request}s without the header are not limited by the key.
+         */
+        static KeySelector<String> header(AsciiString name) {
+            requireNonNull(name, "name");
+            return (ctx, req) -> req.headers().get(name);
+        }
+
+        /**
+         * Returns the key of the given {@link Request}, or {@code null} not to limit the {@link Request}
+         * by the key.
+         */
+        @Nullable
+        K get(ServiceRequestContext ctx, HttpRequest req) throws Exception;
+    }
+}
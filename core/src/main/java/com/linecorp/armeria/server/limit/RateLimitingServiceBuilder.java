@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.limit;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.function.Function;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+
+import com.linecorp.armeria.common.http.HttpRequest;
+import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.server.Service;
+import com.linecorp.armeria.server.limit.RateLimitingService.KeySelector;
+
+/**
+ * Builds a new {@link RateLimitingService}.
+ */
+public final class RateLimitingServiceBuilder {
+
+    private static final long DEFAULT_MAX_KEYS = 65536;
+
+    private KeySelector<?> keySelector;
+    private double perKeyPermitsPerSecond;
+    private int perKeyBurst;
+    private long maxKeys = DEFAULT_MAX_KEYS;
+    private double globalPermitsPerSecond;
+    private int globalBurst;
+    private Ticker ticker = Ticker.systemTicker();
+
+    /**
+     * Limits the rate of the requests of each key resolved by the specified {@link KeySelector}, with the
+     * bursts of up to one second of requests.
+     */
+    public RateLimitingServiceBuilder perKeyLimit(KeySelector<?> keySelector, double permitsPerSecond) {
+        return perKeyLimit(keySelector, permitsPerSecond, defaultBurst(permitsPerSecond));
+    }
+
+    /**
+     * Limits the rate of the requests of each key resolved by the specified {@link KeySelector}.
+     *
+     * @param permitsPerSecond the number of the requests allowed per second for each key
+     * @param burst the maximum number of the requests allowed at once for each key
+     */
+    public RateLimitingServiceBuilder perKeyLimit(KeySelector<?> keySelector,
+                                                  double permitsPerSecond, int burst) {
+        this.keySelector = requireNonNull(keySelector, "keySelector");
+        validate(permitsPerSecond, burst);
+        perKeyPermitsPerSecond = permitsPerSecond;
+        perKeyBurst = burst;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of the keys whose token buckets are kept. The bucket of a key is kept until it
+     * is full again. When there are more keys, the requests of the new keys share a single bucket until
+     * the buckets of the other keys are discarded.
+     */
+    public RateLimitingServiceBuilder maxKeys(long maxKeys) {
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("maxKeys: " + maxKeys + " (expected: > 0)");
+        }
+        this.maxKeys = maxKeys;
+        return this;
+    }
+
+    /**
+     * Limits the rate of all requests, with the bursts of up to one second of requests.
+     */
+    public RateLimitingServiceBuilder globalLimit(double permitsPerSecond) {
+        return globalLimit(permitsPerSecond, defaultBurst(permitsPerSecond));
+    }
+
+    /**
+     * Limits the rate of all requests.
+     *
+     * @param permitsPerSecond the number of the requests allowed per second
+     * @param burst the maximum number of the requests allowed at once
+     */
+    public RateLimitingServiceBuilder globalLimit(double permitsPerSecond, int burst) {
+        validate(permitsPerSecond, burst);
+        globalPermitsPerSecond = permitsPerSecond;
+        globalBurst = burst;
+        return this;
+    }
+
+    @VisibleForTesting
+    RateLimitingServiceBuilder ticker(Ticker ticker) {
+        this.ticker = requireNonNull(ticker, "ticker");
+        return this;
+    }
+
+    /**
+     * Returns a newly-created {@link RateLimitingService} that decorates the specified {@link Service}.
+     */
+    public RateLimitingService build(Service<? super HttpRequest, ? extends HttpResponse> delegate) {
+        requireNonNull(delegate, "delegate");
+        if (keySelector == null && globalPermitsPerSecond == 0) {
+            throw new IllegalStateException("no limit specified; call perKeyLimit() or globalLimit()");
+        }
+        return new RateLimitingService(delegate, ticker, keySelector, perKeyPermitsPerSecond, perKeyBurst,
+                                       maxKeys, globalPermitsPerSecond, globalBurst);
+    }
+
+    /**
+     * Returns a newly-created decorator that decorates a {@link Service} with a new
+     * {@link RateLimitingService} based on the properties of this builder. Note that the decorated
+     * {@link Service}s do not share their token buckets.
+     */
+    public Function<Service<? super HttpRequest, ? extends HttpResponse>, RateLimitingService> newDecorator() {
+        return this::build;
+    }
+
+    private static void validate(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException(
+                    "permitsPerSecond: " + permitsPerSecond + " (expected: > 0)");
+        }
+        if (burst <= 0) {
+            throw new IllegalArgumentException("burst: " + burst + " (expected: > 0)");
+        }
+    }
+
+    private static int defaultBurst(double permitsPerSecond) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.ceil(permitsPerSecond)));
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.limit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A lock-free token bucket.
+ *
+ * <p>Instead of the number of the tokens, the bucket keeps the time when it becomes full again. Taking a
+ * token pushes the time forward by the interval between two tokens, and a token is available as long as the
+ * time is not further in the future than the time it takes to fill up an empty bucket. Therefore, the state
+ * of a bucket fits in a single {@link AtomicLong}, and a bucket which has not been used for
+ * {@link #refillNanos()} is not different from a new one.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long refillNanos;
+    private final AtomicLong fullTimeNanos;
+
+    /**
+     * Creates a new full bucket.
+     *
+     * @param permitsPerSecond the number of the tokens added to the bucket per second
+     * @param burst the capacity of the bucket
+     * @param currentTimeNanos the current time
+     */
+    TokenBucket(double permitsPerSecond, int burst, long currentTimeNanos) {
+        intervalNanos = Math.max(1, (long) (1_000_000_000 / permitsPerSecond));
+        refillNanos = intervalNanos * burst;
+        fullTimeNanos = new AtomicLong(currentTimeNanos);
+    }
+
+    /**
+     * Returns the time it takes to fill up an empty bucket, in nanoseconds.
+     */
+    long refillNanos() {
+        return refillNanos;
+    }
+
+    /**
+     * Takes a token from this bucket.
+     *
+     * @return {@code 0} if a token has been taken, or the number of nanoseconds until a token is available
+     */
+    long tryAcquire(long currentTimeNanos) {
+        for (;;) {
+            final long fullTimeNanos = this.fullTimeNanos.get();
+            final long newFullTimeNanos =
+                    (fullTimeNanos - currentTimeNanos > 0 ? fullTimeNanos : currentTimeNanos) + intervalNanos;
+            final long waitNanos = newFullTimeNanos - currentTimeNanos - refillNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (this.fullTimeNanos.compareAndSet(fullTimeNanos, newFullTimeNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Puts back a token taken by {@link #tryAcquire(long)}, e.g. when the request has been rejected by
+     * another bucket.
+     */
+    void release() {
+        fullTimeNanos.addAndGet(-intervalNanos);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("intervalNanos", intervalNanos)
+                          .add("refillNanos", refillNanos)
+                          .toString();
+    }
+}
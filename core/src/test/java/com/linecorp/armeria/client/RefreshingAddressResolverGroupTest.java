@@ -0,0 +1,256 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.handler.codec.dns.DatagramDnsQuery;
+import io.netty.handler.codec.dns.DatagramDnsQueryDecoder;
+import io.netty.handler.codec.dns.DatagramDnsResponse;
+import io.netty.handler.codec.dns.DatagramDnsResponseEncoder;
+import io.netty.handler.codec.dns.DefaultDnsRawRecord;
+import io.netty.handler.codec.dns.DnsRecord;
+import io.netty.handler.codec.dns.DnsRecordType;
+import io.netty.handler.codec.dns.DnsResponseCode;
+import io.netty.handler.codec.dns.DnsSection;
+import io.netty.resolver.AddressResolver;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.resolver.dns.SingletonDnsServerAddressStreamProvider;
+
+public class RefreshingAddressResolverGroupTest {
+
+    private static EventLoopGroup eventLoopGroup;
+    private static Channel dnsServer;
+
+    /**
+     * The IPv4 addresses served by {@link #dnsServer}, keyed by host name.
+     */
+    private static final Map<String, byte[]> records = new ConcurrentHashMap<>();
+    /**
+     * The host names whose next {@code A} query is not answered by {@link #dnsServer}.
+     */
+    private static final Set<String> unansweredHostnames = ConcurrentHashMap.newKeySet();
+    private static final AtomicInteger numQueries = new AtomicInteger();
+    private static volatile int recordTtl;
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private AddressResolverGroup<InetSocketAddress> group;
+
+    @BeforeClass
+    public static void startDnsServer() throws Exception {
+        eventLoopGroup = new NioEventLoopGroup(2);
+        dnsServer = new Bootstrap().group(eventLoopGroup)
+                                   .channel(NioDatagramChannel.class)
+                                   .handler(new ChannelInitializer<DatagramChannel>() {
+                                       @Override
+                                       protected void initChannel(DatagramChannel ch) throws Exception {
+                                           ch.pipeline().addLast(new DatagramDnsQueryDecoder(),
+                                                                 new DatagramDnsResponseEncoder(),
+                                                                 new DnsServerHandler());
+                                       }
+                                   })
+                                   .bind("127.0.0.1", 0).sync().channel();
+    }
+
+    @AfterClass
+    public static void stopDnsServer() {
+        if (dnsServer != null) {
+            dnsServer.close().syncUninterruptibly();
+        }
+        eventLoopGroup.shutdownGracefully();
+    }
+
+    @Before
+    public void setUp() {
+        records.clear();
+        unansweredHostnames.clear();
+        numQueries.set(0);
+        recordTtl = 60;
+    }
+
+    @After
+    public void tearDown() {
+        if (group != null) {
+            group.close();
+        }
+    }
+
+    @Test
+    public void cacheIsSharedByEventLoops() throws Exception {
+        records.put("foo.com", new byte[] { 10, 0, 0, 1 });
+        group = newGroupBuilder().build();
+
+        assertThat(resolve(eventLoopGroup.next(), "foo.com").getAddress().getHostAddress())
+                .isEqualTo("10.0.0.1");
+        assertThat(resolve(eventLoopGroup.next(), "foo.com").getAddress().getHostAddress())
+                .isEqualTo("10.0.0.1");
+
+        assertThat(numQueries).hasValue(1);
+        assertThat(metricRegistry.meter("dns.cacheMisses").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.meter("dns.cacheHits").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.timer("dns.resolutionTime").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void refreshBeforeExpiry() throws Exception {
+        records.put("foo.com", new byte[] { 10, 0, 0, 1 });
+        recordTtl = 2;
+        group = newGroupBuilder().refreshBeforeExpiry(Duration.ofMillis(1500)).build();
+
+        final EventLoop eventLoop = eventLoopGroup.next();
+        assertThat(resolve(eventLoop, "foo.com").getAddress().getHostAddress()).isEqualTo("10.0.0.1");
+        // Hit the cache so that the entry is refreshed rather than expired.
+        assertThat(resolve(eventLoop, "foo.com").getAddress().getHostAddress()).isEqualTo("10.0.0.1");
+
+        // The accessed entry is refreshed in the background and the new address is served from the cache.
+        records.put("foo.com", new byte[] { 10, 0, 0, 2 });
+        await().until(() -> "10.0.0.2".equals(resolve(eventLoop, "foo.com").getAddress().getHostAddress()));
+        assertThat(metricRegistry.meter("dns.cacheMisses").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void minTtl() throws Exception {
+        records.put("foo.com", new byte[] { 10, 0, 0, 1 });
+        recordTtl = 0;
+        group = newGroupBuilder().ttl(60, 600).build();
+
+        resolve(eventLoopGroup.next(), "foo.com");
+        resolve(eventLoopGroup.next(), "foo.com");
+        assertThat(numQueries).hasValue(1);
+    }
+
+    @Test
+    public void negativeCache() throws Exception {
+        group = newGroupBuilder().negativeTtl(60).build();
+
+        assertThatThrownBy(() -> resolve(eventLoopGroup.next(), "unknown.com"))
+                .isInstanceOf(ExecutionException.class);
+        final int numQueriesAfterFailure = numQueries.get();
+        assertThat(metricRegistry.meter("dns.failures").getCount()).isEqualTo(1);
+
+        assertThatThrownBy(() -> resolve(eventLoopGroup.next(), "unknown.com"))
+                .isInstanceOf(ExecutionException.class);
+        assertThat(numQueries).hasValue(numQueriesAfterFailure);
+        assertThat(metricRegistry.meter("dns.cacheHits").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void hostsFileFirst() throws Exception {
+        records.put("localhost", new byte[] { 10, 0, 0, 1 });
+        group = newGroupBuilder().build();
+
+        assertThat(resolve(eventLoopGroup.next(), "localhost").getAddress().isLoopbackAddress()).isTrue();
+        assertThat(numQueries).hasValue(0);
+    }
+
+    @Test
+    public void fallbackOnQueryFailure() throws Exception {
+        records.put("foo.com", new byte[] { 10, 0, 0, 1 });
+        unansweredHostnames.add("foo.com");
+        group = newGroupBuilder().build();
+
+        // The A query times out, and the fallback resolver sends another one.
+        assertThat(resolve(eventLoopGroup.next(), "foo.com").getAddress().getHostAddress())
+                .isEqualTo("10.0.0.1");
+        assertThat(metricRegistry.meter("dns.failures").getCount()).isZero();
+    }
+
+    @Test
+    public void closeCancelsRefresh() throws Exception {
+        records.put("foo.com", new byte[] { 10, 0, 0, 1 });
+        recordTtl = 2;
+        group = newGroupBuilder().refreshBeforeExpiry(Duration.ofMillis(1500)).build();
+
+        final EventLoop eventLoop = eventLoopGroup.next();
+        resolve(eventLoop, "foo.com");
+        resolve(eventLoop, "foo.com");
+        group.close();
+
+        // The refresh was due 500 milliseconds after the first query.
+        Thread.sleep(1000);
+        assertThat(metricRegistry.timer("dns.resolutionTime").getCount()).isEqualTo(1);
+    }
+
+    private DnsResolverGroupBuilder newGroupBuilder() {
+        final InetSocketAddress serverAddress = (InetSocketAddress) dnsServer.localAddress();
+        return new DnsResolverGroupBuilder()
+                .serverAddressStreamProvider(new SingletonDnsServerAddressStreamProvider(serverAddress))
+                .queryTimeout(Duration.ofSeconds(1))
+                .metricRegistry(metricRegistry, "dns");
+    }
+
+    private InetSocketAddress resolve(EventLoop eventLoop, String hostname) throws Exception {
+        final AddressResolver<InetSocketAddress> resolver = group.getResolver(eventLoop);
+        return resolver.resolve(InetSocketAddress.createUnresolved(hostname, 80)).get();
+    }
+
+    private static final class DnsServerHandler extends SimpleChannelInboundHandler<DatagramDnsQuery> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, DatagramDnsQuery query) throws Exception {
+            numQueries.incrementAndGet();
+
+            final DnsRecord question = query.recordAt(DnsSection.QUESTION);
+            final String name = question.name();
+            final String hostname = name.endsWith(".") ? name.substring(0, name.length() - 1) : name;
+            if (question.type() == DnsRecordType.A && unansweredHostnames.remove(hostname)) {
+                return;
+            }
+
+            final byte[] address = records.get(hostname);
+
+            final DatagramDnsResponse response =
+                    new DatagramDnsResponse(query.recipient(), query.sender(), query.id());
+            response.addRecord(DnsSection.QUESTION, question);
+            if (address == null) {
+                response.setCode(DnsResponseCode.NXDOMAIN);
+            } else if (question.type() == DnsRecordType.A) {
+                response.addRecord(DnsSection.ANSWER, new DefaultDnsRawRecord(
+                        name, DnsRecordType.A, recordTtl, Unpooled.wrappedBuffer(address)));
+            }
+            ctx.writeAndFlush(response);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.endpoint;
+
+import static com.linecorp.armeria.common.http.HttpSessionProtocols.H2C;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import org.junit.Test;
+
+import com.linecorp.armeria.client.ClientOptions;
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.DefaultClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.LeastOutstandingRequestsStrategy.LeastOutstandingRequestsSelector;
+import com.linecorp.armeria.common.http.HttpHeaders;
+import com.linecorp.armeria.common.http.HttpMethod;
+import com.linecorp.armeria.common.http.HttpRequest;
+
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+
+public class LeastOutstandingRequestsStrategyTest {
+
+    private static final EventLoop EVENT_LOOP = new DefaultEventLoop();
+
+    private static final Endpoint FOO = Endpoint.of("foo.com", 8080);
+    private static final Endpoint BAR = Endpoint.of("bar.com", 8080);
+
+    private final LeastOutstandingRequestsStrategy strategy = new LeastOutstandingRequestsStrategy();
+
+    @Test
+    public void select_empty() {
+        final EndpointSelector selector = strategy.newSelector(new StaticEndpointGroup());
+        assertThat(catchThrowable(() -> selector.select(newContext())))
+                .isInstanceOf(EndpointGroupException.class);
+    }
+
+    @Test
+    public void selectLeastLoaded() {
+        final LeastOutstandingRequestsSelector selector =
+                (LeastOutstandingRequestsSelector) strategy.newSelector(new StaticEndpointGroup(FOO, BAR));
+
+        final ClientRequestContext ctx1 = newContext();
+        final Endpoint first = selector.select(ctx1);
+        final Endpoint second = first.equals(FOO) ? BAR : FOO;
+        assertThat(selector.outstandingRequests(first)).isEqualTo(1);
+
+        // The other endpoint is always chosen because there are only two endpoints to sample.
+        final ClientRequestContext ctx2 = newContext();
+        assertThat(selector.select(ctx2)).isEqualTo(second);
+        assertThat(selector.outstandingRequests(second)).isEqualTo(1);
+
+        // A request is not outstanding anymore when its response ends.
+        ctx1.logBuilder().endResponse();
+        assertThat(selector.outstandingRequests(first)).isZero();
+        assertThat(selector.select(newContext())).isEqualTo(first);
+    }
+
+    @Test
+    public void avoidStalledEndpoint() {
+        final LeastOutstandingRequestsSelector selector =
+                (LeastOutstandingRequestsSelector) strategy.newSelector(
+                        new StaticEndpointGroup(FOO, BAR, Endpoint.of("baz.com", 8080)));
+
+        // Let all requests to FOO stall while the requests to the others complete immediately.
+        int numFooRequests = 0;
+        for (int i = 0; i < 300; i++) {
+            final ClientRequestContext ctx = newContext();
+            if (selector.select(ctx).equals(FOO)) {
+                numFooRequests++;
+            } else {
+                ctx.logBuilder().endResponse();
+            }
+        }
+
+        // FOO is chosen only when it's sampled with an idle endpoint and wins the tie, so it's chosen
+        // at most once.
+        assertThat(numFooRequests).isLessThanOrEqualTo(1);
+        assertThat(selector.outstandingRequests(FOO)).isEqualTo(numFooRequests);
+    }
+
+    private static ClientRequestContext newContext() {
+        return new DefaultClientRequestContext(
+                EVENT_LOOP, H2C, Endpoint.ofGroup("foo"),
+                HttpMethod.GET, "/", null, null, ClientOptions.DEFAULT,
+                HttpRequest.of(HttpHeaders.of(HttpMethod.GET, "/")));
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.endpoint;
+
+import static com.linecorp.armeria.client.endpoint.PeakEwmaStrategy.PeakEwmaSelector.cost;
+import static com.linecorp.armeria.common.http.HttpSessionProtocols.H2C;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.within;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import com.linecorp.armeria.client.ClientOptions;
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.DefaultClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.PeakEwmaStrategy.EndpointStats;
+import com.linecorp.armeria.client.endpoint.PeakEwmaStrategy.PeakEwmaSelector;
+import com.linecorp.armeria.common.http.HttpHeaders;
+import com.linecorp.armeria.common.http.HttpMethod;
+import com.linecorp.armeria.common.http.HttpRequest;
+import com.linecorp.armeria.common.stream.CancelledSubscriptionException;
+
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+
+public class PeakEwmaStrategyTest {
+
+    private static final EventLoop EVENT_LOOP = new DefaultEventLoop();
+
+    private static final Endpoint FOO = Endpoint.of("foo.com", 8080);
+    private static final Endpoint BAR = Endpoint.of("bar.com", 8080);
+
+    @AfterClass
+    public static void shutdownEventLoop() {
+        EVENT_LOOP.shutdownGracefully();
+    }
+
+    @Test
+    public void invalidDecayWindow() {
+        assertThat(catchThrowable(() -> EndpointSelectionStrategy.peakEwma(Duration.ZERO)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void select_empty() {
+        final EndpointSelector selector = EndpointSelectionStrategy.PEAK_EWMA.newSelector(
+                new StaticEndpointGroup());
+        assertThat(selector.strategy()).isSameAs(EndpointSelectionStrategy.PEAK_EWMA);
+        assertThat(catchThrowable(() -> selector.select(newContext())))
+                .isInstanceOf(EndpointGroupException.class);
+    }
+
+    @Test
+    public void peakAndDecay() {
+        final long decayWindowNanos = TimeUnit.SECONDS.toNanos(10);
+        final EndpointStats stats = new EndpointStats(decayWindowNanos);
+
+        // A higher latency is taken as it is.
+        stats.observe(100, 0);
+        assertThat(cost(stats, 0)).isEqualTo(100);
+        stats.observe(1000, 0);
+        assertThat(cost(stats, 0)).isEqualTo(1000);
+
+        // A lower latency pulls the average down by the time elapsed since the last sample.
+        stats.observe(10, decayWindowNanos);
+        final double ewma = 1000 * Math.exp(-1) + 10 * (1 - Math.exp(-1));
+        assertThat(cost(stats, decayWindowNanos)).isCloseTo(ewma, within(0.001));
+
+        // The outstanding requests multiply the cost.
+        stats.start();
+        stats.start();
+        assertThat(cost(stats, decayWindowNanos)).isCloseTo(3 * ewma, within(0.001));
+        stats.end();
+        stats.end();
+
+        // The average decays towards zero while no latency is observed.
+        assertThat(cost(stats, 2 * decayWindowNanos)).isCloseTo(ewma * Math.exp(-1), within(0.001));
+    }
+
+    @Test
+    public void failurePenalty() {
+        final long decayWindowNanos = TimeUnit.SECONDS.toNanos(10);
+        final EndpointStats stats = new EndpointStats(decayWindowNanos);
+        stats.observe(100, 0);
+
+        // A fast failure doubles the average.
+        stats.observe(10, 0, true);
+        assertThat(cost(stats, 0)).isEqualTo(200);
+
+        // A slow failure is taken as it is.
+        stats.observe(1000, 0, true);
+        assertThat(cost(stats, 0)).isEqualTo(1000);
+
+        // The penalty does not exceed the decay window.
+        stats.observe(decayWindowNanos * 3 / 4, 0);
+        stats.observe(10, 0, true);
+        assertThat(cost(stats, 0)).isEqualTo(decayWindowNanos);
+    }
+
+    @Test
+    public void cancellationNotObserved() {
+        final PeakEwmaSelector selector =
+                (PeakEwmaSelector) EndpointSelectionStrategy.peakEwma(Duration.ofSeconds(10)).newSelector(
+                        new StaticEndpointGroup(FOO));
+
+        final ClientRequestContext ctx = newContext();
+        assertThat(selector.select(ctx)).isEqualTo(FOO);
+        EVENT_LOOP.submit(() -> ctx.logBuilder().endResponse(CancelledSubscriptionException.get()))
+                  .syncUninterruptibly();
+
+        // Neither a latency nor an outstanding request is left.
+        assertThat(selector.cost(EVENT_LOOP, FOO)).isZero();
+    }
+
+    @Test
+    public void avoidSlowEndpointUntilDecayed() throws Exception {
+        final PeakEwmaSelector selector =
+                (PeakEwmaSelector) EndpointSelectionStrategy.peakEwma(Duration.ofMillis(50)).newSelector(
+                        new StaticEndpointGroup(FOO, BAR));
+
+        // The endpoint without a sample but with an outstanding request is not chosen again.
+        final ClientRequestContext slowCtx = newContext();
+        final Endpoint slow = selector.select(slowCtx);
+        final ClientRequestContext fastCtx = newContext();
+        final Endpoint fast = selector.select(fastCtx);
+        assertThat(fast).isNotEqualTo(slow);
+
+        endResponse(fastCtx);
+        Thread.sleep(100);
+        endResponse(slowCtx);
+        assertThat(selector.cost(EVENT_LOOP, slow)).isGreaterThan(selector.cost(EVENT_LOOP, fast));
+
+        // The slow endpoint does not get traffic while its latency is fresh.
+        final ClientRequestContext ctx = newContext();
+        assertThat(selector.select(ctx)).isEqualTo(fast);
+        endResponse(ctx);
+
+        // ... but gets it back once its latency has decayed below the one of the fast endpoint.
+        await().until(() -> {
+            final ClientRequestContext newCtx = newContext();
+            final Endpoint endpoint = selector.select(newCtx);
+            endResponse(newCtx);
+            return endpoint.equals(slow);
+        });
+    }
+
+    private static void endResponse(ClientRequestContext ctx) {
+        // End the response in the event loop so that the statistics are updated synchronously.
+        EVENT_LOOP.submit(() -> ctx.logBuilder().endResponse()).syncUninterruptibly();
+    }
+
+    private static ClientRequestContext newContext() {
+        return new DefaultClientRequestContext(
+                EVENT_LOOP, H2C, Endpoint.ofGroup("foo"),
+                HttpMethod.GET, "/", null, null, ClientOptions.DEFAULT,
+                HttpRequest.of(HttpHeaders.of(HttpMethod.GET, "/")));
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+import com.linecorp.armeria.client.AllInOneClientFactory;
+import com.linecorp.armeria.client.ClientFactory;
+import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.client.SessionOption;
+import com.linecorp.armeria.client.SessionOptionValue;
+import com.linecorp.armeria.client.SessionOptions;
+import com.linecorp.armeria.client.metric.DropwizardMetricCollectingPoolHandler;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.http.HttpRequest;
+import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.common.http.HttpResponseWriter;
+import com.linecorp.armeria.common.http.HttpStatus;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.http.AbstractHttpService;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+
+public class HttpClientBoundedPoolTest {
+
+    private static final int NUM_REQUESTS = 6;
+    private static final int MAX_CONNECTIONS = 2;
+
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            // Responds with the remote address of the connection a while later, so that the connections
+            // stay acquired for a while.
+            sb.service("/", new AbstractHttpService() {
+                @Override
+                protected void doGet(ServiceRequestContext ctx,
+                                     HttpRequest req, HttpResponseWriter res) throws Exception {
+                    ctx.eventLoop().schedule(
+                            () -> res.respond(HttpStatus.OK, MediaType.PLAIN_TEXT_UTF_8,
+                                              String.valueOf(ctx.remoteAddress())),
+                            500, TimeUnit.MILLISECONDS);
+                }
+            });
+        }
+    };
+
+    // Use a single event loop so that there's only one connection pool.
+    private static EventLoopGroup eventLoopGroup;
+    private static final List<ClientFactory> factories = new ArrayList<>();
+
+    @BeforeClass
+    public static void initEventLoopGroup() {
+        eventLoopGroup = new NioEventLoopGroup(1);
+    }
+
+    @AfterClass
+    public static void destroyClientFactories() {
+        ForkJoinPool.commonPool().execute(() -> {
+            factories.forEach(ClientFactory::close);
+            eventLoopGroup.shutdownGracefully();
+        });
+    }
+
+    @Test
+    public void waitForReleasedConnections() throws Exception {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final HttpClient client = newClient(
+                SessionOption.POOL_HANDLER_DECORATOR.newValue(
+                        DropwizardMetricCollectingPoolHandler.newDecorator(metricRegistry, "pool")));
+
+        final List<HttpResponse> responses = new ArrayList<>();
+        for (int i = 0; i < NUM_REQUESTS; i++) {
+            responses.add(client.get("/"));
+        }
+
+        final Set<String> remoteAddresses = new HashSet<>();
+        for (HttpResponse res : responses) {
+            remoteAddresses.add(res.aggregate().get().content().toStringUtf8());
+        }
+        assertThat(remoteAddresses).hasSize(MAX_CONNECTIONS);
+
+        final String prefix = MetricRegistry.name("pool", "h1c", "127.0.0.1:" + server.httpPort());
+        assertThat(metricRegistry.counter(MetricRegistry.name(prefix, "connections")).getCount())
+                .isEqualTo(MAX_CONNECTIONS);
+        assertThat(metricRegistry.counter(MetricRegistry.name(prefix, "pendingAcquires")).getCount())
+                .isZero();
+        assertThat(metricRegistry.timer(MetricRegistry.name(prefix, "acquireWaitTime")).getCount())
+                .isEqualTo(NUM_REQUESTS - MAX_CONNECTIONS);
+    }
+
+    @Test
+    public void waitForFinishedStreams() throws Exception {
+        // Every HTTP/2 connection is full with a single request, so the other requests have to wait for
+        // the streams to finish rather than for the connections to be released.
+        final HttpClient client = newClient(
+                "h2c", SessionOption.HTTP2_MAX_STREAMS_PER_CONNECTION.newValue(1));
+
+        final List<HttpResponse> responses = new ArrayList<>();
+        for (int i = 0; i < NUM_REQUESTS; i++) {
+            responses.add(client.get("/"));
+        }
+
+        final Set<String> remoteAddresses = new HashSet<>();
+        for (HttpResponse res : responses) {
+            remoteAddresses.add(res.aggregate().get(10, TimeUnit.SECONDS).content().toStringUtf8());
+        }
+        assertThat(remoteAddresses).hasSize(MAX_CONNECTIONS);
+    }
+
+    @Test
+    public void tooManyPendingAcquires() throws Exception {
+        final HttpClient client = newClient(SessionOption.POOL_MAX_PENDING_ACQUIRES.newValue(1));
+
+        final List<HttpResponse> responses = new ArrayList<>();
+        for (int i = 0; i < MAX_CONNECTIONS + 2; i++) {
+            responses.add(client.get("/"));
+        }
+
+        for (int i = 0; i < MAX_CONNECTIONS + 1; i++) {
+            assertThat(responses.get(i).aggregate().get().status()).isEqualTo(HttpStatus.OK);
+        }
+        assertThatThrownBy(() -> responses.get(MAX_CONNECTIONS + 1).aggregate().get())
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void acquireTimeout() throws Exception {
+        final HttpClient client = newClient(
+                SessionOption.POOL_ACQUIRE_TIMEOUT.newValue(Duration.ofMillis(100)));
+
+        final List<HttpResponse> responses = new ArrayList<>();
+        for (int i = 0; i < MAX_CONNECTIONS + 1; i++) {
+            responses.add(client.get("/"));
+        }
+
+        for (int i = 0; i < MAX_CONNECTIONS; i++) {
+            assertThat(responses.get(i).aggregate().get().status()).isEqualTo(HttpStatus.OK);
+        }
+        assertThatThrownBy(() -> responses.get(MAX_CONNECTIONS).aggregate().get())
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+    }
+
+    private static HttpClient newClient(SessionOptionValue<?> extraOption) {
+        return newClient("h1c", extraOption);
+    }
+
+    private static HttpClient newClient(String protocol, SessionOptionValue<?> extraOption) {
+        final ClientFactory factory = new AllInOneClientFactory(SessionOptions.of(
+                SessionOption.EVENT_LOOP_GROUP.newValue(eventLoopGroup),
+                SessionOption.USE_HTTP1_PIPELINING.newValue(false),
+                SessionOption.POOL_MAX_CONNECTIONS_PER_KEY.newValue(MAX_CONNECTIONS),
+                extraOption));
+        factories.add(factory);
+        return Clients.newClient(factory, "none+" + protocol + "://127.0.0.1:" + server.httpPort(),
+                                 HttpClient.class);
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import com.linecorp.armeria.client.AllInOneClientFactory;
+import com.linecorp.armeria.client.ClientFactory;
+import com.linecorp.armeria.client.ClientOption;
+import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.SessionOption;
+import com.linecorp.armeria.client.SessionOptions;
+import com.linecorp.armeria.client.endpoint.DynamicEndpointGroup;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.client.endpoint.EndpointGroupRegistry;
+import com.linecorp.armeria.client.endpoint.EndpointSelectionStrategy;
+import com.linecorp.armeria.client.pool.DecoratingKeyedChannelPoolHandler;
+import com.linecorp.armeria.client.pool.PoolKey;
+import com.linecorp.armeria.common.http.HttpRequest;
+import com.linecorp.armeria.common.http.HttpResponseWriter;
+import com.linecorp.armeria.common.http.HttpStatus;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.http.AbstractHttpService;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+
+public class HttpClientConnectionPrewarmTest {
+
+    private static final String GROUP_NAME = "prewarm";
+
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.service("/", new AbstractHttpService() {
+                @Override
+                protected void doGet(ServiceRequestContext ctx,
+                                     HttpRequest req, HttpResponseWriter res) throws Exception {
+                    res.respond(HttpStatus.OK);
+                }
+            });
+        }
+    };
+
+    private static final AtomicInteger numCreatedConnections = new AtomicInteger();
+    private static final TestEndpointGroup group = new TestEndpointGroup();
+
+    // Use two event loops to make sure the connections are pre-warmed on all of them.
+    private static EventLoopGroup eventLoopGroup;
+    private static ClientFactory factory;
+
+    @BeforeClass
+    public static void init() {
+        EndpointGroupRegistry.register(GROUP_NAME, group, EndpointSelectionStrategy.ROUND_ROBIN);
+
+        eventLoopGroup = new NioEventLoopGroup(2);
+        factory = new AllInOneClientFactory(SessionOptions.of(
+                SessionOption.EVENT_LOOP_GROUP.newValue(eventLoopGroup),
+                SessionOption.POOL_HANDLER_DECORATOR.newValue(
+                        delegate -> new DecoratingKeyedChannelPoolHandler<PoolKey>(delegate) {
+                            @Override
+                            public void channelCreated(PoolKey key, Channel ch) throws Exception {
+                                numCreatedConnections.incrementAndGet();
+                                super.channelCreated(key, ch);
+                            }
+                        })));
+    }
+
+    @AfterClass
+    public static void destroy() {
+        EndpointGroupRegistry.unregister(GROUP_NAME);
+        ForkJoinPool.commonPool().execute(() -> {
+            factory.close();
+            eventLoopGroup.shutdownGracefully();
+        });
+    }
+
+    @Test
+    public void prewarmOnEndpointGroupChanges() throws Exception {
+        group.set(Endpoint.of("127.0.0.1", server.httpPort()));
+        final HttpClient client = Clients.newClient(
+                factory, "none+h1c://group:" + GROUP_NAME + '/', HttpClient.class,
+                ClientOption.PREWARMED_CONNECTIONS_PER_ENDPOINT.newValue(2));
+
+        // 2 connections on each of the 2 event loops.
+        await().until(() -> numCreatedConnections.get() == 4);
+
+        // A new endpoint gets its connections as soon as it's added.
+        group.set(Endpoint.of("127.0.0.1", server.httpPort()),
+                  Endpoint.of("localhost", server.httpPort()));
+        await().until(() -> numCreatedConnections.get() == 8);
+
+        // The requests reuse the pre-warmed connections.
+        for (int i = 0; i < 4; i++) {
+            assertThat(client.get("/").aggregate().get().status()).isEqualTo(HttpStatus.OK);
+        }
+        assertThat(numCreatedConnections).hasValue(8);
+    }
+
+    @Test
+    public void stopPrewarmingForDiscardedClients() throws Exception {
+        final String groupName = "prewarm-discarded";
+        final ListenerCountingEndpointGroup group = new ListenerCountingEndpointGroup();
+        group.set(Endpoint.of("127.0.0.1", server.httpPort()));
+        EndpointGroupRegistry.register(groupName, group, EndpointSelectionStrategy.ROUND_ROBIN);
+        final HttpClientFactory factory = new HttpClientFactory(true);
+        try {
+            for (int i = 0; i < 10; i++) {
+                newPrewarmingClient(factory, groupName);
+            }
+
+            // The group does not keep the listeners of the garbage-collected clients.
+            await().until(() -> {
+                System.gc();
+                group.set(Endpoint.of("127.0.0.1", server.httpPort()));
+                return group.numListeners() == 0;
+            });
+        } finally {
+            EndpointGroupRegistry.unregister(groupName);
+            factory.close();
+        }
+    }
+
+    @Test
+    public void stopPrewarmingOnFactoryClose() {
+        final String groupName = "prewarm-closed";
+        final ListenerCountingEndpointGroup group = new ListenerCountingEndpointGroup();
+        EndpointGroupRegistry.register(groupName, group, EndpointSelectionStrategy.ROUND_ROBIN);
+        final HttpClientFactory factory = new HttpClientFactory(true);
+        try {
+            newPrewarmingClient(factory, groupName);
+            assertThat(group.numListeners()).isEqualTo(1);
+        } finally {
+            EndpointGroupRegistry.unregister(groupName);
+            factory.close();
+        }
+        assertThat(group.numListeners()).isZero();
+    }
+
+    private static void newPrewarmingClient(ClientFactory factory, String groupName) {
+        Clients.newClient(factory, "none+h1c://group:" + groupName + '/', HttpClient.class,
+                          ClientOption.PREWARMED_CONNECTIONS_PER_ENDPOINT.newValue(1));
+    }
+
+    private static final class TestEndpointGroup extends DynamicEndpointGroup {
+        void set(Endpoint... endpoints) {
+            setEndpoints(ImmutableList.copyOf(endpoints));
+        }
+    }
+
+    private static final class ListenerCountingEndpointGroup implements EndpointGroup {
+        private final Set<Consumer<? super List<Endpoint>>> listeners = new CopyOnWriteArraySet<>();
+        private volatile List<Endpoint> endpoints = ImmutableList.of();
+
+        @Override
+        public List<Endpoint> endpoints() {
+            return endpoints;
+        }
+
+        @Override
+        public void addListener(Consumer<? super List<Endpoint>> listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeListener(Consumer<?> listener) {
+            listeners.remove(listener);
+        }
+
+        void set(Endpoint... endpoints) {
+            final List<Endpoint> newEndpoints = ImmutableList.copyOf(endpoints);
+            this.endpoints = newEndpoints;
+            listeners.forEach(listener -> listener.accept(newEndpoints));
+        }
+
+        int numListeners() {
+            return listeners.size();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.linecorp.armeria.client.AllInOneClientFactory;
+import com.linecorp.armeria.client.ClientFactory;
+import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.client.SessionOption;
+import com.linecorp.armeria.client.SessionOptions;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.http.HttpRequest;
+import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.common.http.HttpResponseWriter;
+import com.linecorp.armeria.common.http.HttpStatus;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.http.AbstractHttpService;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+
+public class HttpClientHttp2ConnectionPoolTest {
+
+    private static final int NUM_REQUESTS = 6;
+
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            // Responds with the remote address of the connection a while later, so that the requests sent
+            // at the same time are in progress at the same time.
+            sb.service("/", new AbstractHttpService() {
+                @Override
+                protected void doGet(ServiceRequestContext ctx,
+                                     HttpRequest req, HttpResponseWriter res) throws Exception {
+                    ctx.eventLoop().schedule(
+                            () -> res.respond(HttpStatus.OK, MediaType.PLAIN_TEXT_UTF_8,
+                                              String.valueOf(ctx.remoteAddress())),
+                            500, TimeUnit.MILLISECONDS);
+                }
+            });
+        }
+    };
+
+    // Use a single event loop so that there's only one connection pool.
+    private static EventLoopGroup eventLoopGroup;
+    private static ClientFactory defaultFactory;
+    private static ClientFactory limitingFactory;
+
+    @BeforeClass
+    public static void initClientFactory() {
+        eventLoopGroup = new NioEventLoopGroup(1);
+        defaultFactory = new AllInOneClientFactory(
+                SessionOptions.of(SessionOption.EVENT_LOOP_GROUP.newValue(eventLoopGroup)));
+        limitingFactory = new AllInOneClientFactory(
+                SessionOptions.of(SessionOption.EVENT_LOOP_GROUP.newValue(eventLoopGroup),
+                                  SessionOption.HTTP2_MAX_STREAMS_PER_CONNECTION.newValue(2)));
+    }
+
+    @AfterClass
+    public static void destroyClientFactory() {
+        ForkJoinPool.commonPool().execute(() -> {
+            defaultFactory.close();
+            limitingFactory.close();
+            eventLoopGroup.shutdownGracefully();
+        });
+    }
+
+    @Test
+    public void sharedConnection() throws Exception {
+        assertThat(sendConcurrentRequests(defaultFactory)).hasSize(1);
+    }
+
+    @Test
+    public void moreConnectionsWhenBusy() throws Exception {
+        assertThat(sendConcurrentRequests(limitingFactory)).hasSize(NUM_REQUESTS / 2);
+    }
+
+    /**
+     * Returns the set of the remote addresses of the connections used by the concurrent requests.
+     */
+    private static Set<String> sendConcurrentRequests(ClientFactory factory) throws Exception {
+        final HttpClient client = Clients.newClient(
+                factory, "none+h2c://127.0.0.1:" + server.httpPort(), HttpClient.class);
+
+        // Establish the first connection beforehand, so that the concurrent requests do not open
+        // new connections while the first connection is being established.
+        final String firstRemoteAddress = client.get("/").aggregate().get().content().toStringUtf8();
+
+        final List<HttpResponse> responses = new ArrayList<>();
+        for (int i = 0; i < NUM_REQUESTS; i++) {
+            responses.add(client.get("/"));
+        }
+
+        final Set<String> remoteAddresses = new HashSet<>();
+        for (HttpResponse res : responses) {
+            remoteAddresses.add(res.aggregate().get().content().toStringUtf8());
+        }
+        assertThat(remoteAddresses).contains(firstRemoteAddress);
+        return remoteAddresses;
+    }
+}
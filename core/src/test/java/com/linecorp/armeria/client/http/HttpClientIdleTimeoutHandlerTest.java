@@ -131,6 +131,16 @@ public class HttpClientIdleTimeoutHandlerTest {
             return unfinishedResponses != 0;
         }
 
+        @Override
+        public int unfinishedResponses() {
+            return unfinishedResponses;
+        }
+
+        @Override
+        public int maxUnfinishedResponses() {
+            return Integer.MAX_VALUE;
+        }
+
         @Override
         public boolean invoke(ClientRequestContext ctx, HttpRequest req, DecodedHttpResponse res) {
             throw new UnsupportedOperationException();
@@ -22,6 +22,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.awaitility.Awaitility.await;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -39,6 +40,8 @@ import org.junit.Test;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.github.luben.zstd.util.Native;
 import com.google.common.base.Throwables;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Closeables;
@@ -48,8 +51,11 @@ import com.linecorp.armeria.client.ClientFactory;
 import com.linecorp.armeria.client.ClientOption;
 import com.linecorp.armeria.client.ClientOptions;
 import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.client.http.encoding.BrotliStreamDecoderFactory;
 import com.linecorp.armeria.client.http.encoding.DeflateStreamDecoderFactory;
+import com.linecorp.armeria.client.http.encoding.GzipStreamDecoderFactory;
 import com.linecorp.armeria.client.http.encoding.HttpDecodingClient;
+import com.linecorp.armeria.client.http.encoding.ZstdStreamDecoderFactory;
 import com.linecorp.armeria.common.MediaType;
 import com.linecorp.armeria.common.SerializationFormat;
 import com.linecorp.armeria.common.http.AggregatedHttpMessage;
@@ -424,6 +430,50 @@ public class HttpClientIntegrationTest {
                 "some content to compress more content to compress");
     }
 
+    @Test
+    public void httpDecoding_brotli() throws Exception {
+        // The native library of Brotli4j in the test class path is only for Linux on x86_64.
+        assumeTrue("brotli4j available", Brotli4jLoader.isAvailable());
+
+        HttpClient client = new ClientBuilder(
+                server.uri(SerializationFormat.NONE, "/"))
+                .factory(clientFactory)
+                .decorator(HttpRequest.class, HttpResponse.class, HttpDecodingClient.newDecorator(
+                        new BrotliStreamDecoderFactory()))
+                .build(HttpClient.class);
+        AggregatedHttpMessage response =
+                client.execute(HttpHeaders.of(HttpMethod.GET, "/encoding")).aggregate().get();
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("br");
+        assertThat(response.content().toStringUtf8()).isEqualTo(
+                "some content to compress more content to compress");
+    }
+
+    @Test
+    public void httpDecoding_zstd() throws Exception {
+        assumeTrue("zstd-jni available", isZstdAvailable());
+
+        HttpClient client = new ClientBuilder(
+                server.uri(SerializationFormat.NONE, "/"))
+                .factory(clientFactory)
+                .decorator(HttpRequest.class, HttpResponse.class, HttpDecodingClient.newDecorator(
+                        new GzipStreamDecoderFactory(), new ZstdStreamDecoderFactory()))
+                .build(HttpClient.class);
+        AggregatedHttpMessage response =
+                client.execute(HttpHeaders.of(HttpMethod.GET, "/encoding")).aggregate().get();
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("zstd");
+        assertThat(response.content().toStringUtf8()).isEqualTo(
+                "some content to compress more content to compress");
+    }
+
+    private static boolean isZstdAvailable() {
+        try {
+            Native.load();
+            return true;
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
     @Test
     public void httpDecoding_noEncodingApplied() throws Exception {
         HttpClient client = new ClientBuilder(
@@ -33,6 +33,12 @@ import org.junit.rules.TestRule;
 import org.junit.rules.Timeout;
 
 import com.linecorp.armeria.common.stream.CancelledSubscriptionException;
+import com.linecorp.armeria.internal.http.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.util.ReferenceCountUtil;
 
 public class DefaultHttpRequestTest {
 
@@ -87,4 +93,60 @@ public class DefaultHttpRequestTest {
             executor.shutdownNow();
         }
     }
+
+    @Test
+    public void pooledAggregation() throws Exception {
+        final ByteBufAllocator alloc = ByteBufAllocator.DEFAULT;
+        final ByteBuf foo = alloc.directBuffer().writeBytes("foo".getBytes());
+        final ByteBuf bar = alloc.directBuffer().writeBytes("bar".getBytes());
+
+        final DefaultHttpRequest req = new DefaultHttpRequest(HttpHeaders.of(HttpMethod.POST, "/foo"));
+        final CompletableFuture<AggregatedHttpMessage> future = req.aggregateWithPooledObjects(alloc);
+        req.write(new ByteBufHttpData(foo, false));
+        req.write(new ByteBufHttpData(bar, false));
+        req.close();
+
+        final HttpData content = future.get().content();
+        assertThat(content).isInstanceOf(ByteBufHttpData.class);
+        assertThat(((ByteBufHttpData) content).buf()).isInstanceOf(CompositeByteBuf.class);
+        assertThat(content.toStringUtf8()).isEqualTo("foobar");
+
+        // The chunks are not copied but owned by the aggregated content.
+        assertThat(foo.refCnt()).isOne();
+        ReferenceCountUtil.safeRelease(content);
+        assertThat(foo.refCnt()).isZero();
+        assertThat(bar.refCnt()).isZero();
+    }
+
+    @Test
+    public void pooledAggregationWithHeapData() throws Exception {
+        final ByteBufAllocator alloc = ByteBufAllocator.DEFAULT;
+        final ByteBuf bar = alloc.directBuffer().writeBytes("bar".getBytes());
+
+        final DefaultHttpRequest req = new DefaultHttpRequest(HttpHeaders.of(HttpMethod.POST, "/foo"));
+        final CompletableFuture<AggregatedHttpMessage> future = req.aggregateWithPooledObjects(alloc);
+        req.write(HttpData.ofUtf8("foo"));
+        req.write(new ByteBufHttpData(bar, false));
+        req.close();
+
+        final HttpData content = future.get().content();
+        assertThat(content.toStringUtf8()).isEqualTo("foobar");
+        assertThat(bar.refCnt()).isZero();
+        ReferenceCountUtil.safeRelease(content);
+        assertThat(((ByteBufHttpData) content).refCnt()).isZero();
+    }
+
+    @Test
+    public void abortedPooledAggregation() {
+        final ByteBuf foo = ByteBufAllocator.DEFAULT.directBuffer().writeBytes("foo".getBytes());
+        final DefaultHttpRequest req = new DefaultHttpRequest(HttpHeaders.of(HttpMethod.POST, "/foo"));
+        final CompletableFuture<AggregatedHttpMessage> future =
+                req.aggregateWithPooledObjects(ByteBufAllocator.DEFAULT);
+        req.write(new ByteBufHttpData(foo, false));
+        req.abort();
+
+        await().until(future::isDone);
+        assertThat(future).isCompletedExceptionally();
+        assertThat(foo.refCnt()).isZero();
+    }
 }
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.common.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.linecorp.armeria.common.http.HttpData;
+import com.linecorp.armeria.internal.http.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+
+public class EventLoopStreamMessageTest {
+
+    private static final EventLoop eventLoop = new DefaultEventLoop();
+
+    @AfterClass
+    public static void shutdownEventLoop() {
+        eventLoop.shutdownGracefully();
+    }
+
+    @Test
+    public void writeFromEventLoop() throws Exception {
+        final EventLoopStreamMessage<Integer> m = new EventLoopStreamMessage<>(eventLoop);
+        final CollectingSubscriber subscriber = new CollectingSubscriber(1);
+        m.subscribe(subscriber);
+
+        eventLoop.submit(() -> {
+            for (int i = 0; i < 100; i++) {
+                assertThat(m.write(i)).isTrue();
+            }
+            m.close();
+        }).sync();
+
+        m.closeFuture().get(10, TimeUnit.SECONDS);
+        assertThat(subscriber.completed).isDone();
+        assertThat(subscriber.elements).hasSize(100);
+        assertThat(subscriber.elements.get(99)).isEqualTo(99);
+        assertThat(m.write(100)).isFalse();
+    }
+
+    @Test
+    public void writeFromOtherThreads() throws Exception {
+        final EventLoopStreamMessage<Integer> m = new EventLoopStreamMessage<>(eventLoop);
+        final CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        for (int i = 0; i < 50; i++) {
+            assertThat(m.write(i)).isTrue();
+        }
+
+        m.subscribe(subscriber);
+        for (int i = 50; i < 100; i++) {
+            final int value = i;
+            if (i % 2 == 0) {
+                assertThat(m.write(value)).isTrue();
+            } else {
+                // Interleave the writes from the event loop and the writes from this thread.
+                eventLoop.submit(() -> m.write(value)).sync();
+            }
+        }
+        m.close();
+
+        m.closeFuture().get(10, TimeUnit.SECONDS);
+        assertThat(subscriber.elements).hasSize(100);
+        for (int i = 0; i < 100; i++) {
+            assertThat(subscriber.elements.get(i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void onDemand() throws Exception {
+        final EventLoopStreamMessage<Integer> m = new EventLoopStreamMessage<>(eventLoop);
+        final AtomicInteger counter = new AtomicInteger();
+        final CompletableFuture<Void> f = m.onDemand(counter::incrementAndGet);
+        assertThat(f).isNotDone();
+
+        final CollectingSubscriber subscriber = new CollectingSubscriber(0);
+        m.subscribe(subscriber);
+        subscriber.subscribed.get(10, TimeUnit.SECONDS);
+        assertThat(f).isNotDone();
+
+        subscriber.subscription.request(1);
+        f.get(10, TimeUnit.SECONDS);
+        assertThat(counter).hasValue(1);
+    }
+
+    @Test
+    public void abort() throws Exception {
+        final EventLoopStreamMessage<Object> m = new EventLoopStreamMessage<>(eventLoop);
+        final ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer().writeByte(0);
+        assertThat(m.write(new ByteBufHttpData(buf, false))).isTrue();
+        final CompletableFuture<Void> f = m.onDemand(() -> {});
+
+        m.abort();
+        assertThatThrownBy(() -> m.closeFuture().join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(CancelledSubscriptionException.class);
+        assertThatThrownBy(f::join).hasCauseInstanceOf(ClosedPublisherException.class);
+        assertThat(buf.refCnt()).isZero();
+        assertThat(m.write("foo")).isFalse();
+        assertThatThrownBy(() -> m.subscribe(new CollectingSubscriber(1)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void pooledObjects() throws Exception {
+        final EventLoopStreamMessage<Object> m = new EventLoopStreamMessage<>(eventLoop);
+        final ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer().writeByte(42);
+        final CollectingSubscriber subscriber = new CollectingSubscriber(1);
+        m.subscribe(subscriber);
+        m.write(new ByteBufHttpData(buf, false));
+        m.close();
+
+        m.closeFuture().get(10, TimeUnit.SECONDS);
+        assertThat(buf.refCnt()).isZero();
+        assertThat(subscriber.elements).hasSize(1);
+        final HttpData data = (HttpData) subscriber.elements.get(0);
+        assertThat(data).isNotInstanceOf(ByteBufHttpData.class);
+        assertThat(data.array()[data.offset()]).isEqualTo((byte) 42);
+    }
+
+    private static final class CollectingSubscriber implements Subscriber<Object> {
+
+        final List<Object> elements = new CopyOnWriteArrayList<>();
+        final CompletableFuture<Void> subscribed = new CompletableFuture<>();
+        final CompletableFuture<Void> completed = new CompletableFuture<>();
+        private final long batchSize;
+        volatile Subscription subscription;
+
+        CollectingSubscriber(long batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            assertThat(eventLoop.inEventLoop()).isTrue();
+            subscription = s;
+            if (batchSize > 0) {
+                s.request(batchSize);
+            }
+            subscribed.complete(null);
+        }
+
+        @Override
+        public void onNext(Object o) {
+            assertThat(eventLoop.inEventLoop()).isTrue();
+            elements.add(o);
+            if (batchSize != Long.MAX_VALUE) {
+                subscription.request(batchSize);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            completed.completeExceptionally(t);
+        }
+
+        @Override
+        public void onComplete() {
+            completed.complete(null);
+        }
+    }
+}
@@ -36,6 +36,7 @@ import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.util.EntityUtils;
 import org.junit.ClassRule;
 import org.junit.Test;
+import org.reactivestreams.Publisher;
 
 import com.google.common.collect.ImmutableMap;
 
@@ -43,10 +44,12 @@ import com.linecorp.armeria.common.Request;
 import com.linecorp.armeria.common.RequestContext;
 import com.linecorp.armeria.common.http.AggregatedHttpMessage;
 import com.linecorp.armeria.common.http.DefaultHttpResponse;
+import com.linecorp.armeria.common.http.HttpData;
 import com.linecorp.armeria.common.http.HttpHeaders;
 import com.linecorp.armeria.common.http.HttpRequest;
 import com.linecorp.armeria.common.http.HttpResponse;
 import com.linecorp.armeria.common.http.HttpStatus;
+import com.linecorp.armeria.common.stream.StreamMessage;
 import com.linecorp.armeria.server.TestConverters.NaiveIntConverter;
 import com.linecorp.armeria.server.TestConverters.NaiveStringConverter;
 import com.linecorp.armeria.server.TestConverters.TypedNumberConverter;
@@ -160,6 +163,16 @@ public class AnnotatedHttpServiceTest {
             return req.path();
         }
 
+        // Has more parameters than the number of the parameters which are passed without an array.
+        @Get
+        @Path("/sum/:a/:b/:c/:d")
+        public long sum(@PathParam("a") byte a, @PathParam("b") short b,
+                        @PathParam("c") int c, @PathParam("d") long d,
+                        ServiceRequestContext ctx) {
+            validateContext(ctx);
+            return a + b + c + d;
+        }
+
         // Throws an exception synchronously
         @Get
         @Path("/exception/:var")
@@ -277,6 +290,21 @@ public class AnnotatedHttpServiceTest {
             AggregatedHttpMessage message = req.aggregate().join();
             return AggregatedHttpMessage.of(HttpHeaders.of(HttpStatus.OK), message.content());
         }
+
+        @Post
+        @Path("/a/string-stream1")
+        public Publisher<HttpData> postStringStream1(Publisher<HttpData> content, RequestContext ctx) {
+            validateContext(ctx);
+            return content;
+        }
+
+        @Post
+        @Path("/a/string-stream2")
+        public StreamMessage<HttpData> postStringStream2(StreamMessage<HttpData> content,
+                                                         RequestContext ctx) {
+            validateContext(ctx);
+            return content;
+        }
     }
 
     /**
@@ -372,6 +400,10 @@ public class AnnotatedHttpServiceTest {
                          hc.execute(new HttpGet(rule.httpUri("/1/path/req/sync/1")))) {
                 assertThat(EntityUtils.toString(res.getEntity()), is("String[/1/path/req/sync/1]"));
             }
+            try (CloseableHttpResponse res = hc.execute(new HttpGet(rule.httpUri("/1/sum/1/2/3/4")))) {
+                assertThat(res.getStatusLine().toString(), is("HTTP/1.1 200 OK"));
+                assertThat(EntityUtils.toString(res.getEntity()), is("Number[10]"));
+            }
             // Exceptions in business logic
             try (CloseableHttpResponse res =
                          hc.execute(new HttpGet(rule.httpUri("/1/exception/42")))) {
@@ -503,6 +535,18 @@ public class AnnotatedHttpServiceTest {
                 assertThat(EntityUtils.toString(res.getEntity()),
                            is(EntityUtils.toString(httpPost.getEntity())));
             }
+            httpPost = newHttpPost("/3/a/string-stream1");
+            try (CloseableHttpResponse res = hc.execute(httpPost)) {
+                assertThat(res.getStatusLine().toString(), is("HTTP/1.1 200 OK"));
+                assertThat(EntityUtils.toString(res.getEntity()),
+                           is(EntityUtils.toString(httpPost.getEntity())));
+            }
+            httpPost = newHttpPost("/3/a/string-stream2");
+            try (CloseableHttpResponse res = hc.execute(httpPost)) {
+                assertThat(res.getStatusLine().toString(), is("HTTP/1.1 200 OK"));
+                assertThat(EntityUtils.toString(res.getEntity()),
+                           is(EntityUtils.toString(httpPost.getEntity())));
+            }
         }
     }
 
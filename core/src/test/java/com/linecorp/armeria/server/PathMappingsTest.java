@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Test;
+
+public class PathMappingsTest {
+
+    @Test
+    public void exactAndPrefix() {
+        final PathMappings<String> mappings = new PathMappings<String>(0)
+                .add(PathMapping.of("/"), "root")
+                .add(PathMapping.of("/foo"), "foo")
+                .add(PathMapping.of("prefix:/foo"), "fooPrefix")
+                .add(PathMapping.of("exact:/foo/{}"), "literalBraces")
+                .freeze();
+
+        assertThat(value(mappings, "/")).isEqualTo("root");
+        assertThat(value(mappings, "/foo")).isEqualTo("foo");
+        assertThat(value(mappings, "/foo/")).isEqualTo("fooPrefix");
+        assertThat(value(mappings, "/foo/bar")).isEqualTo("fooPrefix");
+        assertThat(value(mappings, "/foobar")).isNull();
+        assertThat(value(mappings, "/bar")).isNull();
+    }
+
+    @Test
+    public void pathParams() {
+        final PathMappings<String> mappings = new PathMappings<String>(0)
+                .add(PathMapping.of("/users/{id}"), "user")
+                .add(PathMapping.of("/users/{id}/posts/:postId"), "post")
+                .add(PathMapping.of("/{a}/{a}"), "same")
+                .add(PathMapping.of("/{a}/{b}"), "different")
+                .freeze();
+
+        final PathMapped<String> user = mappings.apply("/users/1", null);
+        assertThat(user.value()).isEqualTo("user");
+        assertThat(user.mappingResult().pathParams()).containsEntry("id", "1");
+
+        final PathMapped<String> post = mappings.apply("/users/1/posts/2", "a=b");
+        assertThat(post.value()).isEqualTo("post");
+        assertThat(post.mappingResult().pathParams()).containsEntry("id", "1").containsEntry("postId", "2");
+        assertThat(post.mappingResult().query()).isEqualTo("a=b");
+
+        assertThat(value(mappings, "/users/1/")).isNull();
+        assertThat(value(mappings, "/users//posts/2")).isNull();
+        assertThat(value(mappings, "/x/x")).isEqualTo("same");
+        assertThat(value(mappings, "/x/y")).isEqualTo("different");
+    }
+
+    @Test
+    public void registrationOrderIsPreserved() {
+        final PathMappings<String> mappings = new PathMappings<String>(0)
+                .add(PathMapping.ofGlob("/static/**/*.css"), "glob")
+                .add(PathMapping.of("prefix:/static"), "prefix")
+                .add(PathMapping.of("/static/{file}"), "param")
+                .add(PathMapping.ofRegex("^/api/(?<v>v[0-9]+)/.*$"), "regex")
+                .add(PathMapping.of("/api/v1/health"), "exact")
+                .add(PathMapping.ofCatchAll(), "catchAll")
+                .freeze();
+
+        assertThat(value(mappings, "/static/a/b.css")).isEqualTo("glob");
+        assertThat(value(mappings, "/static/b.js")).isEqualTo("prefix");
+        assertThat(value(mappings, "/api/v1/health")).isEqualTo("regex");
+        assertThat(value(mappings, "/api/health")).isEqualTo("catchAll");
+        assertThat(value(mappings, "/")).isEqualTo("catchAll");
+    }
+
+    @Test
+    public void cachedResult() {
+        final PathMappings<String> mappings = new PathMappings<String>()
+                .add(PathMapping.of("/foo/{bar}"), "foo")
+                .freeze();
+
+        final PathMapped<String> first = mappings.apply("/foo/1", null);
+        assertThat(mappings.apply("/foo/1", null)).isSameAs(first);
+        assertThat(mappings.apply("/foo/1", "q").mappingResult().query()).isEqualTo("q");
+    }
+
+    @Test
+    public void invalidPath() {
+        final PathMappings<String> mappings = new PathMappings<String>(0)
+                .add(PathMapping.of("/foo"), "foo")
+                .freeze();
+
+        assertThatThrownBy(() -> mappings.apply("foo", null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String value(PathMappings<String> mappings, String path) {
+        final PathMapped<String> mapped = mappings.apply(path, null);
+        return mapped.isPresent() ? mapped.value() : null;
+    }
+}
@@ -145,6 +145,32 @@ public class ServerTest {
         assertThat(server.activePorts().size(), is(0));
     }
 
+    @Test
+    public void testMultipleAcceptors() throws Exception {
+        final Server server = new ServerBuilder().numAcceptors(4)
+                                                 .service("/", new EchoService())
+                                                 .build();
+        try {
+            server.start().get();
+            assertThat(server.activePorts().size(), is(1));
+
+            final int port = server.activePort().get().localAddress().getPort();
+            for (int i = 0; i < 8; i++) {
+                try (CloseableHttpClient hc = HttpClients.createMinimal()) {
+                    final HttpPost req = new HttpPost("http://127.0.0.1:" + port + '/');
+                    req.setEntity(new StringEntity("Hello, world!", StandardCharsets.UTF_8));
+
+                    try (CloseableHttpResponse res = hc.execute(req)) {
+                        assertThat(res.getStatusLine().toString(), is("HTTP/1.1 200 OK"));
+                        assertThat(EntityUtils.toString(res.getEntity()), is("Hello, world!"));
+                    }
+                }
+            }
+        } finally {
+            server.stop().get();
+        }
+    }
+
     @Test
     public void testInvocation() throws Exception {
         testInvocation0("/");
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http;
+
+import static com.linecorp.armeria.common.http.HttpSessionProtocols.HTTP;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.linecorp.armeria.client.AllInOneClientFactory;
+import com.linecorp.armeria.client.ClientFactory;
+import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.client.SessionOption;
+import com.linecorp.armeria.client.SessionOptions;
+import com.linecorp.armeria.client.http.HttpClient;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.http.AggregatedHttpMessage;
+import com.linecorp.armeria.common.http.HttpRequest;
+import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.common.http.HttpResponseWriter;
+import com.linecorp.armeria.common.http.HttpStatus;
+import com.linecorp.armeria.internal.http.AdaptiveHttp2FlowControlListener;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http2.DefaultHttp2Connection;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
+import io.netty.handler.codec.http2.Http2ConnectionHandlerBuilder;
+import io.netty.handler.codec.http2.Http2FrameAdapter;
+import io.netty.handler.codec.http2.Http2Settings;
+
+public class Http2FlowControlTest {
+
+    private static final byte[] CONTENT = new byte[4 * 1024 * 1024];
+
+    static {
+        ThreadLocalRandom.current().nextBytes(CONTENT);
+    }
+
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.port(0, HTTP);
+            sb.http2InitialConnectionWindowSize(1024 * 1024);
+            sb.http2InitialStreamWindowSize(256 * 1024);
+            sb.http2MaxFrameSize(64 * 1024);
+            sb.http2HeaderTableSize(8192);
+            sb.http2MaxStreamsPerConnection(16);
+            sb.http2AdaptiveFlowControl(true);
+
+            sb.service("/large", (ctx, req) -> HttpResponse.of(HttpStatus.OK, MediaType.OCTET_STREAM, CONTENT));
+            sb.service("/echo", new AbstractHttpService() {
+                @Override
+                protected void doPost(ServiceRequestContext ctx, HttpRequest req, HttpResponseWriter res) {
+                    req.aggregate().thenAccept(
+                            msg -> res.respond(HttpStatus.OK, MediaType.OCTET_STREAM, msg.content()));
+                }
+            });
+        }
+    };
+
+    private static final ClientFactory clientFactory = new AllInOneClientFactory(SessionOptions.of(
+            SessionOption.USE_HTTP2_PREFACE.newValue(true),
+            SessionOption.HTTP2_INITIAL_CONNECTION_WINDOW_SIZE.newValue(1024 * 1024),
+            SessionOption.HTTP2_INITIAL_STREAM_WINDOW_SIZE.newValue(256 * 1024),
+            SessionOption.HTTP2_MAX_FRAME_SIZE.newValue(64 * 1024),
+            SessionOption.HTTP2_HEADER_TABLE_SIZE.newValue(8192L),
+            SessionOption.HTTP2_ADAPTIVE_FLOW_CONTROL.newValue(true)));
+
+    @AfterClass
+    public static void destroyClientFactory() {
+        ForkJoinPool.commonPool().execute(clientFactory::close);
+    }
+
+    @Test
+    public void largeContentWithCustomSettings() throws Exception {
+        final HttpClient client = Clients.newClient(
+                clientFactory, "none+h2c://127.0.0.1:" + server.httpPort(), HttpClient.class);
+
+        for (int i = 0; i < 3; i++) {
+            final AggregatedHttpMessage res = client.post("/echo", CONTENT).aggregate().get();
+            assertThat(res.status()).isEqualTo(HttpStatus.OK);
+            assertThat(res.content().array()).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    public void settingsAndAdaptiveConnectionWindow() throws Exception {
+        final EventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            final CompletableFuture<Http2Settings> settingsFuture = new CompletableFuture<>();
+            final CompletableFuture<Long> responseFuture = new CompletableFuture<>();
+            final Http2FrameAdapter frameListener = new Http2FrameAdapter() {
+                private long receivedBytes;
+
+                @Override
+                public void onSettingsRead(ChannelHandlerContext ctx, Http2Settings settings) {
+                    settingsFuture.complete(settings);
+                }
+
+                @Override
+                public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding,
+                                      boolean endOfStream) {
+                    receivedBytes += data.readableBytes();
+                    if (endOfStream) {
+                        responseFuture.complete(receivedBytes);
+                    }
+                    // Return all bytes to the flow controller.
+                    return data.readableBytes() + padding;
+                }
+            };
+
+            // A client whose connection window starts from the protocol default and is grown by the
+            // AdaptiveHttp2FlowControlListener while it downloads.
+            final Http2Connection connection = new DefaultHttp2Connection(false);
+            final Http2ConnectionHandler handler = new Http2ConnectionHandlerBuilder()
+                    .connection(connection)
+                    .frameListener(frameListener)
+                    .build();
+            handler.decoder().frameListener(new AdaptiveHttp2FlowControlListener(
+                    frameListener, handler.encoder(), handler.decoder().flowController()));
+
+            final Channel ch = new Bootstrap()
+                    .group(group)
+                    .channel(NioSocketChannel.class)
+                    .handler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) throws Exception {
+                            ch.pipeline().addLast(handler);
+                        }
+                    })
+                    .connect("127.0.0.1", server.httpPort()).sync().channel();
+
+            // The server advertises the configured settings.
+            final Http2Settings settings = settingsFuture.get(10, TimeUnit.SECONDS);
+            assertThat(settings.initialWindowSize()).isEqualTo(256 * 1024);
+            assertThat(settings.maxFrameSize()).isEqualTo(64 * 1024);
+            assertThat(settings.maxConcurrentStreams()).isEqualTo(16L);
+            assertThat(settings.headerTableSize()).isEqualTo(8192L);
+
+            ch.eventLoop().submit(() -> {
+                final ChannelHandlerContext ctx = ch.pipeline().context(handler);
+                handler.encoder().writeHeaders(
+                        ctx, 3, new DefaultHttp2Headers().method("GET").path("/large").scheme("http")
+                                                         .authority("127.0.0.1:" + server.httpPort()),
+                        0, true, ctx.newPromise());
+                ctx.flush();
+            }).sync();
+
+            assertThat(responseFuture.get(10, TimeUnit.SECONDS)).isEqualTo(CONTENT.length);
+
+            final long[] windowSizes = new long[2];
+            ch.eventLoop().submit(() -> {
+                // The window of the server, which was grown with a WINDOW_UPDATE frame after the preface.
+                windowSizes[0] = connection.remote().flowController().windowSize(connection.connectionStream());
+                // The window of the client, which was grown while downloading.
+                windowSizes[1] = connection.local().flowController().initialWindowSize(
+                        connection.connectionStream());
+            }).sync();
+            assertThat(windowSizes[0]).isEqualTo(1024 * 1024);
+            assertThat(windowSizes[1]).isGreaterThan(Http2CodecUtil.DEFAULT_WINDOW_SIZE);
+
+            ch.close().sync();
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import com.linecorp.armeria.common.http.HttpHeaderNames;
+import com.linecorp.armeria.common.http.HttpHeaders;
+import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.common.http.HttpStatus;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServerConfig;
+
+public class HttpHeaderUtilTest {
+
+    @Test
+    public void date() {
+        assertThat(HttpHeaderUtil.date(0)).isEqualTo("Thu, 01 Jan 1970 00:00:00 GMT");
+        assertThat(HttpHeaderUtil.date(999)).isEqualTo("Thu, 01 Jan 1970 00:00:00 GMT");
+        assertThat(HttpHeaderUtil.date(784111777000L)).isEqualTo("Sun, 06 Nov 1994 08:49:37 GMT");
+    }
+
+    @Test
+    public void dateIsCachedWithinSecond() {
+        final String date = HttpHeaderUtil.date(1500000000000L);
+        assertThat(HttpHeaderUtil.date(1500000000500L)).isSameAs(date);
+        assertThat(HttpHeaderUtil.date(1500000001000L)).isNotEqualTo(date);
+    }
+
+    @Test
+    public void addServerHeadersDoesNotModifyGivenHeaders() {
+        final ServerConfig config = new ServerBuilder().serverHeaderEnabled(true)
+                                                       .service("/", (ctx, req) -> HttpResponse.of(200))
+                                                       .build().config();
+
+        // A service may publish the same headers for many responses.
+        final HttpHeaders headers = HttpHeaders.of(HttpStatus.OK);
+        final HttpHeaders newHeaders = HttpHeaderUtil.addServerHeaders(headers, config);
+        assertThat(newHeaders).isNotSameAs(headers);
+        assertThat(newHeaders.get(HttpHeaderNames.DATE)).isNotNull();
+        assertThat(newHeaders.get(HttpHeaderNames.SERVER)).isEqualTo(HttpHeaderUtil.SERVER);
+        assertThat(headers.contains(HttpHeaderNames.DATE)).isFalse();
+        assertThat(headers.contains(HttpHeaderNames.SERVER)).isFalse();
+
+        // Nothing is copied when there is nothing to add.
+        assertThat(HttpHeaderUtil.addServerHeaders(newHeaders, config)).isSameAs(newHeaders);
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http;
+
+import static com.linecorp.armeria.common.http.HttpSessionProtocols.HTTP;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.linecorp.armeria.client.AllInOneClientFactory;
+import com.linecorp.armeria.client.ClientFactory;
+import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.client.SessionOption;
+import com.linecorp.armeria.client.SessionOptions;
+import com.linecorp.armeria.client.http.HttpClient;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.http.AggregatedHttpMessage;
+import com.linecorp.armeria.common.http.HttpRequest;
+import com.linecorp.armeria.common.http.HttpResponseWriter;
+import com.linecorp.armeria.common.http.HttpStatus;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+
+public class HttpServerConnectionLifetimeTest {
+
+    @ClassRule
+    public static final ServerRule maxNumRequestsServer = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.port(0, HTTP);
+            sb.maxNumRequestsPerConnection(2);
+            sb.service("/", new RemoteAddressService(0));
+        }
+    };
+
+    @ClassRule
+    public static final ServerRule maxConnectionAgeServer = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.port(0, HTTP);
+            sb.maxConnectionAgeMillis(500);
+            sb.service("/", new RemoteAddressService(0));
+            sb.service("/slow", new RemoteAddressService(1000));
+        }
+    };
+
+    // Ensure only a single event loop is used so that there's only one connection pool.
+    private static EventLoopGroup eventLoopGroup;
+    private static ClientFactory clientFactory;
+
+    @BeforeClass
+    public static void initClientFactory() {
+        eventLoopGroup = new NioEventLoopGroup(1);
+        clientFactory = new AllInOneClientFactory(
+                SessionOptions.of(SessionOption.EVENT_LOOP_GROUP.newValue(eventLoopGroup)));
+    }
+
+    @AfterClass
+    public static void destroyClientFactory() {
+        ForkJoinPool.commonPool().execute(() -> {
+            clientFactory.close();
+            eventLoopGroup.shutdownGracefully();
+        });
+    }
+
+    @Test
+    public void maxNumRequestsPerConnectionWithHttp1() throws Exception {
+        testMaxNumRequestsPerConnection("h1c");
+    }
+
+    @Test
+    public void maxNumRequestsPerConnectionWithHttp2() throws Exception {
+        testMaxNumRequestsPerConnection("h2c");
+    }
+
+    private static void testMaxNumRequestsPerConnection(String protocol) throws Exception {
+        final HttpClient client = newClient(protocol, maxNumRequestsServer);
+
+        final String remoteAddress1 = get(client, "/");
+        final String remoteAddress2 = get(client, "/");
+        final String remoteAddress3 = get(client, "/");
+
+        // The connection must be closed after the second request.
+        assertThat(remoteAddress1).isEqualTo(remoteAddress2);
+        assertThat(remoteAddress3).isNotEqualTo(remoteAddress2);
+    }
+
+    @Test
+    public void maxConnectionAgeWithHttp1() throws Exception {
+        testMaxConnectionAge("h1c");
+    }
+
+    @Test
+    public void maxConnectionAgeWithHttp2() throws Exception {
+        testMaxConnectionAge("h2c");
+    }
+
+    private static void testMaxConnectionAge(String protocol) throws Exception {
+        final HttpClient client = newClient(protocol, maxConnectionAgeServer);
+
+        // The request in progress must be finished even if the connection gets too old.
+        final String remoteAddress1 = get(client, "/slow");
+        final String remoteAddress2 = get(client, "/");
+        assertThat(remoteAddress2).isNotEqualTo(remoteAddress1);
+    }
+
+    private static HttpClient newClient(String protocol, ServerRule server) {
+        return Clients.newClient(clientFactory, "none+" + protocol + "://127.0.0.1:" + server.httpPort(),
+                                 HttpClient.class);
+    }
+
+    private static String get(HttpClient client, String path) throws Exception {
+        final AggregatedHttpMessage res = client.get(path).aggregate().get();
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        return res.content().toStringUtf8();
+    }
+
+    /**
+     * Responds with the remote address of the connection, so that a test can tell whether two requests were
+     * sent over the same connection.
+     */
+    private static final class RemoteAddressService extends AbstractHttpService {
+
+        private final long delayMillis;
+
+        RemoteAddressService(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        protected void doGet(ServiceRequestContext ctx, HttpRequest req, HttpResponseWriter res) {
+            final String remoteAddress = String.valueOf(ctx.remoteAddress());
+            if (delayMillis == 0) {
+                res.respond(HttpStatus.OK, MediaType.PLAIN_TEXT_UTF_8, remoteAddress);
+            } else {
+                ctx.eventLoop().schedule(
+                        () -> res.respond(HttpStatus.OK, MediaType.PLAIN_TEXT_UTF_8, remoteAddress),
+                        delayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
@@ -30,7 +30,9 @@ import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -375,6 +377,7 @@ public class HttpServerTest {
             sb.decorator(decorator);
 
             sb.defaultMaxRequestLength(MAX_CONTENT_LENGTH);
+            sb.serverHeaderEnabled(true);
         }
     };
 
@@ -417,6 +420,18 @@ public class HttpServerTest {
         assertThat(res.content().toStringUtf8(), is("/foo"));
     }
 
+    @Test(timeout = 10000)
+    public void testDateAndServerHeaders() throws Exception {
+        final AggregatedHttpMessage res = client().get("/path/foo").aggregate().get();
+        assertThat(res.headers().getTimeMillis(HttpHeaderNames.DATE), is(notNullValue()));
+        assertThat(res.headers().get(HttpHeaderNames.SERVER), startsWith("armeria/"));
+
+        // An error response from the server also has the headers.
+        final AggregatedHttpMessage errorRes = client().get("/non-existent").aggregate().get();
+        assertThat(errorRes.headers().status(), is(HttpStatus.NOT_FOUND));
+        assertThat(errorRes.headers().getTimeMillis(HttpHeaderNames.DATE), is(notNullValue()));
+    }
+
     @Test(timeout = 10000)
     public void testHead() throws Exception {
         final AggregatedHttpMessage res = client().head("/path/blah").aggregate().get();
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class FrequencySketchTest {
+
+    @Test
+    public void frequency() {
+        final FrequencySketch sketch = new FrequencySketch(1024);
+        assertThat(sketch.frequency("/a")).isZero();
+
+        sketch.increment("/a");
+        sketch.increment("/a");
+        sketch.increment("/b");
+        assertThat(sketch.frequency("/a")).isGreaterThanOrEqualTo(2);
+        assertThat(sketch.frequency("/b")).isGreaterThanOrEqualTo(1);
+
+        // The counters saturate at 15.
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("/a");
+        }
+        assertThat(sketch.frequency("/a")).isEqualTo(15);
+    }
+
+    @Test
+    public void reset() {
+        final FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 15; i++) {
+            sketch.increment("/popular");
+        }
+        assertThat(sketch.frequency("/popular")).isEqualTo(15);
+
+        // Increment the other keys until all counters are halved.
+        for (int i = 0; i < 160; i++) {
+            sketch.increment("/other/" + i);
+        }
+        assertThat(sketch.frequency("/popular")).isLessThan(15);
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.client.http.HttpClient;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.SerializationFormat;
+import com.linecorp.armeria.common.http.AggregatedHttpMessage;
+import com.linecorp.armeria.common.http.HttpData;
+import com.linecorp.armeria.common.http.HttpHeaderNames;
+import com.linecorp.armeria.common.http.HttpHeaders;
+import com.linecorp.armeria.common.http.HttpMethod;
+import com.linecorp.armeria.common.http.HttpRequest;
+import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.common.http.HttpSessionProtocols;
+import com.linecorp.armeria.common.http.HttpStatus;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.Service;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+public class HttpResponseCacheServiceTest {
+
+    private static final Map<String, AtomicInteger> numInvocations = new ConcurrentHashMap<>();
+    private static HttpResponseCacheService cacheService;
+
+    /**
+     * Responds with the path and the number of the invocations for the path. The caching headers depend on
+     * the first path segment.
+     */
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            final Service<HttpRequest, HttpResponse> service = (ctx, req) -> {
+                final String path = ctx.path();
+                final int n = numInvocations.computeIfAbsent(path, unused -> new AtomicInteger())
+                                            .incrementAndGet();
+                final HttpStatus status = path.startsWith("/not-found/") ? HttpStatus.NOT_FOUND
+                                                                         : HttpStatus.OK;
+                final HttpHeaders headers = HttpHeaders.of(status)
+                                                       .setObject(HttpHeaderNames.CONTENT_TYPE,
+                                                                  MediaType.PLAIN_TEXT_UTF_8);
+                String content = path + " #" + n;
+                if (path.startsWith("/no-store/")) {
+                    headers.set(HttpHeaderNames.CACHE_CONTROL, "no-store");
+                } else if (path.startsWith("/no-max-age/")) {
+                    headers.set(HttpHeaderNames.CACHE_CONTROL, "public");
+                } else {
+                    headers.set(HttpHeaderNames.CACHE_CONTROL, "max-age=60");
+                    headers.set(HttpHeaderNames.ETAG, "W/\"" + n + '"');
+                }
+                if (path.startsWith("/vary/")) {
+                    headers.set(HttpHeaderNames.VARY, "Accept-Language");
+                    content += ' ' + req.headers().get(HttpHeaderNames.ACCEPT_LANGUAGE);
+                }
+                return AggregatedHttpMessage.of(headers, HttpData.ofUtf8(content)).toHttpResponse();
+            };
+
+            cacheService = new HttpResponseCacheService(service);
+            sb.port(0, HttpSessionProtocols.HTTP);
+            sb.serviceUnder("/", cacheService);
+        }
+    };
+
+    @Test
+    public void cacheableResponse() {
+        final AggregatedHttpMessage res1 = execute(HttpMethod.GET, "/cacheable/a", null, null);
+        final AggregatedHttpMessage res2 = execute(HttpMethod.GET, "/cacheable/a", null, null);
+        assertThat(res1.content().toStringUtf8()).isEqualTo("/cacheable/a #1");
+        assertThat(res2.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res2.content().toStringUtf8()).isEqualTo("/cacheable/a #1");
+        assertThat(res2.headers().getInt(HttpHeaderNames.AGE)).isNotNull();
+        assertThat(numInvocations.get("/cacheable/a")).hasValue(1);
+
+        final AggregatedHttpMessage head = execute(HttpMethod.HEAD, "/cacheable/a", null, null);
+        assertThat(head.status()).isEqualTo(HttpStatus.OK);
+        assertThat(head.content().isEmpty()).isTrue();
+        assertThat(numInvocations.get("/cacheable/a")).hasValue(1);
+
+        final HttpResponseCacheStats stats = cacheService.cacheStats();
+        assertThat(stats.hitCount()).isGreaterThanOrEqualTo(2);
+        assertThat(stats.entryCount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void noCacheRequest() {
+        execute(HttpMethod.GET, "/cacheable/b", null, null);
+        final AggregatedHttpMessage res = execute(HttpMethod.GET, "/cacheable/b", "no-cache", null);
+        assertThat(res.content().toStringUtf8()).isEqualTo("/cacheable/b #2");
+
+        // The fresh response replaces the cached one.
+        assertThat(execute(HttpMethod.GET, "/cacheable/b", null, null).content().toStringUtf8())
+                .isEqualTo("/cacheable/b #2");
+    }
+
+    @Test
+    public void notModified() {
+        execute(HttpMethod.GET, "/cacheable/c", null, null);
+
+        final AggregatedHttpMessage res = execute(HttpMethod.GET, "/cacheable/c", null, "\"1\"");
+        assertThat(res.status()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(res.headers().get(HttpHeaderNames.ETAG)).isEqualTo("W/\"1\"");
+        assertThat(res.content().isEmpty()).isTrue();
+
+        final AggregatedHttpMessage mismatch = execute(HttpMethod.GET, "/cacheable/c", null, "\"0\"");
+        assertThat(mismatch.status()).isEqualTo(HttpStatus.OK);
+        assertThat(mismatch.content().toStringUtf8()).isEqualTo("/cacheable/c #1");
+        assertThat(numInvocations.get("/cacheable/c")).hasValue(1);
+    }
+
+    @Test
+    public void notModifiedOnlyForSuccessfulResponse() {
+        execute(HttpMethod.GET, "/not-found/a", null, null);
+
+        // A cached '404 Not Found' is served as it is even if its entity tag matches.
+        final AggregatedHttpMessage res = execute(HttpMethod.GET, "/not-found/a", null, "\"1\"");
+        assertThat(res.status()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(res.content().toStringUtf8()).isEqualTo("/not-found/a #1");
+        assertThat(numInvocations.get("/not-found/a")).hasValue(1);
+    }
+
+    @Test
+    public void uncacheableResponses() {
+        execute(HttpMethod.GET, "/no-store/a", null, null);
+        execute(HttpMethod.GET, "/no-store/a", null, null);
+        assertThat(numInvocations.get("/no-store/a")).hasValue(2);
+
+        // Do not guess the freshness of a response without an explicit expiration time.
+        execute(HttpMethod.GET, "/no-max-age/a", null, null);
+        execute(HttpMethod.GET, "/no-max-age/a", null, null);
+        assertThat(numInvocations.get("/no-max-age/a")).hasValue(2);
+    }
+
+    @Test
+    public void vary() {
+        assertThat(get("/vary/a", "en")).isEqualTo("/vary/a #1 en");
+        assertThat(get("/vary/a", "ko")).isEqualTo("/vary/a #2 ko");
+        assertThat(get("/vary/a", "en")).isEqualTo("/vary/a #1 en");
+        assertThat(get("/vary/a", "ko")).isEqualTo("/vary/a #2 ko");
+        assertThat(numInvocations.get("/vary/a")).hasValue(2);
+    }
+
+    @Test
+    public void unsafeRequestInvalidatesCache() {
+        execute(HttpMethod.GET, "/cacheable/d", null, null);
+        execute(HttpMethod.POST, "/cacheable/d", null, null);
+        assertThat(execute(HttpMethod.GET, "/cacheable/d", null, null).content().toStringUtf8())
+                .isEqualTo("/cacheable/d #3");
+    }
+
+    private static String get(String path, String acceptLanguage) {
+        final HttpHeaders headers = HttpHeaders.of(HttpMethod.GET, path)
+                                               .set(HttpHeaderNames.ACCEPT_LANGUAGE, acceptLanguage);
+        return newClient().execute(headers).aggregate().join().content().toStringUtf8();
+    }
+
+    private static AggregatedHttpMessage execute(HttpMethod method, String path,
+                                                 String cacheControl, String ifNoneMatch) {
+        final HttpHeaders headers = HttpHeaders.of(method, path);
+        if (cacheControl != null) {
+            headers.set(HttpHeaderNames.CACHE_CONTROL, cacheControl);
+        }
+        if (ifNoneMatch != null) {
+            headers.set(HttpHeaderNames.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return newClient().execute(headers).aggregate().join();
+    }
+
+    private static HttpClient newClient() {
+        return Clients.newClient(server.uri(SerializationFormat.NONE, "/"), HttpClient.class);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http.coalescing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.client.http.HttpClient;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.SerializationFormat;
+import com.linecorp.armeria.common.http.AggregatedHttpMessage;
+import com.linecorp.armeria.common.http.DefaultHttpResponse;
+import com.linecorp.armeria.common.http.HttpHeaderNames;
+import com.linecorp.armeria.common.http.HttpHeaders;
+import com.linecorp.armeria.common.http.HttpMethod;
+import com.linecorp.armeria.common.http.HttpRequest;
+import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.common.http.HttpSessionProtocols;
+import com.linecorp.armeria.common.http.HttpStatus;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogAvailability;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.Service;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+public class RequestCoalescingServiceTest {
+
+    private static final AtomicInteger numInvocations = new AtomicInteger();
+    private static final Queue<RequestLog> logs = new ConcurrentLinkedQueue<>();
+
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            final Service<HttpRequest, HttpResponse> slow = (ctx, req) -> {
+                final String content = "invocation #" + numInvocations.incrementAndGet();
+                final DefaultHttpResponse res = new DefaultHttpResponse();
+                ctx.eventLoop().schedule(() -> res.respond(HttpStatus.OK, MediaType.PLAIN_TEXT_UTF_8, content),
+                                         500, TimeUnit.MILLISECONDS);
+                return res;
+            };
+
+            sb.port(0, HttpSessionProtocols.HTTP);
+            sb.service("/", slow.decorate(RequestCoalescingService.newDecorator())
+                                .decorate((delegate, ctx, req) -> {
+                                    ctx.log().addListener(logs::add, RequestLogAvailability.COMPLETE);
+                                    return delegate.serve(ctx, req);
+                                }));
+        }
+    };
+
+    @Before
+    public void reset() {
+        numInvocations.set(0);
+        logs.clear();
+    }
+
+    @Test
+    public void identicalRequestsAreCoalesced() throws Exception {
+        final List<AggregatedHttpMessage> responses = execute(10, HttpMethod.GET, null);
+
+        assertThat(numInvocations).hasValue(1);
+        for (AggregatedHttpMessage res : responses) {
+            assertThat(res.status()).isEqualTo(HttpStatus.OK);
+            assertThat(res.content().toStringUtf8()).isEqualTo("invocation #1");
+        }
+
+        // Every request must have its own complete log.
+        final long contentLength = "invocation #1".length();
+        await(10);
+        assertThat(logs).hasSize(10);
+        for (RequestLog log : logs) {
+            assertThat(log.statusCode()).isEqualTo(200);
+            assertThat(log.responseLength()).isEqualTo(contentLength);
+            assertThat(log.requestCause()).isNull();
+        }
+    }
+
+    @Test
+    public void requestsAreNotCoalescedAfterCompletion() throws Exception {
+        execute(1, HttpMethod.GET, null);
+        execute(1, HttpMethod.GET, null);
+        assertThat(numInvocations).hasValue(2);
+    }
+
+    @Test
+    public void nonIdempotentRequestsAreNotCoalesced() throws Exception {
+        execute(3, HttpMethod.POST, null);
+        assertThat(numInvocations).hasValue(3);
+    }
+
+    @Test
+    public void requestsWithCredentialsAreNotCoalesced() throws Exception {
+        execute(3, HttpMethod.GET, "Basic YWxhZGRpbjpvcGVuc2VzYW1l");
+        assertThat(numInvocations).hasValue(3);
+    }
+
+    @Test
+    public void requestsNegotiatingDifferentRepresentationsAreNotCoalesced() throws Exception {
+        final HttpClient client = Clients.newClient(server.uri(SerializationFormat.NONE, "/"),
+                                                    HttpClient.class);
+        final List<CompletableFuture<AggregatedHttpMessage>> futures = new ArrayList<>();
+        for (String acceptEncoding : new String[] { "gzip", "gzip", "br" }) {
+            futures.add(client.execute(HttpHeaders.of(HttpMethod.GET, "/")
+                                                  .set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding))
+                              .aggregate());
+        }
+        for (CompletableFuture<AggregatedHttpMessage> f : futures) {
+            f.get();
+        }
+
+        // The two requests which accept gzip are coalesced.
+        assertThat(numInvocations).hasValue(2);
+    }
+
+    private static List<AggregatedHttpMessage> execute(
+            int numRequests, HttpMethod method, String authorization) throws Exception {
+
+        final HttpClient client = Clients.newClient(server.uri(SerializationFormat.NONE, "/"),
+                                                    HttpClient.class);
+        final List<CompletableFuture<AggregatedHttpMessage>> futures = new ArrayList<>();
+        for (int i = 0; i < numRequests; i++) {
+            final HttpHeaders headers = HttpHeaders.of(method, "/");
+            if (authorization != null) {
+                headers.set(HttpHeaderNames.AUTHORIZATION, authorization);
+            }
+            futures.add(client.execute(headers).aggregate());
+        }
+
+        final List<AggregatedHttpMessage> responses = new ArrayList<>();
+        for (CompletableFuture<AggregatedHttpMessage> f : futures) {
+            responses.add(f.get());
+        }
+        return responses;
+    }
+
+    private static void await(int numLogs) throws InterruptedException {
+        for (int i = 0; i < 50 && logs.size() < numLogs; i++) {
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http.encoding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+
+import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.client.http.HttpClient;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.SerializationFormat;
+import com.linecorp.armeria.common.http.AggregatedHttpMessage;
+import com.linecorp.armeria.common.http.HttpHeaderNames;
+import com.linecorp.armeria.common.http.HttpHeaders;
+import com.linecorp.armeria.common.http.HttpMethod;
+import com.linecorp.armeria.common.http.HttpRequest;
+import com.linecorp.armeria.common.http.HttpResponseWriter;
+import com.linecorp.armeria.common.http.HttpSessionProtocols;
+import com.linecorp.armeria.common.http.HttpStatus;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.http.AbstractHttpService;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+public class CachingHttpEncodingServiceTest {
+
+    private static final String CONTENT = Strings.repeat("Armeria ", 1000);
+
+    private static final AtomicInteger cacheableCount = new AtomicInteger();
+    private static final AtomicInteger noStoreCount = new AtomicInteger();
+
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.port(0, HttpSessionProtocols.HTTP);
+
+            sb.service("/cacheable", new AbstractHttpService() {
+                @Override
+                protected void doGet(ServiceRequestContext ctx, HttpRequest req, HttpResponseWriter res) {
+                    cacheableCount.incrementAndGet();
+                    res.respond(HttpStatus.OK, MediaType.PLAIN_TEXT_UTF_8, CONTENT);
+                }
+            }.decorate(CachingHttpEncodingService.newDecorator(1024 * 1024, Duration.ofMinutes(1))));
+
+            sb.service("/no-store", new AbstractHttpService() {
+                @Override
+                protected void doGet(ServiceRequestContext ctx, HttpRequest req, HttpResponseWriter res) {
+                    noStoreCount.incrementAndGet();
+                    res.write(HttpHeaders.of(HttpStatus.OK)
+                                         .set(HttpHeaderNames.CONTENT_TYPE,
+                                              MediaType.PLAIN_TEXT_UTF_8.toString())
+                                         .set(HttpHeaderNames.CACHE_CONTROL, "no-store"));
+                    res.close();
+                }
+            }.decorate(CachingHttpEncodingService.class));
+        }
+    };
+
+    @Test
+    public void cacheable() throws Exception {
+        final int initialCount = cacheableCount.get();
+
+        final AggregatedHttpMessage first = get("/cacheable", "gzip", null);
+        assertThat(first.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gunzip(first.content().array())).isEqualTo(CONTENT);
+        assertThat(cacheableCount.get()).isEqualTo(initialCount + 1);
+
+        // Served from the cache.
+        final AggregatedHttpMessage second = get("/cacheable", "gzip", null);
+        assertThat(second.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(second.content().array()).isEqualTo(first.content().array());
+        assertThat(cacheableCount.get()).isEqualTo(initialCount + 1);
+
+        // A different encoding is cached separately.
+        final AggregatedHttpMessage deflated = get("/cacheable", "deflate", null);
+        assertThat(deflated.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("deflate");
+        assertThat(cacheableCount.get()).isEqualTo(initialCount + 2);
+
+        // 'no-cache' bypasses the cache.
+        get("/cacheable", "gzip", "no-cache");
+        assertThat(cacheableCount.get()).isEqualTo(initialCount + 3);
+    }
+
+    @Test
+    public void notCacheable() throws Exception {
+        final int initialCount = noStoreCount.get();
+        get("/no-store", "gzip", null);
+        get("/no-store", "gzip", null);
+        assertThat(noStoreCount.get()).isEqualTo(initialCount + 2);
+    }
+
+    private static AggregatedHttpMessage get(String path, String acceptEncoding,
+                                             String cacheControl) throws Exception {
+        final HttpClient client = Clients.newClient(server.uri(SerializationFormat.NONE, "/"),
+                                                    HttpClient.class);
+        final HttpHeaders headers = HttpHeaders.of(HttpMethod.GET, path)
+                                               .set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding);
+        if (cacheControl != null) {
+            headers.set(HttpHeaderNames.CACHE_CONTROL, cacheControl);
+        }
+
+        final AggregatedHttpMessage res = client.execute(headers).aggregate().get();
+        assertThat(res.headers().status()).isEqualTo(HttpStatus.OK);
+        return res;
+    }
+
+    private static String gunzip(byte[] content) throws Exception {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8);
+        }
+    }
+}
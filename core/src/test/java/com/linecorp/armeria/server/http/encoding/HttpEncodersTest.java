@@ -1,6 +1,7 @@
 package com.linecorp.armeria.server.http.encoding;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.Assume.assumeTrue;
 import static org.mockito.Mockito.when;
 
 import org.junit.Rule;
@@ -43,10 +44,52 @@ public class HttpEncodersTest {
         assertThat(HttpEncoders.getWrapperForRequest(request)).isEqualTo(HttpEncodingType.GZIP);
     }
 
+    @Test
+    public void acceptEncodingBrotliAndZstd() {
+        assumeBrotliAndZstdAvailable();
+
+        when(request.headers()).thenReturn(HttpHeaders.of(HttpHeaderNames.ACCEPT_ENCODING, "br"));
+        assertThat(HttpEncoders.getWrapperForRequest(request)).isEqualTo(HttpEncodingType.BROTLI);
+
+        when(request.headers()).thenReturn(HttpHeaders.of(HttpHeaderNames.ACCEPT_ENCODING, "zstd"));
+        assertThat(HttpEncoders.getWrapperForRequest(request)).isEqualTo(HttpEncodingType.ZSTD);
+
+        when(request.headers()).thenReturn(
+                HttpHeaders.of(HttpHeaderNames.ACCEPT_ENCODING, "gzip, deflate, br, zstd"));
+        assertThat(HttpEncoders.getWrapperForRequest(request)).isEqualTo(HttpEncodingType.ZSTD);
+    }
+
+    @Test
+    public void acceptEncodingQValues() {
+        assumeBrotliAndZstdAvailable();
+
+        when(request.headers()).thenReturn(
+                HttpHeaders.of(HttpHeaderNames.ACCEPT_ENCODING, "zstd;q=0.5, br;q=0.8, gzip;q=0.7"));
+        assertThat(HttpEncoders.getWrapperForRequest(request)).isEqualTo(HttpEncodingType.BROTLI);
+
+        when(request.headers()).thenReturn(
+                HttpHeaders.of(HttpHeaderNames.ACCEPT_ENCODING, "zstd;q=0, deflate;q=0.1"));
+        assertThat(HttpEncoders.getWrapperForRequest(request)).isEqualTo(HttpEncodingType.DEFLATE);
+    }
+
+    @Test
+    public void acceptEncodingStar() {
+        when(request.headers()).thenReturn(HttpHeaders.of(HttpHeaderNames.ACCEPT_ENCODING, "*"));
+        assertThat(HttpEncoders.getWrapperForRequest(request)).isEqualTo(HttpEncodingType.GZIP);
+
+        when(request.headers()).thenReturn(HttpHeaders.of(HttpHeaderNames.ACCEPT_ENCODING, "gzip;q=0, *"));
+        assertThat(HttpEncoders.getWrapperForRequest(request)).isEqualTo(HttpEncodingType.DEFLATE);
+    }
+
     @Test
     public void acceptEncodingUnknown() {
         when(request.headers()).thenReturn(HttpHeaders.of(HttpHeaderNames.ACCEPT_ENCODING, "piedpiper"));
         assertThat(HttpEncoders.getWrapperForRequest(request)).isNull();
     }
 
+    private static void assumeBrotliAndZstdAvailable() {
+        // The native library of Brotli4j in the test class path is only for Linux on x86_64.
+        assumeTrue("brotli4j available", HttpEncoders.isAvailable(HttpEncodingType.BROTLI));
+        assumeTrue("zstd-jni available", HttpEncoders.isAvailable(HttpEncodingType.ZSTD));
+    }
 }
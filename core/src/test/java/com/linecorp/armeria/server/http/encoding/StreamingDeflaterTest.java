@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http.encoding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+
+import com.linecorp.armeria.common.http.HttpData;
+import com.linecorp.armeria.internal.http.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+
+public class StreamingDeflaterTest {
+
+    private static final String FIRST = Strings.repeat("Armeria ", 10000);
+    private static final String SECOND = "is awesome!";
+
+    @Test
+    public void gzip() throws Exception {
+        final byte[] encoded = encode(HttpEncodingType.GZIP);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+            assertThat(new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8))
+                    .isEqualTo(FIRST + SECOND);
+        }
+    }
+
+    @Test
+    public void deflate() throws Exception {
+        final byte[] encoded = encode(HttpEncodingType.DEFLATE);
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(encoded))) {
+            assertThat(new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8))
+                    .isEqualTo(FIRST + SECOND);
+        }
+    }
+
+    @Test
+    public void deflaterIsReused() throws Exception {
+        // Encoding the same content with a reused Deflater must yield the same output.
+        assertThat(encode(HttpEncodingType.GZIP)).isEqualTo(encode(HttpEncodingType.GZIP));
+    }
+
+    private static byte[] encode(HttpEncodingType encodingType) throws Exception {
+        final ByteBufAllocator alloc = ByteBufAllocator.DEFAULT;
+        final StreamingDeflater deflater = new StreamingDeflater(encodingType, alloc);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            // A heap array and a pooled direct buffer.
+            final ByteBuf direct = alloc.directBuffer().writeBytes(SECOND.getBytes(StandardCharsets.UTF_8));
+            write(out, deflater.encode(HttpData.ofUtf8(FIRST)));
+            write(out, deflater.encode(new ByteBufHttpData(direct, false)));
+            assertThat(direct.refCnt()).isZero();
+            write(out, deflater.finish());
+        } finally {
+            deflater.close();
+        }
+        return out.toByteArray();
+    }
+
+    private static void write(ByteArrayOutputStream out, ByteBuf buf) throws Exception {
+        try {
+            out.write(ByteBufUtil.getBytes(buf));
+        } finally {
+            buf.release();
+        }
+    }
+}
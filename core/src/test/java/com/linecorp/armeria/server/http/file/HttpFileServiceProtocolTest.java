@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.http.file;
+
+import static com.linecorp.armeria.common.http.HttpSessionProtocols.H1;
+import static com.linecorp.armeria.common.http.HttpSessionProtocols.H1C;
+import static com.linecorp.armeria.common.http.HttpSessionProtocols.H2;
+import static com.linecorp.armeria.common.http.HttpSessionProtocols.H2C;
+import static com.linecorp.armeria.common.http.HttpSessionProtocols.HTTP;
+import static com.linecorp.armeria.common.http.HttpSessionProtocols.HTTPS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.AfterClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+
+import com.linecorp.armeria.client.ClientFactory;
+import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.client.SessionOption;
+import com.linecorp.armeria.client.SessionOptions;
+import com.linecorp.armeria.client.http.HttpClient;
+import com.linecorp.armeria.client.http.HttpClientFactory;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.common.http.AggregatedHttpMessage;
+import com.linecorp.armeria.common.http.HttpHeaderNames;
+import com.linecorp.armeria.common.http.HttpHeaders;
+import com.linecorp.armeria.common.http.HttpMethod;
+import com.linecorp.armeria.common.http.HttpStatus;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.http.encoding.HttpEncodingService;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+
+/**
+ * Makes sure the uncached files are served correctly on all protocols, i.e. as file regions on cleartext
+ * HTTP/1 and as chunks read into buffers on TLS and HTTP/2.
+ */
+@RunWith(Parameterized.class)
+public class HttpFileServiceProtocolTest {
+
+    private static final ClientFactory clientFactory = new HttpClientFactory(SessionOptions.of(
+            SessionOption.TRUST_MANAGER_FACTORY.newValue(InsecureTrustManagerFactory.INSTANCE)));
+
+    // Larger than a file region and not a multiple of the chunk size.
+    private static final byte[] content = new byte[3 * 1024 * 1024 + 12345];
+    private static final File tmpDir;
+
+    static {
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+
+        try {
+            tmpDir = Files.createTempDirectory("armeria-test.").toFile();
+            Files.write(new File(tmpDir, "large.txt").toPath(), content);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.port(0, HTTP);
+            sb.port(0, HTTPS);
+
+            final SelfSignedCertificate ssc = new SelfSignedCertificate();
+            sb.sslContext(HTTPS, ssc.certificate(), ssc.privateKey());
+
+            sb.serviceUnder("/fs/", HttpFileService.forFileSystem(tmpDir.toPath()));
+            sb.serviceUnder("/encoded/",
+                            HttpFileService.forFileSystem(tmpDir.toPath())
+                                           .decorate(delegate -> new HttpEncodingService(delegate)));
+        }
+    };
+
+    @Parameters(name = "{index}: {0}")
+    public static Collection<SessionProtocol> parameters() {
+        return ImmutableList.of(H1C, H1, H2C, H2);
+    }
+
+    @AfterClass
+    public static void destroy() throws Exception {
+        CompletableFuture.runAsync(clientFactory::close);
+        Files.delete(new File(tmpDir, "large.txt").toPath());
+        Files.delete(tmpDir.toPath());
+    }
+
+    private final SessionProtocol protocol;
+
+    public HttpFileServiceProtocolTest(SessionProtocol protocol) {
+        this.protocol = protocol;
+    }
+
+    @Test
+    public void largeFile() throws Exception {
+        final AggregatedHttpMessage res = client().get("/fs/large.txt").aggregate().get();
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.headers().getInt(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo(content.length);
+        assertThat(res.content().array()).isEqualTo(content);
+    }
+
+    @Test
+    public void largeFileRange() throws Exception {
+        final AggregatedHttpMessage res = client().execute(
+                HttpHeaders.of(HttpMethod.GET, "/fs/large.txt")
+                           .set(HttpHeaderNames.RANGE, "bytes=100000-1200000")).aggregate().get();
+        assertThat(res.status()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(res.headers().get(HttpHeaderNames.CONTENT_RANGE))
+                .isEqualTo("bytes 100000-1200000/" + content.length);
+        assertThat(res.content().array()).isEqualTo(Arrays.copyOfRange(content, 100000, 1200001));
+    }
+
+    @Test
+    public void largeFileEncodedByDecorator() throws Exception {
+        // The decorator reads the content of the file regions on cleartext HTTP/1.
+        final AggregatedHttpMessage res = client().execute(
+                HttpHeaders.of(HttpMethod.GET, "/encoded/large.txt")
+                           .set(HttpHeaderNames.ACCEPT_ENCODING, "gzip")).aggregate().get();
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("gzip");
+        final byte[] decoded = ByteStreams.toByteArray(
+                new GZIPInputStream(new ByteArrayInputStream(res.content().array())));
+        assertThat(decoded).isEqualTo(content);
+    }
+
+    private HttpClient client() {
+        final int port = protocol.isTls() ? server.httpsPort() : server.httpPort();
+        return Clients.newClient(clientFactory, "none+" + protocol.uriText() + "://127.0.0.1:" + port,
+                                 HttpClient.class);
+    }
+}
@@ -30,6 +30,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.zip.GZIPInputStream;
 
@@ -59,6 +60,14 @@ public class HttpFileServiceTest {
             HttpFileServiceTest.class.getPackage().getName().replace('.', '/') + '/';
     private static final File tmpDir;
 
+    private static final HttpFileService cachingService =
+            HttpFileService.forClassPath(baseResourceDir + "foo");
+
+    private static final HttpFileService compressedCachingService =
+            HttpFileServiceBuilder.forClassPath(baseResourceDir + "foo")
+                                  .serveCompressedFiles(true)
+                                  .build();
+
     private static final Server server;
     private static int httpPort;
 
@@ -76,6 +85,9 @@ public class HttpFileServiceTest {
                     "/fs/",
                     HttpFileService.forFileSystem(tmpDir.toPath()).decorate(LoggingService.newDecorator()));
 
+            sb.serviceUnder("/caching/", cachingService);
+            sb.serviceUnder("/compressed-caching/", compressedCachingService);
+
             sb.serviceUnder(
                     "/compressed/",
                     HttpFileServiceBuilder.forClassPath(baseResourceDir + "foo")
@@ -293,6 +305,157 @@ public class HttpFileServiceTest {
         }
     }
 
+    @Test
+    public void testCacheStats() throws Exception {
+        try (CloseableHttpClient hc = HttpClients.createMinimal()) {
+            for (int i = 0; i < 3; i++) {
+                try (CloseableHttpResponse res = hc.execute(new HttpGet(newUri("/caching/foo.txt")))) {
+                    assert200Ok(res, "text/plain", "foo");
+                }
+            }
+        }
+
+        final HttpFileServiceCacheStats stats = cachingService.cacheStats();
+        assertThat(stats.missCount(), is(1L));
+        assertThat(stats.hitCount(), is(2L));
+        assertThat(stats.evictionCount(), is(0L));
+        assertThat(stats.entryCount(), is(1L));
+        assertThat(stats.contentSizeBytes(), is(3L));
+    }
+
+    @Test
+    public void testCacheStatsWithoutCompressedFiles() throws Exception {
+        try (CloseableHttpClient hc = HttpClients.createMinimal()) {
+            for (int i = 0; i < 3; i++) {
+                final HttpGet req = new HttpGet(newUri("/compressed-caching/index.html"));
+                req.setHeader("Accept-Encoding", "gzip, br");
+                try (CloseableHttpResponse res = hc.execute(req)) {
+                    assert200Ok(res, "text/html", "<html><body></body></html>");
+                }
+            }
+        }
+
+        // The missing 'index.html.gz' and 'index.html.br' are cached as well, but they are not counted
+        // as misses because only the content of 'index.html' is served.
+        final HttpFileServiceCacheStats stats = compressedCachingService.cacheStats();
+        assertThat(stats.missCount(), is(1L));
+        assertThat(stats.hitCount(), is(2L));
+        assertThat(stats.evictionCount(), is(0L));
+        assertThat(stats.entryCount(), is(3L));
+        assertThat(stats.contentSizeBytes(), is(27L));
+    }
+
+    @Test
+    public void testFileSystemGetLargeFile() throws Exception {
+        // A file larger than 'maxCacheEntrySizeBytes' is not cached but transferred as a file region.
+        final File largeFile = new File(tmpDir, "large.txt");
+        final byte[] expectedContent = new byte[256 * 1024];
+        for (int i = 0; i < expectedContent.length; i++) {
+            expectedContent[i] = (byte) ('a' + i % 26);
+        }
+        Files.write(largeFile.toPath(), expectedContent);
+
+        try (CloseableHttpClient hc = HttpClients.createMinimal()) {
+            HttpUriRequest req = new HttpGet(newUri("/fs/large.txt"));
+            try (CloseableHttpResponse res = hc.execute(req)) {
+                assertStatusLine(res, "HTTP/1.1 200 OK");
+                assertThat(res.getFirstHeader(HttpHeaders.CONTENT_LENGTH).getValue(),
+                           is(String.valueOf(expectedContent.length)));
+                assertThat(EntityUtils.toByteArray(res.getEntity()), is(expectedContent));
+            }
+        }
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        try (CloseableHttpClient hc = HttpClients.createMinimal()) {
+            HttpUriRequest req = new HttpGet(newUri("/foo.txt"));
+            req.setHeader(HttpHeaders.RANGE, "bytes=1-");
+            try (CloseableHttpResponse res = hc.execute(req)) {
+                assertStatusLine(res, "HTTP/1.1 206 Partial Content");
+                assertThat(res.getFirstHeader(HttpHeaders.CONTENT_RANGE).getValue(), is("bytes 1-2/3"));
+                assertThat(EntityUtils.toString(res.getEntity()), is("oo"));
+            }
+
+            req = new HttpGet(newUri("/foo.txt"));
+            req.setHeader(HttpHeaders.RANGE, "bytes=-1");
+            try (CloseableHttpResponse res = hc.execute(req)) {
+                assertStatusLine(res, "HTTP/1.1 206 Partial Content");
+                assertThat(res.getFirstHeader(HttpHeaders.CONTENT_RANGE).getValue(), is("bytes 2-2/3"));
+                assertThat(EntityUtils.toString(res.getEntity()), is("o"));
+            }
+
+            // Unsatisfiable range
+            req = new HttpGet(newUri("/foo.txt"));
+            req.setHeader(HttpHeaders.RANGE, "bytes=3-");
+            try (CloseableHttpResponse res = hc.execute(req)) {
+                assertStatusLine(res, "HTTP/1.1 416 Requested Range Not Satisfiable");
+                assertThat(res.getFirstHeader(HttpHeaders.CONTENT_RANGE).getValue(), is("bytes */3"));
+            }
+
+            // Malformed range
+            req = new HttpGet(newUri("/foo.txt"));
+            req.setHeader(HttpHeaders.RANGE, "bytes=2-1");
+            try (CloseableHttpResponse res = hc.execute(req)) {
+                assert200Ok(res, "text/plain", "foo");
+            }
+
+            // Mismatching 'If-Range'
+            req = new HttpGet(newUri("/foo.txt"));
+            req.setHeader(HttpHeaders.RANGE, "bytes=1-");
+            req.setHeader(HttpHeaders.IF_RANGE, "\"some-etag\"");
+            try (CloseableHttpResponse res = hc.execute(req)) {
+                assert200Ok(res, "text/plain", "foo");
+            }
+        }
+    }
+
+    @Test
+    public void testMultipleRanges() throws Exception {
+        try (CloseableHttpClient hc = HttpClients.createMinimal()) {
+            HttpUriRequest req = new HttpGet(newUri("/foo.txt"));
+            req.setHeader(HttpHeaders.RANGE, "bytes=0-0,2-2");
+            try (CloseableHttpResponse res = hc.execute(req)) {
+                assertStatusLine(res, "HTTP/1.1 206 Partial Content");
+                final String contentType = res.getFirstHeader(HttpHeaders.CONTENT_TYPE).getValue();
+                assertThat(contentType, startsWith("multipart/byteranges; boundary="));
+                final String boundary = contentType.substring(contentType.indexOf('=') + 1);
+                assertThat(EntityUtils.toString(res.getEntity()),
+                           is("\r\n--" + boundary + "\r\n" +
+                              "Content-Type: text/plain; charset=utf-8\r\n" +
+                              "Content-Range: bytes 0-0/3\r\n\r\n" +
+                              'f' +
+                              "\r\n--" + boundary + "\r\n" +
+                              "Content-Type: text/plain; charset=utf-8\r\n" +
+                              "Content-Range: bytes 2-2/3\r\n\r\n" +
+                              'o' +
+                              "\r\n--" + boundary + "--\r\n"));
+            }
+        }
+    }
+
+    @Test
+    public void testFileSystemGetLargeFileRange() throws Exception {
+        final File largeFile = new File(tmpDir, "large-range.txt");
+        final byte[] content = new byte[256 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        Files.write(largeFile.toPath(), content);
+
+        try (CloseableHttpClient hc = HttpClients.createMinimal()) {
+            final HttpUriRequest req = new HttpGet(newUri("/fs/large-range.txt"));
+            req.setHeader(HttpHeaders.RANGE, "bytes=100000-199999");
+            try (CloseableHttpResponse res = hc.execute(req)) {
+                assertStatusLine(res, "HTTP/1.1 206 Partial Content");
+                assertThat(res.getFirstHeader(HttpHeaders.CONTENT_RANGE).getValue(),
+                           is("bytes 100000-199999/" + content.length));
+                assertThat(EntityUtils.toByteArray(res.getEntity()),
+                           is(Arrays.copyOfRange(content, 100000, 200000)));
+            }
+        }
+    }
+
     private static String assert200Ok(
             CloseableHttpResponse res, String expectedContentType, String expectedContent) throws Exception {
 
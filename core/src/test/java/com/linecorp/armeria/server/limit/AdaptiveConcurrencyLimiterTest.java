@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.testing.FakeTicker;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private final FakeTicker ticker = new FakeTicker();
+
+    private AdaptiveConcurrencyLimiter newLimiter(int initialLimit) {
+        return new AdaptiveConcurrencyLimiterBuilder().initialLimit(initialLimit)
+                                                      .minLimit(1)
+                                                      .maxLimit(100)
+                                                      .sampleWindowMillis(1)
+                                                      .minSamplesPerWindow(1)
+                                                      .ticker(ticker)
+                                                      .build();
+    }
+
+    @Test
+    public void rejectOverLimit() {
+        final AdaptiveConcurrencyLimiter limiter = newLimiter(2);
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.numActiveRequests()).isEqualTo(2);
+
+        limiter.release();
+        assertThat(limiter.numActiveRequests()).isOne();
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    public void increaseWhileLatencyIsFlat() {
+        final AdaptiveConcurrencyLimiter limiter = newLimiter(10);
+        for (int i = 0; i < 10; i++) {
+            runWindow(limiter, limiter.limit(), 10);
+        }
+        assertThat(limiter.limit()).isGreaterThan(10);
+    }
+
+    @Test
+    public void doNotIncreaseWhileUnderutilized() {
+        final AdaptiveConcurrencyLimiter limiter = newLimiter(10);
+        for (int i = 0; i < 10; i++) {
+            runWindow(limiter, 2, 10);
+        }
+        assertThat(limiter.limit()).isEqualTo(10);
+    }
+
+    @Test
+    public void decreaseWhenLatencyGrows() {
+        final AdaptiveConcurrencyLimiter limiter = newLimiter(20);
+        runWindow(limiter, 20, 10);
+        final int limitBeforeOverload = limiter.limit();
+
+        for (int i = 0; i < 5; i++) {
+            runWindow(limiter, limiter.limit(), 100);
+        }
+        assertThat(limiter.limit()).isLessThan(limitBeforeOverload);
+    }
+
+    /**
+     * Serves {@code numRequests} requests concurrently, each of which takes {@code rttMillis}.
+     */
+    private void runWindow(AdaptiveConcurrencyLimiter limiter, int numRequests, long rttMillis) {
+        final long startTimeNanos = limiter.startTimeNanos();
+        for (int i = 0; i < numRequests; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        ticker.advance(rttMillis, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < numRequests; i++) {
+            limiter.release(startTimeNanos);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.client.http.HttpClient;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.SerializationFormat;
+import com.linecorp.armeria.common.http.AggregatedHttpMessage;
+import com.linecorp.armeria.common.http.DefaultHttpResponse;
+import com.linecorp.armeria.common.http.HttpSessionProtocols;
+import com.linecorp.armeria.common.http.HttpStatus;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+public class ConcurrencyLimitingServiceTest {
+
+    private static final AdaptiveConcurrencyLimiter limiter =
+            new AdaptiveConcurrencyLimiterBuilder().initialLimit(1).minLimit(1).maxLimit(1).build();
+
+    private static final BlockingQueue<DefaultHttpResponse> pendingResponses = new LinkedBlockingQueue<>();
+
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.port(0, HttpSessionProtocols.HTTP);
+            sb.service("/", (ctx, req) -> {
+                final DefaultHttpResponse res = new DefaultHttpResponse();
+                pendingResponses.add(res);
+                return res;
+            }).decorator(ConcurrencyLimitingService.newDecorator(limiter));
+        }
+    };
+
+    @Test
+    public void rejectOverLimit() throws Exception {
+        final HttpClient client = Clients.newClient(server.uri(SerializationFormat.NONE, "/"),
+                                                    HttpClient.class);
+
+        final CompletableFuture<AggregatedHttpMessage> first = client.get("/").aggregate();
+        final DefaultHttpResponse firstRes = pendingResponses.take();
+        assertThat(limiter.numActiveRequests()).isOne();
+
+        // Rejected without reaching the service.
+        final AggregatedHttpMessage second = client.get("/").aggregate().join();
+        assertThat(second.status()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(pendingResponses).isEmpty();
+
+        firstRes.respond(HttpStatus.OK, MediaType.PLAIN_TEXT_UTF_8, "OK");
+        assertThat(first.join().status()).isEqualTo(HttpStatus.OK);
+        await().until(() -> limiter.numActiveRequests() == 0);
+
+        // Accepted again after the first request is done.
+        final CompletableFuture<AggregatedHttpMessage> third = client.get("/").aggregate();
+        pendingResponses.take().respond(HttpStatus.OK, MediaType.PLAIN_TEXT_UTF_8, "OK");
+        assertThat(third.join().status()).isEqualTo(HttpStatus.OK);
+    }
+}
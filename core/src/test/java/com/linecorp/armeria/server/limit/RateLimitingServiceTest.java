@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.client.http.HttpClient;
+import com.linecorp.armeria.common.SerializationFormat;
+import com.linecorp.armeria.common.http.AggregatedHttpMessage;
+import com.linecorp.armeria.common.http.HttpHeaderNames;
+import com.linecorp.armeria.common.http.HttpHeaders;
+import com.linecorp.armeria.common.http.HttpMethod;
+import com.linecorp.armeria.common.http.HttpRequest;
+import com.linecorp.armeria.common.http.HttpResponse;
+import com.linecorp.armeria.common.http.HttpSessionProtocols;
+import com.linecorp.armeria.common.http.HttpStatus;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.Service;
+import com.linecorp.armeria.server.limit.RateLimitingService.KeySelector;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+import io.netty.util.AsciiString;
+
+public class RateLimitingServiceTest {
+
+    private static final AsciiString USER = AsciiString.of("x-user");
+
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            final Service<HttpRequest, HttpResponse> ok = (ctx, req) -> HttpResponse.of(HttpStatus.OK);
+
+            sb.port(0, HttpSessionProtocols.HTTP);
+            sb.service("/per-key", ok.decorate(
+                    new RateLimitingServiceBuilder().perKeyLimit(KeySelector.header(USER), 1.0 / 60)
+                                                    .newDecorator()));
+            sb.service("/global", ok.decorate(
+                    new RateLimitingServiceBuilder().globalLimit(1.0 / 60, 2).newDecorator()));
+            sb.service("/max-keys", ok.decorate(
+                    new RateLimitingServiceBuilder().perKeyLimit(KeySelector.header(USER), 1.0 / 60)
+                                                    .maxKeys(1)
+                                                    .newDecorator()));
+        }
+    };
+
+    @Test
+    public void perKeyLimit() {
+        assertThat(get("/per-key", "alice").status()).isEqualTo(HttpStatus.OK);
+
+        final AggregatedHttpMessage rejected = get("/per-key", "alice");
+        assertThat(rejected.status()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(rejected.headers().getInt(HttpHeaderNames.RETRY_AFTER)).isBetween(1, 60);
+
+        // Other keys and the requests without a key are not affected.
+        assertThat(get("/per-key", "bob").status()).isEqualTo(HttpStatus.OK);
+        assertThat(get("/per-key", null).status()).isEqualTo(HttpStatus.OK);
+        assertThat(get("/per-key", null).status()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    public void globalLimit() {
+        assertThat(get("/global", "alice").status()).isEqualTo(HttpStatus.OK);
+        assertThat(get("/global", "bob").status()).isEqualTo(HttpStatus.OK);
+        assertThat(get("/global", "charlie").status()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    public void maxKeys() {
+        assertThat(get("/max-keys", "alice").status()).isEqualTo(HttpStatus.OK);
+
+        // The keys which do not fit share a bucket.
+        assertThat(get("/max-keys", "bob").status()).isEqualTo(HttpStatus.OK);
+        assertThat(get("/max-keys", "charlie").status()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+
+        // The bucket of a live key is not discarded for the new keys.
+        assertThat(get("/max-keys", "alice").status()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    private static AggregatedHttpMessage get(String path, String user) {
+        final HttpClient client = Clients.newClient(server.uri(SerializationFormat.NONE, "/"),
+                                                    HttpClient.class);
+        final HttpHeaders headers = HttpHeaders.of(HttpMethod.GET, path);
+        if (user != null) {
+            headers.set(USER, user);
+        }
+        return client.execute(headers).aggregate().join();
+    }
+}
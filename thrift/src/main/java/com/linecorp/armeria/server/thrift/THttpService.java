@@ -73,6 +73,7 @@ import com.linecorp.armeria.server.ServiceRequestContext;
 import com.linecorp.armeria.server.http.AbstractHttpService;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
 
 /**
  * A {@link Service} that handles a Thrift call.
@@ -415,7 +416,7 @@ public class THttpService extends AbstractHttpService {
 
         ctx.logBuilder().serializationFormat(serializationFormat);
         ctx.logBuilder().deferRequestContent();
-        req.aggregate().handle(voidFunction((aReq, cause) -> {
+        req.aggregateWithPooledObjects(ctx.alloc()).handle(voidFunction((aReq, cause) -> {
             if (cause != null) {
                 res.respond(HttpStatus.INTERNAL_SERVER_ERROR,
                             MediaType.PLAIN_TEXT_UTF_8, Throwables.getStackTraceAsString(cause));
@@ -479,11 +480,21 @@ public class THttpService extends AbstractHttpService {
             ServiceRequestContext ctx, AggregatedHttpMessage req,
             SerializationFormat serializationFormat, HttpResponseWriter res) {
 
-        final TProtocol inProto = FORMAT_TO_THREAD_LOCAL_INPUT_PROTOCOL.get(serializationFormat).get();
-        inProto.reset();
-        final TMemoryInputTransport inTransport = (TMemoryInputTransport) inProto.getTransport();
         final HttpData content = req.content();
-        inTransport.reset(content.array(), content.offset(), content.length());
+        final TProtocol inProto;
+        final TMemoryInputTransport inTransport;
+        if (content instanceof ByteBufHttpData) {
+            // Decode the pooled content without copying it into a heap array. A read-only view hides
+            // the backing array, so that the decoded arguments never refer to the pooled memory.
+            inProto = ThriftProtocolFactories.get(serializationFormat).getProtocol(
+                    new TByteBufTransport(((ByteBufHttpData) content).buf().asReadOnly()));
+            inTransport = null;
+        } else {
+            inProto = FORMAT_TO_THREAD_LOCAL_INPUT_PROTOCOL.get(serializationFormat).get();
+            inProto.reset();
+            inTransport = (TMemoryInputTransport) inProto.getTransport();
+            inTransport.reset(content.array(), content.offset(), content.length());
+        }
 
         final int seqId;
         final ThriftFunction f;
@@ -557,7 +568,10 @@ public class THttpService extends AbstractHttpService {
                 return;
             }
         } finally {
-            inTransport.clear();
+            if (inTransport != null) {
+                inTransport.clear();
+            }
+            ReferenceCountUtil.safeRelease(content);
             ctx.logBuilder().requestContent(null, null);
         }
 